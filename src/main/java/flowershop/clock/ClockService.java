@@ -2,20 +2,18 @@ package flowershop.clock;
 
 import flowershop.finances.CashRegister;
 import flowershop.finances.CashRegisterRepository;
-import flowershop.product.Flower;
-import flowershop.product.ProductService;
-import flowershop.services.MonthlyBillingService;
 import org.salespointframework.catalog.Product;
+import org.salespointframework.quantity.Quantity;
 import org.salespointframework.time.Interval;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
@@ -25,20 +23,21 @@ import java.util.Set;
 public class ClockService {
 	private final CashRegisterRepository cashRegisterRepository;
 
-	private final MonthlyBillingService monthlyBillingService;
+	private final ApplicationEventPublisher eventPublisher;
 
-	private final ProductService productService;
+	private final PendingOrderRepository pendingOrderRepository;
 
-	private Set<PendingOrder> newPendingOrdersSet;
-
-	Map<Flower, Integer> todaysGoods;
+	/**
+	 * the clock as stored in the register, null until it is read for the first time
+	 */
+	private final AtomicReference<ClockState> state = new AtomicReference<>();
 
 	public ClockService(CashRegisterRepository cashRegisterRepository,
-						MonthlyBillingService monthlyBillingService,
-						ProductService productService) {
+						ApplicationEventPublisher eventPublisher,
+						PendingOrderRepository pendingOrderRepository) {
 		this.cashRegisterRepository = cashRegisterRepository;
-		this.monthlyBillingService = monthlyBillingService;
-		this.productService = productService;
+		this.eventPublisher = eventPublisher;
+		this.pendingOrderRepository = pendingOrderRepository;
 	}
 
 	/**
@@ -49,73 +48,74 @@ public class ClockService {
 			.orElseThrow(() -> new IllegalStateException("CashRegister instance not found"));
 	}
 
+	/**
+	 * The clock is only read from the register once, afterwards it only changes through {@link #openOrClose()}
+	 *
+	 * @return the current state of the clock
+	 */
+	private ClockState getState() {
+		ClockState current = state.get();
+		if (current == null) {
+			state.compareAndSet(null, ClockState.of(getCashRegister()));
+			current = state.get();
+		}
+		return current;
+	}
+
 	/**
 	 * @return the date the is currently in the world of Frau Floris
 	 */
 	public LocalDate getCurrentDate() {
-		CashRegister cashRegister = getCashRegister();
-		if (cashRegister == null) {
-			throw new IllegalStateException("CashRegister is not initialized");
-		}
-		return cashRegister.getInGameDate();
+		return getState().inGameDate();
 	}
 
 	/**
 	 * @return current "in-game" time (current in-game date and some time after 09:00)
 	 */
 	public LocalDateTime now() {
-		CashRegister cashRegister = getCashRegister();
-		if (cashRegister.getInGameDate() == null) {
+		ClockState current = getState();
+		if (current.inGameDate() == null) {
 			return LocalDateTime.of(LocalDate.now(), LocalTime.of(9, 0));
 		}
-		return cashRegister
-			.getInGameDate()
+		return current
+			.inGameDate()
 			.atStartOfDay()
 			.plusHours(9)
-			.plus(Interval.from(cashRegister.getNewDayStarted()).to(LocalDateTime.now()).toDuration());
+			.plus(Interval.from(current.newDayStarted()).to(LocalDateTime.now()).toDuration());
 	}
 
 	public boolean isOpen() {
-		CashRegister cashRegister = getCashRegister();
-		if (cashRegister == null) {
-			throw new IllegalStateException("CashRegister is not initialized");
-		}
-		return cashRegister.getOpen();
+		return getState().open();
 	}
 
 	/**
 	 * Toggles the state of the shop (opened/closed)
 	 */
-	public void openOrClose() {
+	public synchronized void openOrClose() {
 		CashRegister cashRegister = getCashRegister();
 		cashRegister.setOpen(!cashRegister.getOpen());
+		LocalDate endedDay = null;
 		if (cashRegister.getOpen()) {
-			if (!cashRegister.getInGameDate().getMonth().equals(this.nextWorkingDay().getMonth())) {
-				monthlyBillingService.addMonthlyCharges();
-			}
-			cashRegister.setInGameDate(this.nextWorkingDay());
+			endedDay = cashRegister.getInGameDate();
+			cashRegister.setInGameDate(ClockService.nextWorkingDay(endedDay));
 			cashRegister.setNewDayStarted(LocalDateTime.now());
-			this.newPendingOrdersSet = new HashSet<>();
-			this.todaysGoods = new HashMap<>();
-			updateLists(cashRegister);
-			productService.addDeliveredFlowersFromWholesaler(todaysGoods);
-			cashRegister.setPendingOrders(newPendingOrdersSet); // Only the ones that are later are added to the waiting list
 		}
 		cashRegisterRepository.save(cashRegister);
+		state.set(ClockState.of(cashRegister));
+		if (endedDay != null) {
+			// billing, deliveries and the rest of the rollover run in the background, see DayRolloverService
+			eventPublisher.publishEvent(new DayEndedEvent(endedDay));
+		}
 	}
 
-	private void updateLists(CashRegister cashRegister) {
-		for (PendingOrder i : cashRegister.getPendingOrders()) {
-			if (i.getDueDate().equals(getCurrentDate()) || i.getDueDate().isBefore(getCurrentDate())) {
-				for (Product flower : i.getItemQuantityMap().keySet()) {
-					// The ones that will be delivered today
-					todaysGoods.put((Flower) flower, i.getItemQuantityMap().get(flower).getAmount().intValue());
-				}
-			} else {
-				// The ones, that will be later
-				newPendingOrdersSet.add(i);
-			}
-		}
+	/**
+	 * Queues a delivery of the wholesaler until its due date
+	 *
+	 * @param items    the flowers and their quantities
+	 * @param dueDate  the day the delivery arrives
+	 */
+	public void scheduleDelivery(Map<Product, Quantity> items, LocalDate dueDate) {
+		pendingOrderRepository.save(new PendingOrder(new HashMap<>(items), dueDate));
 	}
 
 	/**
@@ -0,0 +1,20 @@
+package flowershop.clock;
+
+import flowershop.finances.CashRegister;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * The state of the shop clock at one moment. Is never changed, {@link ClockService} swaps it for a new one.
+ *
+ * @param inGameDate    the date in the world of Frau Floris, may be null
+ * @param newDayStarted the real moment the current in-game day started
+ * @param open          whether the shop is open
+ */
+record ClockState(LocalDate inGameDate, LocalDateTime newDayStarted, boolean open) {
+
+	static ClockState of(CashRegister cashRegister) {
+		return new ClockState(cashRegister.getInGameDate(), cashRegister.getNewDayStarted(), cashRegister.getOpen());
+	}
+}
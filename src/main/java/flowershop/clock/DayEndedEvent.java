@@ -0,0 +1,23 @@
+package flowershop.clock;
+
+import java.time.LocalDate;
+
+/**
+ * Is published by the {@link ClockService}, when the shop opens on a new day.
+ * At this moment no more transactions can be made on the day that ended.
+ */
+public class DayEndedEvent {
+
+	private final LocalDate day;
+
+	public DayEndedEvent(LocalDate day) {
+		this.day = day;
+	}
+
+	/**
+	 * @return the in-game day that has just ended
+	 */
+	public LocalDate getDay() {
+		return day;
+	}
+}
@@ -0,0 +1,184 @@
+package flowershop.clock;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolls the shop over to a new day in the background, so opening the shop doesn't have to wait for it.
+ * <p>
+ * When a day ended, a checkpoint is stored for each {@link RolloverStage} and the stages are run one after
+ * another on a single worker. A stage that is done is never run again for that day. If a stage fails, the
+ * later ones wait and the rollover is resumed later from that stage, also after a restart.
+ */
+@Service
+public class DayRolloverService {
+
+	static final int MAX_ATTEMPTS = 5;
+	static final String TIMER = "flowershop.rollover.stage";
+
+	private static final Logger log = LoggerFactory.getLogger(DayRolloverService.class);
+
+	private final List<RolloverStage> stages;
+	private final RolloverCheckpointRepository checkpoints;
+	private final MeterRegistry meterRegistry;
+	private final ExecutorService worker;
+
+	/**
+	 * days, whose rollover is queued or running, they aren't queued a second time
+	 */
+	private final Set<LocalDate> pendingDays = ConcurrentHashMap.newKeySet();
+
+	public DayRolloverService(List<RolloverStage> stages,
+							  RolloverCheckpointRepository checkpoints,
+							  MeterRegistry meterRegistry) {
+		this.stages = List.copyOf(stages);
+		this.checkpoints = checkpoints;
+		this.meterRegistry = meterRegistry;
+		this.worker = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "day-rollover");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Stores the checkpoints of the ended day right away, so the rollover is resumed even if the application
+	 * stops before the worker gets to it, and queues the rollover
+	 *
+	 * @param event carries the day that has just ended
+	 */
+	@EventListener
+	public void onDayEnded(DayEndedEvent event) {
+		LocalDate endedDay = event.getDay();
+		if (endedDay == null) {
+			return;
+		}
+		for (RolloverStage stage : stages) {
+			if (checkpoints.findByEndedDayAndStage(endedDay, stage.getName()).isEmpty()) {
+				checkpoints.save(new RolloverCheckpoint(endedDay, stage.getName()));
+			}
+		}
+		queue(endedDay);
+	}
+
+	/**
+	 * Picks up rollovers that were interrupted or failed, oldest day first.
+	 * Days that are still queued or running are left alone.
+	 */
+	@Scheduled(fixedDelayString = "${flowershop.rollover.retry-delay:60000}")
+	public void resumeUnfinished() {
+		for (LocalDate endedDay : checkpoints.findUnfinishedDays(MAX_ATTEMPTS)) {
+			queue(endedDay);
+		}
+	}
+
+	private void queue(LocalDate endedDay) {
+		if (!pendingDays.add(endedDay)) {
+			return;
+		}
+		try {
+			worker.execute(() -> {
+				try {
+					run(endedDay);
+				} finally {
+					pendingDays.remove(endedDay);
+				}
+			});
+		} catch (RuntimeException e) {
+			pendingDays.remove(endedDay);
+			throw e;
+		}
+	}
+
+	/**
+	 * Runs the stages that are not done yet for the given day
+	 *
+	 * @param endedDay the day that has ended
+	 * @return true if all stages are done
+	 */
+	synchronized boolean run(LocalDate endedDay) {
+		LocalDate newDay = ClockService.nextWorkingDay(endedDay);
+		for (RolloverStage stage : stages) {
+			RolloverCheckpoint checkpoint = checkpoints.findByEndedDayAndStage(endedDay, stage.getName())
+				.orElseGet(() -> new RolloverCheckpoint(endedDay, stage.getName()));
+			if (checkpoint.isDone()) {
+				continue;
+			}
+			if (checkpoint.getAttempts() >= MAX_ATTEMPTS) {
+				log.error("Rollover after {} gave up at stage {}: {}", endedDay, stage.getName(),
+					checkpoint.getMessage());
+				return false;
+			}
+			checkpoint.running();
+			checkpoint = checkpoints.save(checkpoint);
+			long start = System.nanoTime();
+			try {
+				stage.run(endedDay, newDay);
+			} catch (RuntimeException e) {
+				checkpoint.failed(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+					e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+				checkpoints.save(checkpoint);
+				log.warn("Rollover after {} failed at stage {} (attempt {})", endedDay, stage.getName(),
+					checkpoint.getAttempts(), e);
+				return false;
+			}
+			long nanos = System.nanoTime() - start;
+			Timer.builder(TIMER)
+				.description("Time spent on a stage of the day rollover")
+				.tag("stage", stage.getName())
+				.register(meterRegistry)
+				.record(nanos, TimeUnit.NANOSECONDS);
+			checkpoint.done(TimeUnit.NANOSECONDS.toMillis(nanos));
+			checkpoints.save(checkpoint);
+		}
+		return true;
+	}
+
+	/**
+	 * @param endedDay the day that has ended
+	 * @return progress and timing of each stage of the rollover after that day
+	 */
+	public List<RolloverCheckpoint> getProgress(LocalDate endedDay) {
+		return checkpoints.findByEndedDayOrderByIdAsc(endedDay);
+	}
+
+	/**
+	 * @return the last day that was rolled over, or is being rolled over
+	 */
+	public Optional<LocalDate> getLastEndedDay() {
+		return checkpoints.findFirstByOrderByEndedDayDesc().map(RolloverCheckpoint::getEndedDay);
+	}
+
+	/**
+	 * Waits until the rollovers that were queued so far are finished, successful or not
+	 */
+	public void awaitIdle() throws InterruptedException {
+		try {
+			worker.submit(() -> {
+			}).get();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	@PreDestroy
+	void shutdown() {
+		worker.shutdownNow();
+	}
+}
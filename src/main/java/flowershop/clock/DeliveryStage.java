@@ -0,0 +1,52 @@
+package flowershop.clock;
+
+import flowershop.product.Flower;
+import flowershop.product.ProductService;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adds the wholesaler deliveries, that are due on the new day, to the stock in one go and removes them from
+ * the queue in the same transaction, so they are delivered exactly once.
+ * Runs before the ledger of the ended day is closed, so an order that can't be posted doesn't keep the
+ * flowers from the shop.
+ */
+@Component
+@Order(8)
+public class DeliveryStage implements RolloverStage {
+
+	private final PendingOrderRepository pendingOrderRepository;
+	private final ProductService productService;
+
+	public DeliveryStage(PendingOrderRepository pendingOrderRepository, ProductService productService) {
+		this.pendingOrderRepository = pendingOrderRepository;
+		this.productService = productService;
+	}
+
+	@Override
+	public String getName() {
+		return "deliveries";
+	}
+
+	@Override
+	@Transactional
+	public void run(LocalDate endedDay, LocalDate newDay) {
+		List<PendingOrder> dueOrders = pendingOrderRepository.findByDueDateLessThanEqualOrderByDueDateAsc(newDay);
+		if (dueOrders.isEmpty()) {
+			return;
+		}
+		Map<Flower, Integer> todaysGoods = new HashMap<>();
+		for (PendingOrder order : dueOrders) {
+			order.getItemQuantityMap().forEach((flower, quantity) ->
+				todaysGoods.merge((Flower) flower, quantity.getAmount().intValue(), Integer::sum));
+		}
+		productService.addDeliveredFlowersFromWholesaler(todaysGoods);
+		pendingOrderRepository.deleteAll(dueOrders);
+	}
+}
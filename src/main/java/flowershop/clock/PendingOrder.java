@@ -8,11 +8,19 @@ import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * A delivery of the wholesaler, that hasn't arrived yet. Stored on its own and indexed by the due date,
+ * so opening a day only reads the deliveries that are due.
+ *
+ * @see PendingOrderRepository
+ */
 @Entity
+@Table(name = "pending_order", indexes = @Index(name = "idx_pending_order_due", columnList = "due_date"))
 public class PendingOrder {
 
 	@ElementCollection
 	private Map<Product, Quantity> itemQuantityMap = new HashMap<Product, Quantity>();
+	@Column(name = "due_date")
 	private LocalDate dueDate;
 
 	@Id
@@ -0,0 +1,20 @@
+package flowershop.clock;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PendingOrderRepository extends JpaRepository<PendingOrder, Long> {
+
+	/**
+	 * Reads the deliveries that are due through the index on the due date, together with their items,
+	 * so the ones that come later are not loaded at all
+	 *
+	 * @param date last due date, inclusive
+	 * @return the due deliveries, oldest first
+	 */
+	@EntityGraph(attributePaths = "itemQuantityMap")
+	List<PendingOrder> findByDueDateLessThanEqualOrderByDueDateAsc(LocalDate date);
+}
@@ -0,0 +1,123 @@
+package flowershop.clock;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one stage of the rollover after a day, see {@link DayRolloverService}
+ */
+@Entity
+@Table(name = "rollover_checkpoint",
+	uniqueConstraints = @UniqueConstraint(name = "uk_rollover_checkpoint", columnNames = {"ended_day", "stage"}))
+public class RolloverCheckpoint {
+
+	public enum Status {
+		PENDING, RUNNING, DONE, FAILED
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "ended_day", nullable = false, updatable = false)
+	private LocalDate endedDay;
+
+	@Column(nullable = false, updatable = false)
+	private String stage;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false)
+	private Status status;
+
+	private int attempts;
+
+	private LocalDateTime startedAt;
+
+	private LocalDateTime finishedAt;
+
+	private long durationMillis;
+
+	@Column(length = 1000)
+	private String message;
+
+	public RolloverCheckpoint(LocalDate endedDay, String stage) {
+		this.endedDay = endedDay;
+		this.stage = stage;
+		this.status = Status.PENDING;
+	}
+
+	protected RolloverCheckpoint() {
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public LocalDate getEndedDay() {
+		return endedDay;
+	}
+
+	public String getStage() {
+		return stage;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public int getAttempts() {
+		return attempts;
+	}
+
+	/**
+	 * @return the real moment the last attempt started, null if the stage didn't run yet
+	 */
+	public LocalDateTime getStartedAt() {
+		return startedAt;
+	}
+
+	public LocalDateTime getFinishedAt() {
+		return finishedAt;
+	}
+
+	/**
+	 * @return how long the last attempt took
+	 */
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+
+	/**
+	 * @return the reason the last attempt failed, if it did
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	public boolean isDone() {
+		return status == Status.DONE;
+	}
+
+	void running() {
+		this.status = Status.RUNNING;
+		this.attempts++;
+		this.startedAt = LocalDateTime.now();
+		this.finishedAt = null;
+		this.message = null;
+	}
+
+	void done(long durationMillis) {
+		this.status = Status.DONE;
+		this.durationMillis = durationMillis;
+		this.finishedAt = LocalDateTime.now();
+	}
+
+	void failed(long durationMillis, String message) {
+		this.status = Status.FAILED;
+		this.durationMillis = durationMillis;
+		this.finishedAt = LocalDateTime.now();
+		this.message = message == null || message.length() <= 1000 ? message : message.substring(0, 1000);
+	}
+}
@@ -0,0 +1,31 @@
+package flowershop.clock;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface RolloverCheckpointRepository extends JpaRepository<RolloverCheckpoint, Long> {
+
+	List<RolloverCheckpoint> findByEndedDayOrderByIdAsc(LocalDate endedDay);
+
+	Optional<RolloverCheckpoint> findByEndedDayAndStage(LocalDate endedDay, String stage);
+
+	Optional<RolloverCheckpoint> findFirstByOrderByEndedDayDesc();
+
+	/**
+	 * @param maxAttempts stages that failed this often are given up on
+	 * @return the days, whose rollover was not finished yet, oldest first
+	 */
+	default List<LocalDate> findUnfinishedDays(int maxAttempts) {
+		return findDaysWithStageNotIn(RolloverCheckpoint.Status.DONE, maxAttempts);
+	}
+
+	@Query("select distinct c.endedDay from RolloverCheckpoint c "
+		+ "where c.status <> :status and c.attempts < :maxAttempts order by c.endedDay")
+	List<LocalDate> findDaysWithStageNotIn(@Param("status") RolloverCheckpoint.Status status,
+										   @Param("maxAttempts") int maxAttempts);
+}
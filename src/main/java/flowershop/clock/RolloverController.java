@@ -0,0 +1,69 @@
+package flowershop.clock;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Shows how far the rollover after a day has come, see {@link DayRolloverService}
+ */
+@Controller
+public class RolloverController {
+
+	private final DayRolloverService dayRolloverService;
+
+	public RolloverController(DayRolloverService dayRolloverService) {
+		this.dayRolloverService = dayRolloverService;
+	}
+
+	/**
+	 * @param day the ended day (YYYY-MM-DD), the last rolled over day if none is given
+	 * @return progress and timing of each stage of the rollover after that day
+	 */
+	@GetMapping("/rollover")
+	@PreAuthorize("hasRole('BOSS')")
+	public ResponseEntity<List<Map<String, String>>> rolloverStatus(
+		@RequestParam(value = "day", required = false) String day) {
+		Optional<LocalDate> endedDay;
+		try {
+			endedDay = day == null ? dayRolloverService.getLastEndedDay() : Optional.of(LocalDate.parse(day));
+		} catch (DateTimeParseException e) {
+			return ResponseEntity.badRequest().build();
+		}
+		if (endedDay.isEmpty()) {
+			return ResponseEntity.notFound().build();
+		}
+		List<RolloverCheckpoint> progress = dayRolloverService.getProgress(endedDay.get());
+		if (progress.isEmpty()) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok(progress.stream().map(RolloverController::checkpointToMap).toList());
+	}
+
+	private static Map<String, String> checkpointToMap(RolloverCheckpoint checkpoint) {
+		Map<String, String> output = new LinkedHashMap<>();
+		output.put("day", checkpoint.getEndedDay().toString());
+		output.put("stage", checkpoint.getStage());
+		output.put("status", checkpoint.getStatus().name());
+		output.put("attempts", String.valueOf(checkpoint.getAttempts()));
+		if (checkpoint.getStartedAt() != null) {
+			output.put("startedAt", checkpoint.getStartedAt().toString());
+		}
+		if (checkpoint.getFinishedAt() != null) {
+			output.put("durationMillis", String.valueOf(checkpoint.getDurationMillis()));
+		}
+		if (checkpoint.getMessage() != null) {
+			output.put("message", checkpoint.getMessage());
+		}
+		return output;
+	}
+}
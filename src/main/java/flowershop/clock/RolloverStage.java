@@ -0,0 +1,24 @@
+package flowershop.clock;
+
+import java.time.LocalDate;
+
+/**
+ * One step of the day rollover, run in the background by the {@link DayRolloverService} after the shop
+ * opened on a new day. The stages run one after another, ordered by their {@code @Order}.
+ * <p>
+ * A stage is checkpointed once it is done, but it may run again if the application stops before its
+ * checkpoint is stored or after it failed, so running it twice for the same day must not change anything.
+ */
+public interface RolloverStage {
+
+	/**
+	 * @return name of the stage, it identifies the checkpoint, so it must not change
+	 */
+	String getName();
+
+	/**
+	 * @param endedDay the in-game day that has just ended
+	 * @param newDay   the in-game day the shop opened on
+	 */
+	void run(LocalDate endedDay, LocalDate newDay);
+}
@@ -0,0 +1,52 @@
+package flowershop.finances;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.salespointframework.core.DataInitializer;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the indexes used by the finance filters and the keyset pagination of {@link LedgerSpecifications}.
+ * <p>
+ * The entries are stored in the table of Salespoint's AccountancyEntry, which can't be annotated from here,
+ * so the names of the table and its columns are taken from the Hibernate mapping.
+ */
+@Component
+@Order(1)
+public class AccountancyEntryIndexInitializer implements DataInitializer {
+
+	private final EntityManagerFactory entityManagerFactory;
+	private final JdbcTemplate jdbcTemplate;
+
+	public AccountancyEntryIndexInitializer(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate) {
+		this.entityManagerFactory = entityManagerFactory;
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public void initialize() {
+		AbstractEntityPersister persister = (AbstractEntityPersister) entityManagerFactory
+			.unwrap(SessionFactoryImplementor.class)
+			.getMappingMetamodel()
+			.getEntityDescriptor(AccountancyEntryWrapper.class);
+		String table = persister.getTableName();
+
+		createIndex(persister, table, "idx_entry_newest", "timestamp", "ledgerSequence");
+		createIndex(persister, table, "idx_entry_category", "category", "timestamp", "ledgerSequence");
+		createIndex(persister, table, "idx_entry_client", "clientName");
+		createIndex(persister, table, "idx_entry_value", "valueCents", "timestamp");
+	}
+
+	private void createIndex(AbstractEntityPersister persister, String table, String name, String... properties) {
+		String columns = Arrays.stream(properties)
+			.map(property -> persister.getPropertyColumnNames(property)[0])
+			.collect(Collectors.joining(", "));
+		jdbcTemplate.execute("create index if not exists " + name + " on " + table + " (" + columns + ")");
+	}
+}
@@ -2,6 +2,7 @@ package flowershop.finances;
 
 import flowershop.clock.ClockService;
 import flowershop.product.Bouquet;
+import flowershop.product.Cents;
 import flowershop.product.Flower;
 import flowershop.product.ProductService;
 import flowershop.sales.SimpleOrder;
@@ -80,6 +81,21 @@ public class AccountancyEntryWrapper extends AccountancyEntry {
 	private String notes;
 	private String paymentMethod;
 
+	/**
+	 * the value in cents, so that the database can filter by it
+	 */
+	private long valueCents;
+
+	/**
+	 * position of the entry in the ledger, orders entries with the same timestamp
+	 */
+	private long ledgerSequence;
+
+	/**
+	 * id of the posted order, used to replay missed orders only once
+	 */
+	private String orderId;
+
 	@Transient
 	private ProductService productService;
 
@@ -116,6 +132,23 @@ public class AccountancyEntryWrapper extends AccountancyEntry {
 		return paymentMethod;
 	}
 
+	public long getValueCents() {
+		return valueCents;
+	}
+
+	public long getLedgerSequence() {
+		return ledgerSequence;
+	}
+
+	public String getOrderId() {
+		return orderId;
+	}
+
+	void assignLedgerSequence(long ledgerSequence) {
+		this.ledgerSequence = ledgerSequence;
+	}
+
+
 	/**
 	 * @param category
 	 * @return the names of categories of orders in German
@@ -187,6 +220,8 @@ public class AccountancyEntryWrapper extends AccountancyEntry {
 	public AccountancyEntryWrapper(Order order, LocalDateTime time, ProductService productService) {
 		super(order.getTotal());
 
+		this.valueCents = Cents.of(order.getTotal());
+		this.orderId = order.getId() == null ? null : order.getId().toString();
 		this.timestamp = time;
 		this.productService = productService;
 		this.paymentMethod = order.getPaymentMethod().toString();
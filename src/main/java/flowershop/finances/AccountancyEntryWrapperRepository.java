@@ -0,0 +1,34 @@
+package flowershop.finances;
+
+import org.salespointframework.accountancy.AccountancyEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Gives direct access to the stored AccountancyEntryWrappers, so that the finance filters
+ * can be run by the database instead of loading the whole {@link CashRegister}.
+ *
+ * @see LedgerSpecifications
+ */
+public interface AccountancyEntryWrapperRepository extends
+	JpaRepository<AccountancyEntryWrapper, AccountancyEntry.AccountancyEntryIdentifier>,
+	JpaSpecificationExecutor<AccountancyEntryWrapper> {
+
+	/**
+	 * @return the highest ledger sequence handed out so far, 0 if there are no entries
+	 */
+	@Query("select coalesce(max(e.ledgerSequence), 0) from AccountancyEntryWrapper e")
+	long findMaxLedgerSequence();
+
+	/**
+	 * @param orderIds ids of orders
+	 * @return those of the given ids, whose orders were already posted
+	 */
+	@Query("select e.orderId from AccountancyEntryWrapper e where e.orderId in :orderIds")
+	Set<String> findPostedOrderIds(@Param("orderIds") Collection<String> orderIds);
+}
@@ -0,0 +1,137 @@
+package flowershop.finances;
+
+import flowershop.clock.ClockService;
+import flowershop.inventory.DeletedProduct;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.javamoney.moneta.Money;
+import org.salespointframework.time.Interval;
+import org.vandeseer.easytable.settings.BorderStyle;
+import org.vandeseer.easytable.settings.HorizontalAlignment;
+import org.vandeseer.easytable.structure.Row;
+import org.vandeseer.easytable.structure.cell.TextCell;
+
+import javax.money.MonetaryAmount;
+import java.awt.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Is used to create financial PDF-reports over several months, which show one row per month.
+ * The rows are taken from {@link MonthlyAggregate}s, so the ledger isn't read again.
+ */
+public abstract class AggregatedFinancialReport extends FinancialReport {
+
+	private final List<MonthlyAggregate> months;
+
+	/**
+	 * @param period               the whole period
+	 * @param months               aggregates of the months of the period, that already began, in chronological order
+	 * @param firstEverTransaction timestamp of the very first transaction
+	 * @param clockService         clock of the shop
+	 */
+	protected AggregatedFinancialReport(Interval period,
+										List<MonthlyAggregate> months,
+										LocalDateTime firstEverTransaction,
+										ClockService clockService) {
+		super(period, months.getLast().closingBalance(), firstEverTransaction, clockService);
+		this.months = List.copyOf(months);
+		this.income = Money.of(0, balance.getCurrency());
+		this.expenditure = Money.of(0, balance.getCurrency());
+		List<DeletedProduct> writeOffs = new ArrayList<>();
+		for (MonthlyAggregate month : months) {
+			this.income = this.income.add(month.revenue());
+			this.expenditure = this.expenditure.add(month.expenses());
+			writeOffs.addAll(month.deletedProducts());
+		}
+		this.deletedProducts = CashRegisterService.normalizeDeletedProducts(writeOffs);
+		countProfit();
+	}
+
+	public List<MonthlyAggregate> getMonths() {
+		return months;
+	}
+
+	/**
+	 * @return true if there is no data registered during the whole period
+	 * because the orders started to appear after it
+	 */
+	@Override
+	public boolean isBeforeBeginning() {
+		return months.stream().allMatch(MonthlyAggregate::isEmpty) && this.startDate.isAfter(interval.getEnd());
+	}
+
+	@Override
+	protected String getDeletedProductsTitle() {
+		return "Verwelkte Blumen in diesem Zeitraum:";
+	}
+
+	/**
+	 * @param font to be used in these rows
+	 * @return the balance at the start, one row per month, the difference and the balance at the end of the period
+	 */
+	@Override
+	protected List<Row> getNeededRows(PDFont font) {
+		List<Row> neededRows = new ArrayList<>();
+		neededRows.add(summaryRow(font, "Kontostand am Anfang:", months.getFirst().openingBalance()));
+		neededRows.add(emptyRow(6));
+
+		neededRows.add(Row.builder()
+			.add(headerCell(font, "Monat", 1))
+			.add(headerCell(font, "Einnahmen", 1))
+			.add(headerCell(font, "Ausgaben", 1))
+			.add(headerCell(font, "Differenz", 3))
+			.build());
+		for (MonthlyAggregate month : months) {
+			String monthRepr = String.format("%02d.%d", month.month().getMonthValue(), month.month().getYear());
+			neededRows.add(Row.builder()
+				.add(cell(font, monthRepr, 1))
+				.add(cell(font, month.revenue().toString(), 1))
+				.add(cell(font, month.expenses().toString(), 1))
+				.add(cell(font, month.profit().toString(), 3))
+				.build());
+		}
+		neededRows.add(emptyRow(6));
+
+		neededRows.add(Row.builder()
+			.add(TextCell.builder()
+				.text("Differenz:").font(font).fontSize(14).colSpan(3)
+				.borderColor(Color.BLACK).horizontalAlignment(HorizontalAlignment.LEFT)
+				.build())
+			.add(TextCell.builder()
+				.text(getProfit().toString()).font(font).fontSize(14)
+				.colSpan(3).borderColor(Color.BLACK).horizontalAlignment(HorizontalAlignment.RIGHT)
+				.build())
+			.padding(10).borderWidth(1.5f).borderStyle(BorderStyle.DOTTED).build());
+		neededRows.add(summaryRow(font, "Kontostand am Ende:", getBalance()));
+		neededRows.add(emptyRow(6));
+		neededRows.addAll(getDeletedProductRows(font));
+		return neededRows;
+	}
+
+	private static Row summaryRow(PDFont font, String text, MonetaryAmount amount) {
+		return Row.builder()
+			.add(TextCell.builder()
+				.text(text).font(font).fontSize(14).colSpan(3)
+				.borderColor(Color.BLACK).horizontalAlignment(HorizontalAlignment.LEFT)
+				.build())
+			.add(TextCell.builder()
+				.text(amount.toString()).font(font).fontSize(14)
+				.colSpan(3).borderColor(Color.BLACK).horizontalAlignment(HorizontalAlignment.RIGHT)
+				.build())
+			.borderWidth(1).build();
+	}
+
+	private static TextCell headerCell(PDFont font, String text, int colSpan) {
+		return TextCell.builder()
+			.text(text).font(font).borderWidth(1)
+			.fontSize(14).colSpan(colSpan).borderColor(Color.BLACK).horizontalAlignment(HorizontalAlignment.LEFT)
+			.build();
+	}
+
+	private static TextCell cell(PDFont font, String text, int colSpan) {
+		return TextCell.builder()
+			.text(text).font(font).fontSize(10).colSpan(colSpan).horizontalAlignment(HorizontalAlignment.LEFT)
+			.build();
+	}
+}
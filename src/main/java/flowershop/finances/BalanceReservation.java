@@ -0,0 +1,39 @@
+package flowershop.finances;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A purchase, whose price was taken off the register already, but which isn't in the ledger yet.
+ * It is stored in the transaction of the purchase and removed in the one that posts the purchase,
+ * so the purchase isn't taken off a second time, even if the application was restarted in between.
+ */
+@Entity
+@Table(name = "balance_reservation")
+public class BalanceReservation {
+
+	@Id
+	@Column(nullable = false, updatable = false)
+	private String orderId;
+
+	@Column(nullable = false, updatable = false)
+	private long cents;
+
+	public BalanceReservation(String orderId, long cents) {
+		this.orderId = orderId;
+		this.cents = cents;
+	}
+
+	protected BalanceReservation() {
+	}
+
+	public String getOrderId() {
+		return orderId;
+	}
+
+	public long getCents() {
+		return cents;
+	}
+}
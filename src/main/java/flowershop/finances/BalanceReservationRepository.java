@@ -0,0 +1,27 @@
+package flowershop.finances;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface BalanceReservationRepository extends JpaRepository<BalanceReservation, String> {
+
+	/**
+	 * Removes the reservation in a single statement, so of two transactions settling the same order
+	 * only one gets it
+	 *
+	 * @return 1 if the order was reserved, 0 otherwise
+	 */
+	@Transactional
+	@Modifying(flushAutomatically = true)
+	@Query("delete from BalanceReservation r where r.orderId = :orderId")
+	int deleteByOrderId(@Param("orderId") String orderId);
+
+	/**
+	 * @return sum in cents of the purchases, that are paid but not booked yet
+	 */
+	@Query("select coalesce(sum(r.cents), 0) from BalanceReservation r")
+	long sumCents();
+}
@@ -1,14 +1,45 @@
 package flowershop.finances;
 
+import flowershop.product.Cents;
+import flowershop.sales.InsufficientFundsException;
 import flowershop.sales.WholesalerOrder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Takes the price of purchases off the balance of the register, before they are booked.
+ * <p>
+ * The check and the debit are a single conditional update of the register, so two purchases can't both
+ * be paid with the same money. In front of it, the balance is kept in a counter in memory, that is changed
+ * with compare-and-set, so purchases on other request threads are turned down without going to the database.
+ * The counter is only a hint, the update in the database decides.
+ * <p>
+ * Which purchases are paid already is stored as a {@link BalanceReservation} next to the debit,
+ * so it outlives a restart until the purchase is posted.
+ */
 @Service
 public class BalanceService {
+
+	/**
+	 * the counter wasn't read from the database yet
+	 */
+	private static final long UNKNOWN = Long.MIN_VALUE;
+
 	private final CashRegisterRepository cashRegisterRepository;
+	private final BalanceReservationRepository reservations;
+
+	/**
+	 * balance in cents as this instance knows it, the reserved amounts are already taken off
+	 */
+	private final AtomicLong balanceCents = new AtomicLong(UNKNOWN);
 
-	public BalanceService(CashRegisterRepository cashRegisterRepository) {
+	public BalanceService(CashRegisterRepository cashRegisterRepository,
+						  BalanceReservationRepository reservations) {
 		this.cashRegisterRepository = cashRegisterRepository;
+		this.reservations = reservations;
 	}
 
 	private CashRegister getCashRegister() {
@@ -17,10 +48,103 @@ public class BalanceService {
 	}
 
 	/**
+	 * Takes the price of the order off the balance. When the order is booked afterwards,
+	 * the balance isn't changed again (see {@link #settle(String)}).
+	 * Should run in the transaction that stores the order, so the debit is rolled back with it.
+	 *
 	 * @param wholesalerOrder the created order
-	 * @return true, if we don't have enough money for this purchase
+	 * @throws InsufficientFundsException if we don't have enough money for this purchase
 	 */
-	public boolean denies(WholesalerOrder wholesalerOrder) {
-		return getCashRegister().getBalance().add(wholesalerOrder.getTotal()).isNegative();
+	public void reserve(WholesalerOrder wholesalerOrder) throws InsufficientFundsException {
+		// the total of a purchase is negative
+		reserve(wholesalerOrder.getId().toString(), -Cents.of(wholesalerOrder.getTotal()));
+	}
+
+	void reserve(String orderId, long cents) throws InsufficientFundsException {
+		if (cents <= 0) {
+			return;
+		}
+		if (!tryDebit(cents)) {
+			throw new InsufficientFundsException();
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			// the counter isn't part of the transaction, it gets the money back when the debit is rolled back
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					if (status != STATUS_COMMITTED) {
+						applyDelta(cents);
+					}
+				}
+			});
+		}
+		reservations.save(new BalanceReservation(orderId, cents));
+	}
+
+	/**
+	 * Is called, when an order is booked, in the same transaction
+	 *
+	 * @param orderId id of the booked order, may be null
+	 * @return true if the order was reserved, so its price was already taken off the balance
+	 */
+	public boolean settle(String orderId) {
+		return orderId != null && reservations.deleteByOrderId(orderId) == 1;
+	}
+
+	/**
+	 * @return sum in cents of the purchases, whose price is taken off the register, but that aren't booked yet
+	 */
+	public long getReservedCents() {
+		return reservations.sumCents();
+	}
+
+	/**
+	 * Brings the counter up to date with a change, that was already written to the register
+	 *
+	 * @param deltaCents change of the balance in cents
+	 */
+	public void applyDelta(long deltaCents) {
+		balanceCents.updateAndGet(current -> current == UNKNOWN ? UNKNOWN : Math.addExact(current, deltaCents));
+	}
+
+	/**
+	 * @param cents amount to take off, positive
+	 * @return true if the amount was taken off the register
+	 */
+	private boolean tryDebit(long cents) {
+		long current = balanceCents.get();
+		boolean reloaded = false;
+		while (true) {
+			if (current == UNKNOWN) {
+				balanceCents.compareAndSet(UNKNOWN, getCashRegister().getBalanceCents());
+				current = balanceCents.get();
+				continue;
+			}
+			if (current < cents && !reloaded) {
+				// the counter may lag behind changes that weren't made through this instance
+				current = reload();
+				reloaded = true;
+			}
+			if (current < cents) {
+				return false;
+			}
+			if (balanceCents.compareAndSet(current, current - cents)) {
+				break;
+			}
+			current = balanceCents.get();
+		}
+
+		if (cashRegisterRepository.debitIfCovered(getCashRegister().getId(), cents) == 1) {
+			return true;
+		}
+		// the register had less than the counter said
+		reload();
+		return false;
+	}
+
+	private long reload() {
+		long stored = getCashRegister().getBalanceCents();
+		balanceCents.set(stored);
+		return stored;
 	}
 }
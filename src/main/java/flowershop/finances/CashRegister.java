@@ -1,17 +1,18 @@
 package flowershop.finances;
 
-import flowershop.clock.PendingOrder;
+import flowershop.product.Cents;
 import jakarta.persistence.*;
 import org.javamoney.moneta.Money;
-import org.salespointframework.accountancy.AccountancyEntry;
 
+import javax.money.Monetary;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
- * Is used to store all AccountancyEntries in the database, as well as balance
+ * Is used to store the balance and the state of the shop in the database.
+ * <p>
+ * The AccountancyEntries themselves are stored on their own through {@link AccountancyEntryWrapperRepository},
+ * so that registering one doesn't require loading and saving all the others.
  */
 @Entity
 public class CashRegister {
@@ -20,12 +21,16 @@ public class CashRegister {
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private Long id;
 
-	//private final OrderManagement<AbstractOrder> orderManagement;
-	//@Transient
-	@OneToMany(cascade = CascadeType.ALL)
-	private Set<AccountancyEntry> accountancyEntries; //= Streamable.empty();
+	/**
+	 * balance in cents. Saving the register never writes it, it is only changed by
+	 * {@link CashRegisterRepository#addToBalance(Long, long)} and {@link CashRegisterRepository#debitIfCovered(Long, long)},
+	 * so concurrent postings can't overwrite each other
+	 */
+	@Column(updatable = false)
+	private long balanceCents;
 
-	private Money balance;
+	@Column(updatable = false)
+	private String currency;
 
 	private final LocalDate firstEverDate;
 
@@ -34,17 +39,6 @@ public class CashRegister {
 
 	private boolean open;
 
-	@OneToMany(cascade = CascadeType.ALL)
-	private Set<PendingOrder> pendingOrders;
-
-
-	public Set<AccountancyEntry> getAccountancyEntries() {
-		return accountancyEntries;
-	}
-
-	public void setAccountancyEntries(Set<AccountancyEntry> accountancyEntries) {
-		this.accountancyEntries = accountancyEntries;
-	}
 
 	public LocalDate getFirstEverDate() {
 		return firstEverDate;
@@ -57,8 +51,14 @@ public class CashRegister {
 	}
 
 
-	public void setBalance(Money balance) {
-		this.balance = balance;
+	/**
+	 * Applies a change of the balance, that was already stored by {@link CashRegisterRepository#addToBalance(Long, long)},
+	 * to this loaded instance
+	 *
+	 * @param deltaCents change in cents
+	 */
+	void applyBalanceDelta(long deltaCents) {
+		this.balanceCents = Math.addExact(this.balanceCents, deltaCents);
 	}
 
 	public boolean getOpen() {
@@ -78,7 +78,11 @@ public class CashRegister {
 	}
 
 	public Money getBalance() {
-		return balance;
+		return Money.ofMinor(Monetary.getCurrency(currency), balanceCents);
+	}
+
+	long getBalanceCents() {
+		return balanceCents;
 	}
 
 	public LocalDate getInGameDate() {
@@ -89,20 +93,10 @@ public class CashRegister {
 		this.inGameDate = currentDate;
 	}
 
-	public void setPendingOrders(Set<PendingOrder> pendingOrders) {
-		this.pendingOrders = pendingOrders;
-	}
-
-	public Set<PendingOrder> getPendingOrders() {
-		return pendingOrders;
-	}
-
-	public CashRegister(Set<AccountancyEntry> accountancyEntries,
-						Money balance) {
-		this.accountancyEntries = accountancyEntries;
-		this.balance = balance;
+	public CashRegister(Money balance) {
+		this.balanceCents = Cents.of(balance);
+		this.currency = balance.getCurrency().getCurrencyCode();
 		this.firstEverDate = LocalDate.now();
-		this.pendingOrders = new HashSet<>();
 		this.open = true;
 		this.newDayStarted = LocalDateTime.now();
 		this.inGameDate = LocalDate.now();
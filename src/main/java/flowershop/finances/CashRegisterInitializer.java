@@ -7,8 +7,6 @@ import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
-import java.util.Set;
-
 import static org.salespointframework.core.Currencies.EURO;
 
 @Component
@@ -26,7 +24,7 @@ public class CashRegisterInitializer implements DataInitializer {
 		if (cashRegisterRepository.findAll().iterator().hasNext()) {
 			return; // Skip initialization if products already exist
 		}
-		CashRegister cashRegister = new CashRegister(Set.of(), Money.of(50, EURO));
+		CashRegister cashRegister = new CashRegister(Money.of(50, EURO));
 		cashRegisterRepository.save(cashRegister);
 
 	}
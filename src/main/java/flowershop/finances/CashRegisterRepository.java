@@ -1,9 +1,40 @@
 package flowershop.finances;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 public interface CashRegisterRepository extends JpaRepository<CashRegister, Long> {
 	Optional<CashRegister> findFirstByOrderById();
+
+	/**
+	 * Changes the balance right in the database, so that concurrent postings don't have to lock the register
+	 * for longer than this single statement
+	 *
+	 * @param id         id of the register
+	 * @param deltaCents change of the balance in cents
+	 * @return number of updated registers
+	 */
+	@Transactional
+	@Modifying(flushAutomatically = true)
+	@Query("update CashRegister c set c.balanceCents = c.balanceCents + :delta where c.id = :id")
+	int addToBalance(@Param("id") Long id, @Param("delta") long deltaCents);
+
+	/**
+	 * Takes the amount off the balance, but only if the balance covers it. Checking and changing the balance
+	 * is a single statement, so two purchases can't both pass the check on the same money
+	 *
+	 * @param id          id of the register
+	 * @param amountCents amount in cents, positive
+	 * @return 1 if the amount was taken off, 0 if the balance doesn't cover it
+	 */
+	@Transactional
+	@Modifying(flushAutomatically = true)
+	@Query("update CashRegister c set c.balanceCents = c.balanceCents - :amount "
+		+ "where c.id = :id and c.balanceCents >= :amount")
+	int debitIfCovered(@Param("id") Long id, @Param("amount") long amountCents);
 }
@@ -1,9 +1,10 @@
 package flowershop.finances;
 
 import flowershop.clock.ClockService;
-import flowershop.clock.PendingOrder;
 import flowershop.inventory.DeletedProduct;
+import flowershop.product.Cents;
 import flowershop.product.ProductService;
+import flowershop.sales.InsufficientFundsException;
 import flowershop.sales.SalesService;
 import flowershop.services.AbstractOrder;
 import org.javamoney.moneta.Money;
@@ -16,49 +17,67 @@ import org.salespointframework.quantity.Quantity;
 import org.salespointframework.time.Interval;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Primary;
-import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.util.Streamable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.money.CurrencyUnit;
 import javax.money.MonetaryAmount;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.time.temporal.TemporalAmount;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
 @Primary
 public class CashRegisterService implements Accountancy {
 
-	private final OrderManagement<AbstractOrder> orderManagement;
-
 	private final CashRegisterRepository cashRegisterRepository;
 	private final ClockService clockService;
 	private final ProductService productService;
 	private final SalesService salesService;
+	private final DailyBalanceSnapshotRepository snapshotRepository;
+	private final AccountancyEntryWrapperRepository entryRepository;
+	private final BalanceService balanceService;
+
+	private final LedgerIndex ledgerIndex = new LedgerIndex();
 
+	/**
+	 * last handed out ledger sequence, -1 until it was read from the database
+	 */
+	private final AtomicLong ledgerSequence = new AtomicLong(-1);
+
+	/**
+	 * aggregates of closed months, together with the version of the ledger for the month they were made for
+	 */
+	private final Map<YearMonth, CachedAggregate> monthlyAggregates = new ConcurrentHashMap<>();
+
+	private record CachedAggregate(long version, MonthlyAggregate aggregate) {
+	}
 
 	@Autowired
-	public CashRegisterService(OrderManagement<AbstractOrder> orderManagement,
-							   CashRegisterRepository cashRegisterRepository,
+	public CashRegisterService(CashRegisterRepository cashRegisterRepository,
 							   ClockService clockService, ProductService productService,
-							   SalesService salesService) {
-		this.orderManagement = orderManagement;
+							   SalesService salesService,
+							   DailyBalanceSnapshotRepository snapshotRepository,
+							   AccountancyEntryWrapperRepository entryRepository,
+							   BalanceService balanceService) {
 		this.cashRegisterRepository = cashRegisterRepository;
+		this.balanceService = balanceService;
 		this.productService = productService;
-		Streamable<AbstractOrder> previousOrders = Optional.ofNullable(orderManagement.findBy(OrderStatus.PAID))
-			.orElse(Streamable.empty());
-		for (AbstractOrder order : previousOrders) {
-			AccountancyEntry convertedOrder = new AccountancyEntryWrapper(order, clockService.now(),
-				productService);
-			this.add(convertedOrder);
-		}
+		this.snapshotRepository = snapshotRepository;
+		this.entryRepository = entryRepository;
 		this.clockService = clockService;
 		this.salesService = salesService;
 	}
@@ -75,34 +94,31 @@ public class CashRegisterService implements Accountancy {
 
 
 	/**
-	 * Is used to add an AccountancyEntry instance to the register
+	 * Is used to add an AccountancyEntry instance to the register.
+	 * The entry is inserted on its own and the balance is changed by a single update,
+	 * so the other entries of the register are neither loaded nor saved again.
 	 *
 	 * @param entry
 	 * @param <T>   type of the entry (T extends AccountancyEntry)
 	 * @return entry, if everything went well. Otherwise - null
 	 */
 	@Override
+	@Transactional
 	public <T extends AccountancyEntry> T add(T entry) {
 		if (entry == null || entry instanceof OrderPaymentEntry) { //because salespoint is also doing it apparently
 			return null;
 		}
 
 		CashRegister cashRegister = getCashRegister();
-		Set<AccountancyEntry> existing = cashRegister.getAccountancyEntries();
-		existing.add(entry);
-		cashRegister.setAccountancyEntries(existing);
-		cashRegister.setBalance((Money) entry.getValue().add(cashRegister.getBalance()));
+		post((AccountancyEntryWrapper) entry, cashRegister);
 
 		if (((AccountancyEntryWrapper) entry).getCategory().equals("Einkauf")) {
-			Set<PendingOrder> pendingOrders = cashRegister.getPendingOrders();
-			PendingOrder newOrder = new PendingOrder(
+			clockService.scheduleDelivery(
 				((AccountancyEntryWrapper) entry).getFlowers(),
 				((AccountancyEntryWrapper) entry).getDeliveryDate() == null
 					? clockService.nextWorkingDay()
 					: ((AccountancyEntryWrapper) entry).getDeliveryDate()
 			);
-			pendingOrders.add(newOrder);
-			cashRegister.setPendingOrders(pendingOrders);
 
 		} else if (
 			(((AccountancyEntryWrapper) entry).getCategory().equals("Veranstaltung Verkauf") ||
@@ -113,47 +129,172 @@ public class CashRegisterService implements Accountancy {
 			for (Map.Entry<Product, Quantity> i : ((AccountancyEntryWrapper) entry).getFlowers().entrySet()) {
 				cart.addOrUpdateItem(i.getKey(), i.getValue());
 			}
-			if (cart.getPrice().add(getCashRegister().getBalance()).isNegative()) {
-				return null;
-			}
 			if (!cart.isEmpty()) {
-				salesService.buyProductsFromBasket(
-					cart,
-					"Card",
-					((AccountancyEntryWrapper) entry).getDeliveryDate().toString()
-				);
+				// the balance is checked and reserved together with the purchase, not in advance
+				try {
+					salesService.buyProductsFromBasket(
+						cart,
+						"Card",
+						((AccountancyEntryWrapper) entry).getDeliveryDate().toString()
+					);
+				} catch (InsufficientFundsException e) {
+					return null;
+				}
 			}
 		}
 
-
-		cashRegisterRepository.save(cashRegister);
 		return entry;
 	}
 
 	/**
-	 * Will wrap the order into AccountancyEntryWrapper and add it to the register
+	 * Appends the entry to the ledger: one insert for the entry and one update of the balance
+	 *
+	 * @param entry        the new entry
+	 * @param cashRegister the loaded register, its balance is brought up to date as well
+	 */
+	private void post(AccountancyEntryWrapper entry, CashRegister cashRegister) {
+		long delta = Cents.of(entry.getValue());
+		entry.assignLedgerSequence(nextLedgerSequence());
+		entryRepository.save(entry);
+		// the price of a reserved purchase was taken off the register already
+		if (!balanceService.settle(entry.getOrderId())) {
+			cashRegisterRepository.addToBalance(cashRegister.getId(), delta);
+			cashRegister.applyBalanceDelta(delta);
+			balanceService.applyDelta(delta);
+		}
+		if (entry.getTimestamp() != null && entry.getTimestamp().toLocalDate().isBefore(clockService.getCurrentDate())) {
+			correctSnapshots(entry.getTimestamp().toLocalDate(), delta);
+		}
+		ledgerIndex.register(entry);
+	}
+
+	/**
+	 * An entry of an ended day, that is booked after the day was stored, changes the totals of that day
+	 * and the closing balance of every day since then
+	 *
+	 * @param day        day of the entry
+	 * @param deltaCents value of the entry in cents
+	 */
+	private void correctSnapshots(LocalDate day, long deltaCents) {
+		if (snapshotRepository.shiftClosingBalances(day, deltaCents) > 0) {
+			snapshotRepository.addToDay(day, Math.max(deltaCents, 0), Math.min(deltaCents, 0));
+		}
+	}
+
+	/**
+	 * Wraps a paid order into an AccountancyEntryWrapper and adds it to the register.
+	 * Paid orders reach the register through the {@link LedgerOutbox}.
 	 *
-	 * @param event of type OrderPaid that carries an order
+	 * @param order  the paid order
+	 * @param paidAt the moment the order was paid, the entry gets this timestamp
+	 * @return the added entry, null if it wasn't added
 	 */
-	@EventListener
-	public void onOrderPaid(OrderEvents.OrderPaid event) {
-		AbstractOrder order = (AbstractOrder) event.getOrder();
+	public AccountancyEntryWrapper postOrder(AbstractOrder order, LocalDateTime paidAt) {
 		//convert order to AccountancyEntry
-		AccountancyEntryWrapper convertedOrder = new AccountancyEntryWrapper(order, clockService.now(), productService);
-		this.add(convertedOrder);
+		AccountancyEntryWrapper convertedOrder = new AccountancyEntryWrapper(order, paidAt, productService);
+		return this.add(convertedOrder);
+	}
+
+	/**
+	 * Persists the closing balance, income, expenditure and write-offs of a day that has ended.
+	 * Does nothing if the day was stored already.
+	 *
+	 * @param day the ended day
+	 */
+	public void snapshotDay(LocalDate day) {
+		if (day == null || snapshotRepository.existsByDay(day)) {
+			return;
+		}
+		LocalDateTime start = day.atStartOfDay();
+		LocalDateTime end = start.plusDays(1);
+		LedgerBuckets dayBuckets = aggregate(Interval.from(start).to(end), Duration.ofDays(1));
+		Money writeOffs = Money.of(0, getCashRegister().getBalance().getCurrency());
+		for (DeletedProduct deletedProduct : findDeletedProductsByDate(day)) {
+			writeOffs = writeOffs.add(deletedProduct.getTotalLoss());
+		}
+		long closingCents = Math.subtractExact(ledgerBalanceCents(), getLedgerIndex().centsFrom(end));
+		snapshotRepository.save(new DailyBalanceSnapshot(
+			day,
+			Money.ofMinor(writeOffs.getCurrency(), closingCents),
+			Money.from(dayBuckets.getRevenue(0)),
+			Money.from(dayBuckets.getExpenses(0)),
+			writeOffs));
+	}
+
+	/**
+	 * The balance starts from the closing balance of the last day stored before the moment and adds what
+	 * was registered since then, which the ledger index sums up in O(log n). Without a stored day it is the
+	 * current balance minus everything registered since the moment.
+	 *
+	 * @param time any moment
+	 * @return the balance of the register right before that moment
+	 */
+	public MonetaryAmount balanceAt(LocalDateTime time) {
+		return Money.ofMinor(getCashRegister().getBalance().getCurrency(), balanceCentsAt(time));
+	}
+
+	/**
+	 * @param time any moment
+	 * @return the balance of the register right before that moment, in cents
+	 */
+	public long balanceCentsAt(LocalDateTime time) {
+		Optional<DailyBalanceSnapshot> snapshot =
+			snapshotRepository.findFirstByDayLessThanOrderByDayDesc(time.toLocalDate());
+		if (snapshot.isPresent()) {
+			return Math.addExact(snapshot.get().getClosingBalanceCents(),
+				getLedgerIndex().centsBetween(snapshot.get().getClosingTime(), time));
+		}
+		return Math.subtractExact(ledgerBalanceCents(), getLedgerIndex().centsFrom(time));
+	}
+
+	/**
+	 * The price of a reserved purchase is taken off the register before its entry is booked,
+	 * so it is added back to get the balance, that matches the booked entries
+	 *
+	 * @return balance of the register in cents, as the ledger knows it
+	 */
+	private long ledgerBalanceCents() {
+		return Math.addExact(getCashRegister().getBalanceCents(), balanceService.getReservedCents());
 	}
 
 	/**
-	 * @return list of all deleted products ever
+	 * @param from first moment, inclusive
+	 * @param to   last moment, exclusive
+	 * @return income minus expenditure of everything registered in between
+	 */
+	public MonetaryAmount netFlow(LocalDateTime from, LocalDateTime to) {
+		return Money.ofMinor(getCashRegister().getBalance().getCurrency(), getLedgerIndex().centsBetween(from, to));
+	}
+
+	/**
+	 * Is read from the database, so it doesn't need the ledger index to be loaded
+	 *
+	 * @return version of the whole ledger, it changes whenever an entry is registered
 	 */
-	public List<DeletedProduct> getAllDeletedProducts() {
-		return productService.getDeletedProducts();
+	public long getLedgerVersion() {
+		return entryRepository.findMaxLedgerSequence();
 	}
 
+	/**
+	 * Entries and write-offs are never removed, so this number only changes,
+	 * when something new is registered for the period.
+	 *
+	 * @param period period of time
+	 * @return version of the ledger for that period
+	 */
+	public long getLedgerVersion(Interval period) {
+		long entries = getLedgerIndex().count(period.getStart(), period.getEnd());
+		long writeOffs = productService.countDeletedProducts(period.getStart().toLocalDate(), period.getEnd().toLocalDate());
+		return (entries << 32) | writeOffs;
+	}
+
+	/**
+	 * @param date1 first day, inclusive
+	 * @param date2 last day, inclusive
+	 * @return list of the deleted products in that range, one per product and day
+	 */
 	public List<DeletedProduct> getAllDeletedProducts(LocalDate date1, LocalDate date2) {
-		return productService.getDeletedProducts().stream()
-			.filter(product -> (!date1.isAfter(product.getDateWhenDeleted()) && !date2.isBefore(product.getDateWhenDeleted())))
-			.toList();
+		return productService.getDailyWriteOffs(date1, date2);
 	}
 
 	/**
@@ -161,9 +302,7 @@ public class CashRegisterService implements Accountancy {
 	 * @return list of all deleted products on a certain date
 	 */
 	public List<DeletedProduct> findDeletedProductsByDate(LocalDate date) {
-		return normalizeDeletedProducts(productService.getDeletedProducts().stream()
-			.filter(product -> date.equals(product.getDateWhenDeleted()))
-			.toList());
+		return productService.getDailyWriteOffs(date, date);
 	}
 
 	/**
@@ -171,13 +310,15 @@ public class CashRegisterService implements Accountancy {
 	 * @return list of all deleted products during a certain month
 	 */
 	public List<DeletedProduct> findDeletedProductsByMonth(LocalDate month) {
-		return normalizeDeletedProducts(productService.getDeletedProducts().stream()
-			.filter(product -> month.getMonth().equals(product.getDateWhenDeleted().getMonth())
-				&& month.getYear() == product.getDateWhenDeleted().getYear())
-			.toList());
+		return normalizeDeletedProducts(productService.getDailyWriteOffs(
+			month.withDayOfMonth(1), month.withDayOfMonth(month.lengthOfMonth())));
 	}
 
-	private List<DeletedProduct> normalizeDeletedProducts(List<DeletedProduct> deletedProducts) {
+	/**
+	 * @param deletedProducts write-offs
+	 * @return one write-off per product name, with the quantities added up
+	 */
+	static List<DeletedProduct> normalizeDeletedProducts(List<DeletedProduct> deletedProducts) {
 		Map<String, List<DeletedProduct>> grouped =
 			deletedProducts
 				.stream()
@@ -200,7 +341,7 @@ public class CashRegisterService implements Accountancy {
 	 */
 	@Override
 	public Streamable<AccountancyEntry> findAll() {
-		return Streamable.of(this.getCashRegister().getAccountancyEntries());
+		return Streamable.of(getLedgerIndex().all());
 	}
 
 	@Override
@@ -210,30 +351,48 @@ public class CashRegisterService implements Accountancy {
 
 	/**
 	 * @param category
-	 * @return all registered AccountancyEntries of the given Category
+	 * @return all registered AccountancyEntries of the given Category, newest first
 	 */
 	public Streamable<AccountancyEntry> filterEntries(Category category) {
-		Streamable<AccountancyEntry> filteredEntries = Streamable.empty();
-		for (AccountancyEntry entry : this.getCashRegister().getAccountancyEntries()) {
-			if (((AccountancyEntryWrapper) entry).getCategory().equals(AccountancyEntryWrapper.categoryToString(category))) {
-				filteredEntries = filteredEntries.and(entry);
-			}
-		}
-		return filteredEntries;
+		return Streamable.of(new ArrayList<AccountancyEntry>(
+			entryRepository.findAll(LedgerSpecifications.inCategory(category), LedgerSpecifications.NEWEST_FIRST)));
 	}
 
 	/**
 	 * @param isIncome
-	 * @return a list of all AccountancyEntries that are either incomes or spendings
+	 * @return a list of all AccountancyEntries that are either incomes or spendings, newest first
 	 */
 	public LinkedList<AccountancyEntry> filterIncomeOrSpending(boolean isIncome) {
-		LinkedList<AccountancyEntry> filteredEntries = new LinkedList<>();
-		for (AccountancyEntry entry : this.getCashRegister().getAccountancyEntries()) {
-			if (entry.isRevenue() == isIncome) {
-				filteredEntries.add(entry);
-			}
+		return new LinkedList<>(
+			entryRepository.findAll(LedgerSpecifications.isIncome(isIncome), LedgerSpecifications.NEWEST_FIRST));
+	}
+
+	/**
+	 * Reads one page of the entries matching the filter. The page starts right after the cursor,
+	 * so every page costs the same, no matter how far back in the ledger it lies.
+	 *
+	 * @param filter conditions the entries have to match
+	 * @param after  cursor of the previous page, null for the newest entries
+	 * @param size   maximal number of entries on the page
+	 * @return the page, newest entries first
+	 */
+	public LedgerPage findPage(Specification<AccountancyEntryWrapper> filter, LedgerCursor after, int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException("The size of a page has to be positive");
+		}
+		Specification<AccountancyEntryWrapper> spec = after == null
+			? filter
+			: filter.and(LedgerSpecifications.olderThan(after));
+		// one more entry than needed tells whether there is another page
+		List<AccountancyEntryWrapper> entries = entryRepository.findBy(spec, query -> query
+			.sortBy(LedgerSpecifications.NEWEST_FIRST)
+			.limit(size + 1)
+			.all());
+		if (entries.size() <= size) {
+			return new LedgerPage(entries, null);
 		}
-		return filteredEntries;
+		List<AccountancyEntryWrapper> page = entries.subList(0, size);
+		return new LedgerPage(page, LedgerCursor.after(page.getLast()));
 	}
 
 	@Override
@@ -253,16 +412,7 @@ public class CashRegisterService implements Accountancy {
 	 */
 	@Override
 	public Streamable<AccountancyEntry> find(Interval interval) {
-		Streamable<AccountancyEntry> output = Streamable.of();
-		for (AccountancyEntry entry : this.getCashRegister().getAccountancyEntries()) {
-			if (((AccountancyEntryWrapper) entry).getTimestamp() == null) {
-				continue;
-			}
-			if (interval.contains(((AccountancyEntryWrapper) entry).getTimestamp())) {
-				output = output.and(entry);
-			}
-		}
-		return output;
+		return Streamable.of(getLedgerIndex().find(interval));
 	}
 
 	@Override
@@ -277,17 +427,21 @@ public class CashRegisterService implements Accountancy {
 	 */
 	@Override
 	public Map<Interval, Streamable<AccountancyEntry>> find(Interval interval, TemporalAmount duration) {
-		HashMap<Interval, Streamable<AccountancyEntry>> output = new HashMap<>();
-		LocalDateTime start = interval.getStart();
-		LocalDateTime end = start.plus(duration);
-		do {
-			Interval subinterval = Interval.from(start).to(end);
-			Streamable<AccountancyEntry> subset = Streamable.empty();
-			output.put(subinterval, subset.and(find(subinterval)));
-			end = end.plus(duration);
-			start = start.plus(duration);
-		} while (interval.contains(start));
-		return output;
+		return aggregate(interval, duration).toEntryMap();
+	}
+
+	/**
+	 * Splits the interval into buckets of the given duration and fills them in one walk over the ledger
+	 *
+	 * @param interval overall period
+	 * @param duration periodity of how to split the data
+	 * @return entries, income and expenditure of every bucket
+	 */
+	public LedgerBuckets aggregate(Interval interval, TemporalAmount duration) {
+		List<Interval> buckets = LedgerBuckets.split(interval, duration);
+		List<AccountancyEntryWrapper> entries = getLedgerIndex()
+			.slice(buckets.getFirst().getStart(), buckets.getLast().getEnd());
+		return LedgerBuckets.aggregate(buckets, entries, getCashRegister().getBalance().getCurrency());
 	}
 
 	@Override
@@ -303,12 +457,7 @@ public class CashRegisterService implements Accountancy {
 	 */
 	@Override
 	public Map<Interval, MonetaryAmount> salesVolume(Interval interval, TemporalAmount duration) {
-		Map<Interval, Streamable<AccountancyEntry>> splits = find(interval, duration);
-		Map<Interval, MonetaryAmount> output = new HashMap<>();
-		for (Map.Entry<Interval, Streamable<AccountancyEntry>> entry : splits.entrySet()) {
-			output.put(entry.getKey(), getProfit(entry.getValue()));
-		}
-		return output;
+		return aggregate(interval, duration).toProfitMap();
 	}
 
 	/**
@@ -321,47 +470,12 @@ public class CashRegisterService implements Accountancy {
 		LocalDateTime start = LocalDateTime.of(day.getYear(), day.getMonth(), day.getDayOfMonth(), 0, 0);
 		LocalDateTime end = start.plusDays(1);
 		Interval interval = Interval.from(start).to(end);
-		Interval endToNow = Interval.from(end).to(clockService.now().plusDays(1));
-		TemporalAmount endToNowDuration = endToNow.toDuration();
-		MonetaryAmount moneyDifference = salesVolume(endToNow, endToNowDuration).get(endToNow);
-		CashRegister cashRegister = getCashRegister();
-		MonetaryAmount moneyThen = cashRegister.getBalance().subtract(moneyDifference);
-		//List<AccountancyEntry> allEntries = getCashRegister().getAccountancyEntries().stream().toList();
-		List<AccountancyEntryWrapper> allEntries = getCashRegister().getAccountancyEntries().stream()
-			.map(entry -> (AccountancyEntryWrapper) entry)
-			.sorted(Comparator.comparing(AccountancyEntryWrapper::getTimestamp))
-			.toList();
-
-		if (allEntries.isEmpty() && getAllDeletedProducts().isEmpty()) {
+		MonetaryAmount moneyThen = balanceAt(end);
+		LocalDateTime firstActivity = getFirstActivity();
+		if (firstActivity == null) {
 			return null;
 		}
-		DailyFinancialReport output;
-		if (allEntries.isEmpty()) {
-			output = new DailyFinancialReport(
-				interval,
-				moneyThen,
-				this,
-				getAllDeletedProducts().getFirst().getDateWhenDeleted().atTime(9, 0),
-				clockService);
-		} else if (getAllDeletedProducts().isEmpty()) {
-			output = new DailyFinancialReport(
-				interval,
-				moneyThen,
-				this,
-				allEntries.getFirst().getTimestamp(),
-				clockService);
-		} else {
-			LocalDateTime earlier = allEntries.getFirst().getTimestamp()
-				.isBefore(getAllDeletedProducts().getFirst().getDateWhenDeleted().atTime(9, 0)) ?
-				allEntries.getFirst().getTimestamp() : getAllDeletedProducts().getFirst().getDateWhenDeleted().atTime(9, 0);
-			output = new DailyFinancialReport(
-				interval,
-				moneyThen,
-				this,
-				earlier,
-				clockService);
-		}
-		return output;
+		return new DailyFinancialReport(interval, moneyThen, this, firstActivity, clockService);
 	}
 
 	/**
@@ -378,57 +492,124 @@ public class CashRegisterService implements Accountancy {
 		}
 		Interval interval = Interval.from(start).to(end);
 
-		Interval endToNow = Interval.from(end).to(clockService.now().plusDays(1));
-		TemporalAmount endToNowDuration = endToNow.toDuration();
-		MonetaryAmount moneyDifference = salesVolume(endToNow, endToNowDuration).get(endToNow);
-		CashRegister cashRegister = getCashRegister();
-		MonetaryAmount moneyThen = cashRegister.getBalance().subtract(moneyDifference);
-		List<AccountancyEntryWrapper> allEntries = getCashRegister().getAccountancyEntries().stream()
-			.map(entry -> (AccountancyEntryWrapper) entry)
-			.sorted(Comparator.comparing(AccountancyEntryWrapper::getTimestamp))
-			.toList();
-		if (allEntries.isEmpty() && getAllDeletedProducts().isEmpty()) {
+		MonetaryAmount moneyThen = balanceAt(end);
+		LocalDateTime firstActivity = getFirstActivity();
+		if (firstActivity == null) {
 			return null;
 		}
-		MonthlyFinancialReport output;
-		if (allEntries.isEmpty()) {
-			output = new MonthlyFinancialReport(
-				interval,
-				moneyThen,
-				this,
-				getAllDeletedProducts().getFirst().getDateWhenDeleted().atTime(9, 0),
-				clockService);
-		} else if (getAllDeletedProducts().isEmpty()) {
-			output = new MonthlyFinancialReport(
-				interval,
-				moneyThen,
-				this,
-				allEntries.getFirst().getTimestamp(),
-				clockService);
-		} else {
-			LocalDateTime earlier = allEntries.getFirst().getTimestamp()
-				.isBefore(getAllDeletedProducts().getFirst().getDateWhenDeleted().atTime(9, 0)) ?
-				allEntries.getFirst().getTimestamp() : getAllDeletedProducts().getFirst().getDateWhenDeleted().atTime(9, 0);
-			output = new MonthlyFinancialReport(
-				interval,
-				moneyThen,
-				this,
-				earlier,
-				clockService);
+		return new MonthlyFinancialReport(interval, moneyThen, this, firstActivity, clockService);
+	}
+
+	/**
+	 * Income, expenditure and write-offs of a closed month are only read from the ledger once
+	 * and kept, as long as nothing is registered for the month anymore. The closing balance
+	 * is looked up every time, as it depends on everything registered before the end of the month.
+	 *
+	 * @param month any month, that already began
+	 * @return the aggregate of the month
+	 */
+	public MonthlyAggregate getMonthlyAggregate(YearMonth month) {
+		LocalDateTime start = month.atDay(1).atStartOfDay();
+		LocalDateTime end = start.plusMonths(1);
+		if (end.isAfter(clockService.now())) {
+			return aggregateMonth(month, start, end);
+		}
+		long version = getLedgerVersion(Interval.from(start).to(end));
+		CachedAggregate cached = monthlyAggregates.get(month);
+		if (cached == null || cached.version() != version) {
+			cached = new CachedAggregate(version, aggregateMonth(month, start, end));
+			monthlyAggregates.put(month, cached);
+		}
+		return cached.aggregate().withClosingBalance(balanceAt(end));
+	}
+
+	private MonthlyAggregate aggregateMonth(YearMonth month, LocalDateTime start, LocalDateTime end) {
+		LedgerTotals totals = new LedgerTotals();
+		int entries = 0;
+		for (AccountancyEntryWrapper entry : getLedgerIndex().slice(start, end)) {
+			if (entry.getTimestamp().isBefore(end)) {
+				totals.add(entry.getValueCents());
+				entries++;
+			}
+		}
+		CurrencyUnit currency = getCashRegister().getBalance().getCurrency();
+		return new MonthlyAggregate(month, totals.getRevenue(currency), totals.getExpenses(currency),
+			balanceAt(end), findDeletedProductsByMonth(month.atDay(1)), entries);
+	}
+
+	/**
+	 * @param first first month of the period
+	 * @param count number of months in the period
+	 * @return the aggregates of the months of the period, that already began
+	 * @throws IllegalArgumentException if the period lies in the future
+	 */
+	private List<MonthlyAggregate> getMonthlyAggregates(YearMonth first, int count) {
+		YearMonth current = YearMonth.from(clockService.getCurrentDate());
+		if (first.isAfter(current)) {
+			throw new IllegalArgumentException("The given date cannot be in the future.");
+		}
+		List<MonthlyAggregate> output = new ArrayList<>();
+		for (YearMonth month = first; month.isBefore(first.plusMonths(count)) && !month.isAfter(current);
+			 month = month.plusMonths(1)) {
+			output.add(getMonthlyAggregate(month));
 		}
 		return output;
 	}
 
+	/**
+	 * @return the moment of the first entry or write-off, null if there is none
+	 */
+	private LocalDateTime getFirstActivity() {
+		LocalDateTime firstTimestamp = getLedgerIndex().earliestTimestamp();
+		Optional<LocalDateTime> firstWriteOff = productService.getFirstWriteOffDate()
+			.map(date -> date.atTime(9, 0));
+		if (firstTimestamp == null) {
+			return firstWriteOff.orElse(null);
+		}
+		return firstWriteOff.filter(firstTimestamp::isAfter).orElse(firstTimestamp);
+	}
+
+	/**
+	 * Use this method instead of the QuarterlyFinancialReport constructor
+	 *
+	 * @param quarter number of the quarter (1-4)
+	 * @param year    year of the quarter
+	 * @return an instance of QuarterlyFinancialReport, null if nothing was registered yet
+	 */
+	public QuarterlyFinancialReport createFinancialReportQuarter(int quarter, int year) {
+		YearMonth first = YearMonth.of(year, (quarter - 1) * 3 + 1);
+		LocalDateTime firstActivity = getFirstActivity();
+		if (firstActivity == null) {
+			return null;
+		}
+		LocalDateTime start = first.atDay(1).atStartOfDay();
+		return new QuarterlyFinancialReport(Interval.from(start).to(start.plusMonths(3)),
+			getMonthlyAggregates(first, 3), firstActivity, clockService);
+	}
+
+	/**
+	 * Use this method instead of the YearlyFinancialReport constructor
+	 *
+	 * @param year the year
+	 * @return an instance of YearlyFinancialReport, null if nothing was registered yet
+	 */
+	public YearlyFinancialReport createFinancialReportYear(int year) {
+		YearMonth first = YearMonth.of(year, 1);
+		LocalDateTime firstActivity = getFirstActivity();
+		if (firstActivity == null) {
+			return null;
+		}
+		LocalDateTime start = first.atDay(1).atStartOfDay();
+		return new YearlyFinancialReport(Interval.from(start).to(start.plusYears(1)),
+			getMonthlyAggregates(first, 12), firstActivity, clockService);
+	}
+
 	/**
 	 * @param set AccountancyEntries, for which profit has to be calculated
 	 * @return profit
 	 */
 	public MonetaryAmount getProfit(Streamable<AccountancyEntry> set) {
-		Money output = Money.of(0, getCashRegister().getBalance().getCurrency());
-		for (AccountancyEntry entry : set) {
-			output = output.add(entry.getValue());
-		}
-		return output;
+		return LedgerTotals.of(set).getProfit(getCashRegister().getBalance().getCurrency());
 	}
 
 	/**
@@ -436,13 +617,7 @@ public class CashRegisterService implements Accountancy {
 	 * @return income (all positive values added up and negative - ignored)
 	 */
 	public MonetaryAmount getRevenue(Streamable<AccountancyEntry> set) {
-		Money output = Money.of(0, getCashRegister().getBalance().getCurrency());
-		for (AccountancyEntry entry : set) {
-			if (entry.isRevenue()) {
-				output = output.add(entry.getValue());
-			}
-		}
-		return output;
+		return LedgerTotals.of(set).getRevenue(getCashRegister().getBalance().getCurrency());
 	}
 
 	/**
@@ -450,13 +625,15 @@ public class CashRegisterService implements Accountancy {
 	 * @return expences (all negative values added up and positive - ignored)
 	 */
 	public MonetaryAmount getExpences(Streamable<AccountancyEntry> set) {
-		Money output = Money.of(0, getCashRegister().getBalance().getCurrency());
-		for (AccountancyEntry entry : set) {
-			if (entry.isExpense()) {
-				output = output.add(entry.getValue());
-			}
-		}
-		return output;
+		return LedgerTotals.of(set).getExpenses(getCashRegister().getBalance().getCurrency());
+	}
+
+	/**
+	 * @return the time-ordered index over all entries of the register, filled on first use
+	 */
+	private LedgerIndex getLedgerIndex() {
+		ledgerIndex.loadIfNeeded(() -> new ArrayList<>(entryRepository.findAll()));
+		return ledgerIndex;
 	}
 
 	/**
@@ -469,26 +646,31 @@ public class CashRegisterService implements Accountancy {
 	}
 
 
+	/**
+	 * @param customerName part of the name of the client
+	 * @return all entries of matching clients, newest first
+	 */
 	public List<AccountancyEntryWrapper> filterByCustomer(String customerName) {
-		LinkedList<AccountancyEntryWrapper> filteredEntries = new LinkedList<>();
-		for (AccountancyEntry entry : this.getCashRegister().getAccountancyEntries()) {
-			if (((AccountancyEntryWrapper) entry).getClientName().contains(customerName)) {
-				filteredEntries.add((AccountancyEntryWrapper) entry);
-			}
-		}
-		return filteredEntries;
+		return entryRepository.findAll(LedgerSpecifications.clientNameContains(customerName),
+			LedgerSpecifications.NEWEST_FIRST);
 	}
 
+	/**
+	 * @param price value in euro
+	 * @return all entries with exactly this value, newest first
+	 */
 	public List<AccountancyEntryWrapper> filterByPrice(double price) {
-		final double EPSILON = 1e-6; // Tolerance for floating-point comparison
-		LinkedList<AccountancyEntryWrapper> filteredEntries = new LinkedList<>();
+		return entryRepository.findAll(LedgerSpecifications.valueEquals(price), LedgerSpecifications.NEWEST_FIRST);
+	}
 
-		for (AccountancyEntry entry : this.getCashRegister().getAccountancyEntries()) {
-			if (Math.abs(entry.getValue().getNumber().doubleValue() - price) < EPSILON) {
-				filteredEntries.add((AccountancyEntryWrapper) entry);
-			}
+	/**
+	 * @return the next free ledger sequence
+	 */
+	private long nextLedgerSequence() {
+		if (ledgerSequence.get() < 0) {
+			ledgerSequence.compareAndSet(-1, entryRepository.findMaxLedgerSequence());
 		}
-		return filteredEntries;
+		return ledgerSequence.incrementAndGet();
 	}
 
 	public AccountancyEntryWrapper getEntry(String orderId, List<AccountancyEntryWrapper> filteredAndCutOrdersList) {
@@ -500,67 +682,51 @@ public class CashRegisterService implements Accountancy {
 		return null;
 	}
 
-	protected ResponseEntity<byte[]> getDayReportOutput(LocalDate actualDate) {
-		if (actualDate.isAfter(clockService.getCurrentDate())) {
-			return ResponseEntity.badRequest()
-				.body("The given date cannot be in the future.".getBytes(StandardCharsets.UTF_8));
-		}
-
-		DailyFinancialReport report = createFinancialReportDay(actualDate.atStartOfDay());
-		ResponseEntity<byte[]> badOutput = ResponseEntity.badRequest()
-			.body("No Transactions saved in the system.".getBytes(StandardCharsets.UTF_8));
-		boolean abort = false;
-		if (report == null) {
-			badOutput = ResponseEntity.badRequest()
-				.body("No Transactions saved in the system.".getBytes(StandardCharsets.UTF_8));
-			abort = true;
-
-		} else if (report.isBeforeBeginning()) {
-			badOutput = ResponseEntity.badRequest()
-				.body(("The given date is before the accounting process started. " +
-					"No Data.").getBytes(StandardCharsets.UTF_8));
-			abort = true;
-		}
-
-		if (abort) {
-			return badOutput;
+	/**
+	 * @param quarter number of the quarter (1-4)
+	 * @param year    year of the quarter
+	 * @return the report of the quarter, or a bad request with the reason, why there is none
+	 */
+	protected ResponseEntity<StreamingResponseBody> getQuarterReportOutput(int quarter, int year) {
+		if (YearMonth.of(year, (quarter - 1) * 3 + 1).atDay(1).isAfter(clockService.getCurrentDate())) {
+			return badRequestStream("The given date cannot be in the future.");
 		}
-
-		byte[] docu = report.generatePDF();
-		return ResponseEntity.ok()
-			.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=report_day.pdf")
-			.contentType(MediaType.APPLICATION_PDF)
-			.body(docu);
+		return aggregatedReportOutput(createFinancialReportQuarter(quarter, year), "report_quarter.pdf",
+			"The given quarter is before the accounting process started. No Data.");
 	}
 
-	protected ResponseEntity<byte[]> getMonthReportOutput(int month, int year) {
-		YearMonth monthParsed = YearMonth.of(year, month);
-		LocalDate firstOfMonth = monthParsed.atDay(1);
-		if (firstOfMonth.isAfter(clockService.getCurrentDate())) {
-			return ResponseEntity.badRequest()
-				.body("The given date cannot be in the future.".getBytes(StandardCharsets.UTF_8));
+	/**
+	 * @param year the year
+	 * @return the report of the year, or a bad request with the reason, why there is none
+	 */
+	protected ResponseEntity<StreamingResponseBody> getYearReportOutput(int year) {
+		if (LocalDate.of(year, 1, 1).isAfter(clockService.getCurrentDate())) {
+			return badRequestStream("The given date cannot be in the future.");
 		}
+		return aggregatedReportOutput(createFinancialReportYear(year), "report_year.pdf",
+			"The given year is before the accounting process started. No Data.");
+	}
 
-		MonthlyFinancialReport report = createFinancialReportMonth(firstOfMonth.atStartOfDay());
-		ResponseEntity<byte[]> badOutput = ResponseEntity.badRequest()
-			.body("No Transactions saved in the system.".getBytes(StandardCharsets.UTF_8));
-		boolean abort = false;
+	private static ResponseEntity<StreamingResponseBody> aggregatedReportOutput(AggregatedFinancialReport report,
+																		 String fileName,
+																		 String beforeBeginningMessage) {
 		if (report == null) {
-			badOutput = ResponseEntity.badRequest()
-				.body("No Transactions saved in the system.".getBytes(StandardCharsets.UTF_8));
-			abort = true;
+			return badRequestStream("No Transactions saved in the system.");
 		} else if (report.isBeforeBeginning()) {
-			badOutput = ResponseEntity.badRequest()
-				.body("The given month is before the accounting process started. No Data.".getBytes(StandardCharsets.UTF_8));
-			abort = true;
+			return badRequestStream(beforeBeginningMessage);
 		}
-		if (abort) {
-			return badOutput;
-		}
-		byte[] docu = report.generatePDF();
 		return ResponseEntity.ok()
-			.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=report_month.pdf")
+			.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName)
 			.contentType(MediaType.APPLICATION_PDF)
-			.body(docu);
+			.body(report::writePDF);
+	}
+
+	/**
+	 * @param message explanation for the user
+	 * @return a bad request, whose body is the message
+	 */
+	protected static ResponseEntity<StreamingResponseBody> badRequestStream(String message) {
+		byte[] body = message.getBytes(StandardCharsets.UTF_8);
+		return ResponseEntity.badRequest().body(outputStream -> outputStream.write(body));
 	}
 }
@@ -0,0 +1,41 @@
+package flowershop.finances;
+
+import flowershop.clock.RolloverStage;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Posts what is left in the outbox, so every order paid on the ended day is in the ledger before the day
+ * is summed up. Fails while one of them can't be posted, so the snapshot of the day isn't made from an
+ * incomplete ledger. Dead-lettered orders don't hold the day back, they are alerted by the {@link LedgerOutbox}
+ * and correct the snapshot, when they are posted later.
+ */
+@Component
+@Order(10)
+public class CloseLedgerDayStage implements RolloverStage {
+
+	private final LedgerOutbox ledgerOutbox;
+	private final LedgerOutboxRepository outboxRepository;
+
+	public CloseLedgerDayStage(LedgerOutbox ledgerOutbox, LedgerOutboxRepository outboxRepository) {
+		this.ledgerOutbox = ledgerOutbox;
+		this.outboxRepository = outboxRepository;
+	}
+
+	@Override
+	public String getName() {
+		return "close-ledger-day";
+	}
+
+	@Override
+	public void run(LocalDate endedDay, LocalDate newDay) {
+		ledgerOutbox.drain();
+		LocalDateTime endOfDay = endedDay.plusDays(1).atStartOfDay();
+		if (outboxRepository.existsByPostedAtIsNullAndDeadLetteredAtIsNullAndPaidAtBefore(endOfDay)) {
+			throw new IllegalStateException("Not all orders of " + endedDay + " could be posted to the ledger.");
+		}
+	}
+}
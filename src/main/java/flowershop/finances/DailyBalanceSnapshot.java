@@ -0,0 +1,96 @@
+package flowershop.finances;
+
+import flowershop.product.Cents;
+import jakarta.persistence.*;
+import org.javamoney.moneta.Money;
+
+import javax.money.Monetary;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Record of the state of the register at the end of a working day.
+ * Is written when the next day starts and lets the reports find the historical
+ * balance without summing up every entry since then.
+ * <p>
+ * The amounts are stored in cents, so an entry, that is booked for the day after the snapshot was taken,
+ * can be added to them by {@link DailyBalanceSnapshotRepository#shiftClosingBalances(LocalDate, long)}
+ * and {@link DailyBalanceSnapshotRepository#addToDay(LocalDate, long, long)}.
+ */
+@Entity
+public class DailyBalanceSnapshot {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "snapshot_day", unique = true, nullable = false, updatable = false)
+	private LocalDate day;
+
+	@Column(updatable = false)
+	private String currency;
+
+	private long closingBalanceCents;
+
+	private long incomeCents;
+
+	/**
+	 * never positive
+	 */
+	private long expenditureCents;
+
+	@Column(updatable = false)
+	private long writeOffsCents;
+
+	public DailyBalanceSnapshot(LocalDate day, Money closingBalance, Money income,
+								Money expenditure, Money writeOffs) {
+		this.day = day;
+		this.currency = closingBalance.getCurrency().getCurrencyCode();
+		this.closingBalanceCents = Cents.of(closingBalance);
+		this.incomeCents = Cents.of(income);
+		this.expenditureCents = Cents.of(expenditure);
+		this.writeOffsCents = Cents.of(writeOffs);
+	}
+
+	protected DailyBalanceSnapshot() {
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public LocalDate getDay() {
+		return day;
+	}
+
+	/**
+	 * @return the moment the closing balance belongs to (midnight after the day)
+	 */
+	public LocalDateTime getClosingTime() {
+		return day.plusDays(1).atStartOfDay();
+	}
+
+	public long getClosingBalanceCents() {
+		return closingBalanceCents;
+	}
+
+	public Money getClosingBalance() {
+		return toMoney(closingBalanceCents);
+	}
+
+	public Money getIncome() {
+		return toMoney(incomeCents);
+	}
+
+	public Money getExpenditure() {
+		return toMoney(expenditureCents);
+	}
+
+	public Money getWriteOffs() {
+		return toMoney(writeOffsCents);
+	}
+
+	private Money toMoney(long cents) {
+		return Money.ofMinor(Monetary.getCurrency(currency), cents);
+	}
+}
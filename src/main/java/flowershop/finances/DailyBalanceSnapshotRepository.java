@@ -0,0 +1,50 @@
+package flowershop.finances;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface DailyBalanceSnapshotRepository extends JpaRepository<DailyBalanceSnapshot, Long> {
+
+	boolean existsByDay(LocalDate day);
+
+	/**
+	 * @param day any day
+	 * @return the latest snapshot of a day before the given one, its closing time isn't after the start of the day
+	 */
+	Optional<DailyBalanceSnapshot> findFirstByDayLessThanOrderByDayDesc(LocalDate day);
+
+	/**
+	 * Adds an entry, that was booked after the snapshots were taken, to the closing balance of its day
+	 * and of every later one
+	 *
+	 * @param day        day of the entry
+	 * @param deltaCents value of the entry in cents
+	 * @return number of changed snapshots
+	 */
+	@Transactional
+	@Modifying(flushAutomatically = true)
+	@Query("update DailyBalanceSnapshot s set s.closingBalanceCents = s.closingBalanceCents + :delta "
+		+ "where s.day >= :day")
+	int shiftClosingBalances(@Param("day") LocalDate day, @Param("delta") long deltaCents);
+
+	/**
+	 * Adds an entry, that was booked after the snapshot of its day was taken, to the totals of that day
+	 *
+	 * @param day              day of the entry
+	 * @param incomeCents      value of the entry in cents if it is income, 0 otherwise
+	 * @param expenditureCents value of the entry in cents if it is expenditure, 0 otherwise
+	 * @return number of changed snapshots
+	 */
+	@Transactional
+	@Modifying(flushAutomatically = true)
+	@Query("update DailyBalanceSnapshot s set s.incomeCents = s.incomeCents + :income, "
+		+ "s.expenditureCents = s.expenditureCents + :expenditure where s.day = :day")
+	int addToDay(@Param("day") LocalDate day, @Param("income") long incomeCents,
+				 @Param("expenditure") long expenditureCents);
+}
@@ -1,6 +1,7 @@
 package flowershop.finances;
 
 import flowershop.clock.ClockService;
+import flowershop.inventory.DeletedProduct;
 import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.salespointframework.accountancy.AccountancyEntry;
 import org.salespointframework.time.Interval;
@@ -51,6 +52,34 @@ public class DailyFinancialReport extends FinancialReport {
 		this.deletedProducts = cashRegister.findDeletedProductsByDate(day.getStart().toLocalDate());
 	}
 
+	/**
+	 * Is used by the reports over longer periods, which already have the data of every day at hand
+	 *
+	 * @param day                  the day of the report
+	 * @param balanceEndOfTheDay   balance in the evening of the day
+	 * @param orders               entries of the day, ordered by timestamp
+	 * @param income               sum of all incomes of the day
+	 * @param expenditure          sum of all spendings of the day
+	 * @param deletedProducts      products that were written off on this day
+	 * @param firstEverTransaction timestamp of the very first transaction
+	 * @param clockService         clock of the shop
+	 */
+	DailyFinancialReport(Interval day,
+						 MonetaryAmount balanceEndOfTheDay,
+						 List<AccountancyEntry> orders,
+						 MonetaryAmount income,
+						 MonetaryAmount expenditure,
+						 List<DeletedProduct> deletedProducts,
+						 LocalDateTime firstEverTransaction,
+						 ClockService clockService) {
+		super(day, balanceEndOfTheDay, firstEverTransaction, clockService);
+		this.orders = orders;
+		this.income = income;
+		this.expenditure = expenditure;
+		countProfit();
+		this.deletedProducts = deletedProducts;
+	}
+
 	public Streamable<AccountancyEntry> getOrders() {
 		return Streamable.of(this.orders);
 	}
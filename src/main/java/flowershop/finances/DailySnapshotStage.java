@@ -0,0 +1,33 @@
+package flowershop.finances;
+
+import flowershop.clock.RolloverStage;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Stores the closing balance and the totals of the ended day
+ *
+ * @see CashRegisterService#snapshotDay(LocalDate)
+ */
+@Component
+@Order(20)
+public class DailySnapshotStage implements RolloverStage {
+
+	private final CashRegisterService cashRegisterService;
+
+	public DailySnapshotStage(CashRegisterService cashRegisterService) {
+		this.cashRegisterService = cashRegisterService;
+	}
+
+	@Override
+	public String getName() {
+		return "snapshot";
+	}
+
+	@Override
+	public void run(LocalDate endedDay, LocalDate newDay) {
+		cashRegisterService.snapshotDay(endedDay);
+	}
+}
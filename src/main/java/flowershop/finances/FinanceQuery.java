@@ -0,0 +1,234 @@
+package flowershop.finances;
+
+import flowershop.inventory.DeletedProduct;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * The filters a user has chosen on the finances page. One instance is kept per session,
+ * so that users filtering at the same time don't overwrite each other's choice.
+ * <p>
+ * The active filters are combined into a single database query, which returns one page of entries
+ * at a time. The shown page is cached together with the version of the ledger it was read for,
+ * so it is only read again after a filter was changed or something new was registered.
+ */
+public class FinanceQuery {
+
+	enum Filter {
+		DATES, CATEGORY, CUSTOMER_NAME, TRANSACTION_VALUE
+	}
+
+	private LocalDate date1;
+	private LocalDate date2;
+	private String category;
+	private String customerName = "";
+	private String transactionValue = "";
+	private double price;
+	private List<DeletedProduct> deletedProducts = new ArrayList<>();
+
+	private final EnumSet<Filter> active = EnumSet.noneOf(Filter.class);
+
+	/**
+	 * cursor of the shown page (null for the newest entries) and the cursors of the pages before it
+	 */
+	private LedgerCursor cursor;
+	private final List<LedgerCursor> newerCursors = new ArrayList<>();
+
+	/**
+	 * the shown page and the ledger version it was read for. null, if it has to be read again
+	 */
+	private LedgerPage page;
+	private long version = -1;
+
+	/**
+	 * Shows only the entries registered between the start of date1 and the end of date2
+	 */
+	public synchronized void filterDates(LocalDate date1, LocalDate date2) {
+		this.date1 = date1;
+		this.date2 = date2;
+		change(Filter.DATES, true);
+	}
+
+	public synchronized void resetDates() {
+		this.date1 = LocalDate.of(1970, 1, 1);
+		this.date2 = LocalDate.now();
+		change(Filter.DATES, false);
+	}
+
+	/**
+	 * @param category one of the options of the category filter, "all" drops the filter
+	 */
+	public synchronized void filterCategory(String category) {
+		this.category = category;
+		change(Filter.CATEGORY, !category.equals("all"));
+	}
+
+	public synchronized void resetCategory() {
+		this.category = "all";
+		change(Filter.CATEGORY, false);
+	}
+
+	public synchronized void filterCustomerName(String customerName) {
+		this.customerName = customerName;
+		change(Filter.CUSTOMER_NAME, true);
+	}
+
+	public synchronized void resetCustomerName() {
+		this.customerName = "";
+		change(Filter.CUSTOMER_NAME, false);
+	}
+
+	public synchronized void filterTransactionValue(double price) {
+		this.price = price;
+		this.transactionValue = String.valueOf(price);
+		change(Filter.TRANSACTION_VALUE, true);
+	}
+
+	public synchronized void resetTransactionValue() {
+		this.transactionValue = "";
+		change(Filter.TRANSACTION_VALUE, false);
+	}
+
+	private void change(Filter filter, boolean isActive) {
+		if (isActive) {
+			active.add(filter);
+		} else {
+			active.remove(filter);
+		}
+		firstPage();
+	}
+
+	/**
+	 * Goes back to the newest entries
+	 */
+	public synchronized void firstPage() {
+		cursor = null;
+		newerCursors.clear();
+		page = null;
+	}
+
+	/**
+	 * Moves on to the next older entries, if the shown page isn't the last one
+	 */
+	public synchronized void olderPage() {
+		if (page == null || !page.hasNext()) {
+			return;
+		}
+		newerCursors.add(cursor);
+		cursor = page.getNextCursor();
+		page = null;
+	}
+
+	/**
+	 * Moves back to the previous newer entries
+	 */
+	public synchronized void newerPage() {
+		if (newerCursors.isEmpty()) {
+			return;
+		}
+		cursor = newerCursors.removeLast();
+		page = null;
+	}
+
+	public synchronized boolean hasNewerPage() {
+		return !newerCursors.isEmpty();
+	}
+
+	/**
+	 * @param cashRegisterService the service the entries are read from
+	 * @param size                maximal number of entries on a page
+	 * @return the shown page of entries matching every active filter, newest first
+	 */
+	public synchronized LedgerPage getPage(CashRegisterService cashRegisterService, int size) {
+		long current = cashRegisterService.getLedgerVersion();
+		if (page == null || current != version || page.getEntries().size() > size) {
+			page = cashRegisterService.findPage(toSpecification(), cursor, size);
+			version = current;
+		}
+		return page;
+	}
+
+	/**
+	 * @return all active filters combined into one query
+	 */
+	Specification<AccountancyEntryWrapper> toSpecification() {
+		List<Specification<AccountancyEntryWrapper>> filters = new ArrayList<>();
+		for (Filter filter : active) {
+			filters.add(switch (filter) {
+				case DATES -> LedgerSpecifications.between(date1.atStartOfDay(), date2.plusDays(1).atStartOfDay());
+				case CATEGORY -> switch (category) {
+					case "income" -> LedgerSpecifications.isIncome(true);
+					case "spendings" -> LedgerSpecifications.isIncome(false);
+					case "simple order" -> LedgerSpecifications.inCategory(Category.EINFACHER_VERKAUF);
+					case "reserved order" -> LedgerSpecifications.inCategory(Category.RESERVIERTER_VERKAUF);
+					case "event order" -> LedgerSpecifications.inCategory(Category.VERANSTALTUNG_VERKAUF);
+					case "contract order" -> LedgerSpecifications.inCategory(Category.VERTRAGLICHER_VERKAUF);
+					default -> LedgerSpecifications.inCategory(Category.EINKAUF);
+				};
+				case CUSTOMER_NAME -> LedgerSpecifications.clientNameContains(customerName);
+				case TRANSACTION_VALUE -> LedgerSpecifications.valueEquals(price);
+			});
+		}
+		return Specification.allOf(filters);
+	}
+
+	public LocalDate getDate1() {
+		return date1;
+	}
+
+	public LocalDate getDate2() {
+		return date2;
+	}
+
+	public String getCategory() {
+		return category;
+	}
+
+	public String getCustomerName() {
+		return customerName;
+	}
+
+	public String getTransactionValue() {
+		return transactionValue;
+	}
+
+	public List<DeletedProduct> getDeletedProducts() {
+		return deletedProducts;
+	}
+
+	/**
+	 * Reads the write-offs of the days the table shows: the filtered dates, or else the days between the oldest
+	 * and the newest entry of the shown page. The newest page also reaches up to today.
+	 *
+	 * @param cashRegisterService the service the write-offs are read from
+	 * @param today               the current day of the shop
+	 */
+	public synchronized void loadDeletedProducts(CashRegisterService cashRegisterService, LocalDate today) {
+		LocalDate from = today;
+		LocalDate to = today;
+		if (active.contains(Filter.DATES)) {
+			from = date1;
+			to = date2;
+		} else if (page != null && !page.getEntries().isEmpty()) {
+			List<AccountancyEntryWrapper> entries = page.getEntries();
+			from = entries.getLast().getTimestamp().toLocalDate();
+			LocalDate newest = entries.getFirst().getTimestamp().toLocalDate();
+			to = cursor == null && newest.isBefore(today) ? today : newest;
+		}
+		setDeletedProducts(cashRegisterService.getAllDeletedProducts(from, to));
+	}
+
+	/**
+	 * @param deletedProducts write-offs shown below the table, they are sorted newest first
+	 */
+	public void setDeletedProducts(List<DeletedProduct> deletedProducts) {
+		List<DeletedProduct> sorted = new ArrayList<>(deletedProducts);
+		sorted.sort(Comparator.comparing(DeletedProduct::getDateWhenDeleted).reversed());
+		this.deletedProducts = sorted;
+	}
+}
@@ -1,20 +1,27 @@
 package flowershop.finances;
 
 import flowershop.clock.ClockService;
-import flowershop.inventory.DeletedProduct;
-import org.salespointframework.accountancy.AccountancyEntry;
 import org.salespointframework.time.Interval;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.SessionAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -22,6 +29,7 @@ import java.time.YearMonth;
 import java.time.format.DateTimeParseException;
 import java.util.*;
 
+@SessionAttributes("financeQuery")
 @Controller
 //@RequestMapping("/finances")
 public class FinancesController {
@@ -29,26 +37,18 @@ public class FinancesController {
 	private final int maxEntriesShown = 100;
 	private final CashRegisterService cashRegisterService;
 	private final ClockService clockService;
-	private List<AccountancyEntryWrapper> filteredOrdersList = new ArrayList<>();
-	private List<AccountancyEntryWrapper> filteredAndCutOrdersList;
-	private HashSet<AccountancyEntryWrapper> filteredByDates = new HashSet<>();
-	private HashSet<AccountancyEntryWrapper> filteredByCategory = new HashSet<>();
-	private HashSet<AccountancyEntryWrapper> filteredByCustomerName = new HashSet<>();
-	private HashSet<AccountancyEntryWrapper> filteredBySum = new HashSet<>();
-	private LocalDate date1;
-	private LocalDate date2;
-	private boolean isFilteredByDates;
-	private boolean isFilteredByCategory;
-	private boolean isFilteredByCustomerName;
-	private boolean isFilteredBySum;
-	private String category;
-	private String name = "";
-	private String sum = "";
-	private List<DeletedProduct> deletedProducts = new ArrayList<>();
-
-	public FinancesController(CashRegisterService cashRegisterService, ClockService clockService) {
+	private final ReportJobService reportJobService;
+
+	public FinancesController(CashRegisterService cashRegisterService, ClockService clockService,
+							  ReportJobService reportJobService) {
 		this.cashRegisterService = cashRegisterService;
 		this.clockService = clockService;
+		this.reportJobService = reportJobService;
+	}
+
+	@ModelAttribute("financeQuery")
+	FinanceQuery initializeFinanceQuery() {
+		return new FinanceQuery();
 	}
 
 	/**
@@ -57,40 +57,20 @@ public class FinancesController {
 	 * @param date1 start date
 	 * @param date2 end date
 	 * @param model
+	 * @param query filters of the current session
 	 * @return "finances"
 	 */
 	@GetMapping("/filterDates")
 	@PreAuthorize("hasRole('BOSS')")
 	public String filterDates(@RequestParam("date1") LocalDate date1,
 							  @RequestParam("date2") LocalDate date2,
-							  Model model) {
+							  Model model,
+							  @ModelAttribute("financeQuery") FinanceQuery query) {
 		if (date1.isAfter(date2)) {
 			return "finances";
 		}
-		this.date1 = date1;
-		this.date2 = date2;
-		Interval interval = Interval.from(LocalDateTime.of(
-			date1.getYear(),
-			date1.getMonth(),
-			date1.getDayOfMonth(), 0, 0)
-		).to(date2.plusDays(1).atStartOfDay());
-			/*
-			.to(LocalDateTime.of(
-			date2.getYear(),
-			date2.getMonth(),
-			date2.getDayOfMonth()+, 0, 0
-			 */
-		HashSet<AccountancyEntryWrapper> filteredList = new HashSet<>();
-		for (AccountancyEntry i : cashRegisterService.find(interval).toList()) {
-			filteredList.add((AccountancyEntryWrapper) i);
-		}
-		this.filteredByDates = filteredList;
-		this.isFilteredByDates = true;
-		setFilteredOrdersList(this.maxEntriesShown);
-		List<DeletedProduct> tempList = new ArrayList<>(cashRegisterService.getAllDeletedProducts(date1, date2));
-		tempList.sort(Comparator.comparing(DeletedProduct::getDateWhenDeleted).reversed());
-		this.deletedProducts = tempList;
-		prepareFinancesModel(model, filteredAndCutOrdersList);
+		query.filterDates(date1, date2);
+		prepareFinancesModel(model, query);
 		return "finances";
 	}
 
@@ -99,43 +79,28 @@ public class FinancesController {
 	 * Drops the date filter and adds all the other entries back to the table
 	 *
 	 * @param model
+	 * @param query filters of the current session
 	 * @return
 	 */
 	@GetMapping("/resetDates")
 	@PreAuthorize("hasRole('BOSS')")
-	public String resetDates(Model model) {
-		this.filteredByDates = new HashSet<>();
-		this.isFilteredByDates = false;
-		this.date1 = LocalDate.of(1970, 1, 1);
-		this.date2 = LocalDate.now();
-		getTransactionPage(model);
-		List<DeletedProduct> tempList = new ArrayList<>(cashRegisterService.getAllDeletedProducts());
-		tempList.sort(Comparator.comparing(DeletedProduct::getDateWhenDeleted).reversed());
-		this.deletedProducts = tempList;
-		prepareFinancesModel(model, filteredAndCutOrdersList);
-		return "finances";
+	public String resetDates(Model model, @ModelAttribute("financeQuery") FinanceQuery query) {
+		query.resetDates();
+		return getTransactionPage(model, query);
 	}
 
 	/**
 	 * Drops the category filter and returns all entries back to the table
 	 *
 	 * @param model
+	 * @param query filters of the current session
 	 * @return
 	 */
 	@GetMapping("/resetCategory")
 	@PreAuthorize("hasRole('BOSS')")
-	public String resetCategory(Model model) {
-		this.filteredByCategory = new HashSet<>();
-		this.isFilteredByCategory = false;
-		this.category = "all";
-		getTransactionPage(model);
-		/*
-		else{
-			getTransactionPage(model);
-		}
-
-		 */
-		prepareFinancesModel(model, filteredAndCutOrdersList);
+	public String resetCategory(Model model, @ModelAttribute("financeQuery") FinanceQuery query) {
+		query.resetCategory();
+		prepareFinancesModel(model, query);
 		return "finances";
 	}
 
@@ -143,18 +108,23 @@ public class FinancesController {
 	 * Connects needed data to HTML
 	 *
 	 * @param model
-	 * @param transactions
+	 * @param query filters of the current session
 	 */
-	private void prepareFinancesModel(Model model, List<AccountancyEntryWrapper> transactions) {
+	private void prepareFinancesModel(Model model, FinanceQuery query) {
+		LedgerPage page = query.getPage(cashRegisterService, maxEntriesShown);
+		List<AccountancyEntryWrapper> transactions = page.getEntries();
+		query.loadDeletedProducts(cashRegisterService, clockService.getCurrentDate());
 		model.addAttribute("transactions", transactions);
+		model.addAttribute("hasOlderPage", page.hasNext());
+		model.addAttribute("hasNewerPage", query.hasNewerPage());
 		model.addAttribute("currentBalance", cashRegisterService.getBalance());
-		model.addAttribute("date1", date1);
-		model.addAttribute("date2", date2);
-		model.addAttribute("category", category);
+		model.addAttribute("date1", query.getDate1());
+		model.addAttribute("date2", query.getDate2());
+		model.addAttribute("category", query.getCategory());
 		model.addAttribute("todayDate", clockService.getCurrentDate());
 		model.addAttribute("shopOpened", clockService.isOpen());
-		model.addAttribute("deletedProducts", this.deletedProducts);
-		model.addAttribute("deletedProductsNotEmpty", !this.deletedProducts.isEmpty());
+		model.addAttribute("deletedProducts", query.getDeletedProducts());
+		model.addAttribute("deletedProductsNotEmpty", !query.getDeletedProducts().isEmpty());
 		LocalDateTime startOfDay = clockService.getCurrentDate().atTime(9, 0, 0);
 		LocalDateTime endOfInterval = startOfDay.plusDays(1);
 		model.addAttribute("dayProfit", cashRegisterService.salesVolume(
@@ -162,99 +132,40 @@ public class FinancesController {
 			Duration.ofDays(1)).get(Interval.from(startOfDay).to(endOfInterval))
 		);
 		model.addAttribute("transactionsNotEmpty", !transactions.isEmpty());
-		model.addAttribute("customerName", this.name);
-		model.addAttribute("transactionValue", this.sum);
+		model.addAttribute("customerName", query.getCustomerName());
+		model.addAttribute("transactionValue", query.getTransactionValue());
 
 	}
 
 	/**
-	 * Will sort this list and show a cut version of it in the table
-	 *
-	 * @param size max number of entries which are shown in the table at a time
+	 * @param model
+	 * @param query filters of the current session
+	 * @return The main finances page
 	 */
-	private void setFilteredOrdersList(int size) {
-		List<AccountancyEntryWrapper> tempList = new ArrayList<>(findFilteredEntries());
-		Collections.sort(tempList, new Comparator<AccountancyEntry>() {
-			@Override
-			public int compare(AccountancyEntry first, AccountancyEntry second) {
-				LocalDateTime ldt1 = ((AccountancyEntryWrapper) first).getTimestamp();
-				LocalDateTime ldt2 = ((AccountancyEntryWrapper) second).getTimestamp();
-				if (ldt1 != null && ldt2 != null) {
-					return ldt2.compareTo(ldt1);
-				} else {
-					throw new IllegalStateException("Some entries dont have date assigned");
-				}
-			}
-		});
-		this.filteredOrdersList = tempList;
-		limitListSize(size);
-	}
-
-	private Set<AccountancyEntryWrapper> findFilteredEntries() {
-		final List<Set<AccountancyEntryWrapper>> filterSets = List.of(
-			filteredByDates,
-			filteredByCategory,
-			filteredByCustomerName,
-			filteredBySum
-		);
-		final List<Boolean> filterSettings = List.of(
-			isFilteredByDates,
-			isFilteredByCategory,
-			isFilteredByCustomerName,
-			isFilteredBySum
-		);
-		Set<AccountancyEntryWrapper> filteredSet = new HashSet<>();
-		boolean firstActiveFilterFound = false;
-		int i = 0;
-		while (i < filterSets.size()) {
-			if (filterSettings.get(i) && !firstActiveFilterFound) {
-				firstActiveFilterFound = true;
-				filteredSet = filterSets.get(i);
-			} else if (filterSettings.get(i)) {
-				filteredSet = intersection(filteredSet, filterSets.get(i));
-			}
-			i += 1;
-		}
-		if (!firstActiveFilterFound) {
-			for (AccountancyEntry j : this.cashRegisterService.findAll().toList()) {
-				filteredSet.add((AccountancyEntryWrapper) j);
-			}
-		}
-		return filteredSet;
+	@GetMapping("/finances")
+	@PreAuthorize("hasRole('BOSS')")
+	public String getTransactionPage(Model model, @ModelAttribute("financeQuery") FinanceQuery query) {
+		return getTransactionPage(model, query, null);
 	}
 
 	/**
 	 * @param model
+	 * @param query filters of the current session
+	 * @param page  "older" or "newer" to move between the pages of the table, the newest entries otherwise
 	 * @return The main finances page
 	 */
-	@GetMapping("/finances")
+	@GetMapping(value = "/finances", params = "page")
 	@PreAuthorize("hasRole('BOSS')")
-	public String getTransactionPage(Model model) {
-		this.filteredOrdersList = new LinkedList<>();
-		for (AccountancyEntry i : this.cashRegisterService.findAll().toList()) {
-			this.filteredOrdersList.add((AccountancyEntryWrapper) i);
+	public String getTransactionPage(Model model, @ModelAttribute("financeQuery") FinanceQuery query,
+									 @RequestParam("page") String page) {
+		if ("older".equals(page)) {
+			query.olderPage();
+		} else if ("newer".equals(page)) {
+			query.newerPage();
+		} else {
+			query.firstPage();
 		}
-		List<DeletedProduct> tempList = new ArrayList<>(cashRegisterService.getAllDeletedProducts());
-		tempList.sort(Comparator.comparing(DeletedProduct::getDateWhenDeleted).reversed());
-		this.deletedProducts = tempList;
-
-		setFilteredOrdersList(this.maxEntriesShown);
-		model.addAttribute("transactions", filteredAndCutOrdersList);
-		model.addAttribute("currentBalance", cashRegisterService.getBalance());
-		model.addAttribute("todayDate", clockService.getCurrentDate());
-		System.out.println(clockService.isOpen());
-		model.addAttribute("shopOpened", clockService.isOpen());
-		LocalDateTime startOfDay = clockService.getCurrentDate().atTime(9, 0, 0);
-		LocalDateTime endOfInterval = startOfDay.plusDays(1);
-		model.addAttribute("dayProfit", cashRegisterService.salesVolume(
-			Interval.from(startOfDay).to(endOfInterval),
-			Duration.ofDays(1)).get(Interval.from(startOfDay).to(endOfInterval))
-		);
-		model.addAttribute("deletedProducts", this.deletedProducts);
-		model.addAttribute("deletedProductsNotEmpty", !this.deletedProducts.isEmpty());
-		model.addAttribute("transactionsNotEmpty", !filteredOrdersList.isEmpty());
-		model.addAttribute("customerName", this.name);
-		model.addAttribute("transactionValue", this.sum);
+		prepareFinancesModel(model, query);
 		return "finances";
 	}
 
@@ -284,15 +195,16 @@ public class FinancesController {
 	}
 
 	/**
-	 * Uploads a generated day-report
+	 * Uploads a generated day-report. If it isn't in the cache, it is only queued and the status of its job
+	 * is returned, the document is downloaded from there, once it is done.
 	 *
 	 * @param date
 	 * @param model
-	 * @return PDF-File
+	 * @return PDF-File, or the status of the queued job
 	 */
 	@GetMapping("/dayReport")
 	@PreAuthorize("hasRole('BOSS')")
-	public ResponseEntity<byte[]> dayReport(@RequestParam("day") String date, Model model) {
+	public ResponseEntity<?> dayReport(@RequestParam("day") String date, Model model) {
 		String[] dateArray = date.split("-");
 		if (dateArray.length != 3) {
 			return ResponseEntity.badRequest()
@@ -312,22 +224,23 @@ public class FinancesController {
 					"But if you do, use format YYYY-MM-DD")
 					.getBytes(StandardCharsets.UTF_8));
 		}
-		return cashRegisterService.getDayReportOutput(actualDate);
+		return cachedOrQueued(ReportJob.Type.DAY, actualDate, "report_day.pdf");
 	}
 
 	/**
-	 * Uploads a generated month-report
+	 * Uploads a generated month-report. If it isn't in the cache, it is only queued and the status of its job
+	 * is returned, the document is downloaded from there, once it is done.
 	 *
 	 * @param month number of the needed month (1-12)
 	 * @param year  the needed year
 	 * @param model
-	 * @return PDF-File
+	 * @return PDF-File, or the status of the queued job
 	 */
 	@GetMapping("/monthReport")
 	@PreAuthorize("hasRole('BOSS')")
-	public ResponseEntity<byte[]> monthReport(@RequestParam("month") int month,
-											  @RequestParam("year") int year,
-											  Model model) {
+	public ResponseEntity<?> monthReport(@RequestParam("month") int month,
+										 @RequestParam("year") int year,
+										 Model model) {
 		/*
 		String[] date = year_month.split("-");
 		if (date.length != 2) {
@@ -343,117 +256,217 @@ public class FinancesController {
 		}
 		*/
 		if (month < 1 || month > 12) {
-			return ResponseEntity.badRequest()
-				.body("No such month exists, dummy ;)".getBytes(StandardCharsets.UTF_8));
+			return CashRegisterService.badRequestStream("No such month exists, dummy ;)");
+		}
+		return cachedOrQueued(ReportJob.Type.MONTH, LocalDate.of(year, month, 1), "report_month.pdf");
+	}
+
+	/**
+	 * The request thread never renders the report itself
+	 *
+	 * @return the cached document, or 202 with the status of the job, that renders it
+	 */
+	private ResponseEntity<?> cachedOrQueued(ReportJob.Type type, LocalDate period, String fileName) {
+		Optional<InputStream> cached = reportJobService.openCached(type, period);
+		if (cached.isPresent()) {
+			return pdfResponse(cached.get(), fileName);
+		}
+		try {
+			ReportJob job = reportJobService.submit(type, period);
+			return ResponseEntity.accepted()
+				.location(URI.create("/reports/" + job.getId()))
+				.body(jobToMap(job));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+		} catch (IllegalStateException e) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("message", e.getMessage()));
 		}
-		return cashRegisterService.getMonthReportOutput(month, year);
+	}
 
+	/**
+	 * Uploads a generated quarter-report, which is put together from the months of the quarter
+	 *
+	 * @param quarter number of the needed quarter (1-4)
+	 * @param year    the needed year
+	 * @return PDF-File
+	 */
+	@GetMapping("/quarterReport")
+	@PreAuthorize("hasRole('BOSS')")
+	public ResponseEntity<StreamingResponseBody> quarterReport(@RequestParam("quarter") int quarter,
+															   @RequestParam("year") int year) {
+		if (quarter < 1 || quarter > 4) {
+			return CashRegisterService.badRequestStream("No such quarter exists.");
+		}
+		return cashRegisterService.getQuarterReportOutput(quarter, year);
+	}
+
+	/**
+	 * Uploads a generated year-report, which is put together from the months of the year
+	 *
+	 * @param year the needed year
+	 * @return PDF-File
+	 */
+	@GetMapping("/yearReport")
+	@PreAuthorize("hasRole('BOSS')")
+	public ResponseEntity<StreamingResponseBody> yearReport(@RequestParam("year") int year) {
+		return cashRegisterService.getYearReportOutput(year);
+	}
+
+	/**
+	 * Starts creating a report in the background
+	 *
+	 * @param type  "day" or "month"
+	 * @param day   the day of a day report (YYYY-MM-DD)
+	 * @param month number of the month of a month report (1-12)
+	 * @param year  year of a month report
+	 * @return the id and the status of the started job
+	 */
+	@PostMapping("/reports")
+	@PreAuthorize("hasRole('BOSS')")
+	public ResponseEntity<Map<String, String>> submitReport(@RequestParam("type") String type,
+															@RequestParam(value = "day", required = false) String day,
+															@RequestParam(value = "month", required = false) Integer month,
+															@RequestParam(value = "year", required = false) Integer year) {
+		LocalDate period;
+		ReportJob.Type reportType;
+		try {
+			if ("day".equalsIgnoreCase(type) && day != null) {
+				reportType = ReportJob.Type.DAY;
+				period = LocalDate.parse(day);
+			} else if ("month".equalsIgnoreCase(type) && month != null && year != null) {
+				reportType = ReportJob.Type.MONTH;
+				period = YearMonth.of(year, month).atDay(1);
+			} else {
+				return ResponseEntity.badRequest().body(Map.of("message",
+					"Use type=day with a day (YYYY-MM-DD) or type=month with a month and a year."));
+			}
+		} catch (DateTimeException e) {
+			return ResponseEntity.badRequest().body(Map.of("message", "No such date exists."));
+		}
+		try {
+			ReportJob job = reportJobService.submit(reportType, period);
+			return ResponseEntity.accepted().body(jobToMap(job));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+		} catch (IllegalStateException e) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("message", e.getMessage()));
+		}
+	}
+
+	/**
+	 * @param id id of the job
+	 * @return the status of the job
+	 */
+	@GetMapping("/reports/{id}")
+	@PreAuthorize("hasRole('BOSS')")
+	public ResponseEntity<Map<String, String>> reportStatus(@PathVariable("id") String id) {
+		return reportJobService.getJob(id)
+			.map(job -> ResponseEntity.ok(jobToMap(job)))
+			.orElse(ResponseEntity.notFound().build());
+	}
+
+	/**
+	 * @param id id of the job
+	 * @return the document, if the job is done. Otherwise the status of the job
+	 */
+	@GetMapping("/reports/{id}/pdf")
+	@PreAuthorize("hasRole('BOSS')")
+	public ResponseEntity<?> downloadReport(@PathVariable("id") String id) {
+		Optional<ReportJob> job = reportJobService.getJob(id);
+		if (job.isEmpty()) {
+			return ResponseEntity.notFound().build();
+		}
+		if (job.get().getStatus() != ReportJob.Status.DONE) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(jobToMap(job.get()));
+		}
+		return reportJobService.openDocument(job.get())
+			.<ResponseEntity<?>>map(pdf -> pdfResponse(pdf, job.get().getFileName()))
+			.orElseGet(() -> ResponseEntity.status(HttpStatus.GONE).body(Map.of("message",
+				"The document is not kept anymore. Please create the report again.")));
+	}
+
+	private static Map<String, String> jobToMap(ReportJob job) {
+		Map<String, String> output = new LinkedHashMap<>();
+		output.put("id", job.getId());
+		output.put("status", job.getStatus().name());
+		if (job.getMessage() != null) {
+			output.put("message", job.getMessage());
+		}
+		output.put("statusUrl", "/reports/" + job.getId());
+		output.put("downloadUrl", "/reports/" + job.getId() + "/pdf");
+		return output;
+	}
+
+	private static ResponseEntity<InputStreamResource> pdfResponse(InputStream pdf, String fileName) {
+		return ResponseEntity.ok()
+			.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName)
+			.contentType(MediaType.APPLICATION_PDF)
+			.body(new InputStreamResource(pdf));
 	}
 
 	@PostMapping("/toggleState")
 	@PreAuthorize("hasRole('BOSS')")
-	public String toggleState(Model model) {
+	public String toggleState(Model model, @ModelAttribute("financeQuery") FinanceQuery query) {
 		clockService.openOrClose();
-		prepareFinancesModel(model, filteredAndCutOrdersList);
+		prepareFinancesModel(model, query);
 		return "finances";
 	}
 
 	/**
 	 * @param category chosen category
 	 * @param model
+	 * @param query    filters of the current session
 	 * @return The page, where only chosen category of orders is shown
 	 */
 	@GetMapping("/filterCategories")
 	@PreAuthorize("hasRole('BOSS')")
-	public String filterCategories(@RequestParam("filter") String category, Model model) {
-		//this.categorySet = category;
-		this.category = category;
-		if (category.equals("all")) {
-			return this.resetCategory(model);
-		} else {
-			this.isFilteredByCategory = true;
-			List<AccountancyEntry> lst;
-			if (category.equals("income")) {
-				lst = this.cashRegisterService.filterIncomeOrSpending(true);
-			} else if (category.equals("spendings")) {
-				lst = this.cashRegisterService.filterIncomeOrSpending(false);
-			} else if (category.equals("simple order")) {
-				lst = this.cashRegisterService.filterEntries(Category.EINFACHER_VERKAUF).stream().toList();
-			} else if (category.equals("reserved order")) {
-				lst = this.cashRegisterService.filterEntries(Category.RESERVIERTER_VERKAUF).stream().toList();
-			} else if (category.equals("event order")) {
-				lst = this.cashRegisterService.filterEntries(Category.VERANSTALTUNG_VERKAUF).stream().toList();
-			} else if (category.equals("contract order")) {
-				lst = this.cashRegisterService.filterEntries(Category.VERTRAGLICHER_VERKAUF).stream().toList();
-			} else {
-				lst = this.cashRegisterService.filterEntries(Category.EINKAUF).stream().toList();
-			}
-			this.filteredByCategory = new HashSet<>();
-			for (AccountancyEntry i : lst) {
-				this.filteredByCategory.add((AccountancyEntryWrapper) i);
-			}
-			setFilteredOrdersList(this.maxEntriesShown);
-		}
-		prepareFinancesModel(model, filteredAndCutOrdersList);
+	public String filterCategories(@RequestParam("filter") String category, Model model,
+								   @ModelAttribute("financeQuery") FinanceQuery query) {
+		query.filterCategory(category);
+		prepareFinancesModel(model, query);
 		return "finances";
 	}
 
 	@GetMapping("/filterCustomerName")
 	@PreAuthorize("hasRole('BOSS')")
-	public String filterCustomerName(Model model, @RequestParam("customerName") String customerName) {
-		this.name = customerName;
-		List<AccountancyEntryWrapper> lst = this.cashRegisterService.filterByCustomer(customerName);
-		this.filteredByCustomerName = new HashSet<>();
-		for (AccountancyEntry i : lst) {
-			this.filteredByCustomerName.add((AccountancyEntryWrapper) i);
-		}
-		this.isFilteredByCustomerName = true;
-		setFilteredOrdersList(this.maxEntriesShown);
-		prepareFinancesModel(model, filteredAndCutOrdersList);
+	public String filterCustomerName(Model model, @RequestParam("customerName") String customerName,
+									 @ModelAttribute("financeQuery") FinanceQuery query) {
+		query.filterCustomerName(customerName);
+		prepareFinancesModel(model, query);
 		return "finances";
 	}
 
 	@GetMapping("/filterTransactionValue")
 	@PreAuthorize("hasRole('BOSS')")
-	public String filterPrice(Model model, @RequestParam("transactionValue") double price) {
-		this.sum = String.valueOf(price);
-		List<AccountancyEntryWrapper> lst = this.cashRegisterService.filterByPrice(price);
-		this.filteredBySum = new HashSet<>();
-		for (AccountancyEntry i : lst) {
-			this.filteredBySum.add((AccountancyEntryWrapper) i);
-		}
-		this.isFilteredBySum = true;
-		setFilteredOrdersList(this.maxEntriesShown);
-		prepareFinancesModel(model, filteredAndCutOrdersList);
+	public String filterPrice(Model model, @RequestParam("transactionValue") double price,
+							  @ModelAttribute("financeQuery") FinanceQuery query) {
+		query.filterTransactionValue(price);
+		prepareFinancesModel(model, query);
 		return "finances";
 	}
 
 	@GetMapping("/resetCustomerName")
 	@PreAuthorize("hasRole('BOSS')")
-	public String resetCustomerName(Model model) {
-		this.name = "";
-		this.isFilteredByCustomerName = false;
-		this.filteredByCustomerName.clear();
-		setFilteredOrdersList(this.maxEntriesShown);
-		prepareFinancesModel(model, filteredAndCutOrdersList);
+	public String resetCustomerName(Model model, @ModelAttribute("financeQuery") FinanceQuery query) {
+		query.resetCustomerName();
+		prepareFinancesModel(model, query);
 		return "finances";
 	}
 
 	@GetMapping("/resetTransactionValue")
 	@PreAuthorize("hasRole('BOSS')")
-	public String resetTransactionValue(Model model) {
-		this.sum = "";
-		this.isFilteredBySum = false;
-		this.filteredBySum.clear();
-		setFilteredOrdersList(this.maxEntriesShown);
-		prepareFinancesModel(model, filteredAndCutOrdersList);
+	public String resetTransactionValue(Model model, @ModelAttribute("financeQuery") FinanceQuery query) {
+		query.resetTransactionValue();
+		prepareFinancesModel(model, query);
 		return "finances";
 	}
 
 	@GetMapping("/getReceipt")
 	@PreAuthorize("hasRole('BOSS')")
-	public ResponseEntity<byte[]> getReceipt(Model model, @RequestParam String orderId) {
-		byte[] docu = this.cashRegisterService.getEntry(orderId, this.filteredAndCutOrdersList)
+	public ResponseEntity<byte[]> getReceipt(Model model, @RequestParam String orderId,
+											 @ModelAttribute("financeQuery") FinanceQuery query) {
+		byte[] docu = this.cashRegisterService
+			.getEntry(orderId, query.getPage(cashRegisterService, maxEntriesShown).getEntries())
 			.generatePDF(clockService.now());
 		return ResponseEntity.ok()
 			.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=receipt.pdf")
@@ -462,31 +475,4 @@ public class FinancesController {
 
 	}
 
-
-	/**
-	 * @param size maximal number of entries to be shown in the table
-	 */
-	private void limitListSize(int size) {
-		if (this.filteredOrdersList.size() > size) {
-			this.filteredAndCutOrdersList = this.filteredOrdersList.subList(0, size);
-		} else {
-			this.filteredAndCutOrdersList = this.filteredOrdersList;
-		}
-
-	}
-
-	/**
-	 * @param set1
-	 * @param set2
-	 * @return the intersection of these two sets (in mathematical terms)
-	 */
-	private Set<AccountancyEntryWrapper> intersection(Set<AccountancyEntryWrapper> set1,
-													  Set<AccountancyEntryWrapper> set2) {
-		Set<AccountancyEntryWrapper> intersection = new HashSet<>(set1);
-		intersection.retainAll(set2);
-		return intersection;
-	}
-
 }
-
-
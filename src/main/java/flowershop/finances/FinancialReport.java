@@ -2,12 +2,15 @@ package flowershop.finances;
 
 import flowershop.clock.ClockService;
 import flowershop.inventory.DeletedProduct;
+import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.pdmodel.font.PDType0Font;
 import org.salespointframework.time.Interval;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.vandeseer.easytable.TableDrawer;
 import org.vandeseer.easytable.settings.HorizontalAlignment;
 import org.vandeseer.easytable.settings.VerticalAlignment;
@@ -20,13 +23,18 @@ import java.awt.*;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Is used to generate financial PDF-reports
  */
 public abstract class FinancialReport {
+	private static final Logger log = LoggerFactory.getLogger(FinancialReport.class);
+
 	protected MonetaryAmount income;
 	protected MonetaryAmount expenditure;
 	protected MonetaryAmount profit; //difference
@@ -50,28 +58,73 @@ public abstract class FinancialReport {
 
 	/**
 	 * @return the ready-made file of the report
+	 * @throws UncheckedIOException if the document can't be rendered
 	 */
 	public byte[] generatePDF() {
-		try (PDDocument document = new PDDocument()) {
+		try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+			writePDF(outputStream);
+			return outputStream.toByteArray();
+		} catch (IOException e) {
+			log.error("The report for {} could not be rendered", intervalToString(), e);
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Renders the report straight into the given stream. The rows are requested chunk by chunk
+	 * (see {@link #getRowChunks(PDFont)}) and every chunk is drawn right away below the previous one,
+	 * while the pages already drawn are kept in a temporary file instead of the heap.
+	 * Only the rows and pages are bounded this way, the data of the report itself is already in memory.
+	 *
+	 * @param outputStream where the document is written to
+	 * @throws IOException if the document can't be rendered or written
+	 */
+	public void writePDF(OutputStream outputStream) throws IOException {
+		try (PDDocument document = new PDDocument(IOUtils.createTempFileOnlyStreamCache())) {
 			InputStream inFont = getClass().getResourceAsStream("/fonts/josefin-sans.semibold.ttf");
-			System.out.println(inFont.toString());
 			PDType0Font customFont = PDType0Font.load(document, inFont);
 
-			TableDrawer.builder()
-				.startX(50)
-				.endY(50)
-				.startY(780)
-				.table(buildTheTable(customFont))
-				.build()
-				.draw(() -> document, () -> new PDPage(PDRectangle.A4), 50);
-			try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-				document.save(outputStream);
-				return outputStream.toByteArray();
+			float y = drawChunk(document, getHeaderRows(customFont), 780);
+			for (List<Row> chunk : getRowChunks(customFont)) {
+				y = drawChunk(document, chunk, y);
 			}
-		} catch (IOException e) {
-			e.printStackTrace();
-			return null;
+			document.save(outputStream);
+		}
+	}
+
+	/**
+	 * Draws the rows as one table, which starts on the last page of the document
+	 * at the given height and continues on new pages if necessary
+	 *
+	 * @return the height, where the drawn table ends
+	 */
+	private float drawChunk(PDDocument document, List<Row> rows, float startY) throws IOException {
+		if (rows.isEmpty()) {
+			return startY;
+		}
+		Table.TableBuilder builder = newTableBuilder();
+		for (Row row : rows) {
+			builder.addRow(row);
 		}
+		TableDrawer drawer = TableDrawer.builder()
+			.startX(50)
+			.endY(50)
+			.startY(startY)
+			.table(builder.build())
+			.build();
+		drawer.draw(() -> document, () -> new PDPage(PDRectangle.A4), 50);
+		return drawer.getFinalY();
+	}
+
+	/**
+	 * Splits the rows of the period into parts, that can be drawn independently.
+	 * Reports with a lot of rows should create every chunk only when it is requested.
+	 *
+	 * @param font to be used in these rows
+	 * @return chunks of the rows, that represent the period
+	 */
+	protected Iterable<List<Row>> getRowChunks(PDFont font) {
+		return List.of(getNeededRows(font));
 	}
 
 	public abstract boolean isBeforeBeginning();
@@ -141,10 +194,31 @@ public abstract class FinancialReport {
 	 * @return ready Table for being wrapped into the document
 	 */
 	protected Table buildTheTable(PDFont font) {
-		// Add the header and "Finanzuebersicht fuer ... here
-		List<Row> rows = getNeededRows(font);
-		Table.TableBuilder builder = Table.builder()
+		Table.TableBuilder builder = newTableBuilder();
+		for (Row row : getHeaderRows(font)) {
+			builder.addRow(row);
+		}
+		for (Row row : getNeededRows(font)) {
+			builder.addRow(row);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * @return builder of a table with the columns of the report
+	 */
+	protected static Table.TableBuilder newTableBuilder() {
+		return Table.builder()
 			.addColumnsOfWidth(110, 115, 110, 50, 45, 55);
+	}
+
+	/**
+	 * @param font to be used in these rows
+	 * @return the rows with the address of the shop, the date and the title of the report
+	 */
+	protected List<Row> getHeaderRows(PDFont font) {
+		// Add the header and "Finanzuebersicht fuer ... here
+		List<Row> headerRows = new ArrayList<>();
 		Row shapka1 = Row.builder()
 			.add(TextCell.builder()
 				.text(" ").fontSize(16).colSpan(2)
@@ -154,7 +228,7 @@ public abstract class FinancialReport {
 				.colSpan(4).horizontalAlignment(HorizontalAlignment.LEFT).font(font)
 				.build())
 			.build();
-		builder.addRow(shapka1);
+		headerRows.add(shapka1);
 		Row adress = Row.builder()
 			.add(TextCell.builder()
 				.text(" ").fontSize(16).colSpan(2)
@@ -164,7 +238,7 @@ public abstract class FinancialReport {
 				.colSpan(4).horizontalAlignment(HorizontalAlignment.LEFT).font(font)
 				.build())
 			.build();
-		builder.addRow(adress);
+		headerRows.add(adress);
 		LocalDateTime day = clockService.now();
 		String month = (day.getMonth().getValue() < 10) ? "0" + day.getMonth().getValue()
 			: String.valueOf(day.getMonth().getValue());
@@ -180,8 +254,8 @@ public abstract class FinancialReport {
 				.horizontalAlignment(HorizontalAlignment.LEFT).font(font)
 				.build())
 			.build();
-		builder.addRow(datum);
-		builder.addRow(emptyRow(6));
+		headerRows.add(datum);
+		headerRows.add(emptyRow(6));
 		//builder.addRow(emptyRow());
 		Row title = Row.builder()
 			.add(TextCell.builder()
@@ -189,21 +263,25 @@ public abstract class FinancialReport {
 				.colSpan(6).horizontalAlignment(HorizontalAlignment.CENTER)
 				.build())
 			.build();
-		builder.addRow(title);
-		builder.addRow(emptyRow(6));
-		for (Row row : rows) {
-			builder.addRow(row);
-		}
-		return builder.build();
+		headerRows.add(title);
+		headerRows.add(emptyRow(6));
+		return headerRows;
+	}
+
+	/**
+	 * @return the title above the table of deleted products
+	 */
+	protected String getDeletedProductsTitle() {
+		return this instanceof DailyFinancialReport ? "Verwelkte Blumen an diesem Tag:"
+			: "Verwelkte Blumen in diesem Monat:";
 	}
 
 	public List<Row> getDeletedProductRows(PDFont font) {
-		List<Row> neededRows = new java.util.ArrayList<>();
+		List<Row> neededRows = new ArrayList<>();
 		if (!this.deletedProducts.isEmpty()) {
 			Row title = Row.builder()
 				.add(TextCell.builder()
-					.text(this instanceof DailyFinancialReport ? "Verwelkte Blumen an diesem Tag:"
-						: "Verwelkte Blumen in diesem Monat:")
+					.text(getDeletedProductsTitle())
 					.font(font).fontSize(14).colSpan(6).borderColor(Color.BLACK)
 					.horizontalAlignment(HorizontalAlignment.CENTER)
 					.build())
@@ -0,0 +1,221 @@
+package flowershop.finances;
+
+import org.salespointframework.accountancy.AccountancyEntry;
+import org.salespointframework.time.Interval;
+import org.springframework.data.util.Streamable;
+
+import javax.money.CurrencyUnit;
+import javax.money.MonetaryAmount;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAmount;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits a period into consecutive buckets of the same duration (a day, a week, a month...)
+ * and holds the entries, the income and the expenditure of every bucket.
+ * <p>
+ * The buckets are filled from one slice of the time-ordered entries, instead of searching the ledger
+ * once per bucket. The amounts are added up in cents by {@link LedgerTotals}.
+ */
+public class LedgerBuckets {
+
+	/**
+	 * ranges of up to this many buckets are filled by a single thread
+	 */
+	private static final int THRESHOLD = 4;
+
+	private final List<Interval> intervals;
+	private final List<List<AccountancyEntry>> entries;
+	private final MonetaryAmount[] revenue;
+	private final MonetaryAmount[] expenses;
+
+	LedgerBuckets(List<Interval> intervals,
+				  List<List<AccountancyEntry>> entries,
+				  MonetaryAmount[] revenue,
+				  MonetaryAmount[] expenses) {
+		this.intervals = intervals;
+		this.entries = entries;
+		this.revenue = revenue;
+		this.expenses = expenses;
+	}
+
+	/**
+	 * The buckets are laid out the same way {@link CashRegisterService#find(Interval, TemporalAmount)} always did:
+	 * they start at the beginning of the period, and a new one is started as long as the period contains its start.
+	 *
+	 * @param interval overall period
+	 * @param duration length of a single bucket
+	 * @return the start and end of every bucket, in chronological order
+	 */
+	static List<Interval> split(Interval interval, TemporalAmount duration) {
+		List<Interval> output = new ArrayList<>();
+		LocalDateTime start = interval.getStart();
+		LocalDateTime end = start.plus(duration);
+		do {
+			output.add(Interval.from(start).to(end));
+			end = end.plus(duration);
+			start = start.plus(duration);
+		} while (interval.contains(start));
+		return output;
+	}
+
+	/**
+	 * The buckets are independent of each other, so they are filled in parallel on the common fork-join pool.
+	 * Every bucket looks up its first entry with a binary search, so no bucket has to wait for the one before it.
+	 * A few buckets, like the single day of the finance page, are filled right away on the calling thread.
+	 *
+	 * @param buckets  the buckets as returned by {@link #split(Interval, TemporalAmount)}
+	 * @param sorted   all entries between the start of the first and the end of the last bucket, ordered by timestamp
+	 * @param currency the currency of the register
+	 * @return buckets filled with the given entries
+	 */
+	static LedgerBuckets aggregate(List<Interval> buckets,
+								   List<AccountancyEntryWrapper> sorted,
+								   CurrencyUnit currency) {
+		int size = buckets.size();
+		List<List<AccountancyEntry>> entries = new ArrayList<>(Collections.nCopies(size, null));
+		MonetaryAmount[] revenue = new MonetaryAmount[size];
+		MonetaryAmount[] expenses = new MonetaryAmount[size];
+		FillBuckets fill = new FillBuckets(buckets, sorted, currency, entries, revenue, expenses, 0, size);
+		if (size <= THRESHOLD) {
+			fill.compute();
+		} else {
+			ForkJoinPool.commonPool().invoke(fill);
+		}
+		return new LedgerBuckets(buckets, entries, revenue, expenses);
+	}
+
+	/**
+	 * Fills a range of buckets, ranges with more than {@link #THRESHOLD} buckets are split in halves
+	 */
+	private static final class FillBuckets extends RecursiveAction {
+
+		private final List<Interval> buckets;
+		private final List<AccountancyEntryWrapper> sorted;
+		private final CurrencyUnit currency;
+		private final List<List<AccountancyEntry>> entries;
+		private final MonetaryAmount[] revenue;
+		private final MonetaryAmount[] expenses;
+		private final int from;
+		private final int to;
+
+		private FillBuckets(List<Interval> buckets, List<AccountancyEntryWrapper> sorted, CurrencyUnit currency,
+							List<List<AccountancyEntry>> entries, MonetaryAmount[] revenue, MonetaryAmount[] expenses,
+							int from, int to) {
+			this.buckets = buckets;
+			this.sorted = sorted;
+			this.currency = currency;
+			this.entries = entries;
+			this.revenue = revenue;
+			this.expenses = expenses;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				invokeAll(
+					new FillBuckets(buckets, sorted, currency, entries, revenue, expenses, from, middle),
+					new FillBuckets(buckets, sorted, currency, entries, revenue, expenses, middle, to));
+				return;
+			}
+			for (int i = from; i < to; i++) {
+				fill(i);
+			}
+		}
+
+		private void fill(int i) {
+			Interval bucket = buckets.get(i);
+			List<AccountancyEntry> inBucket = new ArrayList<>();
+			LedgerTotals totals = new LedgerTotals();
+			for (int j = firstNotBefore(sorted, bucket.getStart()); j < sorted.size(); j++) {
+				AccountancyEntryWrapper entry = sorted.get(j);
+				if (entry.getTimestamp().isAfter(bucket.getEnd())) {
+					break;
+				}
+				if (!bucket.contains(entry.getTimestamp())) {
+					continue;
+				}
+				inBucket.add(entry);
+				totals.add(entry.getValueCents());
+			}
+			entries.set(i, inBucket);
+			revenue[i] = totals.getRevenue(currency);
+			expenses[i] = totals.getExpenses(currency);
+		}
+	}
+
+	/**
+	 * @return index of the first entry with a timestamp equal to or after the given one
+	 */
+	private static int firstNotBefore(List<AccountancyEntryWrapper> sorted, LocalDateTime timestamp) {
+		int low = 0;
+		int high = sorted.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (sorted.get(mid).getTimestamp().isBefore(timestamp)) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	public int size() {
+		return intervals.size();
+	}
+
+	public Interval getInterval(int bucket) {
+		return intervals.get(bucket);
+	}
+
+	/**
+	 * @return entries of the bucket, ordered by timestamp
+	 */
+	public List<AccountancyEntry> getEntries(int bucket) {
+		return entries.get(bucket);
+	}
+
+	public MonetaryAmount getRevenue(int bucket) {
+		return revenue[bucket];
+	}
+
+	public MonetaryAmount getExpenses(int bucket) {
+		return expenses[bucket];
+	}
+
+	public MonetaryAmount getProfit(int bucket) {
+		return revenue[bucket].add(expenses[bucket]);
+	}
+
+	/**
+	 * @return the map of each bucket to its entries
+	 */
+	public Map<Interval, Streamable<AccountancyEntry>> toEntryMap() {
+		Map<Interval, Streamable<AccountancyEntry>> output = new HashMap<>();
+		for (int i = 0; i < size(); i++) {
+			output.put(intervals.get(i), Streamable.of(entries.get(i)));
+		}
+		return output;
+	}
+
+	/**
+	 * @return the map of each bucket to its profit
+	 */
+	public Map<Interval, MonetaryAmount> toProfitMap() {
+		Map<Interval, MonetaryAmount> output = new HashMap<>();
+		for (int i = 0; i < size(); i++) {
+			output.put(intervals.get(i), getProfit(i));
+		}
+		return output;
+	}
+}
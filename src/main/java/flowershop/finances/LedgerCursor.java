@@ -0,0 +1,17 @@
+package flowershop.finances;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position of the last entry of a {@link LedgerPage}. The next page starts right after it,
+ * so the database can seek to it through the index instead of skipping all previous rows.
+ *
+ * @param timestamp      timestamp of the last shown entry
+ * @param ledgerSequence ledger sequence of the last shown entry
+ */
+public record LedgerCursor(LocalDateTime timestamp, long ledgerSequence) {
+
+	public static LedgerCursor after(AccountancyEntryWrapper entry) {
+		return new LedgerCursor(entry.getTimestamp(), entry.getLedgerSequence());
+	}
+}
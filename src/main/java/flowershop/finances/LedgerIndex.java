@@ -0,0 +1,191 @@
+package flowershop.finances;
+
+import org.salespointframework.accountancy.AccountancyEntry;
+import org.salespointframework.time.Interval;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Keeps all AccountancyEntries of the register ordered by their timestamp,
+ * so that interval lookups don't have to walk through the whole register.
+ * The {@link LedgerTree} also sums up their values, so how much money came in or went out
+ * before a moment is answered in O(log n), even after entries were booked with an earlier timestamp.
+ * <p>
+ * The index is filled lazily from the register on the first query and is afterwards
+ * kept up to date by {@link CashRegisterService#add(AccountancyEntry)}.
+ */
+class LedgerIndex {
+
+	/**
+	 * entries with a timestamp, sorted ascending by it (insertion order for equal timestamps)
+	 */
+	private final LedgerTree dated = new LedgerTree();
+
+	/**
+	 * entries without a timestamp, they only show up in {@link #all()}
+	 */
+	private final ArrayList<AccountancyEntry> undated = new ArrayList<>();
+
+	/**
+	 * ids of all indexed entries, so that an entry loaded from the register and registered by
+	 * {@link #register(AccountancyEntry)} in the same transaction is only indexed once
+	 */
+	private final HashSet<Object> keys = new HashSet<>();
+
+	private boolean loaded = false;
+
+	/**
+	 * Fills the index with the given entries, if it wasn't filled yet. If this happens inside of a
+	 * transaction, that is rolled back later, the index is dropped again, as it might contain its entries.
+	 *
+	 * @param source supplies all entries currently stored in the register
+	 */
+	synchronized void loadIfNeeded(Supplier<Collection<AccountancyEntry>> source) {
+		if (loaded) {
+			return;
+		}
+		Collection<AccountancyEntry> entries = source.get();
+		if (entries != null) {
+			for (AccountancyEntry entry : entries) {
+				insert(entry);
+			}
+		}
+		loaded = true;
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					if (status != STATUS_COMMITTED) {
+						invalidate();
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Adds an entry to the index. If a transaction is running, the entry is only added after
+	 * a successful commit, so that rolled back entries never show up in the index.
+	 *
+	 * @param entry the newly registered entry
+	 */
+	void register(AccountancyEntry entry) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					add(entry);
+				}
+			});
+		} else {
+			add(entry);
+		}
+	}
+
+	synchronized void add(AccountancyEntry entry) {
+		if (loaded) {
+			insert(entry);
+		}
+	}
+
+	/**
+	 * Forgets all indexed entries, the next query will fill the index again
+	 */
+	synchronized void invalidate() {
+		dated.clear();
+		undated.clear();
+		keys.clear();
+		loaded = false;
+	}
+
+	/**
+	 * @return all indexed entries, ordered by timestamp
+	 */
+	synchronized List<AccountancyEntry> all() {
+		List<AccountancyEntry> output = new ArrayList<>(dated.size() + undated.size());
+		dated.addAllTo(output);
+		output.addAll(undated);
+		return output;
+	}
+
+	/**
+	 * @param interval period of time
+	 * @return all entries, whose timestamp lies in the interval, ordered by timestamp
+	 */
+	synchronized List<AccountancyEntry> find(Interval interval) {
+		List<AccountancyEntry> output = new ArrayList<>();
+		for (AccountancyEntryWrapper entry : dated.range(interval.getStart(), interval.getEnd())) {
+			// the tree only narrows down the range, the interval decides about its borders
+			if (interval.contains(entry.getTimestamp())) {
+				output.add(entry);
+			}
+		}
+		return output;
+	}
+
+	/**
+	 * @param from first moment of the range
+	 * @param to   last moment of the range
+	 * @return all entries with a timestamp between from and to (both inclusive), ordered by timestamp
+	 */
+	synchronized List<AccountancyEntryWrapper> slice(LocalDateTime from, LocalDateTime to) {
+		return from.isAfter(to) ? new ArrayList<>() : dated.range(from, to);
+	}
+
+	/**
+	 * @return number of entries with a timestamp between from and to (both inclusive)
+	 */
+	synchronized int count(LocalDateTime from, LocalDateTime to) {
+		return Math.max(0, dated.countNotAfter(to) - dated.countBefore(from));
+	}
+
+	/**
+	 * @return timestamp of the oldest entry or null, if there are no entries with a timestamp
+	 */
+	synchronized LocalDateTime earliestTimestamp() {
+		AccountancyEntryWrapper first = dated.first();
+		return first == null ? null : first.getTimestamp();
+	}
+
+	/**
+	 * @param from first moment, inclusive
+	 * @return sum in cents of all entries from that moment on
+	 */
+	synchronized long centsFrom(LocalDateTime from) {
+		return Math.subtractExact(dated.total(), dated.sumBefore(from));
+	}
+
+	/**
+	 * @param from first moment, inclusive
+	 * @param to   last moment, exclusive
+	 * @return sum in cents of all entries in between
+	 */
+	synchronized long centsBetween(LocalDateTime from, LocalDateTime to) {
+		if (!to.isAfter(from)) {
+			return 0;
+		}
+		return Math.subtractExact(dated.sumBefore(to), dated.sumBefore(from));
+	}
+
+	synchronized int size() {
+		return dated.size() + undated.size();
+	}
+
+	private void insert(AccountancyEntry entry) {
+		if (!keys.add(entry.getId() == null ? entry : entry.getId())) {
+			return;
+		}
+		if (!(entry instanceof AccountancyEntryWrapper wrapper) || wrapper.getTimestamp() == null) {
+			undated.add(entry);
+			return;
+		}
+		dated.add(wrapper);
+	}
+}
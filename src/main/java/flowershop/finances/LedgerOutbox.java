@@ -0,0 +1,222 @@
+package flowershop.finances;
+
+import flowershop.clock.ClockService;
+import flowershop.services.AbstractOrder;
+import flowershop.services.ContractOrder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.salespointframework.order.Order;
+import org.salespointframework.order.OrderEvents;
+import org.salespointframework.order.OrderManagement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Posts paid orders to the ledger in the background.
+ * <p>
+ * When an order is paid, only a row is written to the outbox, in the transaction of whoever paid it.
+ * The rows are drained in batches, each batch in its own transaction together with its entries, so a row
+ * is marked as posted exactly when its entry is stored. Orders are posted at least once: a row whose batch
+ * failed is tried again, and an order that is in the ledger already is skipped.
+ * After {@value #MAX_ATTEMPTS} failures a row is dead-lettered and logged as an error; the number of
+ * dead-lettered rows is the {@value #TIMER}.dead metric.
+ */
+@Component
+public class LedgerOutbox {
+
+	static final int BATCH_SIZE = 100;
+	static final int MAX_ATTEMPTS = 5;
+	static final String TIMER = "flowershop.ledger.outbox";
+
+	private static final Logger log = LoggerFactory.getLogger(LedgerOutbox.class);
+
+	private final LedgerOutboxRepository outboxRepository;
+	private final OrderManagement<AbstractOrder> orderManagement;
+	private final CashRegisterService cashRegisterService;
+	private final AccountancyEntryWrapperRepository entryRepository;
+	private final ClockService clockService;
+	private final TransactionTemplate transactionTemplate;
+	private final Timer batchTimer;
+	private final Counter postedOrders;
+
+	/**
+	 * moment the orders paid on this thread are dated at, instead of the current time of the clock
+	 */
+	private final ThreadLocal<LocalDateTime> paidAtOverride = new ThreadLocal<>();
+
+	public LedgerOutbox(LedgerOutboxRepository outboxRepository,
+						OrderManagement<AbstractOrder> orderManagement,
+						CashRegisterService cashRegisterService,
+						AccountancyEntryWrapperRepository entryRepository,
+						ClockService clockService,
+						PlatformTransactionManager transactionManager,
+						MeterRegistry meterRegistry) {
+		this.outboxRepository = outboxRepository;
+		this.orderManagement = orderManagement;
+		this.cashRegisterService = cashRegisterService;
+		this.entryRepository = entryRepository;
+		this.clockService = clockService;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.batchTimer = Timer.builder(TIMER)
+			.description("Time spent posting a batch of paid orders")
+			.register(meterRegistry);
+		this.postedOrders = Counter.builder(TIMER + ".orders")
+			.description("Paid orders posted from the outbox")
+			.register(meterRegistry);
+		Gauge.builder(TIMER + ".pending", outboxRepository,
+				LedgerOutboxRepository::countByPostedAtIsNullAndDeadLetteredAtIsNull)
+			.description("Paid orders waiting to be posted")
+			.register(meterRegistry);
+		Gauge.builder(TIMER + ".dead", outboxRepository,
+				LedgerOutboxRepository::countByPostedAtIsNullAndDeadLetteredAtIsNotNull)
+			.description("Paid orders that gave up being posted and wait to be looked at")
+			.register(meterRegistry);
+	}
+
+	/**
+	 * Dates the orders, that are paid while the given payments run on this thread, at the given moment.
+	 * E.g. the charges of the contracts belong to the month that has ended, though the clock is in the next one already.
+	 *
+	 * @param paidAt   the moment the orders are paid at
+	 * @param payments pays the orders
+	 */
+	public void payAt(LocalDateTime paidAt, Runnable payments) {
+		paidAtOverride.set(paidAt);
+		try {
+			payments.run();
+		} finally {
+			paidAtOverride.remove();
+		}
+	}
+
+	/**
+	 * Writes the paid order to the outbox
+	 *
+	 * @param event of type OrderPaid that carries an order
+	 */
+	@EventListener
+	public void onOrderPaid(OrderEvents.OrderPaid event) {
+		enqueue(event.getOrder(), paidAtOverride.get() == null ? clockService.now() : paidAtOverride.get());
+	}
+
+	/**
+	 * Writes the paid order to the outbox, unless it is there already. Has to run in a transaction.
+	 *
+	 * @param order  the paid order
+	 * @param paidAt the moment the order was paid at, its entry gets this timestamp
+	 */
+	void enqueue(Order order, LocalDateTime paidAt) {
+		String orderId = order.getId().toString();
+		// a contract is charged every month with the same order
+		boolean recurring = order instanceof ContractOrder;
+		String dedupKey = recurring ? orderId + "/" + YearMonth.from(paidAt) : orderId;
+		if (!outboxRepository.existsByDedupKey(dedupKey)) {
+			outboxRepository.save(new LedgerOutboxEntry(dedupKey, orderId, recurring, paidAt));
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${flowershop.ledger.outbox.delay:500}")
+	public void scheduledDrain() {
+		int posted = drain();
+		if (posted > 0) {
+			log.debug("Posted {} paid orders from the outbox", posted);
+		}
+	}
+
+	/**
+	 * Posts everything that is waiting in the outbox
+	 *
+	 * @return number of posted orders
+	 */
+	public synchronized int drain() {
+		int posted = 0;
+		List<Long> ids;
+		do {
+			ids = outboxRepository.findPendingIds(PageRequest.of(0, BATCH_SIZE));
+			if (!ids.isEmpty()) {
+				posted += postBatch(ids);
+			}
+		} while (ids.size() == BATCH_SIZE);
+		return posted;
+	}
+
+	private int postBatch(List<Long> ids) {
+		try {
+			Integer posted = batchTimer.record(() -> transactionTemplate.execute(status -> post(ids)));
+			return posted == null ? 0 : posted;
+		} catch (RuntimeException e) {
+			log.warn("Posting a batch of {} paid orders failed, posting them one by one", ids.size(), e);
+		}
+		// find the row that broke the batch, the others are posted on their own
+		int posted = 0;
+		for (Long id : ids) {
+			try {
+				Integer postedOne = transactionTemplate.execute(status -> post(List.of(id)));
+				posted += postedOne == null ? 0 : postedOne;
+			} catch (RuntimeException e) {
+				log.error("Posting the paid order of outbox row {} failed", id, e);
+				markFailed(id);
+			}
+		}
+		return posted;
+	}
+
+	private void markFailed(Long id) {
+		LocalDateTime now = LocalDateTime.now();
+		Optional<LedgerOutboxEntry> deadLettered = transactionTemplate.execute(status ->
+			outboxRepository.findById(id).filter(row -> row.markFailed(now, MAX_ATTEMPTS)));
+		if (deadLettered != null && deadLettered.isPresent()) {
+			LedgerOutboxEntry row = deadLettered.get();
+			log.error("ALERT: gave up posting order {} (outbox row {}, paid at {}) after {} attempts, "
+					+ "it is dead-lettered and has to be posted by hand", row.getOrderId(), id, row.getPaidAt(),
+				row.getAttempts());
+		}
+	}
+
+	/**
+	 * Has to run in a transaction
+	 *
+	 * @param ids rows of the outbox
+	 * @return number of posted orders
+	 */
+	private int post(List<Long> ids) {
+		List<LedgerOutboxEntry> rows = outboxRepository.findAllById(ids).stream()
+			.filter(row -> row.getPostedAt() == null)
+			.sorted(Comparator.comparing(LedgerOutboxEntry::getId))
+			.toList();
+		Set<String> alreadyPosted = new HashSet<>(entryRepository.findPostedOrderIds(rows.stream()
+			.filter(row -> !row.isRecurring())
+			.map(LedgerOutboxEntry::getOrderId)
+			.toList()));
+
+		int posted = 0;
+		LocalDateTime now = LocalDateTime.now();
+		for (LedgerOutboxEntry row : rows) {
+			if (row.isRecurring() || alreadyPosted.add(row.getOrderId())) {
+				AbstractOrder order = orderManagement.get(Order.OrderIdentifier.of(row.getOrderId()))
+					.orElseThrow(() -> new IllegalStateException("Order " + row.getOrderId() + " not found"));
+				cashRegisterService.postOrder(order, row.getPaidAt());
+				posted++;
+			}
+			row.markPosted(now);
+		}
+		postedOrders.increment(posted);
+		return posted;
+	}
+}
@@ -0,0 +1,115 @@
+package flowershop.finances;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A paid order, that still has to be posted to the ledger, or already was.
+ * The rows are kept after posting, so an order that is reported as paid twice is only posted once.
+ * A row, whose order failed to be posted too often, is dead-lettered: it isn't tried again and
+ * doesn't hold back the close of its day, until it is looked at.
+ */
+@Entity
+@Table(name = "ledger_outbox_entry",
+	uniqueConstraints = @UniqueConstraint(name = "uk_ledger_outbox_key", columnNames = "dedup_key"),
+	indexes = @Index(name = "idx_ledger_outbox_pending", columnList = "posted_at, id"))
+public class LedgerOutboxEntry {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	/**
+	 * the order id, for orders that are charged every month the month is added
+	 */
+	@Column(name = "dedup_key", nullable = false, updatable = false)
+	private String dedupKey;
+
+	@Column(nullable = false, updatable = false)
+	private String orderId;
+
+	/**
+	 * orders that are charged every month are posted once per month, so they can be in the ledger already
+	 */
+	@Column(updatable = false)
+	private boolean recurring;
+
+	/**
+	 * in-game time the order was paid at, the entry gets this timestamp
+	 */
+	@Column(nullable = false, updatable = false)
+	private LocalDateTime paidAt;
+
+	@Column(name = "posted_at")
+	private LocalDateTime postedAt;
+
+	private int attempts;
+
+	@Column(name = "dead_lettered_at")
+	private LocalDateTime deadLetteredAt;
+
+	public LedgerOutboxEntry(String dedupKey, String orderId, boolean recurring, LocalDateTime paidAt) {
+		this.dedupKey = dedupKey;
+		this.orderId = orderId;
+		this.recurring = recurring;
+		this.paidAt = paidAt;
+	}
+
+	protected LedgerOutboxEntry() {
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getDedupKey() {
+		return dedupKey;
+	}
+
+	public String getOrderId() {
+		return orderId;
+	}
+
+	public boolean isRecurring() {
+		return recurring;
+	}
+
+	public LocalDateTime getPaidAt() {
+		return paidAt;
+	}
+
+	public LocalDateTime getPostedAt() {
+		return postedAt;
+	}
+
+	public int getAttempts() {
+		return attempts;
+	}
+
+	public LocalDateTime getDeadLetteredAt() {
+		return deadLetteredAt;
+	}
+
+	public boolean isDeadLettered() {
+		return deadLetteredAt != null;
+	}
+
+	void markPosted(LocalDateTime postedAt) {
+		this.postedAt = postedAt;
+	}
+
+	/**
+	 * @param failedAt    moment of the failed attempt
+	 * @param maxAttempts the row is dead-lettered when it failed this often
+	 * @return true if the row was dead-lettered by this failure
+	 */
+	boolean markFailed(LocalDateTime failedAt, int maxAttempts) {
+		this.attempts++;
+		if (deadLetteredAt == null && attempts >= maxAttempts) {
+			this.deadLetteredAt = failedAt;
+			return true;
+		}
+		return false;
+	}
+}
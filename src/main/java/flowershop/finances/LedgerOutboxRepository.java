@@ -0,0 +1,40 @@
+package flowershop.finances;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public interface LedgerOutboxRepository extends JpaRepository<LedgerOutboxEntry, Long> {
+
+	boolean existsByDedupKey(String dedupKey);
+
+	/**
+	 * @param page size of the batch
+	 * @return ids of the rows, that weren't posted yet and aren't dead-lettered, oldest first
+	 */
+	@Query("select e.id from LedgerOutboxEntry e where e.postedAt is null and e.deadLetteredAt is null order by e.id")
+	List<Long> findPendingIds(Pageable page);
+
+	/**
+	 * @param orderIds ids of orders
+	 * @return those of the given ids, whose orders were written to the outbox
+	 */
+	@Query("select e.orderId from LedgerOutboxEntry e where e.orderId in :orderIds")
+	Set<String> findQueuedOrderIds(@Param("orderIds") Collection<String> orderIds);
+
+	long countByPostedAtIsNullAndDeadLetteredAtIsNull();
+
+	long countByPostedAtIsNullAndDeadLetteredAtIsNotNull();
+
+	/**
+	 * @return true if an order, that was paid before the given moment, is still waiting to be posted,
+	 * dead-lettered ones don't count
+	 */
+	boolean existsByPostedAtIsNullAndDeadLetteredAtIsNullAndPaidAtBefore(LocalDateTime time);
+}
@@ -0,0 +1,32 @@
+package flowershop.finances;
+
+import java.util.List;
+
+/**
+ * One page of entries, newest first
+ */
+public class LedgerPage {
+
+	private final List<AccountancyEntryWrapper> entries;
+	private final LedgerCursor nextCursor;
+
+	LedgerPage(List<AccountancyEntryWrapper> entries, LedgerCursor nextCursor) {
+		this.entries = entries;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<AccountancyEntryWrapper> getEntries() {
+		return entries;
+	}
+
+	public boolean hasNext() {
+		return nextCursor != null;
+	}
+
+	/**
+	 * @return the cursor of the following (older) page, or null if this is the last one
+	 */
+	public LedgerCursor getNextCursor() {
+		return nextCursor;
+	}
+}
@@ -0,0 +1,130 @@
+package flowershop.finances;
+
+import flowershop.services.AbstractOrder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.salespointframework.core.DataInitializer;
+import org.salespointframework.order.OrderManagement;
+import org.salespointframework.order.OrderStatus;
+import org.salespointframework.time.Interval;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.util.Streamable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands the paid orders, that neither are in the ledger nor were written to the outbox, to the
+ * {@link LedgerOutbox} at startup.
+ * <p>
+ * Every order, that is paid while the outbox exists, gets its row in the transaction that pays it. So only orders
+ * created after the {@link LedgerReplayWatermark} are read, an older one is either checked already or still
+ * goes through the outbox, once it is paid. The first startup reads every paid order once.
+ * Nothing is posted here: the outbox posts the found orders in the background, dated at their creation,
+ * as the moment they were paid isn't known for them, and skips those that were posted in the meantime.
+ * The time it takes is recorded as the {@value #TIMER} metric.
+ */
+@Component
+@Order(30)
+public class LedgerReplayInitializer implements DataInitializer {
+
+	static final int BATCH_SIZE = 100;
+	static final String TIMER = "flowershop.ledger.replay";
+
+	private static final Logger log = LoggerFactory.getLogger(LedgerReplayInitializer.class);
+
+	/**
+	 * upper end of the interval the orders are searched in, the in-game clock can be ahead of the real one
+	 */
+	private static final LocalDateTime END_OF_TIME = LocalDateTime.of(9999, 12, 31, 23, 59);
+
+	private final OrderManagement<AbstractOrder> orderManagement;
+	private final LedgerOutbox ledgerOutbox;
+	private final LedgerOutboxRepository outboxRepository;
+	private final AccountancyEntryWrapperRepository entryRepository;
+	private final LedgerReplayWatermarkRepository watermarkRepository;
+	private final TransactionTemplate transactionTemplate;
+	private final Timer replayTimer;
+	private final Counter replayedOrders;
+
+	public LedgerReplayInitializer(OrderManagement<AbstractOrder> orderManagement,
+								   LedgerOutbox ledgerOutbox,
+								   LedgerOutboxRepository outboxRepository,
+								   AccountancyEntryWrapperRepository entryRepository,
+								   LedgerReplayWatermarkRepository watermarkRepository,
+								   PlatformTransactionManager transactionManager,
+								   MeterRegistry meterRegistry) {
+		this.orderManagement = orderManagement;
+		this.ledgerOutbox = ledgerOutbox;
+		this.outboxRepository = outboxRepository;
+		this.entryRepository = entryRepository;
+		this.watermarkRepository = watermarkRepository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.replayTimer = Timer.builder(TIMER)
+			.description("Time spent looking for missed paid orders at startup")
+			.register(meterRegistry);
+		this.replayedOrders = Counter.builder(TIMER + ".orders")
+			.description("Missed paid orders handed to the outbox at startup")
+			.register(meterRegistry);
+	}
+
+	@Override
+	public void initialize() {
+		int queued = replayTimer.record(this::replay);
+		log.info("Handed {} missed paid orders to the outbox in {} ms", queued,
+			(long) replayTimer.totalTime(TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * @return the number of orders that were written to the outbox
+	 */
+	int replay() {
+		LedgerReplayWatermark watermark = watermarkRepository.findFirstByOrderById()
+			.orElseGet(LedgerReplayWatermark::new);
+		Streamable<AbstractOrder> candidates = watermark.getCheckedUntil() == null
+			? orderManagement.findBy(OrderStatus.PAID)
+			: orderManagement.findBy(Interval.from(watermark.getCheckedUntil()).to(END_OF_TIME))
+			.filter(AbstractOrder::isPaid);
+		List<AbstractOrder> orders = candidates.stream()
+			.sorted(Comparator.comparing(AbstractOrder::getDateCreated)
+				.thenComparing(order -> order.getId().toString()))
+			.toList();
+
+		int queued = 0;
+		for (int start = 0; start < orders.size(); start += BATCH_SIZE) {
+			List<AbstractOrder> batch = orders.subList(start, Math.min(start + BATCH_SIZE, orders.size()));
+			Integer queuedInBatch = transactionTemplate.execute(status -> enqueueBatch(batch));
+			queued += queuedInBatch == null ? 0 : queuedInBatch;
+		}
+		if (!orders.isEmpty()) {
+			watermark.advanceTo(orders.getLast().getDateCreated());
+			transactionTemplate.executeWithoutResult(status -> watermarkRepository.save(watermark));
+		}
+		replayedOrders.increment(queued);
+		return queued;
+	}
+
+	private int enqueueBatch(List<AbstractOrder> batch) {
+		List<String> orderIds = batch.stream().map(order -> order.getId().toString()).toList();
+		Set<String> known = new HashSet<>(entryRepository.findPostedOrderIds(orderIds));
+		known.addAll(outboxRepository.findQueuedOrderIds(orderIds));
+		int queued = 0;
+		for (AbstractOrder order : batch) {
+			if (known.add(order.getId().toString())) {
+				ledgerOutbox.enqueue(order, order.getDateCreated());
+				queued++;
+			}
+		}
+		return queued;
+	}
+}
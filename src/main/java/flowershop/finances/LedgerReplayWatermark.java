@@ -0,0 +1,41 @@
+package flowershop.finances;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * How far the paid orders were already checked at startup by the {@link LedgerReplayInitializer}.
+ * Orders created before it, that are paid later, reach the ledger through the {@link LedgerOutbox} anyway,
+ * so only orders created since then have to be checked again.
+ */
+@Entity
+@Table(name = "ledger_replay_watermark")
+public class LedgerReplayWatermark {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	/**
+	 * time of creation of the newest order, that was checked
+	 */
+	private LocalDateTime checkedUntil;
+
+	public LedgerReplayWatermark() {
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public LocalDateTime getCheckedUntil() {
+		return checkedUntil;
+	}
+
+	void advanceTo(LocalDateTime checkedUntil) {
+		if (this.checkedUntil == null || checkedUntil.isAfter(this.checkedUntil)) {
+			this.checkedUntil = checkedUntil;
+		}
+	}
+}
@@ -0,0 +1,10 @@
+package flowershop.finances;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface LedgerReplayWatermarkRepository extends JpaRepository<LedgerReplayWatermark, Long> {
+
+	Optional<LedgerReplayWatermark> findFirstByOrderById();
+}
@@ -0,0 +1,76 @@
+package flowershop.finances;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * The finance filters as composable queries over the stored AccountancyEntryWrappers.
+ * Supporting indexes are created by {@link AccountancyEntryIndexInitializer}.
+ */
+final class LedgerSpecifications {
+
+	/**
+	 * newest entries first, entries with the same timestamp in reverse order of registration
+	 */
+	static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "timestamp", "ledgerSequence");
+
+	private LedgerSpecifications() {
+	}
+
+	/**
+	 * @return entries with a timestamp between from and to, both inclusive
+	 */
+	static Specification<AccountancyEntryWrapper> between(LocalDateTime from, LocalDateTime to) {
+		return (root, query, builder) -> builder.between(root.get("timestamp"), from, to);
+	}
+
+	static Specification<AccountancyEntryWrapper> inCategory(Category category) {
+		return (root, query, builder) -> builder.equal(root.get("category"), category);
+	}
+
+	/**
+	 * @param isIncome true for incomes, false for spendings
+	 */
+	static Specification<AccountancyEntryWrapper> isIncome(boolean isIncome) {
+		return (root, query, builder) -> isIncome
+			? builder.greaterThan(root.get("valueCents"), 0L)
+			: builder.lessThanOrEqualTo(root.get("valueCents"), 0L);
+	}
+
+	/**
+	 * @param customerName part of the name of the client
+	 */
+	static Specification<AccountancyEntryWrapper> clientNameContains(String customerName) {
+		if (customerName.isEmpty()) {
+			return (root, query, builder) -> builder.conjunction();
+		}
+		String pattern = "%" + customerName
+			.replace("\\", "\\\\")
+			.replace("%", "\\%")
+			.replace("_", "\\_") + "%";
+		return (root, query, builder) -> builder.like(root.get("clientName"), pattern, '\\');
+	}
+
+	/**
+	 * @param price value of the entry in euro
+	 */
+	static Specification<AccountancyEntryWrapper> valueEquals(double price) {
+		long cents = Math.round(price * 100);
+		return (root, query, builder) -> builder.equal(root.get("valueCents"), cents);
+	}
+
+	/**
+	 * @return entries, which come after the cursor in {@link #NEWEST_FIRST} order
+	 */
+	static Specification<AccountancyEntryWrapper> olderThan(LedgerCursor cursor) {
+		return (root, query, builder) -> builder.or(
+			builder.lessThan(root.get("timestamp"), cursor.timestamp()),
+			builder.and(
+				builder.equal(root.get("timestamp"), cursor.timestamp()),
+				builder.lessThan(root.get("ledgerSequence"), cursor.ledgerSequence())
+			)
+		);
+	}
+}
@@ -0,0 +1,86 @@
+package flowershop.finances;
+
+import flowershop.product.Cents;
+import org.javamoney.moneta.Money;
+import org.salespointframework.accountancy.AccountancyEntry;
+
+import javax.money.CurrencyUnit;
+import javax.money.MonetaryAmount;
+
+/**
+ * Adds up income and expenditure of entries in cents.
+ * <p>
+ * Summing with {@link Money#add} creates a new amount backed by a BigDecimal for every entry,
+ * so the values are added up as longs instead and only turned into amounts when they are read.
+ * An overflow throws an {@link ArithmeticException} instead of wrapping around.
+ */
+final class LedgerTotals {
+
+	private long revenueCents;
+	private long expensesCents;
+
+	/**
+	 * @param entries entries to add up
+	 * @return totals of the given entries
+	 */
+	static LedgerTotals of(Iterable<? extends AccountancyEntry> entries) {
+		LedgerTotals totals = new LedgerTotals();
+		for (AccountancyEntry entry : entries) {
+			totals.add(entry);
+		}
+		return totals;
+	}
+
+	/**
+	 * @param entry any entry
+	 * @return its value in cents, read without touching the amount if the entry is an AccountancyEntryWrapper
+	 */
+	static long centsOf(AccountancyEntry entry) {
+		if (entry instanceof AccountancyEntryWrapper wrapper) {
+			return wrapper.getValueCents();
+		}
+		return Cents.of(entry.getValue());
+	}
+
+	void add(AccountancyEntry entry) {
+		add(centsOf(entry));
+	}
+
+	/**
+	 * @param cents value of an entry, positive values are income and negative ones expenditure
+	 */
+	void add(long cents) {
+		if (cents > 0) {
+			revenueCents = Math.addExact(revenueCents, cents);
+		} else if (cents < 0) {
+			expensesCents = Math.addExact(expensesCents, cents);
+		}
+	}
+
+	long getRevenueCents() {
+		return revenueCents;
+	}
+
+	/**
+	 * @return the expenditure in cents, never positive
+	 */
+	long getExpensesCents() {
+		return expensesCents;
+	}
+
+	long getProfitCents() {
+		return Math.addExact(revenueCents, expensesCents);
+	}
+
+	MonetaryAmount getRevenue(CurrencyUnit currency) {
+		return Money.ofMinor(currency, revenueCents);
+	}
+
+	MonetaryAmount getExpenses(CurrencyUnit currency) {
+		return Money.ofMinor(currency, expensesCents);
+	}
+
+	MonetaryAmount getProfit(CurrencyUnit currency) {
+		return Money.ofMinor(currency, getProfitCents());
+	}
+}
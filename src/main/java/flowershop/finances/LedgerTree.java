@@ -0,0 +1,224 @@
+package flowershop.finances;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Entries ordered by their timestamp (insertion order for equal timestamps) in a randomized balanced
+ * search tree (a treap), whose nodes know the number and the sum in cents of the entries below them.
+ * Inserting an entry, wherever it belongs, counting or summing up the entries before a moment all take
+ * O(log n) expected, listing a range additionally O(k) for its k entries.
+ * Overflows throw an {@link ArithmeticException} instead of wrapping around.
+ */
+final class LedgerTree {
+
+	private static final class Node {
+
+		final AccountancyEntryWrapper entry;
+		final LocalDateTime timestamp;
+		final long cents;
+		/**
+		 * number of the insertion, decides between equal timestamps
+		 */
+		final long order;
+		final int priority;
+
+		Node left;
+		Node right;
+		int size = 1;
+		long sum;
+
+		Node(AccountancyEntryWrapper entry, long order, int priority) {
+			this.entry = entry;
+			this.timestamp = entry.getTimestamp();
+			this.cents = entry.getValueCents();
+			this.order = order;
+			this.priority = priority;
+			this.sum = cents;
+		}
+
+		boolean isBefore(Node other) {
+			int byTime = timestamp.compareTo(other.timestamp);
+			return byTime < 0 || (byTime == 0 && order < other.order);
+		}
+	}
+
+	private final SplittableRandom random = new SplittableRandom(17);
+
+	private Node root;
+	private long insertions;
+
+	int size() {
+		return size(root);
+	}
+
+	/**
+	 * @param entry entry with a timestamp
+	 */
+	void add(AccountancyEntryWrapper entry) {
+		root = insert(root, new Node(entry, insertions++, random.nextInt()));
+	}
+
+	void clear() {
+		root = null;
+		insertions = 0;
+	}
+
+	/**
+	 * @return sum in cents of all entries
+	 */
+	long total() {
+		return sum(root);
+	}
+
+	/**
+	 * @return number of entries with a timestamp before the given one
+	 */
+	int countBefore(LocalDateTime timestamp) {
+		int count = 0;
+		Node node = root;
+		while (node != null) {
+			if (node.timestamp.isBefore(timestamp)) {
+				count += size(node.left) + 1;
+				node = node.right;
+			} else {
+				node = node.left;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return number of entries with a timestamp equal to or before the given one
+	 */
+	int countNotAfter(LocalDateTime timestamp) {
+		int count = 0;
+		Node node = root;
+		while (node != null) {
+			if (!node.timestamp.isAfter(timestamp)) {
+				count += size(node.left) + 1;
+				node = node.right;
+			} else {
+				node = node.left;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return sum in cents of the entries with a timestamp before the given one
+	 */
+	long sumBefore(LocalDateTime timestamp) {
+		long sum = 0;
+		Node node = root;
+		while (node != null) {
+			if (node.timestamp.isBefore(timestamp)) {
+				sum = Math.addExact(sum, Math.addExact(sum(node.left), node.cents));
+				node = node.right;
+			} else {
+				node = node.left;
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * @return the oldest entry, null if there is none
+	 */
+	AccountancyEntryWrapper first() {
+		Node node = root;
+		if (node == null) {
+			return null;
+		}
+		while (node.left != null) {
+			node = node.left;
+		}
+		return node.entry;
+	}
+
+	/**
+	 * @param from first moment of the range
+	 * @param to   last moment of the range
+	 * @return the entries with a timestamp between from and to (both inclusive), in order
+	 */
+	List<AccountancyEntryWrapper> range(LocalDateTime from, LocalDateTime to) {
+		List<AccountancyEntryWrapper> output = new ArrayList<>();
+		collect(root, from, to, output);
+		return output;
+	}
+
+	/**
+	 * @param output receives all entries, in order
+	 */
+	void addAllTo(List<? super AccountancyEntryWrapper> output) {
+		collect(root, LocalDateTime.MIN, LocalDateTime.MAX, output);
+	}
+
+	private static void collect(Node node, LocalDateTime from, LocalDateTime to,
+								List<? super AccountancyEntryWrapper> output) {
+		if (node == null) {
+			return;
+		}
+		boolean notBeforeFrom = !node.timestamp.isBefore(from);
+		boolean notAfterTo = !node.timestamp.isAfter(to);
+		if (notBeforeFrom) {
+			collect(node.left, from, to, output);
+		}
+		if (notBeforeFrom && notAfterTo) {
+			output.add(node.entry);
+		}
+		if (notAfterTo) {
+			collect(node.right, from, to, output);
+		}
+	}
+
+	private static Node insert(Node node, Node added) {
+		if (node == null) {
+			return added;
+		}
+		if (added.isBefore(node)) {
+			node.left = insert(node.left, added);
+			if (node.left.priority > node.priority) {
+				node = rotateRight(node);
+			}
+		} else {
+			node.right = insert(node.right, added);
+			if (node.right.priority > node.priority) {
+				node = rotateLeft(node);
+			}
+		}
+		update(node);
+		return node;
+	}
+
+	private static Node rotateRight(Node node) {
+		Node left = node.left;
+		node.left = left.right;
+		left.right = node;
+		update(node);
+		return left;
+	}
+
+	private static Node rotateLeft(Node node) {
+		Node right = node.right;
+		node.right = right.left;
+		right.left = node;
+		update(node);
+		return right;
+	}
+
+	private static void update(Node node) {
+		node.size = size(node.left) + size(node.right) + 1;
+		node.sum = Math.addExact(Math.addExact(sum(node.left), sum(node.right)), node.cents);
+	}
+
+	private static int size(Node node) {
+		return node == null ? 0 : node.size;
+	}
+
+	private static long sum(Node node) {
+		return node == null ? 0 : node.sum;
+	}
+}
@@ -0,0 +1,50 @@
+package flowershop.finances;
+
+import flowershop.inventory.DeletedProduct;
+
+import javax.money.MonetaryAmount;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Income, expenditure, closing balance and write-offs of a single month.
+ * The reports over a quarter or a year are put together from these instead of reading the ledger again.
+ *
+ * @param month           the month
+ * @param revenue         sum of all incomes
+ * @param expenses        sum of all spendings
+ * @param closingBalance  balance of the register at the end of the month
+ * @param deletedProducts write-offs of the month, one per product
+ * @param entries         number of entries registered during the month
+ * @see CashRegisterService#getMonthlyAggregate(YearMonth)
+ */
+public record MonthlyAggregate(YearMonth month,
+							   MonetaryAmount revenue,
+							   MonetaryAmount expenses,
+							   MonetaryAmount closingBalance,
+							   List<DeletedProduct> deletedProducts,
+							   int entries) {
+
+	public MonetaryAmount profit() {
+		return revenue.add(expenses);
+	}
+
+	public MonetaryAmount openingBalance() {
+		return closingBalance.subtract(profit());
+	}
+
+	/**
+	 * @param closingBalance balance of the register at the end of the month
+	 * @return the same aggregate with another closing balance
+	 */
+	MonthlyAggregate withClosingBalance(MonetaryAmount closingBalance) {
+		return new MonthlyAggregate(month, revenue, expenses, closingBalance, deletedProducts, entries);
+	}
+
+	/**
+	 * @return true if neither an entry nor a write-off was registered during the month
+	 */
+	public boolean isEmpty() {
+		return entries == 0 && deletedProducts.isEmpty();
+	}
+}
@@ -1,11 +1,11 @@
 package flowershop.finances;
 
 import flowershop.clock.ClockService;
+import flowershop.inventory.DeletedProduct;
+import flowershop.product.Cents;
 import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.javamoney.moneta.Money;
-import org.salespointframework.accountancy.AccountancyEntry;
 import org.salespointframework.time.Interval;
-import org.springframework.data.util.Streamable;
 import org.vandeseer.easytable.settings.BorderStyle;
 import org.vandeseer.easytable.settings.HorizontalAlignment;
 import org.vandeseer.easytable.structure.Row;
@@ -14,12 +14,19 @@ import org.vandeseer.easytable.structure.cell.TextCell;
 import javax.money.MonetaryAmount;
 import java.awt.*;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Is used to create financial PDF-reports for a given month
+ * <p>
+ * The days are only linked by their balance, so their reports are built in parallel
+ * and the balances are taken from a prefix sum over the profits of the days.
  */
 public class MonthlyFinancialReport extends FinancialReport {
 
@@ -34,19 +41,42 @@ public class MonthlyFinancialReport extends FinancialReport {
 		this.income = Money.of(0, balanceEndOfTheMonth.getCurrency());
 		this.expenditure = Money.of(0, balanceEndOfTheMonth.getCurrency());
 
-		Map<Interval, Streamable<AccountancyEntry>> daysOfMonth = cashRegister.find(month, Duration.ofDays(1));
-		List<Interval> sortedBackwards = new ArrayList<>(daysOfMonth.keySet().stream().toList());
-		sortedBackwards.sort(new IntervalComparator());
-		MonetaryAmount moneyAfterEachDay = balanceEndOfTheMonth;
-		for (Interval day : sortedBackwards) {
-			DailyFinancialReport currentDay = new DailyFinancialReport(
-				day, moneyAfterEachDay, cashRegister, firstEverTransaction, clockService);
+		LedgerBuckets daysOfMonth = cashRegister.aggregate(month, Duration.ofDays(1));
+		int days = daysOfMonth.size();
+
+		// the balance of a day is the one of the month minus the profit of all following days
+		long[] profitUntil = new long[days];
+		for (int i = 0; i < days; i++) {
+			profitUntil[i] = Cents.of(daysOfMonth.getProfit(i));
+		}
+		Arrays.parallelPrefix(profitUntil, Math::addExact);
+		long balanceCents = Cents.of(balanceEndOfTheMonth);
+		long monthProfit = days == 0 ? 0 : profitUntil[days - 1];
+
+		Map<LocalDate, List<DeletedProduct>> writeOffs = cashRegister
+			.getAllDeletedProducts(month.getStart().toLocalDate(), month.getEnd().toLocalDate()).stream()
+			.collect(Collectors.groupingBy(DeletedProduct::getDateWhenDeleted));
+
+		DailyFinancialReport[] reports = new DailyFinancialReport[days];
+		IntStream.range(0, days).parallel().forEach(i -> {
+			Interval day = daysOfMonth.getInterval(i);
+			long balanceEndOfTheDay = Math.subtractExact(balanceCents, Math.subtractExact(monthProfit, profitUntil[i]));
+			reports[i] = new DailyFinancialReport(
+				day,
+				Money.ofMinor(balanceEndOfTheMonth.getCurrency(), balanceEndOfTheDay),
+				daysOfMonth.getEntries(i),
+				daysOfMonth.getRevenue(i),
+				daysOfMonth.getExpenses(i),
+				CashRegisterService.normalizeDeletedProducts(
+					writeOffs.getOrDefault(day.getStart().toLocalDate(), List.of())),
+				firstEverTransaction,
+				clockService);
+		});
+		for (DailyFinancialReport currentDay : reports) {
 			this.dailyFinancialReports.add(currentDay);
-			moneyAfterEachDay = moneyAfterEachDay.subtract(currentDay.getProfit());
 			this.income = this.income.add(currentDay.getIncome());
 			this.expenditure = this.expenditure.add(currentDay.getExpenditure());
 		}
-		this.dailyFinancialReports = this.dailyFinancialReports.reversed();
 		this.deletedProducts = cashRegister.findDeletedProductsByMonth(month.getStart().toLocalDate());
 		countProfit();
 	}
@@ -86,15 +116,44 @@ public class MonthlyFinancialReport extends FinancialReport {
 	@Override
 	protected List<Row> getNeededRows(PDFont font) {
 		List<Row> neededRows = new ArrayList<>();
+		for (List<Row> chunk : getRowChunks(font)) {
+			neededRows.addAll(chunk);
+		}
+		return neededRows;
+	}
 
+	/**
+	 * The rows of every day are only built when the chunk of this day is requested,
+	 * so that rendering a busy month never holds the rows of more than one day at once.
+	 * The daily reports with their entries are built up front and kept for the whole month.
+	 *
+	 * @param font to be used in these rows
+	 * @return one chunk per day that has some orders or deleted products, and one with the summary of the month
+	 */
+	@Override
+	protected Iterable<List<Row>> getRowChunks(PDFont font) {
+		List<Supplier<List<Row>>> chunks = new ArrayList<>();
 		for (DailyFinancialReport dailyFinancialReport : dailyFinancialReports) {
 			if (dailyFinancialReport.getOrders().isEmpty() && dailyFinancialReport.deletedProducts.isEmpty()) {
 				continue;
 			}
-			neededRows.addAll(dailyFinancialReport.getNeededRows(font));
-			neededRows.add(emptyRow(6));
-			neededRows.add(emptyRow(6));
+			chunks.add(() -> {
+				List<Row> dayRows = new ArrayList<>(dailyFinancialReport.getNeededRows(font));
+				dayRows.add(emptyRow(6));
+				dayRows.add(emptyRow(6));
+				return dayRows;
+			});
 		}
+		chunks.add(() -> getSummaryRows(font));
+		return () -> chunks.stream().map(Supplier::get).iterator();
+	}
+
+	/**
+	 * @param font to be used in these rows
+	 * @return the difference of the whole month and the products deleted during it
+	 */
+	private List<Row> getSummaryRows(PDFont font) {
+		List<Row> neededRows = new ArrayList<>();
 		MonetaryAmount profit = getProfit();
 		String profitRepr = profit.toString();
 
@@ -114,23 +173,6 @@ public class MonthlyFinancialReport extends FinancialReport {
 		return neededRows;
 	}
 
-	/**
-	 * Is used to sort Intervals backwards
-	 */
-	private static class IntervalComparator implements Comparator<Interval> {
-		//Reverses backwards [31.12, 30.12...]
-		@Override
-		public int compare(Interval o1, Interval o2) {
-			if (o1.getEnd().isAfter(o2.getEnd())) {
-				return -1;
-			} else if (o1.getEnd().isBefore(o2.getEnd())) {
-				return +1;
-			} else {
-				return 0;
-			}
-		}
-	}
-
 	public LinkedList<DailyFinancialReport> getDailyFinancialReports() {
 		return dailyFinancialReports;
 	}
@@ -0,0 +1,35 @@
+package flowershop.finances;
+
+import flowershop.clock.RolloverStage;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Posts what is left in the outbox, before the deliveries of the new day are added to the stock, so
+ * the purchases paid late on the ended day are queued for delivery. Never fails: an order that can't
+ * be posted stays in the outbox, the deliveries don't wait for it.
+ *
+ * @see CloseLedgerDayStage
+ */
+@Component
+@Order(7)
+public class PostPaidOrdersStage implements RolloverStage {
+
+	private final LedgerOutbox ledgerOutbox;
+
+	public PostPaidOrdersStage(LedgerOutbox ledgerOutbox) {
+		this.ledgerOutbox = ledgerOutbox;
+	}
+
+	@Override
+	public String getName() {
+		return "post-paid-orders";
+	}
+
+	@Override
+	public void run(LocalDate endedDay, LocalDate newDay) {
+		ledgerOutbox.drain();
+	}
+}
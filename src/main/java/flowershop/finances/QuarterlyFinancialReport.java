@@ -0,0 +1,29 @@
+package flowershop.finances;
+
+import flowershop.clock.ClockService;
+import org.salespointframework.time.Interval;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Is used to create financial PDF-reports for a given quarter
+ */
+public class QuarterlyFinancialReport extends AggregatedFinancialReport {
+
+	public QuarterlyFinancialReport(Interval quarter,
+									List<MonthlyAggregate> months,
+									LocalDateTime firstEverTransaction,
+									ClockService clockService) {
+		super(quarter, months, firstEverTransaction, clockService);
+	}
+
+	/**
+	 * @return for example "Q4.2024" for the last quarter of 2024
+	 */
+	@Override
+	protected String intervalToString() {
+		LocalDateTime start = interval.getStart();
+		return "Q" + ((start.getMonthValue() - 1) / 3 + 1) + "." + start.getYear();
+	}
+}
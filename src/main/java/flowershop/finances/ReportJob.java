@@ -0,0 +1,86 @@
+package flowershop.finances;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * A financial report, that is rendered in the background by the {@link ReportJobService}
+ */
+public class ReportJob {
+
+	public enum Type {
+		DAY, MONTH
+	}
+
+	public enum Status {
+		QUEUED, RUNNING, DONE, FAILED
+	}
+
+	private final String id;
+	private final Type type;
+	private final LocalDate period;
+	private volatile Status status;
+	private volatile String message;
+	private volatile ReportJobService.ReportKey document;
+
+	ReportJob(Type type, LocalDate period) {
+		this.id = UUID.randomUUID().toString();
+		this.type = type;
+		this.period = period;
+		this.status = Status.QUEUED;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return the day of a day report, or the first day of the month of a month report
+	 */
+	public LocalDate getPeriod() {
+		return period;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return the reason, why the report couldn't be made, if the job failed
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * @return name of the file, the document is downloaded as
+	 */
+	public String getFileName() {
+		return type == Type.DAY ? "report_day.pdf" : "report_month.pdf";
+	}
+
+	void running() {
+		this.status = Status.RUNNING;
+	}
+
+	/**
+	 * @return the key of the rendered document in the cache of the {@link ReportJobService}, once the job is done
+	 */
+	ReportJobService.ReportKey getDocument() {
+		return document;
+	}
+
+	void done(ReportJobService.ReportKey document) {
+		this.document = document;
+		this.status = Status.DONE;
+	}
+
+	void failed(String message) {
+		this.message = message;
+		this.status = Status.FAILED;
+	}
+}
@@ -0,0 +1,256 @@
+package flowershop.finances;
+
+import flowershop.clock.ClockService;
+import jakarta.annotation.PreDestroy;
+import org.salespointframework.time.Interval;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders financial reports on a small pool of background workers, so that the request threads
+ * don't have to wait for PDFBox. Finished documents of closed periods are kept in a cache,
+ * keyed by the type of the report, the period, the version of the ledger for that period and the balance
+ * at its end. As long as nothing changes for a closed period anymore, its report is only rendered once.
+ * <p>
+ * The documents of open periods are kept in the same cache under the id of their job, so the jobs only
+ * point into the cache and all documents are bounded by its size.
+ * <p>
+ * The documents are written straight into files of a temporary directory and streamed from there,
+ * so the cache only holds their paths. A file is deleted, when its document is dropped from the cache.
+ */
+@Service
+public class ReportJobService {
+
+	private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+
+	private static final int WORKERS = 2;
+	private static final int QUEUE_CAPACITY = 16;
+	private static final int MAX_CACHED_REPORTS = 32;
+	private static final int MAX_KEPT_JOBS = 100;
+
+	private final CashRegisterService cashRegisterService;
+	private final ClockService clockService;
+	private final TransactionTemplate transactionTemplate;
+	private final ThreadPoolExecutor workers;
+	private final Path directory;
+
+	/**
+	 * least recently used reports are dropped first, together with their files
+	 */
+	private final Map<ReportKey, Path> cache = Collections.synchronizedMap(
+		new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ReportKey, Path> eldest) {
+				if (size() > MAX_CACHED_REPORTS) {
+					delete(eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		});
+
+	/**
+	 * oldest jobs are forgotten first
+	 */
+	private final Map<String, ReportJob> jobs = Collections.synchronizedMap(
+		new LinkedHashMap<>() {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, ReportJob> eldest) {
+				return size() > MAX_KEPT_JOBS;
+			}
+		});
+
+	public ReportJobService(CashRegisterService cashRegisterService,
+							ClockService clockService,
+							PlatformTransactionManager transactionManager) {
+		this.cashRegisterService = cashRegisterService;
+		this.clockService = clockService;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		try {
+			this.directory = Files.createTempDirectory("flowershop-reports");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		AtomicInteger threadCount = new AtomicInteger();
+		this.workers = new ThreadPoolExecutor(WORKERS, WORKERS, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+			runnable -> {
+				Thread thread = new Thread(runnable, "report-worker-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+	}
+
+	/**
+	 * Starts rendering a report in the background. If the same report of a closed period was
+	 * already rendered and the period didn't change since then, the job is done right away.
+	 *
+	 * @param type   day or month report
+	 * @param period the day, or any day of the month
+	 * @return the job, its id can be used to ask for its status and the document
+	 * @throws IllegalArgumentException if the period lies in the future
+	 * @throws IllegalStateException    if too many reports are being rendered at the moment
+	 */
+	public ReportJob submit(ReportJob.Type type, LocalDate period) {
+		LocalDate start = type == ReportJob.Type.DAY ? period : period.withDayOfMonth(1);
+		if (start.isAfter(clockService.getCurrentDate())) {
+			throw new IllegalArgumentException("The given date cannot be in the future.");
+		}
+		ReportJob job = new ReportJob(type, start);
+		ReportKey key = keyOf(type, start).orElseGet(() -> ReportKey.ofJob(job));
+		if (cache.containsKey(key)) {
+			job.done(key);
+			jobs.put(job.getId(), job);
+			return job;
+		}
+		try {
+			workers.execute(() -> render(job, key));
+		} catch (RejectedExecutionException e) {
+			throw new IllegalStateException("Too many reports are being created right now. Please try again later.");
+		}
+		jobs.put(job.getId(), job);
+		return job;
+	}
+
+	/**
+	 * @param id id of the job
+	 * @return the job, if it is still known
+	 */
+	public Optional<ReportJob> getJob(String id) {
+		return Optional.ofNullable(jobs.get(id));
+	}
+
+	/**
+	 * The stream stays readable, even if the document is dropped from the cache while it is read
+	 *
+	 * @param job a finished job
+	 * @return the opened document of the job, if it wasn't dropped from the cache in the meantime
+	 */
+	public Optional<InputStream> openDocument(ReportJob job) {
+		return Optional.ofNullable(job.getDocument()).flatMap(this::open);
+	}
+
+	/**
+	 * @param type   day or month report
+	 * @param period the day, or any day of the month
+	 * @return the opened document, if the period is closed and its report is cached
+	 */
+	public Optional<InputStream> openCached(ReportJob.Type type, LocalDate period) {
+		LocalDate start = type == ReportJob.Type.DAY ? period : period.withDayOfMonth(1);
+		return keyOf(type, start).flatMap(this::open);
+	}
+
+	private Optional<InputStream> open(ReportKey key) {
+		Path file = cache.get(key);
+		if (file == null) {
+			return Optional.empty();
+		}
+		try {
+			return Optional.of(Files.newInputStream(file));
+		} catch (NoSuchFileException e) {
+			return Optional.empty();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void render(ReportJob job, ReportKey key) {
+		job.running();
+		Path file = null;
+		try {
+			FinancialReport report = transactionTemplate.execute(status -> job.getType() == ReportJob.Type.DAY
+				? cashRegisterService.createFinancialReportDay(job.getPeriod().atStartOfDay())
+				: cashRegisterService.createFinancialReportMonth(job.getPeriod().atStartOfDay()));
+			if (report == null) {
+				job.failed("No Transactions saved in the system.");
+				return;
+			}
+			if (report.isBeforeBeginning()) {
+				job.failed("The given date is before the accounting process started. No Data.");
+				return;
+			}
+			file = Files.createTempFile(directory, "report-", ".pdf");
+			try (OutputStream outputStream = Files.newOutputStream(file)) {
+				report.writePDF(outputStream);
+			}
+			Path replaced = cache.put(key, file);
+			if (replaced != null) {
+				delete(replaced);
+			}
+			job.done(key);
+		} catch (IOException | RuntimeException e) {
+			if (file != null) {
+				delete(file);
+			}
+			job.failed("The report could not be created: " + e.getMessage());
+		}
+	}
+
+	private static void delete(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			log.warn("The report file {} could not be deleted", file, e);
+		}
+	}
+
+	/**
+	 * The entries of the period only decide its income and expenditure. The balances in the report also
+	 * depend on everything before the end of the period, including purchases that are paid but not booked yet,
+	 * so the balance at the end is part of the key as well.
+	 *
+	 * @return the cache key of the report, or nothing if the period is not closed yet and may still change
+	 */
+	private Optional<ReportKey> keyOf(ReportJob.Type type, LocalDate start) {
+		LocalDate end = type == ReportJob.Type.DAY ? start.plusDays(1) : start.plusMonths(1);
+		if (end.isAfter(clockService.getCurrentDate())) {
+			return Optional.empty();
+		}
+		Interval period = Interval.from(start.atStartOfDay()).to(end.atStartOfDay());
+		return Optional.of(new ReportKey(type, start, cashRegisterService.getLedgerVersion(period),
+			cashRegisterService.balanceCentsAt(end.atStartOfDay()), null));
+	}
+
+	@PreDestroy
+	void shutdown() {
+		workers.shutdownNow();
+		synchronized (cache) {
+			cache.values().forEach(ReportJobService::delete);
+			cache.clear();
+		}
+		delete(directory);
+	}
+
+	/**
+	 * @param job id of the job, that rendered a report of an open period, null for closed periods
+	 */
+	record ReportKey(ReportJob.Type type, LocalDate period, long ledgerVersion, long closingBalanceCents,
+					 String job) {
+
+		static ReportKey ofJob(ReportJob job) {
+			return new ReportKey(job.getType(), job.getPeriod(), 0, 0, job.getId());
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package flowershop.finances;
+
+import flowershop.clock.RolloverStage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Starts rendering the report of the ended day, and of the ended month if there is one, so they are
+ * in the cache of the {@link ReportJobService} when the manager asks for them.
+ * This is only a head start, if the report queue is full, the reports are rendered when they are asked for.
+ */
+@Component
+@Order(50)
+public class ReportPrewarmStage implements RolloverStage {
+
+	private static final Logger log = LoggerFactory.getLogger(ReportPrewarmStage.class);
+
+	private final ReportJobService reportJobService;
+
+	public ReportPrewarmStage(ReportJobService reportJobService) {
+		this.reportJobService = reportJobService;
+	}
+
+	@Override
+	public String getName() {
+		return "prewarm-reports";
+	}
+
+	@Override
+	public void run(LocalDate endedDay, LocalDate newDay) {
+		prewarm(ReportJob.Type.DAY, endedDay);
+		if (!endedDay.getMonth().equals(newDay.getMonth())) {
+			prewarm(ReportJob.Type.MONTH, endedDay);
+		}
+	}
+
+	private void prewarm(ReportJob.Type type, LocalDate period) {
+		try {
+			reportJobService.submit(type, period);
+		} catch (IllegalStateException e) {
+			log.info("The {} report of {} is not prewarmed, the report queue is full", type, period);
+		}
+	}
+}
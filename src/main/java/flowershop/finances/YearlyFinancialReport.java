@@ -0,0 +1,28 @@
+package flowershop.finances;
+
+import flowershop.clock.ClockService;
+import org.salespointframework.time.Interval;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Is used to create financial PDF-reports for a given year
+ */
+public class YearlyFinancialReport extends AggregatedFinancialReport {
+
+	public YearlyFinancialReport(Interval year,
+								 List<MonthlyAggregate> months,
+								 LocalDateTime firstEverTransaction,
+								 ClockService clockService) {
+		super(year, months, firstEverTransaction, clockService);
+	}
+
+	/**
+	 * @return for example "2024"
+	 */
+	@Override
+	protected String intervalToString() {
+		return String.valueOf(interval.getStart().getYear());
+	}
+}
@@ -0,0 +1,86 @@
+package flowershop.inventory;
+
+import flowershop.product.Cents;
+import jakarta.persistence.*;
+import org.javamoney.moneta.Money;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.time.LocalDate;
+
+/**
+ * Total of the write-offs of one product on one day.
+ * Is added up when a write-off is registered, so the reports only read one row per product and day.
+ */
+@Entity
+@Table(name = "daily_write_off",
+	uniqueConstraints = @UniqueConstraint(name = "uk_daily_write_off", columnNames = {"written_off_on", "name"}),
+	indexes = @Index(name = "idx_daily_write_off_date", columnList = "written_off_on"))
+public class DailyWriteOff {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "written_off_on", nullable = false, updatable = false)
+	private LocalDate date;
+
+	@Column(nullable = false, updatable = false)
+	private String name;
+
+	@Column(nullable = false, updatable = false)
+	private String currency;
+
+	@Column(updatable = false)
+	private long pricePerUnitCents;
+
+	private int quantity;
+
+	private long totalLossCents;
+
+	/**
+	 * @param deletedProduct the first write-off of the product on that day
+	 */
+	public DailyWriteOff(DeletedProduct deletedProduct) {
+		this.date = deletedProduct.getDateWhenDeleted();
+		this.name = deletedProduct.getName();
+		this.currency = deletedProduct.getTotalLoss().getCurrency().getCurrencyCode();
+		this.pricePerUnitCents = Cents.of(deletedProduct.getPricePerUnit());
+		this.quantity = deletedProduct.getQuantityDeleted();
+		this.totalLossCents = Cents.of(deletedProduct.getTotalLoss());
+	}
+
+	protected DailyWriteOff() {
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public LocalDate getDate() {
+		return date;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public MonetaryAmount getPricePerUnit() {
+		return Money.ofMinor(Monetary.getCurrency(currency), pricePerUnitCents);
+	}
+
+	public MonetaryAmount getTotalLoss() {
+		return Money.ofMinor(Monetary.getCurrency(currency), totalLossCents);
+	}
+
+	/**
+	 * @return the total of the day in the shape of a single write-off, as the reports expect it
+	 */
+	public DeletedProduct toDeletedProduct() {
+		return new DeletedProduct(name, getPricePerUnit(), quantity, getTotalLoss(), date);
+	}
+}
@@ -0,0 +1,38 @@
+package flowershop.inventory;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyWriteOffRepository extends JpaRepository<DailyWriteOff, Long> {
+
+	/**
+	 * @param from first day, inclusive
+	 * @param to   last day, inclusive
+	 * @return the totals of all products in that range, oldest first
+	 */
+	List<DailyWriteOff> findByDateBetweenOrderByDateAscNameAsc(LocalDate from, LocalDate to);
+
+	/**
+	 * @return sum in cents of the losses of all write-offs, one row per product and day is read
+	 */
+	@Query("select coalesce(sum(w.totalLossCents), 0) from DailyWriteOff w")
+	long sumTotalLossCents();
+
+	/**
+	 * Adds a write-off to the total of its day right in the database, so the total doesn't have to be read first
+	 *
+	 * @return number of updated totals, 0 if there is none for that product and day yet
+	 */
+	@Transactional
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update DailyWriteOff w set w.quantity = w.quantity + :quantity, w.totalLossCents = w.totalLossCents + :cents "
+		+ "where w.date = :date and w.name = :name")
+	int addToTotal(@Param("date") LocalDate date, @Param("name") String name,
+				   @Param("quantity") int quantity, @Param("cents") long totalLossCents);
+}
@@ -1,24 +1,54 @@
 package flowershop.inventory;
 
+import jakarta.persistence.*;
+import org.javamoney.moneta.Money;
+
 import javax.money.MonetaryAmount;
 import java.time.LocalDate;
 
+/**
+ * A single write-off, as it was registered in the inventory.
+ * The write-offs are kept in a table ordered by their date, the totals per day are kept in {@link DailyWriteOff}.
+ */
+@Entity
+@Table(name = "deleted_product", indexes = @Index(name = "idx_deleted_product_date", columnList = "deleted_on"))
 public class DeletedProduct {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(nullable = false, updatable = false)
 	private String name;
-	private MonetaryAmount pricePerUnit;
+
+	@Column(updatable = false)
+	private Money pricePerUnit;
+
+	@Column(updatable = false)
 	private int quantityDeleted;
-	private MonetaryAmount totalLoss;
+
+	@Column(updatable = false)
+	private Money totalLoss;
+
+	@Column(name = "deleted_on", nullable = false, updatable = false)
 	private LocalDate dateWhenDeleted;
 
 	public DeletedProduct(String name, MonetaryAmount pricePerUnit, int quantityDeleted,
 						  MonetaryAmount totalLoss, LocalDate dateWhenDeleted) {
 		this.name = name;
-		this.pricePerUnit = pricePerUnit;
+		this.pricePerUnit = Money.from(pricePerUnit);
 		this.quantityDeleted = quantityDeleted;
-		this.totalLoss = totalLoss;
+		this.totalLoss = Money.from(totalLoss);
 		this.dateWhenDeleted = dateWhenDeleted;
 	}
 
+	protected DeletedProduct() {
+	}
+
+	public Long getId() {
+		return id;
+	}
+
 	public String getName() {
 		return name;
 	}
@@ -0,0 +1,19 @@
+package flowershop.inventory;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface DeletedProductRepository extends JpaRepository<DeletedProduct, Long> {
+
+	Slice<DeletedProduct> findAllByOrderByDateWhenDeletedDescIdDesc(Pageable page);
+
+	long countByDateWhenDeletedBetween(LocalDate from, LocalDate to);
+
+	@Query("select min(d.dateWhenDeleted) from DeletedProduct d")
+	Optional<LocalDate> findFirstDate();
+}
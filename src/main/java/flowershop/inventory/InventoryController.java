@@ -3,17 +3,17 @@ package flowershop.inventory;
 import flowershop.clock.ClockService;
 import flowershop.product.*;
 import flowershop.services.ContractOrderService;
-import flowershop.services.ReservationOrder;
-import flowershop.services.ReservationOrderService;
+import flowershop.services.ReservedQuantityIndex;
 import org.javamoney.moneta.Money;
 import org.salespointframework.catalog.Product;
-import org.salespointframework.order.OrderLine;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -21,9 +21,15 @@ import java.util.stream.Collectors;
 @Controller
 public class InventoryController {
 	/**
-	 * List to keep track of deleted products along with their details.
+	 * Upper bound for the number of names suggested by {@link #autocomplete(String, int)}.
 	 */
-	public final List<DeletedProduct> deletedProducts = new ArrayList<>();
+	static final int MAX_SUGGESTIONS = 50;
+
+	/**
+	 * Number of deleted products shown on one page of {@link #showDeletedProducts(int, Model)}.
+	 */
+	static final int DELETED_PRODUCTS_PER_PAGE = 50;
+
 	/**
 	 * List to store flowers selected for bouquet creation.
 	 */
@@ -35,8 +41,7 @@ public class InventoryController {
 	private final ClockService clockService;
 
 	private final ContractOrderService contractOrderService;
-	private final ProductCatalog productCatalog;
-	private final ReservationOrderService reservationOrderService;
+	private final ReservedQuantityIndex reservedQuantityIndex;
 
 
 	/**
@@ -45,13 +50,12 @@ public class InventoryController {
 	 * @param productService the service for managing products
 	 */
 	public InventoryController(ProductService productService, ClockService clockService,
-							   ContractOrderService contractOrderService, ProductCatalog productCatalog,
-							   ReservationOrderService reservationOrderService) {
+							   ContractOrderService contractOrderService,
+							   ReservedQuantityIndex reservedQuantityIndex) {
 		this.productService = productService;
 		this.clockService = clockService;
 		this.contractOrderService = contractOrderService;
-		this.productCatalog = productCatalog;
-		this.reservationOrderService = reservationOrderService;
+		this.reservedQuantityIndex = reservedQuantityIndex;
 	}
 
 	/**
@@ -71,14 +75,9 @@ public class InventoryController {
 		@RequestParam(required = false) Boolean quantityProblemLabel,
 		Model model) {
 
-		List<Product> products = productService.getAllProducts();
-		List<Product> filteredProducts = new ArrayList<>(products);
-
-		if (search != null && !search.isEmpty()) {
-			filteredProducts = filteredProducts.stream()
-				.filter(product -> product.getName().toLowerCase().contains(search.toLowerCase()))
-				.collect(Collectors.toList());
-		}
+		List<Product> filteredProducts = search != null && !search.isEmpty()
+			? productService.findProductsByName(search)
+			: productService.getAllProducts();
 
 		if (!filter.equals("all")) {
 			filteredProducts = filteredProducts.stream()
@@ -115,6 +114,21 @@ public class InventoryController {
 	}
 
 
+	/**
+	 * Suggests product names for the search fields of the inventory and the sell page.
+	 *
+	 * @param prefix the beginning of a product name or of one of its words
+	 * @param limit  the maximum number of names, at most {@value #MAX_SUGGESTIONS}
+	 * @return the matching product names as JSON
+	 */
+	@GetMapping("/products/autocomplete")
+	@PreAuthorize("hasRole('BOSS')")
+	@ResponseBody
+	public List<String> autocomplete(@RequestParam("q") String prefix,
+									 @RequestParam(defaultValue = "10") int limit) {
+		return productService.autocompleteNames(prefix, Math.clamp(limit, 1, MAX_SUGGESTIONS));
+	}
+
 	/**
 	 * Enriches a product with additional display data.
 	 *
@@ -126,7 +140,7 @@ public class InventoryController {
 		data.put("name", product.getName());
 		data.put("quantity", getQuantity(product));
 
-		int reservedQuantity = getReservedQuantity(product.getName());
+		int reservedQuantity = getReservedQuantity(product);
 		data.put("quantityReserved", reservedQuantity);
 
 		data.put("pricePerUnit", computePricePerUnit(product));
@@ -136,15 +150,11 @@ public class InventoryController {
 	}
 
 	/**
-	 * @param productName the name of the product
-	 * @return the reserved quantity
+	 * @param product the product
+	 * @return the quantity held back by reservations
 	 */
-	private int getReservedQuantity(String productName) {
-		return getTotalUsedQuantities().entrySet().stream()
-			.filter(entry -> entry.getKey().getName().equalsIgnoreCase(productName))
-			.map(Map.Entry::getValue)
-			.findFirst()
-			.orElse(0);
+	private int getReservedQuantity(Product product) {
+		return reservedQuantityIndex.getReservedQuantity(product.getId());
 	}
 
 
@@ -256,7 +266,7 @@ public class InventoryController {
 		if (productOpt.isPresent()) {
 			Product product = productOpt.get();
 			if (product instanceof Flower selectedFlower) {
-				int reservedQuantity = getReservedQuantity(selectedFlower.getName());
+				int reservedQuantity = getReservedQuantity(selectedFlower);
 				int availableQuantity = selectedFlower.getQuantity() - reservedQuantity;
 
 				if (chooseQuantity > availableQuantity) {
@@ -348,26 +358,27 @@ public class InventoryController {
 	}
 
 	/**
-	 * Displays deleted products and calculates the total monetary loss.
+	 * Displays one page of the deleted products, newest first, and the total monetary loss of all of them.
 	 *
+	 * @param page  number of the page, starting at 0
 	 * @param model the model to hold attributes for the view
 	 * @return the inventory view name
 	 */
 	@GetMapping("/inventory/deleted-products")
 	@PreAuthorize("hasRole('BOSS')")
-	public String showDeletedProducts(Model model) {
-		double totalLossSum = 0.0;
-		for (DeletedProduct deletedProduct : productService.getDeletedProducts()) {
-			totalLossSum += deletedProduct.getTotalLoss().getNumber().doubleValue();
-		}
+	public String showDeletedProducts(@RequestParam(value = "page", defaultValue = "0") int page, Model model) {
+		Slice<DeletedProduct> deletedProducts = productService.getDeletedProducts(Math.max(page, 0),
+			DELETED_PRODUCTS_PER_PAGE);
+		double totalLossSum = productService.getTotalWriteOffLossCents() / 100.0;
 
 		List<Map<String, Object>> enrichedProducts = productService.getAllProducts().stream()
 			.map(this::enrichProductData)
 			.collect(Collectors.toList());
 
-		model.addAttribute("deletedProducts", productService.getDeletedProducts());
+		model.addAttribute("deletedProducts", deletedProducts.getContent());
+		model.addAttribute("deletedProductsPage", deletedProducts);
 		model.addAttribute("totalLossSum", totalLossSum);
-		model.addAttribute("showDeletedModal", !productService.getDeletedProducts().isEmpty());
+		model.addAttribute("showDeletedModal", deletedProducts.hasContent() || deletedProducts.hasPrevious());
 
 		model.addAttribute("createBouquetMode", false);
 		model.addAttribute("selectedProduct", productService.findAllFlowers().getFirst());
@@ -395,7 +406,6 @@ public class InventoryController {
 			.map(this::enrichProductData)
 			.collect(Collectors.toList());
 
-		model.addAttribute("deletedProducts", productService.getDeletedProducts());
 		model.addAttribute("showModal", true);
 		model.addAttribute("createBouquetMode", false);
 		model.addAttribute("showChangePriceModal", false);
@@ -437,7 +447,7 @@ public class InventoryController {
 
 		for (Flower flower : flowers) {
 			if (flower.getName().equals(productName)) {
-				int reservedQuantity = getReservedQuantity(flower.getName());
+				int reservedQuantity = getReservedQuantity(flower);
 				int availableQuantity = flower.getQuantity() - reservedQuantity;
 
 				if (deleteQuantity <= availableQuantity) {
@@ -460,7 +470,7 @@ public class InventoryController {
 
 		for (Bouquet bouquet : bouquets) {
 			if (bouquet.getName().equals(productName)) {
-				int reservedQuantity = getReservedQuantity(bouquet.getName());
+				int reservedQuantity = getReservedQuantity(bouquet);
 				int availableQuantity = bouquet.getQuantity() - reservedQuantity;
 
 				if (deleteQuantity <= availableQuantity) {
@@ -525,7 +535,6 @@ public class InventoryController {
 			.map(this::enrichProductData)
 			.collect(Collectors.toList());
 
-		model.addAttribute("deletedProducts", productService.getDeletedProducts());
 		model.addAttribute("showModal", true);
 		model.addAttribute("createBouquetMode", false);
 		model.addAttribute("showChangePriceModal", true);
@@ -534,23 +543,5 @@ public class InventoryController {
 		return "inventory";
 	}
 
-	public Map<Product, Integer> getTotalUsedQuantities() {
-		Map<Product, Integer> productQuantities = new HashMap<>();
-
-		List<ReservationOrder> orders = reservationOrderService.findAll();
-
-		for (ReservationOrder order : orders) {
-			for (OrderLine line : order.getOrderLines()) {
-				Product product = productCatalog.findById(line.getProductIdentifier())
-					.orElseThrow(() -> new IllegalArgumentException("Produkt nicht gefunden: "
-						+ line.getProductIdentifier()));
-
-				int quantity = line.getQuantity().getAmount().intValue();
-				productQuantities.merge(product, quantity, Integer::sum);
-			}
-		}
-		return productQuantities;
-	}
-
 }
 
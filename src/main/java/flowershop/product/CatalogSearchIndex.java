@@ -0,0 +1,247 @@
+package flowershop.product;
+
+import org.salespointframework.catalog.Product;
+import org.salespointframework.catalog.Product.ProductIdentifier;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Finds products by their name without reading the catalog.
+ * <p>
+ * Every lowercase name is split into trigrams, a search for a part of a name only looks at the products that
+ * contain all trigrams of the query. Each word of a name is also put into a prefix trie for the autocompletion.
+ * The index is read from the catalog on first use and kept up to date by {@link CatalogSearchListener}
+ * whenever a product is saved or deleted. Renames and deletes are applied after the commit of their transaction,
+ * an insert that is rolled back is taken out again, so a rolled back product doesn't stay in the index.
+ */
+@Component
+public class CatalogSearchIndex {
+
+	private static final int GRAM = 3;
+
+	private final ProductCatalog productCatalog;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<ProductIdentifier, Entry> entries = new HashMap<>();
+	private final Map<String, Set<ProductIdentifier>> postings = new HashMap<>();
+	private final Node trie = new Node();
+	private volatile boolean loaded;
+
+	public CatalogSearchIndex(ProductCatalog productCatalog) {
+		Assert.notNull(productCatalog, "ProductCatalog must not be null!");
+		this.productCatalog = productCatalog;
+	}
+
+	/**
+	 * @param query part of the name, case is ignored; an empty query finds every product of the type
+	 * @param type  the type of products to find, {@link Product} for all
+	 * @return the ids of the matching products, ordered by their name
+	 */
+	public List<ProductIdentifier> search(String query, Class<? extends Product> type) {
+		load();
+		String normalized = normalize(query);
+		lock.readLock().lock();
+		try {
+			Collection<ProductIdentifier> candidates = normalized.length() < GRAM
+				? entries.keySet()
+				: candidates(normalized);
+			List<Entry> found = new ArrayList<>();
+			for (ProductIdentifier id : candidates) {
+				Entry entry = entries.get(id);
+				if (type.isAssignableFrom(entry.type()) && entry.name().contains(normalized)) {
+					found.add(entry);
+				}
+			}
+			found.sort(Comparator.comparing(Entry::name));
+			return found.stream().map(Entry::id).toList();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @param prefix the beginning of a name or of one of its words, case is ignored
+	 * @param limit  the maximum number of names
+	 * @return the names of the products with a word starting with the prefix, in the order of that word
+	 */
+	public List<String> autocomplete(String prefix, int limit) {
+		load();
+		String normalized = normalize(prefix).strip();
+		if (normalized.isEmpty() || limit <= 0) {
+			return List.of();
+		}
+		lock.readLock().lock();
+		try {
+			Node node = trie;
+			for (int i = 0; i < normalized.length() && node != null; i++) {
+				node = node.children.get(normalized.charAt(i));
+			}
+			if (node == null) {
+				return List.of();
+			}
+			Set<String> names = new LinkedHashSet<>();
+			collect(node, names, limit);
+			return List.copyOf(names);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds a new product or updates the name of a known one.
+	 */
+	public void put(Product product) {
+		lock.writeLock().lock();
+		try {
+			Entry old = entries.get(product.getId());
+			if (old != null && old.displayName().equals(product.getName())) {
+				return;
+			}
+			if (old != null) {
+				unindex(old);
+			}
+			Entry entry = new Entry(product.getId(), product.getName(), normalize(product.getName()),
+				product.getClass());
+			entries.put(entry.id(), entry);
+			for (String gram : grams(entry.name())) {
+				postings.computeIfAbsent(gram, key -> new HashSet<>()).add(entry.id());
+			}
+			for (String word : wordStarts(entry.name())) {
+				Node node = trie;
+				for (int i = 0; i < word.length(); i++) {
+					node = node.children.computeIfAbsent(word.charAt(i), key -> new Node());
+				}
+				node.entries.add(entry);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(ProductIdentifier id) {
+		lock.writeLock().lock();
+		try {
+			Entry old = entries.remove(id);
+			if (old != null) {
+				unindex(old);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void load() {
+		if (loaded) {
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			if (!loaded) {
+				productCatalog.findAll().forEach(this::put);
+				loaded = true;
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private Collection<ProductIdentifier> candidates(String query) {
+		List<Set<ProductIdentifier>> lists = new ArrayList<>();
+		for (String gram : grams(query)) {
+			Set<ProductIdentifier> ids = postings.get(gram);
+			if (ids == null) {
+				return List.of();
+			}
+			lists.add(ids);
+		}
+		// start with the rarest trigram, so the intersection is never bigger than its list
+		lists.sort(Comparator.comparingInt(Set::size));
+		List<ProductIdentifier> result = new ArrayList<>(lists.getFirst());
+		for (Set<ProductIdentifier> ids : lists.subList(1, lists.size())) {
+			result.removeIf(id -> !ids.contains(id));
+		}
+		return result;
+	}
+
+	private void unindex(Entry entry) {
+		for (String gram : grams(entry.name())) {
+			Set<ProductIdentifier> ids = postings.get(gram);
+			if (ids != null) {
+				ids.remove(entry.id());
+				if (ids.isEmpty()) {
+					postings.remove(gram);
+				}
+			}
+		}
+		for (String word : wordStarts(entry.name())) {
+			removeFromTrie(trie, word, 0, entry);
+		}
+	}
+
+	/**
+	 * @return true if the node is empty afterwards and can be dropped by its parent
+	 */
+	private static boolean removeFromTrie(Node node, String word, int depth, Entry entry) {
+		if (depth == word.length()) {
+			node.entries.remove(entry);
+		} else {
+			Node child = node.children.get(word.charAt(depth));
+			if (child != null && removeFromTrie(child, word, depth + 1, entry)) {
+				node.children.remove(word.charAt(depth));
+			}
+		}
+		return node.entries.isEmpty() && node.children.isEmpty();
+	}
+
+	private static void collect(Node node, Set<String> names, int limit) {
+		for (Entry entry : node.entries) {
+			if (names.size() >= limit) {
+				return;
+			}
+			names.add(entry.displayName());
+		}
+		for (Node child : node.children.values()) {
+			if (names.size() >= limit) {
+				return;
+			}
+			collect(child, names, limit);
+		}
+	}
+
+	private static String normalize(String text) {
+		return text == null ? "" : text.toLowerCase(Locale.ROOT);
+	}
+
+	private static Set<String> grams(String text) {
+		Set<String> grams = new HashSet<>();
+		for (int i = 0; i + GRAM <= text.length(); i++) {
+			grams.add(text.substring(i, i + GRAM));
+		}
+		return grams;
+	}
+
+	/**
+	 * @return the name and every part of it that starts a new word
+	 */
+	private static Set<String> wordStarts(String name) {
+		Set<String> starts = new LinkedHashSet<>();
+		for (int i = 0; i < name.length(); i++) {
+			if (!Character.isWhitespace(name.charAt(i)) && (i == 0 || !Character.isLetterOrDigit(name.charAt(i - 1)))) {
+				starts.add(name.substring(i));
+			}
+		}
+		return starts;
+	}
+
+	private record Entry(ProductIdentifier id, String displayName, String name, Class<?> type) {
+	}
+
+	private static final class Node {
+		private final SortedMap<Character, Node> children = new TreeMap<>();
+		private final Set<Entry> entries = new TreeSet<>(Comparator.comparing(Entry::displayName)
+			.thenComparing(entry -> entry.id().toString()));
+	}
+}
@@ -0,0 +1,88 @@
+package flowershop.product;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.salespointframework.catalog.Product;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps the {@link CatalogSearchIndex} up to date with every product Hibernate writes, no matter if it is saved
+ * through {@link ProductService} or the catalog directly. The events come with the flush, but if a transaction is
+ * running, the index is only changed after its commit, as {@code LedgerIndex} does it. A rolled back rename or
+ * delete leaves the index as it was, and a rolled back insert is taken out of it again, since
+ * {@link ProductService} puts the products it adds into the index right away.
+ * Salespoint's Product can't be annotated from here, so the listener is registered with Hibernate itself.
+ * Changes of the stock are bulk updates and don't pass through here, they don't change a name anyway.
+ */
+@Component
+class CatalogSearchListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+	private final CatalogSearchIndex searchIndex;
+
+	CatalogSearchListener(EntityManagerFactory entityManagerFactory, CatalogSearchIndex searchIndex) {
+		this.searchIndex = searchIndex;
+		EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+			.getServiceRegistry()
+			.getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_INSERT, this);
+		registry.appendListeners(EventType.POST_UPDATE, this);
+		registry.appendListeners(EventType.POST_DELETE, this);
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		if (event.getEntity() instanceof Product product) {
+			if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+				searchIndex.put(product);
+				return;
+			}
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					if (status == STATUS_COMMITTED) {
+						searchIndex.put(product);
+					} else {
+						searchIndex.remove(product.getId());
+					}
+				}
+			});
+		}
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		if (event.getEntity() instanceof Product product) {
+			afterCommit(() -> searchIndex.put(product));
+		}
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		if (event.getEntity() instanceof Product product) {
+			afterCommit(() -> searchIndex.remove(product.getId()));
+		}
+	}
+
+	private static void afterCommit(Runnable change) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			change.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				change.run();
+			}
+		});
+	}
+
+	@Override
+	public boolean requiresPostCommitHandling(EntityPersister persister) {
+		return false;
+	}
+}
@@ -0,0 +1,26 @@
+package flowershop.product;
+
+import javax.money.MonetaryAmount;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Converts amounts of money into the cents, in which the ledger, the register and the write-offs store them
+ */
+public final class Cents {
+
+	private Cents() {
+	}
+
+	/**
+	 * @param amount an amount of money
+	 * @return the amount in cents, rounded half up
+	 * @throws ArithmeticException if the amount doesn't fit into a long
+	 */
+	public static long of(MonetaryAmount amount) {
+		return amount.getNumber().numberValue(BigDecimal.class)
+			.movePointRight(2)
+			.setScale(0, RoundingMode.HALF_UP)
+			.longValueExact();
+	}
+}
@@ -0,0 +1,119 @@
+package flowershop.product;
+
+import org.salespointframework.catalog.Product;
+import org.salespointframework.catalog.Product.ProductIdentifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import javax.money.MonetaryAmount;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sell and buy prices of all products, looked up by their id.
+ * The prices are read from the catalog once and kept until {@link ProductService} adds a product or changes a price.
+ * Every such save bumps the version so that running cart totals know they have to be computed again,
+ * saves that only change the stock keep the prices.
+ */
+@Component
+public class ProductPrices {
+
+	private final ProductCatalog productCatalog;
+	private final AtomicLong version = new AtomicLong();
+	private volatile Snapshot snapshot;
+
+	public ProductPrices(ProductCatalog productCatalog) {
+		Assert.notNull(productCatalog, "ProductCatalog must not be null!");
+		this.productCatalog = productCatalog;
+	}
+
+	/**
+	 * @return the prices of the current version, read from the catalog if a product was saved since the last call
+	 */
+	public Snapshot snapshot() {
+		long current = version.get();
+		Snapshot prices = snapshot;
+		if (prices != null && prices.version() == current) {
+			return prices;
+		}
+
+		Map<ProductIdentifier, Prices> byId = new HashMap<>();
+		for (Product product : productCatalog.findAll()) {
+			Prices of = Prices.of(product);
+			if (of != null) {
+				byId.put(product.getId(), of);
+			}
+		}
+		// If a product is saved while reading, the snapshot is tagged with the older version and read again next time.
+		prices = new Snapshot(current, Map.copyOf(byId));
+		snapshot = prices;
+		return prices;
+	}
+
+	/**
+	 * Drops the current prices, has to be called after a product was added or its price was changed.
+	 * If a transaction is running, the prices are only dropped after its commit. Otherwise a snapshot, that is
+	 * read before the commit, would still see the old prices and keep them under the new version.
+	 */
+	public void invalidate() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					version.incrementAndGet();
+				}
+			});
+		} else {
+			version.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Sell and buy price of a single product.
+	 * Bouquets are never bought from the wholesaler, so their buy price is zero.
+	 */
+	public record Prices(BigDecimal sell, BigDecimal buy) {
+
+		static Prices of(Product product) {
+			if (product instanceof Flower flower) {
+				return new Prices(amount(flower.getPricing().getSellPrice()), amount(flower.getPricing().getBuyPrice()));
+			} else if (product instanceof Bouquet bouquet) {
+				return new Prices(amount(bouquet.getPrice()), BigDecimal.ZERO);
+			}
+			return null;
+		}
+
+		private static BigDecimal amount(MonetaryAmount amount) {
+			return amount == null ? BigDecimal.ZERO : amount.getNumber().numberValue(BigDecimal.class);
+		}
+	}
+
+	/**
+	 * Prices of all products at a certain version.
+	 *
+	 * @param version the version of the prices
+	 * @param prices  sell and buy price by product id
+	 */
+	public record Snapshot(long version, Map<ProductIdentifier, Prices> prices) {
+
+		/**
+		 * @param product  the product, its own prices are used if it is not in the catalog (anymore)
+		 * @param sellPage whether the sell price (true) or the buy price (false) is wanted
+		 * @return the price of a single unit
+		 */
+		public BigDecimal priceOf(Product product, boolean sellPage) {
+			Prices of = prices.get(product.getId());
+			if (of == null) {
+				of = Prices.of(product);
+			}
+			if (of == null) {
+				return BigDecimal.ZERO;
+			}
+			return sellPage ? of.sell() : of.buy();
+		}
+	}
+}
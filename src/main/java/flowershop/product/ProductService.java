@@ -1,12 +1,26 @@
 package flowershop.product;
 
+import flowershop.inventory.DailyWriteOff;
+import flowershop.inventory.DailyWriteOffRepository;
 import flowershop.inventory.DeletedProduct;
+import flowershop.inventory.DeletedProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import org.javamoney.moneta.Money;
 import org.jetbrains.annotations.NotNull;
 import org.salespointframework.catalog.Product;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
 
+import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -15,26 +29,57 @@ import static java.util.stream.Collectors.toList;
 @Service
 public class ProductService {
 
-	public final List<DeletedProduct> deletedProducts = new ArrayList<>();
+	private static final Logger log = LoggerFactory.getLogger(ProductService.class);
 
 	private final ProductCatalog productCatalog;
-
-	public ProductService(ProductCatalog productCatalog) {
+	private final DeletedProductRepository deletedProducts;
+	private final DailyWriteOffRepository dailyWriteOffs;
+	private final ProductPrices productPrices;
+	private final StockRepository stock;
+	private final EntityManager entityManager;
+	private final CatalogSearchIndex searchIndex;
+	private final TransactionTemplate transactionTemplate;
+
+	public ProductService(ProductCatalog productCatalog,
+						  DeletedProductRepository deletedProducts,
+						  DailyWriteOffRepository dailyWriteOffs,
+						  ProductPrices productPrices,
+						  StockRepository stock,
+						  EntityManager entityManager,
+						  CatalogSearchIndex searchIndex,
+						  PlatformTransactionManager transactionManager) {
 		Assert.notNull(productCatalog, "ProductCatalog must not be null!");
+		Assert.notNull(deletedProducts, "DeletedProductRepository must not be null!");
+		Assert.notNull(dailyWriteOffs, "DailyWriteOffRepository must not be null!");
+		Assert.notNull(productPrices, "ProductPrices must not be null!");
+		Assert.notNull(stock, "StockRepository must not be null!");
+		Assert.notNull(entityManager, "EntityManager must not be null!");
+		Assert.notNull(searchIndex, "CatalogSearchIndex must not be null!");
+		Assert.notNull(transactionManager, "PlatformTransactionManager must not be null!");
 		this.productCatalog = productCatalog;
+		this.deletedProducts = deletedProducts;
+		this.dailyWriteOffs = dailyWriteOffs;
+		this.productPrices = productPrices;
+		this.stock = stock;
+		this.entityManager = entityManager;
+		this.searchIndex = searchIndex;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
 	}
 
 	public Flower addFlowers(@NotNull Flower flower, int quantity) {
-		Flower existingFlower = (Flower) productCatalog.findById(flower.getId()).orElse(null);
+		if (quantity < 0) {
+			throw new IllegalArgumentException("Quantity to add cannot be negative");
+		}
 
-		if (existingFlower == null) {
+		if (stock.addFlowers(flower.getId(), quantity) == 0) {
 			// If the flower doesn't exist, save it as a new flower
-			return productCatalog.save(flower);
-		} else {
-			// If the flower exists, update its quantity
-			existingFlower.addQuantity(quantity);
-			return productCatalog.save(existingFlower);
+			Flower saved = productCatalog.save(flower);
+			productPrices.invalidate();
+			searchIndex.put(saved);
+			return saved;
 		}
+		evictStock(flower.getId());
+		return (Flower) productCatalog.findById(flower.getId()).orElseThrow();
 	}
 
 	// Method to add a new flower
@@ -56,51 +101,112 @@ public class ProductService {
 		}
 		//bouquet.addQuantity(bouquetQuantity);
 		// this make the quantity of the created bouquet in the inventory 2 instead of 1
-		return productCatalog.save(bouquet);
+		Bouquet saved = productCatalog.save(bouquet);
+		productPrices.invalidate();
+		searchIndex.put(saved);
+		return saved;
 	}
 
 	public void removeFlowers(@NotNull Flower flower, int quantity) throws IllegalStateException {
-		Flower existingFlower = (Flower) productCatalog.findById(flower.getId()).orElse(null);
-		if (existingFlower == null) {
-			throw new IllegalStateException("Flower not found in the catalog.");
+		if (quantity < 0) {
+			throw new IllegalArgumentException("Quantity to reduce cannot be negative");
 		}
 
-		// Calculate the new quantity
-		int newQuantity = existingFlower.getQuantity() - quantity;
-
-		if (newQuantity >= 0) {
-			// Update the quantity if still positive or zero
-			existingFlower.reduceQuantity(quantity);
-			productCatalog.save(existingFlower);
-		} else {
+		// The stock is checked and reduced in one statement, a concurrent sale can't take the same flowers
+		if (stock.takeFlowers(flower.getId(), quantity) == 0) {
+			Flower existingFlower = (Flower) productCatalog.findById(flower.getId()).orElse(null);
+			if (existingFlower == null) {
+				throw new IllegalStateException("Flower not found in the catalog.");
+			}
 			throw new IllegalStateException(
 				"Insufficient stock for flower: " + existingFlower.getName() +
 					" [ID: " + existingFlower.getId() + "]. Required: " + quantity +
 					", Available: " + existingFlower.getQuantity());
 		}
-
+		evictStock(flower.getId());
 	}
 
 	public void removeBouquet(Bouquet bouquet, int quantity) throws IllegalStateException {
-		Bouquet existingBouquet = (Bouquet) productCatalog.findById(bouquet.getId()).orElse(null);
+		if (quantity < 0) {
+			throw new IllegalArgumentException("Quantity to reduce cannot be negative");
+		}
 
-		if (existingBouquet == null) {
-			throw new IllegalStateException("Bouquet not found in the catalog.");
-		} else {
-			int newQuantity = existingBouquet.getQuantity() - quantity;
-
-			if (newQuantity >= 0) {
-				// Update the quantity if it's still positive
-				existingBouquet.reduceQuantity(quantity);
-				productCatalog.save(existingBouquet);
-//			} else if (newQuantity == 0) {
-//				// Remove the bouquet completely if the quantity becomes zero
-//				//productCatalog.delete(existingBouquet); 	// <----------- This will cause database errors
-			} else {
-				// Handle the case where there's an attempt to remove more than available
-				throw new IllegalStateException("Insufficient stock to remove the specified quantity of bouquets.");
+		if (stock.takeBouquets(bouquet.getId(), quantity) == 0) {
+			if (productCatalog.findById(bouquet.getId()).isEmpty()) {
+				throw new IllegalStateException("Bouquet not found in the catalog.");
 			}
+			// Handle the case where there's an attempt to remove more than available
+			throw new IllegalStateException("Insufficient stock to remove the specified quantity of bouquets.");
 		}
+		evictStock(bouquet.getId());
+	}
+
+	/**
+	 * Takes several products out of the stock at once. The products are read with one query and the stock of all of
+	 * them is checked before anything is changed. Each quantity is then reduced with a conditional update, so a
+	 * product sold out by a concurrent sale in the meantime fails the whole transaction instead of going negative.
+	 * The products are updated in the order of their ids, so two carts with the same products can't deadlock.
+	 *
+	 * @param quantities the quantity to take out per product
+	 * @return the products after the change, by their id
+	 * @throws IllegalStateException if a product is not in the catalog, isn't a flower or bouquet or is out of stock
+	 */
+	@Transactional
+	public Map<Product.ProductIdentifier, Product> removeProducts(Map<Product.ProductIdentifier, Integer> quantities)
+		throws IllegalStateException {
+		Map<Product.ProductIdentifier, Product> products = findAllById(quantities.keySet());
+
+		quantities.forEach((id, quantity) -> {
+			Product product = products.get(id);
+			if (product == null) {
+				throw new IllegalStateException("Product not found in the catalog [ID: " + id + "].");
+			}
+			int available = switch (product) {
+				case Flower flower -> flower.getQuantity();
+				case Bouquet bouquet -> bouquet.getQuantity();
+				default -> throw new IllegalStateException(
+					"Unsupported product type: " + product.getClass().getSimpleName());
+			};
+			if (available < quantity) {
+				throw new IllegalStateException(
+					"Insufficient stock for product: " + product.getName() +
+						" [ID: " + id + "]. Required: " + quantity + ", Available: " + available);
+			}
+		});
+
+		List<Product.ProductIdentifier> ids = new ArrayList<>(quantities.keySet());
+		ids.sort(Comparator.comparing(Product.ProductIdentifier::toString));
+		for (Product.ProductIdentifier id : ids) {
+			int quantity = quantities.get(id);
+			int updated = products.get(id) instanceof Flower
+				? stock.takeFlowers(id, quantity)
+				: stock.takeBouquets(id, quantity);
+			if (updated == 0) {
+				throw new IllegalStateException(
+					"Insufficient stock for product: " + products.get(id).getName() +
+						" [ID: " + id + "]. Required: " + quantity + ", sold in the meantime");
+			}
+			evictStock(id);
+		}
+		// the changed products were evicted, they are read again with their new stock
+		return findAllById(quantities.keySet());
+	}
+
+	/**
+	 * The stock is updated past the persistence context, so a product loaded before would keep its old quantity.
+	 * Only that product is evicted, its pending changes were flushed by the update already,
+	 * everything else that is loaded stays managed.
+	 */
+	private void evictStock(Product.ProductIdentifier id) {
+		entityManager.detach(entityManager.getReference(Product.class, id));
+	}
+
+	private Map<Product.ProductIdentifier, Product> findAllById(Collection<Product.ProductIdentifier> ids) {
+		Map<Product.ProductIdentifier, Product> products = new HashMap<>();
+		for (Product product : productCatalog.findAllById(ids)) {
+			products.put(product.getId(), product);
+		}
+		return products;
 	}
 
 	public List<Product> getAllProducts() {
@@ -129,21 +235,11 @@ public class ProductService {
 	}
 
 	public List<Bouquet> findBouquetsByName(String subString) {
-		return productCatalog.findAll()
-			.stream()
-			.filter(product -> product instanceof Bouquet)
-			.map(product -> (Bouquet) product)
-			.filter(bouquet -> bouquet.getName().toLowerCase().contains(subString.toLowerCase()))
-			.collect(Collectors.toList());
+		return findByName(subString, Bouquet.class);
 	}
 
 	public List<Flower> findFlowersByName(String subString) {
-		return productCatalog.findAll()
-			.stream()
-			.filter(product -> product instanceof Flower)
-			.map(product -> (Flower) product)
-			.filter(flower -> flower.getName().toLowerCase().contains(subString.toLowerCase()))
-			.collect(Collectors.toList());
+		return findByName(subString, Flower.class);
 	}
 
 	public List<Flower> findFlowersByColor(String color, List<Flower> givenFlowers) {
@@ -162,12 +258,34 @@ public class ProductService {
 	}
 
 	public List<Product> findProductsByName(String name) {
-		return productCatalog.findAll()
-			.stream()
-			.filter(product -> product.getName().toLowerCase().contains(name.toLowerCase()))
+		return findByName(name, Product.class);
+	}
+
+	/**
+	 * Looks the name up in the {@link CatalogSearchIndex} and reads only the matching products.
+	 *
+	 * @return the products whose name contains the given part, ordered by name
+	 */
+	private <T extends Product> List<T> findByName(String subString, Class<T> type) {
+		List<Product.ProductIdentifier> ids = searchIndex.search(subString, type);
+		Map<Product.ProductIdentifier, Product> products = findAllById(ids);
+		// a product deleted since the search, or added but not committed yet, isn't read
+		return ids.stream()
+			.map(products::get)
+			.filter(type::isInstance)
+			.map(type::cast)
 			.collect(Collectors.toList());
 	}
 
+	/**
+	 * @param prefix the beginning of a product name or of one of its words
+	 * @param limit  the maximum number of names
+	 * @return the matching product names
+	 */
+	public List<String> autocompleteNames(String prefix, int limit) {
+		return searchIndex.autocomplete(prefix, limit);
+	}
+
 	public Optional<Flower> getFlowerById(UUID id) {
 		return getProductById(id)
 			.filter(product -> product instanceof Flower) // Ensure the product is a Flower
@@ -203,21 +321,118 @@ public class ProductService {
 			.collect(toList());
 	}
 
-	public List<DeletedProduct> getDeletedProducts() {
-		return deletedProducts;
+	/**
+	 * @param page number of the page, starting at 0
+	 * @param size maximal number of write-offs on the page
+	 * @return one page of the single write-offs, newest first
+	 */
+	public Slice<DeletedProduct> getDeletedProducts(int page, int size) {
+		return deletedProducts.findAllByOrderByDateWhenDeletedDescIdDesc(PageRequest.of(page, size));
+	}
+
+	/**
+	 * Is added up from the totals per product and day, not from the single write-offs
+	 *
+	 * @return the loss of all write-offs in cents
+	 */
+	public long getTotalWriteOffLossCents() {
+		return dailyWriteOffs.sumTotalLossCents();
+	}
+
+	/**
+	 * @param from first day, inclusive
+	 * @param to   last day, inclusive
+	 * @return one write-off per product and day, with the quantities of that day added up, oldest first
+	 */
+	public List<DeletedProduct> getDailyWriteOffs(LocalDate from, LocalDate to) {
+		return dailyWriteOffs.findByDateBetweenOrderByDateAscNameAsc(from, to).stream()
+			.map(DailyWriteOff::toDeletedProduct)
+			.toList();
+	}
+
+	/**
+	 * @param from first day, inclusive
+	 * @param to   last day, inclusive
+	 * @return number of single write-offs in that range
+	 */
+	public long countDeletedProducts(LocalDate from, LocalDate to) {
+		return deletedProducts.countByDateWhenDeletedBetween(from, to);
+	}
+
+	/**
+	 * @return the day of the first write-off, empty if nothing was written off yet
+	 */
+	public Optional<LocalDate> getFirstWriteOffDate() {
+		return deletedProducts.findFirstDate();
 	}
 
+	/**
+	 * Stores the write-off and adds it to the total of the product on that day, both in one transaction.
+	 * If the first write-off of a product on a day runs at the same time as another one, only one of them
+	 * can create the total. The other one is rolled back and tried again, then it finds the total and adds to it.
+	 */
 	public void addDeletedProduct(DeletedProduct deletedProduct) {
-		deletedProducts.add(deletedProduct);
+		try {
+			transactionTemplate.executeWithoutResult(status -> storeWriteOff(deletedProduct));
+		} catch (DataIntegrityViolationException e) {
+			log.debug("The total of {} on {} was created in the meantime, trying again",
+				deletedProduct.getName(), deletedProduct.getDateWhenDeleted(), e);
+			// the rolled back entity already got an id, so a new one is stored
+			transactionTemplate.executeWithoutResult(status -> storeWriteOff(new DeletedProduct(
+				deletedProduct.getName(), deletedProduct.getPricePerUnit(), deletedProduct.getQuantityDeleted(),
+				deletedProduct.getTotalLoss(), deletedProduct.getDateWhenDeleted())));
+		}
 	}
 
+	private void storeWriteOff(DeletedProduct deletedProduct) {
+		deletedProducts.save(deletedProduct);
+		int updated = dailyWriteOffs.addToTotal(deletedProduct.getDateWhenDeleted(), deletedProduct.getName(),
+			deletedProduct.getQuantityDeleted(), Cents.of(deletedProduct.getTotalLoss()));
+		if (updated == 0) {
+			// fails on uk_daily_write_off, if another transaction created the total in the meantime
+			dailyWriteOffs.saveAndFlush(new DailyWriteOff(deletedProduct));
+		}
+	}
+
+	/**
+	 * Adds a day's deliveries to the stock, one update per delivered flower, so sales running at the same time
+	 * aren't overwritten. A flower that is no longer in the catalog is added again, as
+	 * {@link #addFlowers(Flower, int)} does.
+	 */
+	@Transactional
 	public void addDeliveredFlowersFromWholesaler(Map<Flower, Integer> flowersBought) {
-		for (Map.Entry<Flower, Integer> flowerBought : flowersBought.entrySet()) {
-			this.addFlowers(flowerBought.getKey(), flowerBought.getValue());
+		if (flowersBought.isEmpty()) {
+			return;
+		}
+		Map<Product.ProductIdentifier, Flower> delivered = new HashMap<>();
+		Map<Product.ProductIdentifier, Integer> quantities = new HashMap<>();
+		flowersBought.forEach((flower, quantity) -> {
+			delivered.putIfAbsent(flower.getId(), flower);
+			quantities.merge(flower.getId(), quantity, Integer::sum);
+		});
+		List<Flower> missing = new ArrayList<>();
+		quantities.forEach((id, quantity) -> {
+			if (stock.addFlowers(id, quantity) == 0) {
+				missing.add(delivered.get(id));
+			} else {
+				evictStock(id);
+			}
+		});
+		if (!missing.isEmpty()) {
+			productCatalog.saveAll(missing).forEach(searchIndex::put);
+			productPrices.invalidate();
 		}
 	}
 
-	public void updateSellPrice(Product product, double newSellPrice) {
+	/**
+	 * Changes the sell price of a product. The whole product is written back, so it is read again and locked
+	 * until the end of the transaction, otherwise a stale stock could overwrite a sale made in the meantime.
+	 */
+	@Transactional
+	public void updateSellPrice(Product changed, double newSellPrice) {
+		Optional<Product> current = productCatalog.findById(changed.getId());
+		current.ifPresent(product -> entityManager.refresh(product, LockModeType.PESSIMISTIC_WRITE));
+		Product product = current.orElse(changed);
 		if (product instanceof Flower flower) {
 			flower.getPricing().setSellPrice(Money.of(newSellPrice, "EUR"));
 			flower.setPrice(Money.of(newSellPrice, "EUR"));	
@@ -227,6 +442,7 @@ public class ProductService {
 			throw new IllegalStateException("Unsupported product type: " + product.getClass().getSimpleName());
 		}
 		productCatalog.save(product);
+		productPrices.invalidate();
 	}
 
 }
@@ -0,0 +1,43 @@
+package flowershop.product;
+
+import org.salespointframework.catalog.Product;
+import org.salespointframework.catalog.Product.ProductIdentifier;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Changes the stock of flowers and bouquets directly in the database.
+ * The quantity is never read and written back, so two tills selling the same flower at once can neither
+ * take more than there is nor overwrite each other's change.
+ * Pending changes are flushed before each update, but the persistence context isn't cleared: a product
+ * loaded before keeps its old quantity, until {@link ProductService} evicts it.
+ */
+public interface StockRepository extends Repository<Product, ProductIdentifier> {
+
+	/**
+	 * @return 1 if the flower was taken out of the stock, 0 if it doesn't exist or there isn't enough of it
+	 */
+	@Transactional
+	@Modifying(flushAutomatically = true)
+	@Query("update Flower f set f.quantity = f.quantity - :quantity where f.id = :id and f.quantity >= :quantity")
+	int takeFlowers(@Param("id") ProductIdentifier id, @Param("quantity") int quantity);
+
+	/**
+	 * @return 1 if the bouquet was taken out of the stock, 0 if it doesn't exist or there isn't enough of it
+	 */
+	@Transactional
+	@Modifying(flushAutomatically = true)
+	@Query("update Bouquet b set b.quantity = b.quantity - :quantity where b.id = :id and b.quantity >= :quantity")
+	int takeBouquets(@Param("id") ProductIdentifier id, @Param("quantity") int quantity);
+
+	/**
+	 * @return 1 if the flower was added to the stock, 0 if it doesn't exist
+	 */
+	@Transactional
+	@Modifying(flushAutomatically = true)
+	@Query("update Flower f set f.quantity = f.quantity + :quantity where f.id = :id")
+	int addFlowers(@Param("id") ProductIdentifier id, @Param("quantity") int quantity);
+}
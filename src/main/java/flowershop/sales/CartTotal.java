@@ -0,0 +1,73 @@
+package flowershop.sales;
+
+import flowershop.product.ProductPrices;
+import org.salespointframework.catalog.Product;
+import org.salespointframework.catalog.Product.ProductIdentifier;
+import org.salespointframework.order.Cart;
+import org.salespointframework.order.CartItem;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running total of a cart, kept next to the cart in the session.
+ * Only the line of the product that was changed is priced again, the whole cart is only summed up
+ * if the prices changed meanwhile or the cart was changed somewhere else, e.g. cleared after a sale.
+ *
+ * @see SalesService#updateCartTotal(CartTotal, Cart, Product)
+ */
+public class CartTotal {
+
+	private final boolean sellPage;
+	private final Map<ProductIdentifier, BigDecimal> counted = new HashMap<>();
+	private long version = -1;
+	private BigDecimal total = BigDecimal.ZERO;
+
+	/**
+	 * @param sellPage whether the cart is priced with sell prices (true) or buy prices (false)
+	 */
+	public CartTotal(boolean sellPage) {
+		this.sellPage = sellPage;
+	}
+
+	public boolean isSellPage() {
+		return sellPage;
+	}
+
+	public double getTotal() {
+		return total.doubleValue();
+	}
+
+	synchronized double update(Cart cart, Product changed, ProductPrices.Snapshot prices) {
+		if (changed == null || version != prices.version()) {
+			return recompute(cart, prices);
+		}
+		count(changed, cart.getQuantity(changed).getAmount(), prices);
+		if (counted.size() != cart.get().filter(item -> item.getQuantity().getAmount().signum() != 0).count()) {
+			// Some other line changed as well, the cart was cleared in between.
+			return recompute(cart, prices);
+		}
+		return getTotal();
+	}
+
+	private double recompute(Cart cart, ProductPrices.Snapshot prices) {
+		counted.clear();
+		total = BigDecimal.ZERO;
+		version = prices.version();
+		for (CartItem item : cart) {
+			count(item.getProduct(), item.getQuantity().getAmount(), prices);
+		}
+		return getTotal();
+	}
+
+	private void count(Product product, BigDecimal quantity, ProductPrices.Snapshot prices) {
+		BigDecimal before = counted.getOrDefault(product.getId(), BigDecimal.ZERO);
+		total = total.add(prices.priceOf(product, sellPage).multiply(quantity.subtract(before)));
+		if (quantity.signum() == 0) {
+			counted.remove(product.getId());
+		} else {
+			counted.put(product.getId(), quantity);
+		}
+	}
+}
@@ -2,13 +2,11 @@ package flowershop.sales;
 
 import flowershop.clock.ClockService;
 import flowershop.product.*;
-import flowershop.services.ReservationOrder;
-import flowershop.services.ReservationOrderService;
+import flowershop.services.ReservedQuantityIndex;
 import org.javamoney.moneta.Money;
 import org.salespointframework.catalog.Product;
 import org.salespointframework.catalog.Product.ProductIdentifier;
 import org.salespointframework.order.Cart;
-import org.salespointframework.order.OrderLine;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -19,7 +17,7 @@ import java.util.*;
 
 
 @SessionAttributes({"fullSellPrice", "fullBuyPrice",
-	"buyCart", "sellCart"})
+	"buyCart", "sellCart", "buyCartTotal", "sellCartTotal"})
 @Controller
 public class SalesController {
 
@@ -27,15 +25,15 @@ public class SalesController {
 	private final GiftCardRepository giftCardRepository;
 	private final SalesService salesService;
 	private final ClockService clockService;
-	private final ReservationOrderService reservationOrderService;
+	private final ReservedQuantityIndex reservedQuantityIndex;
 
 	SalesController(ProductService productService, SalesService salesService,
-					ClockService clockService, ReservationOrderService reservationOrderService,
+					ClockService clockService, ReservedQuantityIndex reservedQuantityIndex,
 					GiftCardRepository giftCardRepository) {
 		this.productService = productService;
 		this.salesService = salesService;
 		this.clockService = clockService;
-		this.reservationOrderService = reservationOrderService;
+		this.reservedQuantityIndex = reservedQuantityIndex;
 		this.giftCardRepository = giftCardRepository;
 	}
 
@@ -49,6 +47,16 @@ public class SalesController {
 		return new Cart();
 	}
 
+	@ModelAttribute("buyCartTotal")
+	CartTotal initializeBuyCartTotal() {
+		return new CartTotal(false);
+	}
+
+	@ModelAttribute("sellCartTotal")
+	CartTotal initializeSellCartTotal() {
+		return new CartTotal(true);
+	}
+
 	/**
 	 * Redirects to the selling catalog, i.e. it is defined as the default page.
 	 *
@@ -100,12 +108,12 @@ public class SalesController {
 		Map<ProductIdentifier, Integer> productQuantities = new HashMap<>();
 
 		for (Flower flower : flowers) {
-			int adjustedQuantity = flower.getQuantity() - getReservedQuantity(flower.getName());
+			int adjustedQuantity = flower.getQuantity() - getReservedQuantity(flower);
 			productQuantities.put(flower.getId(), Math.max(adjustedQuantity, 0));
 		}
 
 		for (Bouquet bouquet : bouquets) {
-			int adjustedQuantity = bouquet.getQuantity() - getReservedQuantity(bouquet.getName());
+			int adjustedQuantity = bouquet.getQuantity() - getReservedQuantity(bouquet);
 			productQuantities.put(bouquet.getId(), Math.max(adjustedQuantity, 0));
 		}
 
@@ -167,31 +175,11 @@ public class SalesController {
 	}
 
 	/**
-	 * @param productName the name of the product
-	 * @return the reserved quantity
+	 * @param product the product
+	 * @return the quantity held back by reservations
 	 */
-	private int getReservedQuantity(String productName) {
-
-		Map<Product, Integer> productQuantities = new HashMap<>();
-
-		List<ReservationOrder> orders = reservationOrderService.findAll();
-
-		for (ReservationOrder order : orders) {
-			for (OrderLine line : order.getOrderLines()) {
-				Product product = productService.getProductById(line.getProductIdentifier())
-					.orElseThrow(() -> new IllegalArgumentException("Product not found: "
-						+ line.getProductIdentifier()));
-
-				int quantity = line.getQuantity().getAmount().intValue();
-				productQuantities.merge(product, quantity, Integer::sum);
-			}
-		}
-
-		return productQuantities.entrySet().stream()
-			.filter(entry -> entry.getKey().getName().equalsIgnoreCase(productName))
-			.map(Map.Entry::getValue)
-			.findFirst()
-			.orElse(0);
+	private int getReservedQuantity(Product product) {
+		return reservedQuantityIndex.getReservedQuantity(product.getId());
 	}
 
 	/**
@@ -220,10 +208,10 @@ public class SalesController {
 		boolean isInvalid = sellCart.get().anyMatch(ci -> {
 			if (productService.findProductsByName(ci.getProduct().getName()).getFirst() instanceof Flower) {
 				return !(((Flower) productService.findProductsByName(ci.getProduct().getName()).getFirst()).getQuantity()
-					- getReservedQuantity(ci.getProduct().getName()) >= ci.getQuantity().getAmount().intValue());
+					- getReservedQuantity(ci.getProduct()) >= ci.getQuantity().getAmount().intValue());
 			} else {
 				return !(((Bouquet) productService.findProductsByName(ci.getProduct().getName()).getFirst()).getQuantity()
-					- getReservedQuantity(ci.getProduct().getName()) >= ci.getQuantity().getAmount().intValue());
+					- getReservedQuantity(ci.getProduct()) >= ci.getQuantity().getAmount().intValue());
 			}
 		});
 
@@ -307,12 +295,13 @@ public class SalesController {
 		Model model,
 		@RequestParam UUID productId,
 		@ModelAttribute("sellCart") Cart sellCart,
+		@ModelAttribute("sellCartTotal") CartTotal sellCartTotal,
 		@RequestParam(required = false) Integer quantityInput,
 		@RequestParam("action") String action) {
 		if (action.equals("increase")) {
-			return addToSellCart(model, productId, sellCart, quantityInput);
+			return addToSellCart(model, productId, sellCart, sellCartTotal, quantityInput);
 		} else if (action.equals("decrease")) {
-			return decreaseFromSellCart(model, productId, sellCart, quantityInput);
+			return decreaseFromSellCart(model, productId, sellCart, sellCartTotal, quantityInput);
 		} else {
 			model.addAttribute("error", "Incorrect action");
 			return "redirect:/buy";
@@ -325,6 +314,7 @@ public class SalesController {
 	 * @param model     the model to hold attributes for the view
 	 * @param productId the ID of the product to add
 	 * @param sellCart  the cart to which the product is added
+	 * @param sellCartTotal the running total of the cart
 	 * @return the redirect URL to the selling catalog
 	 */
 	@PostMapping("add-to-sell-cart")
@@ -332,6 +322,7 @@ public class SalesController {
 		Model model,
 		@RequestParam UUID productId,
 		@ModelAttribute("sellCart") Cart sellCart,
+		@ModelAttribute("sellCartTotal") CartTotal sellCartTotal,
 		@RequestParam(required = false) Integer quantityInput
 	) {
 		Product product = productService.getProductById(productId).get();
@@ -344,10 +335,10 @@ public class SalesController {
 			&& ((product instanceof Flower ?
 			((Flower) product).getQuantity() :
 			((Bouquet) product).getQuantity())
-			- getReservedQuantity(product.getName()) > 0)) {
+			- getReservedQuantity(product) > 0)) {
 			sellCart.addOrUpdateItem(product, tmpQuantity);
 
-			double fp = salesService.calculateFullCartPrice(model, sellCart, true);
+			double fp = salesService.updateCartTotal(sellCartTotal, sellCart, product);
 			model.addAttribute("fullSellPrice", fp);
 		}
 
@@ -360,19 +351,21 @@ public class SalesController {
 	 * @param model     the model to hold attributes for the view
 	 * @param productId the ID of the product to remove
 	 * @param sellCart  the cart from which the product is removed
+	 * @param sellCartTotal the running total of the cart
 	 * @return the redirect URL to the selling catalog
 	 */
 	@PostMapping("remove-from-sell-cart")
 	public String removeFromSellCart(
 		Model model,
 		@RequestParam UUID productId,
-		@ModelAttribute("sellCart") Cart sellCart
+		@ModelAttribute("sellCart") Cart sellCart,
+		@ModelAttribute("sellCartTotal") CartTotal sellCartTotal
 	) {
 		Product product = productService.getProductById(productId).get();
 
 		sellCart.addOrUpdateItem(product, -1.0 * sellCart.getQuantity(product).getAmount().doubleValue());
 
-		double fp = salesService.calculateFullCartPrice(model, sellCart, true);
+		double fp = salesService.updateCartTotal(sellCartTotal, sellCart, product);
 		model.addAttribute("fullSellPrice", fp);
 
 		return "redirect:/sell";
@@ -385,6 +378,7 @@ public class SalesController {
 	 * @param model         the model to hold attributes for the view
 	 * @param productId     the ID of the product to remove
 	 * @param sellCart      the cart for which the product quantity is changed
+	 * @param sellCartTotal the running total of the cart
 	 * @param quantityInput the amount by which to decrease
 	 * @return the redirect URL to the selling catalog
 	 */
@@ -393,13 +387,14 @@ public class SalesController {
 		Model model,
 		@RequestParam UUID productId,
 		@ModelAttribute("sellCart") Cart sellCart,
+		@ModelAttribute("sellCartTotal") CartTotal sellCartTotal,
 		@RequestParam(required = false) Integer quantityInput
 	) {
 		Product product = productService.getProductById(productId).get();
 		int tmpQuantity = (quantityInput == null || quantityInput == 0) ? 1 : quantityInput;
 		sellCart.addOrUpdateItem(product, -1 * (long) tmpQuantity);
 
-		double fp = salesService.calculateFullCartPrice(model, sellCart, true);
+		double fp = salesService.updateCartTotal(sellCartTotal, sellCart, product);
 		model.addAttribute("fullSellPrice", fp);
 
 		return "redirect:/sell";
@@ -410,13 +405,14 @@ public class SalesController {
 		Model model,
 		@RequestParam UUID productId,
 		@ModelAttribute("buyCart") Cart buyCart,
+		@ModelAttribute("buyCartTotal") CartTotal buyCartTotal,
 		@RequestParam(required = false) Integer quantityInput,
 		@RequestParam("action") String action) {
 
 		if (action.equals("increase")) {
-			return addToBuyCart(model, productId, buyCart, quantityInput);
+			return addToBuyCart(model, productId, buyCart, buyCartTotal, quantityInput);
 		} else if (action.equals("decrease")) {
-			return decreaseFromBuyCart(model, productId, buyCart, quantityInput);
+			return decreaseFromBuyCart(model, productId, buyCart, buyCartTotal, quantityInput);
 		} else {
 			model.addAttribute("error", "Incorrect action");
 			return "redirect:/buy";
@@ -429,6 +425,7 @@ public class SalesController {
 	 * @param model         the model to hold attributes for the view
 	 * @param productId     the ID of the product to add
 	 * @param buyCart       the cart to which the product is added
+	 * @param buyCartTotal  the running total of the cart
 	 * @param quantityInput the amount by which to decrease
 	 * @return the redirect URL to the selling catalog
 	 */
@@ -436,6 +433,7 @@ public class SalesController {
 	public String addToBuyCart(Model model,
 							   @RequestParam UUID productId,
 							   @ModelAttribute("buyCart") Cart buyCart,
+							   @ModelAttribute("buyCartTotal") CartTotal buyCartTotal,
 							   @RequestParam(required = false) Integer quantityInput) {
 		Product product = productService.getProductById(productId).get();
 
@@ -443,7 +441,7 @@ public class SalesController {
 
 		buyCart.addOrUpdateItem(product, tmpQuantity);
 
-		double fp = salesService.calculateFullCartPrice(model, buyCart, false);
+		double fp = salesService.updateCartTotal(buyCartTotal, buyCart, product);
 		model.addAttribute("fullBuyPrice", fp);
 
 		return "redirect:/buy";
@@ -455,20 +453,22 @@ public class SalesController {
 	 * @param model     the model to hold attributes for the view
 	 * @param productId the ID of the product to remove
 	 * @param buyCart   the cart from which the product is removed
+	 * @param buyCartTotal the running total of the cart
 	 * @return the redirect URL to the buy catalog
 	 */
 	@PostMapping("remove-from-buy-cart")
 	public String removeFromBuyCart(
 		Model model,
 		@RequestParam UUID productId,
-		@ModelAttribute("buyCart") Cart buyCart
+		@ModelAttribute("buyCart") Cart buyCart,
+		@ModelAttribute("buyCartTotal") CartTotal buyCartTotal
 
 	) {
 		Product product = productService.getProductById(productId).get();
 
 		buyCart.addOrUpdateItem(product, -1.0 * buyCart.getQuantity(product).getAmount().doubleValue());
 
-		double fp = salesService.calculateFullCartPrice(model, buyCart, false);
+		double fp = salesService.updateCartTotal(buyCartTotal, buyCart, product);
 		model.addAttribute("fullBuyPrice", fp);
 		return "redirect:/buy";
 	}
@@ -479,6 +479,7 @@ public class SalesController {
 	 * @param model         the model to hold attributes for the view
 	 * @param productId     the ID of the product to remove
 	 * @param buyCart       the cart for which the product quantity is changed
+	 * @param buyCartTotal  the running total of the cart
 	 * @param quantityInput the amount by which to decrease
 	 * @return the redirect URL to the selling catalog
 	 */
@@ -487,6 +488,7 @@ public class SalesController {
 		Model model,
 		@RequestParam UUID productId,
 		@ModelAttribute("buyCart") Cart buyCart,
+		@ModelAttribute("buyCartTotal") CartTotal buyCartTotal,
 		@RequestParam(required = false) Integer quantityInput
 	) {
 		Product product = productService.getProductById(productId).get();
@@ -495,7 +497,7 @@ public class SalesController {
 
 		buyCart.addOrUpdateItem(product, -1 * (long) tmpQuantity);
 
-		double fp = salesService.calculateFullCartPrice(model, buyCart, false);
+		double fp = salesService.updateCartTotal(buyCartTotal, buyCart, product);
 		model.addAttribute("fullBuyPrice", fp);
 		return "redirect:/buy";
 	}
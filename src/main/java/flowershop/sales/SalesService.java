@@ -5,18 +5,34 @@ import flowershop.product.*;
 import flowershop.services.OrderFactory;
 import org.javamoney.moneta.Money;
 import org.salespointframework.catalog.Product;
+import org.salespointframework.catalog.Product.ProductIdentifier;
 import org.salespointframework.order.Cart;
 import org.salespointframework.order.CartItem;
 import org.salespointframework.order.OrderEvents;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.ui.Model;
 
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 @Service
 public class SalesService {
+	/**
+	 * How often a sale is tried when it collides with a concurrent sale in the database
+	 */
+	static final int MAX_ATTEMPTS = 3;
+
+	private static final Logger log = LoggerFactory.getLogger(SalesService.class);
+
 	private final ProductService productService;
 	private final SimpleOrderService simpleOrderService;
 	private final OrderFactory orderFactory;
@@ -24,11 +40,14 @@ public class SalesService {
 	private final ApplicationEventPublisher eventPublisher;
 	private final GiftCardService giftCardService;
 	private final BalanceService balanceService;
+	private final ProductPrices productPrices;
+	private final TransactionTemplate transactionTemplate;
 
 	public SalesService(ProductService productService, SimpleOrderService simpleOrderService,
 						OrderFactory orderFactory, WholesalerOrderService wholesalerOrderService,
 						ApplicationEventPublisher eventPublisher, GiftCardService giftCardService,
-						BalanceService balanceService) {
+						BalanceService balanceService, ProductPrices productPrices,
+						PlatformTransactionManager transactionManager) {
 		this.productService = productService;
 		this.simpleOrderService = simpleOrderService;
 		this.orderFactory = orderFactory;
@@ -36,54 +55,89 @@ public class SalesService {
 		this.eventPublisher = eventPublisher;
 		this.giftCardService = giftCardService;
 		this.balanceService = balanceService;
+		this.productPrices = productPrices;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
 	}
 
 	/**
 	 * Processes the sale of products from a cart and creates a corresponding order.
+	 * The stock of the whole cart is checked and reduced in one transaction, so a failing sale changes nothing.
+	 * If the transaction collides with a concurrent sale, e.g. by a deadlock or a lock timeout,
+	 * it is tried again up to {@link #MAX_ATTEMPTS} times.
 	 *
 	 * @param cart          the cart containing products to sell
 	 * @param paymentMethod the payment method for the sale
 	 * @throws IllegalArgumentException if the cart is null, empty, or contains unsupported product types
+	 * @throws IllegalStateException    if a product is out of stock
 	 */
 	public void sellProductsFromBasket(Cart cart, String paymentMethod, UUID giftCardId)
 		throws IllegalArgumentException, InsufficientFundsException {
 		if (cart == null || cart.isEmpty()) {
 			throw new IllegalArgumentException("Basket is null or empty");
 		}
+
+		for (int attempt = 1; ; attempt++) {
+			try {
+				transactionTemplate.executeWithoutResult(status -> sell(cart, paymentMethod, giftCardId));
+				break;
+			} catch (PaymentDeclined e) {
+				throw e.getCause();
+			} catch (ConcurrencyFailureException e) {
+				if (attempt >= MAX_ATTEMPTS) {
+					throw e;
+				}
+				log.debug("Sale collided with another one, trying again ({}/{})", attempt, MAX_ATTEMPTS, e);
+			}
+		}
+		cart.clear();
+	}
+
+	private void sell(Cart cart, String paymentMethod, UUID giftCardId) {
 		if (paymentMethod.equals("GiftCard")) {
-			handleGiftCardPayment(cart, giftCardId);
+			try {
+				handleGiftCardPayment(cart, giftCardId);
+			} catch (InsufficientFundsException e) {
+				throw new PaymentDeclined(e);
+			}
 		}
 
-		SimpleOrder simpleOrder = orderFactory.createSimpleOrder();
+		// all products are read and their stock reduced at once, the order lines use the entities read there
+		Map<ProductIdentifier, Integer> quantities = new LinkedHashMap<>();
 		for (CartItem cartItem : cart) {
 			Product product = cartItem.getProduct();
-
-			if (product instanceof Flower) {
-				productService.removeFlowers((Flower) product, (int) cartItem.getQuantity().getAmount().doubleValue());
-			} else if (product instanceof Bouquet) {
-				productService.removeBouquet((Bouquet) product, (int) cartItem.getQuantity().getAmount().doubleValue());
-			} else {
+			if (!(product instanceof Flower) && !(product instanceof Bouquet)) {
 				throw new IllegalArgumentException("Unsupported product type");
 			}
+			quantities.merge(product.getId(), cartItem.getQuantity().getAmount().intValue(), Integer::sum);
+		}
+		Map<ProductIdentifier, Product> products = productService.removeProducts(quantities);
 
-			Product p = productService.getAllProducts().stream()
-				.filter(f -> f.getId().equals(product.getId()))
-				.findFirst().orElse(product);
-
-			System.out.println(p.getName() + "\t" + 
-			(p instanceof Flower? ((Flower)p).getPricing().getSellPrice().getNumber().doubleValue()
-				: ((Bouquet)p).getPrice().getNumber().doubleValue()));
-
-			simpleOrder.addOrderLine(p, cartItem.getQuantity());
+		SimpleOrder simpleOrder = orderFactory.createSimpleOrder();
+		for (CartItem cartItem : cart) {
+			Product product = products.getOrDefault(cartItem.getProduct().getId(), cartItem.getProduct());
+			simpleOrder.addOrderLine(product, cartItem.getQuantity());
 		}
 		simpleOrder.setPaymentMethod(paymentMethod);
 		simpleOrderService.create(simpleOrder);
-		cart.clear();
 
 		var event = OrderEvents.OrderPaid.of(simpleOrder);
 		eventPublisher.publishEvent(event); // Needed for Finances
 	}
 
+	/**
+	 * Carries the checked {@link InsufficientFundsException} out of the transaction, which is rolled back by it.
+	 */
+	private static final class PaymentDeclined extends RuntimeException {
+		PaymentDeclined(InsufficientFundsException cause) {
+			super(cause);
+		}
+
+		@Override
+		public synchronized InsufficientFundsException getCause() {
+			return (InsufficientFundsException) super.getCause();
+		}
+	}
+
 	private void handleGiftCardPayment(Cart cart, UUID giftCardId)
 		throws IllegalArgumentException, InsufficientFundsException {
 		Optional<GiftCard> giftCardOptional = giftCardService.findGiftCardById(giftCardId);
@@ -111,37 +165,26 @@ public class SalesService {
 	 *
 	 * @param cart          the cart containing products to buy
 	 * @param paymentMethod the payment method for the purchase
-	 * @throws IllegalArgumentException if the cart is null, empty, or contains unsupported product types
+	 * @throws IllegalArgumentException   if the cart is null, empty, or contains unsupported product types
+	 * @throws InsufficientFundsException if the register can't pay for the purchase
 	 */
 	public void buyProductsFromBasket(Cart cart, String paymentMethod)
 		throws IllegalArgumentException, InsufficientFundsException {
-		if (cart == null || cart.isEmpty()) {
-			throw new IllegalArgumentException("Basket is null or empty");
-		}
-
-		WholesalerOrder wholesalerOrder = orderFactory.createWholesalerOrder();
-		addFlowersFromCart(cart, wholesalerOrder);
-		wholesalerOrder.setPaymentMethod(paymentMethod);
-		wholesalerOrderService.create(wholesalerOrder);
-		if (balanceService.denies(wholesalerOrder)) {
-			throw new InsufficientFundsException();
-		}
-		cart.clear();
-		var event = OrderEvents.OrderPaid.of(wholesalerOrder);
-		eventPublisher.publishEvent(event); // Needed for Finances
-		//cashRegisterService.onOrderPaid(event);
+		buyProductsFromBasket(cart, paymentMethod, null);
 	}
 
 	/**
-	 * Processes the purchase of products from a cart and creates a corresponding wholesaler order.
+	 * Processes the purchase of products from a cart, that are delivered on the given date,
+	 * and creates a corresponding wholesaler order.
 	 *
 	 * @param cart          the cart containing products to buy
 	 * @param paymentMethod the payment method for the purchase
-	 * @param deliveryDate  the delivery date
-	 * @throws IllegalArgumentException if the cart is null, empty, or contains unsupported product types
+	 * @param deliveryDate  the delivery date, null for the next working day
+	 * @throws IllegalArgumentException   if the cart is null, empty, or contains unsupported product types
+	 * @throws InsufficientFundsException if the register can't pay for the purchase
 	 */
 	public void buyProductsFromBasket(Cart cart, String paymentMethod, String deliveryDate)
-		throws IllegalArgumentException {
+		throws IllegalArgumentException, InsufficientFundsException {
 		if (cart == null || cart.isEmpty()) {
 			throw new IllegalArgumentException("Basket is null or empty");
 		}
@@ -149,11 +192,33 @@ public class SalesService {
 		WholesalerOrder wholesalerOrder = orderFactory.createWholesalerOrder();
 		addFlowersFromCart(cart, wholesalerOrder);
 		wholesalerOrder.setPaymentMethod(paymentMethod);
-		wholesalerOrderService.create(wholesalerOrder);
+		// the order is read again when it is posted, so the delivery date has to be stored with it
 		wholesalerOrder.setNotes(deliveryDate);
+		// the debit, the order and its row in the ledger outbox are stored together or not at all
+		Boolean bought = transactionTemplate.execute(status -> buy(wholesalerOrder));
+		if (!Boolean.TRUE.equals(bought)) {
+			throw new InsufficientFundsException();
+		}
 		cart.clear();
+	}
+
+	/**
+	 * A declined purchase is returned instead of thrown: nothing was written for it yet, and a transaction
+	 * the purchase takes part in (e.g. the booking of a reserved sale) mustn't be marked for rollback by it.
+	 *
+	 * @return false if the register can't pay for the order
+	 */
+	private boolean buy(WholesalerOrder wholesalerOrder) {
+		try {
+			// checks the balance and takes the price off in one step, so a concurrent purchase can't use the same money
+			balanceService.reserve(wholesalerOrder);
+		} catch (InsufficientFundsException e) {
+			return false;
+		}
+		wholesalerOrderService.create(wholesalerOrder);
 		var event = OrderEvents.OrderPaid.of(wholesalerOrder);
 		eventPublisher.publishEvent(event); // Needed for Finances
+		return true;
 	}
 
 	private void addFlowersFromCart(Cart cart, WholesalerOrder wholesalerOrder) {
@@ -179,32 +244,25 @@ public class SalesService {
 	 * @return the total price of the items in the cart
 	 */
 	public double calculateFullCartPrice(Model model, Cart cart, Boolean isSellPage) {
-		// Initialize a default value for the price
-		// For buy page, pricePerItem remains 0 as Bouquets are not available
-		// If it's not a Flower or Bouquet, pricePerItem remains 0
+		ProductPrices.Snapshot prices = productPrices.snapshot();
 
 		return cart.get()
-			.mapToDouble(bi -> {
-				double pricePerItem = 0; // Initialize a default value for the price
-
-				if (bi.getProduct() instanceof Flower flower) {
-					pricePerItem = isSellPage
-						? productService.findAllFlowers().stream()
-							.filter(f -> f.getId().equals(flower.getId())).findFirst().orElse(flower)
-							.getPricing().getSellPrice().getNumber().doubleValue()
-						: productService.findAllFlowers().stream()
-							.filter(f -> f.getId().equals(flower.getId())).findFirst().orElse(flower)
-							.getPricing().getBuyPrice().getNumber().doubleValue();
-
-				} else if (bi.getProduct() instanceof Bouquet bouquet && isSellPage) {
-					// For buy page, pricePerItem remains 0 as Bouquets are not available
-					pricePerItem = productService.findAllBouquets().stream()
-						.filter(b -> b.getId().equals(bouquet.getId())).findFirst().orElse(bouquet)
-						.getPrice().getNumber().doubleValue();
-				}
-				// If it's not a Flower or Bouquet, pricePerItem remains 0
-				return pricePerItem * bi.getQuantity().getAmount().doubleValue();
-			}).sum();
+			.map(bi -> prices.priceOf(bi.getProduct(), isSellPage).multiply(bi.getQuantity().getAmount()))
+			.reduce(BigDecimal.ZERO, BigDecimal::add)
+			.doubleValue();
+	}
+
+	/**
+	 * Updates the running total of a cart after a single product was added, decreased or removed.
+	 * Only that line is priced again, unless the prices changed since the last update.
+	 *
+	 * @param total   the running total kept next to the cart
+	 * @param cart    the cart after the change
+	 * @param changed the product whose quantity changed, null to sum up the whole cart again
+	 * @return the total price of the items in the cart
+	 */
+	public double updateCartTotal(CartTotal total, Cart cart, Product changed) {
+		return total.update(cart, changed, productPrices.snapshot());
 	}
 
 }
@@ -0,0 +1,40 @@
+package flowershop.services;
+
+import flowershop.clock.RolloverStage;
+import flowershop.finances.LedgerOutbox;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Charges the active contracts, when the new day is in another month than the ended one.
+ * Charging twice is harmless, the outbox of the ledger only takes one charge per contract and month.
+ * <p>
+ * The charges are dated at the end of the ended day, so they belong to the month that is billed. The stage runs
+ * before the ledger day is closed, so the charges are posted with the rest of that day.
+ */
+@Component
+@Order(5)
+public class MonthlyBillingStage implements RolloverStage {
+
+	private final MonthlyBillingService monthlyBillingService;
+	private final LedgerOutbox ledgerOutbox;
+
+	public MonthlyBillingStage(MonthlyBillingService monthlyBillingService, LedgerOutbox ledgerOutbox) {
+		this.monthlyBillingService = monthlyBillingService;
+		this.ledgerOutbox = ledgerOutbox;
+	}
+
+	@Override
+	public String getName() {
+		return "monthly-billing";
+	}
+
+	@Override
+	public void run(LocalDate endedDay, LocalDate newDay) {
+		if (!endedDay.getMonth().equals(newDay.getMonth())) {
+			ledgerOutbox.payAt(endedDay.atTime(23, 59), monthlyBillingService::addMonthlyCharges);
+		}
+	}
+}
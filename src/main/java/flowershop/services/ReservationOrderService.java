@@ -27,6 +27,7 @@ public class ReservationOrderService {
 	private final ReservationOrderRepository reservationOrderRepository;
 	private final ProductCatalog productCatalog;
 	private final OrderManagement<ReservationOrder> orderManagement;
+	private final ReservedQuantityIndex reservedQuantityIndex;
 
 	/**
 	 * Constructs a `ReservationOrderService` with the specified repositories and order management.
@@ -34,16 +35,20 @@ public class ReservationOrderService {
 	 * @param reservationOrderRepository the repository used to manage reservation orders
 	 * @param productCatalog             the catalog of products available in the flower shop
 	 * @param orderManagement            the order management system
+	 * @param reservedQuantityIndex      the reserved quantities per product, kept up to date by this service
 	 * @throws IllegalArgumentException if any of the parameters are null
 	 */
 	public ReservationOrderService(ReservationOrderRepository reservationOrderRepository, ProductCatalog productCatalog,
-								   OrderManagement<ReservationOrder> orderManagement) {
+								   OrderManagement<ReservationOrder> orderManagement,
+								   ReservedQuantityIndex reservedQuantityIndex) {
 		Assert.notNull(reservationOrderRepository, "ReservationOrderRepository must not be null!");
 		Assert.notNull(productCatalog, "ProductCatalog must not be null!");
 		Assert.notNull(orderManagement, "OrderManagement must not be null!");
+		Assert.notNull(reservedQuantityIndex, "ReservedQuantityIndex must not be null!");
 		this.reservationOrderRepository = reservationOrderRepository;
 		this.productCatalog = productCatalog;
 		this.orderManagement = orderManagement;
+		this.reservedQuantityIndex = reservedQuantityIndex;
 	}
 
 	/**
@@ -107,7 +112,9 @@ public class ReservationOrderService {
 				}
 			}
 		});
-		return reservationOrderRepository.save(order);
+		ReservationOrder saved = reservationOrderRepository.save(order);
+		reservedQuantityIndex.update(saved);
+		return saved;
 	}
 
 	/**
@@ -137,7 +144,9 @@ public class ReservationOrderService {
 		if (reservationStatus != null && !reservationStatus.isBlank()) {
 			order.setReservationStatus(ReservationStatus.valueOf(reservationStatus));
 		}
-		return reservationOrderRepository.save(order);
+		ReservationOrder saved = reservationOrderRepository.save(order);
+		reservedQuantityIndex.update(saved);
+		return saved;
 	}
 
 	/**
@@ -203,6 +212,7 @@ public class ReservationOrderService {
 	 */
 	public void delete(ReservationOrder order) {
 		reservationOrderRepository.delete(order);
+		reservedQuantityIndex.remove(order);
 	}
 
 	/**
@@ -0,0 +1,139 @@
+package flowershop.services;
+
+import org.salespointframework.catalog.Product;
+import org.salespointframework.order.Order;
+import org.salespointframework.order.OrderEvents;
+import org.salespointframework.order.OrderLine;
+import org.salespointframework.order.OrderStatus;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the quantity of every product, that is held back by reservations, so the sell and inventory pages
+ * can read it per product without going through all reservations.
+ * <p>
+ * The index is built from the stored reservations when it is read for the first time. Afterwards only the
+ * reservation that changed is looked at: its old quantities are taken back and its new ones are added.
+ * Canceled reservations don't hold anything back.
+ */
+@Component
+public class ReservedQuantityIndex {
+
+	private final ReservationOrderRepository reservationOrderRepository;
+
+	/**
+	 * reserved quantity per product
+	 */
+	private final Map<Product.ProductIdentifier, Integer> reserved = new ConcurrentHashMap<>();
+
+	/**
+	 * what each reservation added to {@link #reserved}, so it can be taken back when the reservation changes
+	 */
+	private final Map<Order.OrderIdentifier, Map<Product.ProductIdentifier, Integer>> byOrder = new HashMap<>();
+
+	private volatile boolean loaded;
+
+	public ReservedQuantityIndex(ReservationOrderRepository reservationOrderRepository) {
+		this.reservationOrderRepository = reservationOrderRepository;
+	}
+
+	/**
+	 * @param productId id of the product
+	 * @return the quantity held back by reservations, 0 if there are none
+	 */
+	public int getReservedQuantity(Product.ProductIdentifier productId) {
+		ensureLoaded();
+		return reserved.getOrDefault(productId, 0);
+	}
+
+	/**
+	 * @return the reserved quantity per product, products without reservations are left out
+	 */
+	public Map<Product.ProductIdentifier, Integer> getReservedQuantities() {
+		ensureLoaded();
+		return Collections.unmodifiableMap(reserved);
+	}
+
+	/**
+	 * Replaces what the reservation held back so far by its current order lines
+	 *
+	 * @param order a stored reservation
+	 */
+	public synchronized void update(ReservationOrder order) {
+		ensureLoaded();
+		apply(order.getId(), quantitiesOf(order));
+	}
+
+	/**
+	 * Releases everything the reservation held back
+	 *
+	 * @param order a deleted reservation
+	 */
+	public synchronized void remove(ReservationOrder order) {
+		ensureLoaded();
+		apply(order.getId(), Map.of());
+	}
+
+	@EventListener
+	public void onOrderPaid(OrderEvents.OrderPaid event) {
+		if (event.getOrder() instanceof ReservationOrder order) {
+			update(order);
+		}
+	}
+
+	@EventListener
+	public void onOrderCanceled(OrderEvents.OrderCanceled event) {
+		if (event.getOrder() instanceof ReservationOrder order) {
+			update(order);
+		}
+	}
+
+	private void ensureLoaded() {
+		if (!loaded) {
+			load();
+		}
+	}
+
+	private synchronized void load() {
+		if (loaded) {
+			return;
+		}
+		for (ReservationOrder order : reservationOrderRepository.findAll()) {
+			apply(order.getId(), quantitiesOf(order));
+		}
+		loaded = true;
+	}
+
+	private void apply(Order.OrderIdentifier orderId, Map<Product.ProductIdentifier, Integer> quantities) {
+		Map<Product.ProductIdentifier, Integer> previous = quantities.isEmpty()
+			? byOrder.remove(orderId)
+			: byOrder.put(orderId, quantities);
+		if (previous != null) {
+			previous.forEach((productId, quantity) -> add(productId, -quantity));
+		}
+		quantities.forEach(this::add);
+	}
+
+	private void add(Product.ProductIdentifier productId, int quantity) {
+		reserved.compute(productId, (id, current) -> {
+			int sum = (current == null ? 0 : current) + quantity;
+			return sum == 0 ? null : sum;
+		});
+	}
+
+	private static Map<Product.ProductIdentifier, Integer> quantitiesOf(ReservationOrder order) {
+		if (order.getOrderStatus() == OrderStatus.CANCELED) {
+			return Map.of();
+		}
+		Map<Product.ProductIdentifier, Integer> quantities = new HashMap<>();
+		for (OrderLine line : order.getOrderLines()) {
+			quantities.merge(line.getProductIdentifier(), line.getQuantity().getAmount().intValue(), Integer::sum);
+		}
+		return quantities;
+	}
+}
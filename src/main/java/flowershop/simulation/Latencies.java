@@ -0,0 +1,45 @@
+package flowershop.simulation;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects the latencies of the operations of one simulated day. Can be filled from several threads.
+ */
+class Latencies {
+
+	private final long[] nanos;
+	private final AtomicInteger count = new AtomicInteger();
+
+	Latencies(int capacity) {
+		this.nanos = new long[capacity];
+	}
+
+	void record(long latencyNanos) {
+		int index = count.getAndIncrement();
+		if (index < nanos.length) {
+			nanos[index] = latencyNanos;
+		}
+	}
+
+	int count() {
+		return Math.min(count.get(), nanos.length);
+	}
+
+	/**
+	 * Nearest-rank percentile, only call it after all threads are done
+	 *
+	 * @param percentile between 0 (exclusive) and 100
+	 * @return the latency in milliseconds, 0 if nothing was recorded
+	 */
+	double percentileMillis(double percentile) {
+		int size = count();
+		if (size == 0) {
+			return 0;
+		}
+		long[] sorted = Arrays.copyOf(nanos, size);
+		Arrays.sort(sorted);
+		int rank = (int) Math.ceil(percentile / 100.0 * size);
+		return sorted[Math.clamp(rank - 1, 0, size - 1)] / 1_000_000.0;
+	}
+}
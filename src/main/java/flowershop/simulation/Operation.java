@@ -0,0 +1,12 @@
+package flowershop.simulation;
+
+/**
+ * Kinds of traffic the simulation sends through the shop
+ */
+public enum Operation {
+	SALE,
+	PURCHASE,
+	RESERVATION,
+	EVENT,
+	CONTRACT
+}
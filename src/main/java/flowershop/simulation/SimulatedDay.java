@@ -0,0 +1,46 @@
+package flowershop.simulation;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * What happened on one simulated day
+ *
+ * @param day             the in-game date
+ * @param operations      number of operations sent
+ * @param failures        operations that were turned down or failed
+ * @param seconds         real time spent on the operations, including posting them to the ledger
+ * @param p50Millis       median latency of an operation
+ * @param p95Millis       95th percentile of the latency
+ * @param p99Millis       99th percentile of the latency
+ * @param rolloverMillis  real time spent closing the day and rolling over to the next one
+ * @param ledgerEntries   entries in the ledger at the end of the day
+ * @param heapUsedMb      used heap at the end of the day
+ */
+public record SimulatedDay(LocalDate day,
+						   int operations,
+						   int failures,
+						   double seconds,
+						   double p50Millis,
+						   double p95Millis,
+						   double p99Millis,
+						   double rolloverMillis,
+						   long ledgerEntries,
+						   long heapUsedMb) {
+
+	static final String CSV_HEADER =
+		"day,operations,failures,seconds,throughput,p50_ms,p95_ms,p99_ms,rollover_ms,ledger_entries,heap_used_mb";
+
+	/**
+	 * @return operations per second
+	 */
+	public double throughput() {
+		return seconds == 0 ? 0 : operations / seconds;
+	}
+
+	String toCsv() {
+		return String.format(Locale.ROOT, "%s,%d,%d,%.3f,%.1f,%.2f,%.2f,%.2f,%.1f,%d,%d",
+			day, operations, failures, seconds, throughput(), p50Millis, p95Millis, p99Millis, rolloverMillis,
+			ledgerEntries, heapUsedMb);
+	}
+}
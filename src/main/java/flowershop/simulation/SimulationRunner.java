@@ -0,0 +1,202 @@
+package flowershop.simulation;
+
+import flowershop.clock.ClockService;
+import flowershop.clock.DayRolloverService;
+import flowershop.finances.AccountancyEntryWrapperRepository;
+import flowershop.finances.LedgerOutbox;
+import flowershop.sales.InsufficientFundsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fast-forwards the shop through a number of in-game days of synthetic traffic, for capacity testing.
+ * <p>
+ * Only active with the {@code simulation} profile. Each day the operations are sent through the real services,
+ * the paid orders are posted to the ledger and the shop is rolled over to the next day. Throughput, latency,
+ * size of the ledger and used heap are logged per day and written to a CSV file, so it shows how they grow as
+ * the data piles up.
+ */
+@Component
+@Profile("simulation")
+public class SimulationRunner {
+
+	private static final Logger log = LoggerFactory.getLogger(SimulationRunner.class);
+
+	private final TrafficGenerator trafficGenerator;
+	private final ClockService clockService;
+	private final DayRolloverService dayRolloverService;
+	private final LedgerOutbox ledgerOutbox;
+	private final AccountancyEntryWrapperRepository entryRepository;
+	private final ApplicationContext context;
+
+	@Value("${flowershop.simulation.days:30}")
+	private int days;
+
+	@Value("${flowershop.simulation.orders-per-day:200}")
+	private int ordersPerDay;
+
+	@Value("${flowershop.simulation.threads:1}")
+	private int threads;
+
+	@Value("${flowershop.simulation.seed:42}")
+	private long seed;
+
+	@Value("${flowershop.simulation.mix.sales:70}")
+	private int sales;
+
+	@Value("${flowershop.simulation.mix.purchases:10}")
+	private int purchases;
+
+	@Value("${flowershop.simulation.mix.reservations:10}")
+	private int reservations;
+
+	@Value("${flowershop.simulation.mix.events:5}")
+	private int events;
+
+	@Value("${flowershop.simulation.mix.contracts:5}")
+	private int contracts;
+
+	@Value("${flowershop.simulation.report:simulation-report.csv}")
+	private String report;
+
+	@Value("${flowershop.simulation.exit:true}")
+	private boolean exit;
+
+	public SimulationRunner(TrafficGenerator trafficGenerator,
+							ClockService clockService,
+							DayRolloverService dayRolloverService,
+							LedgerOutbox ledgerOutbox,
+							AccountancyEntryWrapperRepository entryRepository,
+							ApplicationContext context) {
+		this.trafficGenerator = trafficGenerator;
+		this.clockService = clockService;
+		this.dayRolloverService = dayRolloverService;
+		this.ledgerOutbox = ledgerOutbox;
+		this.entryRepository = entryRepository;
+		this.context = context;
+	}
+
+	/**
+	 * Starts the simulation once all data initializers have run
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() throws Exception {
+		List<SimulatedDay> results = run();
+		writeReport(results);
+		if (exit) {
+			System.exit(SpringApplication.exit(context, () -> 0));
+		}
+	}
+
+	/**
+	 * @return the statistics of every simulated day
+	 */
+	List<SimulatedDay> run() throws InterruptedException {
+		TrafficMix mix = new TrafficMix(sales, purchases, reservations, events, contracts);
+		Random random = new Random(seed);
+		List<SimulatedDay> results = new ArrayList<>(days);
+		log.info("Simulating {} days with {} operations per day on {} threads, mix {}", days, ordersPerDay,
+			threads, mix);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int day = 0; day < days; day++) {
+				SimulatedDay result = simulateDay(mix, random, executor);
+				results.add(result);
+				log.info(result.toCsv());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		return results;
+	}
+
+	private SimulatedDay simulateDay(TrafficMix mix, Random random, ExecutorService executor)
+		throws InterruptedException {
+		if (!clockService.isOpen()) {
+			clockService.openOrClose();
+			dayRolloverService.awaitIdle();
+		}
+		LocalDate today = clockService.getCurrentDate();
+
+		// the operations and their seeds are drawn up front, so a run is repeatable regardless of the threads
+		List<Operation> operations = new ArrayList<>(ordersPerDay);
+		long[] seeds = new long[ordersPerDay];
+		for (int i = 0; i < ordersPerDay; i++) {
+			operations.add(mix.pick(random));
+			seeds[i] = random.nextLong();
+		}
+
+		Latencies latencies = new Latencies(ordersPerDay);
+		AtomicInteger failures = new AtomicInteger();
+		long start = System.nanoTime();
+		List<Future<?>> futures = new ArrayList<>(ordersPerDay);
+		for (int i = 0; i < ordersPerDay; i++) {
+			Operation operation = operations.get(i);
+			Random operationRandom = new Random(seeds[i]);
+			futures.add(executor.submit(() -> {
+				long operationStart = System.nanoTime();
+				try {
+					if (!trafficGenerator.run(operation, operationRandom)) {
+						failures.incrementAndGet();
+					}
+				} catch (InsufficientFundsException | RuntimeException e) {
+					failures.incrementAndGet();
+					log.debug("Simulated {} failed", operation, e);
+				}
+				latencies.record(System.nanoTime() - operationStart);
+			}));
+		}
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Simulated operation crashed", e.getCause());
+			}
+		}
+		ledgerOutbox.drain();
+		double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+		// closes the day and opens the next one, the rollover in the background is waited for
+		long rolloverStart = System.nanoTime();
+		clockService.openOrClose();
+		clockService.openOrClose();
+		dayRolloverService.awaitIdle();
+		double rolloverMillis = (System.nanoTime() - rolloverStart) / 1_000_000.0;
+
+		Runtime runtime = Runtime.getRuntime();
+		long heapUsedMb = (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+		return new SimulatedDay(today, ordersPerDay, failures.get(), seconds,
+			latencies.percentileMillis(50), latencies.percentileMillis(95), latencies.percentileMillis(99),
+			rolloverMillis, entryRepository.count(), heapUsedMb);
+	}
+
+	private void writeReport(List<SimulatedDay> results) throws IOException {
+		List<String> lines = new ArrayList<>(results.size() + 1);
+		lines.add(SimulatedDay.CSV_HEADER);
+		results.forEach(result -> lines.add(result.toCsv()));
+		Path path = Path.of(report);
+		Files.write(path, lines);
+		log.info("Simulation report written to {}", path.toAbsolutePath());
+	}
+}
@@ -0,0 +1,152 @@
+package flowershop.simulation;
+
+import flowershop.clock.ClockService;
+import flowershop.product.Flower;
+import flowershop.product.ProductService;
+import flowershop.sales.InsufficientFundsException;
+import flowershop.sales.SalesService;
+import flowershop.services.*;
+import org.salespointframework.order.Cart;
+import org.salespointframework.quantity.Quantity;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Sends single operations through the same services the controllers use, so the simulated traffic takes the
+ * real paths through stock, orders, calendar and ledger.
+ */
+@Component
+@Profile("simulation")
+class TrafficGenerator {
+
+	private static final int CLIENTS = 50;
+	private static final String ADDRESS = "Simulationsweg 1, Dresden";
+
+	private final SalesService salesService;
+	private final ProductService productService;
+	private final ClientService clientService;
+	private final OrderFactory orderFactory;
+	private final ReservationOrderService reservationOrderService;
+	private final EventOrderService eventOrderService;
+	private final ContractOrderService contractOrderService;
+	private final ClockService clockService;
+
+	TrafficGenerator(SalesService salesService,
+					 ProductService productService,
+					 ClientService clientService,
+					 OrderFactory orderFactory,
+					 ReservationOrderService reservationOrderService,
+					 EventOrderService eventOrderService,
+					 ContractOrderService contractOrderService,
+					 ClockService clockService) {
+		this.salesService = salesService;
+		this.productService = productService;
+		this.clientService = clientService;
+		this.orderFactory = orderFactory;
+		this.reservationOrderService = reservationOrderService;
+		this.eventOrderService = eventOrderService;
+		this.contractOrderService = contractOrderService;
+		this.clockService = clockService;
+	}
+
+	/**
+	 * @param operation the kind of operation to send
+	 * @param random    picks products, quantities and clients
+	 * @return false if the shop turned the operation down, e.g. because nothing is in stock
+	 * @throws InsufficientFundsException if the register can't pay for a purchase
+	 */
+	boolean run(Operation operation, Random random) throws InsufficientFundsException {
+		return switch (operation) {
+			case SALE -> sell(random);
+			case PURCHASE -> buy(random);
+			case RESERVATION -> reserve(random);
+			case EVENT -> orderEvent(random);
+			case CONTRACT -> signContract(random);
+		};
+	}
+
+	private boolean sell(Random random) throws InsufficientFundsException {
+		List<Flower> inStock = productService.filterFlowersInStock(productService.findAllFlowers());
+		if (inStock.isEmpty()) {
+			return false;
+		}
+		Flower flower = inStock.get(random.nextInt(inStock.size()));
+		Cart cart = new Cart();
+		cart.addOrUpdateItem(flower, Quantity.of(1 + random.nextInt(Math.min(3, flower.getQuantity()))));
+		salesService.sellProductsFromBasket(cart, "Cash", null);
+		return true;
+	}
+
+	private boolean buy(Random random) throws InsufficientFundsException {
+		List<Flower> flowers = productService.findAllFlowers();
+		if (flowers.isEmpty()) {
+			return false;
+		}
+		Cart cart = new Cart();
+		cart.addOrUpdateItem(flowers.get(random.nextInt(flowers.size())), Quantity.of(10 + random.nextInt(40)));
+		salesService.buyProductsFromBasket(cart, "Card");
+		return true;
+	}
+
+	private boolean reserve(Random random) {
+		Map<String, String> products = pickProducts(random);
+		if (products == null) {
+			return false;
+		}
+		ReservationOrder order = orderFactory.createReservationOrder(inDays(2), pickClient(random));
+		order = reservationOrderService.save(order, products);
+		reservationOrderService.update(order, products, "PAID", null, null);
+		return true;
+	}
+
+	private boolean orderEvent(Random random) {
+		Map<String, String> products = pickProducts(random);
+		if (products == null) {
+			return false;
+		}
+		EventOrder order = orderFactory.createEventOrder(inDays(3), ADDRESS, pickClient(random));
+		order = eventOrderService.save(order, products);
+		eventOrderService.update(order, products, 15, "PAID", null);
+		return true;
+	}
+
+	private boolean signContract(Random random) {
+		Map<String, String> products = pickProducts(random);
+		if (products == null) {
+			return false;
+		}
+		LocalDateTime start = inDays(1);
+		ContractOrder order = orderFactory.createContractOrder("recurring", "weekly", start, start.plusMonths(3),
+			ADDRESS, pickClient(random), "");
+		order = contractOrderService.save(order, products);
+		contractOrderService.update(order, products, 20, "PAID", null);
+		return true;
+	}
+
+	/**
+	 * @return a single product with a quantity, in the form the order forms send it, or null without flowers
+	 */
+	private Map<String, String> pickProducts(Random random) {
+		List<Flower> flowers = productService.findAllFlowers();
+		if (flowers.isEmpty()) {
+			return null;
+		}
+		Flower flower = flowers.get(random.nextInt(flowers.size()));
+		return Map.of("products[0]", flower.getId().toString(),
+			"quantities[0]", String.valueOf(1 + random.nextInt(5)));
+	}
+
+	private Client pickClient(Random random) {
+		int client = random.nextInt(CLIENTS);
+		return clientService.getOrCreateClient("Simulated Client " + client, String.format("0351%06d", client));
+	}
+
+	private LocalDateTime inDays(int days) {
+		return clockService.now().plusDays(days);
+	}
+}
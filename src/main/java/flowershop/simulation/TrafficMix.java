@@ -0,0 +1,39 @@
+package flowershop.simulation;
+
+import java.util.Random;
+
+/**
+ * How often each kind of operation is picked, as weights. A weight of 0 turns the operation off.
+ */
+public record TrafficMix(int sales, int purchases, int reservations, int events, int contracts) {
+
+	public TrafficMix {
+		if (sales < 0 || purchases < 0 || reservations < 0 || events < 0 || contracts < 0) {
+			throw new IllegalArgumentException("The weights of the traffic mix must not be negative.");
+		}
+		if (sales + purchases + reservations + events + contracts == 0) {
+			throw new IllegalArgumentException("At least one operation needs a weight.");
+		}
+	}
+
+	/**
+	 * @param random source of randomness
+	 * @return an operation, each one with the probability of its share of the weights
+	 */
+	public Operation pick(Random random) {
+		int value = random.nextInt(sales + purchases + reservations + events + contracts);
+		if ((value -= sales) < 0) {
+			return Operation.SALE;
+		}
+		if ((value -= purchases) < 0) {
+			return Operation.PURCHASE;
+		}
+		if ((value -= reservations) < 0) {
+			return Operation.RESERVATION;
+		}
+		if (value - events < 0) {
+			return Operation.EVENT;
+		}
+		return Operation.CONTRACT;
+	}
+}
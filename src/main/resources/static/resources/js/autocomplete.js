@@ -0,0 +1,31 @@
+// Suggests product names for every input with a data-autocomplete attribute, using /products/autocomplete.
+document.querySelectorAll("input[data-autocomplete]").forEach(function (input) {
+	const list = document.createElement("datalist");
+	list.id = input.id + "-suggestions";
+	input.setAttribute("list", list.id);
+	input.setAttribute("autocomplete", "off");
+	input.after(list);
+
+	let pending;
+	input.addEventListener("input", function () {
+		clearTimeout(pending);
+		const prefix = input.value.trim();
+		if (prefix.length === 0) {
+			list.replaceChildren();
+			return;
+		}
+		pending = setTimeout(function () {
+			fetch("/products/autocomplete?q=" + encodeURIComponent(prefix))
+				.then(function (response) {
+					return response.ok ? response.json() : [];
+				})
+				.then(function (names) {
+					list.replaceChildren(...names.map(function (name) {
+						const option = document.createElement("option");
+						option.value = name;
+						return option;
+					}));
+				});
+		}, 150);
+	});
+});
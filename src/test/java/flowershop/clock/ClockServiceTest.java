@@ -4,21 +4,17 @@ package flowershop.clock;
 import flowershop.finances.CashRegister;
 import flowershop.finances.CashRegisterRepository;
 import flowershop.product.Flower;
-import flowershop.product.ProductService;
-import flowershop.services.MonthlyBillingService;
 import org.javamoney.moneta.Money;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.salespointframework.catalog.Product;
 import org.salespointframework.quantity.Quantity;
+import org.springframework.context.ApplicationEventPublisher;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,18 +24,18 @@ public class ClockServiceTest {
 	private ClockService clockService;
 	private CashRegister cashRegister;
 	private CashRegisterRepository cashRegisterRepository;
-	private MonthlyBillingService mockMonthlyBillingService;
-	private ProductService productService;
+	private ApplicationEventPublisher eventPublisher;
+	private PendingOrderRepository pendingOrderRepository;
 
 	@BeforeEach
 	public void setUp() {
-		this.cashRegister = new CashRegister(new HashSet<>(), Money.of(100, "UAH"));
+		this.cashRegister = new CashRegister(Money.of(100, "UAH"));
 		cashRegister.setOpen(false);
 		this.cashRegisterRepository = mock(CashRegisterRepository.class);
 		when(cashRegisterRepository.findFirstByOrderById()).thenReturn(Optional.ofNullable(cashRegister));
-		this.mockMonthlyBillingService = mock(MonthlyBillingService.class);
-		this.productService = mock(ProductService.class);
-		clockService = new ClockService(cashRegisterRepository, mockMonthlyBillingService, productService);
+		this.eventPublisher = mock(ApplicationEventPublisher.class);
+		this.pendingOrderRepository = mock(PendingOrderRepository.class);
+		clockService = new ClockService(cashRegisterRepository, eventPublisher, pendingOrderRepository);
 		//when(clockService.getCashRegister()).thenReturn(cashRegister);
 
 	}
@@ -67,6 +63,33 @@ public class ClockServiceTest {
 			"The method should throw an IllegalStateException when CashRegister is null");
 	}
 
+	@Test
+	public void testClockIsReadFromTheRegisterOnce() {
+		cashRegister.setInGameDate(LocalDate.of(2024, 12, 20));
+
+		for (int i = 0; i < 10; i++) {
+			clockService.now();
+			clockService.getCurrentDate();
+			clockService.isOpen();
+		}
+
+		verify(cashRegisterRepository, times(1)).findFirstByOrderById();
+	}
+
+	@Test
+	public void testOpenOrClose_SwapsTheClock() {
+		cashRegister.setInGameDate(LocalDate.of(2024, 12, 20));
+		assertFalse(clockService.isOpen());
+
+		clockService.openOrClose();
+
+		assertTrue(clockService.isOpen());
+		assertEquals(LocalDate.of(2024, 12, 23), clockService.getCurrentDate());
+		assertEquals(LocalDate.of(2024, 12, 23), clockService.now().toLocalDate());
+		// once when reading the clock, once to toggle it
+		verify(cashRegisterRepository, times(2)).findFirstByOrderById();
+	}
+
 	@Test
 	public void testOpenOrClose_OpensSuccessfully() {
 		cashRegister.setInGameDate(LocalDate.of(2024, 12, 22));
@@ -88,6 +111,16 @@ public class ClockServiceTest {
 		verify(cashRegisterRepository).save(cashRegister);
 	}
 
+	@Test
+	public void testOpenOrClose_PublishesEndOfThePreviousDay() {
+		cashRegister.setInGameDate(LocalDate.of(2024, 12, 20));
+
+		clockService.openOrClose();
+
+		verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof DayEndedEvent ended
+			&& ended.getDay().equals(LocalDate.of(2024, 12, 20))));
+	}
+
 	@Test
 	public void testOpenOrClose_ClosesSuccessfully() {
 		// Arrange
@@ -100,61 +133,33 @@ public class ClockServiceTest {
 		// Assert
 		assertFalse(cashRegister.getOpen());
 		verify(cashRegisterRepository).save(cashRegister);
-		verifyNoInteractions(mockMonthlyBillingService, productService);
+		verifyNoInteractions(eventPublisher, pendingOrderRepository);
 	}
 
 	@Test
-	public void testOpenOrClose_TriggersMonthlyCharges() {
-		cashRegister.setInGameDate(LocalDate.of(2024, 11, 30));
+	public void testOpenOrClose_LeavesTheRolloverToTheBackground() {
+		cashRegister.setInGameDate(LocalDate.of(2024, 11, 29));
 
-		//when(clockService.getCashRegister()).thenReturn(cashRegister);
-		LocalDate nextDay = LocalDate.of(2024, 12, 2); // New month (1.12 was sunday)
-		//when(clockService.nextWorkingDay()).thenReturn(nextDay);
-
-		// Act
 		clockService.openOrClose();
 
-		// Assert
-		verify(mockMonthlyBillingService).addMonthlyCharges();
-		assertEquals(cashRegister.getInGameDate(), nextDay);
+		// New month (1.12 was sunday), the billing and the deliveries are stages of the DayRolloverService
+		assertEquals(LocalDate.of(2024, 12, 2), cashRegister.getInGameDate());
 		verify(cashRegisterRepository).save(cashRegister);
+		verifyNoInteractions(pendingOrderRepository);
+		var inOrder = inOrder(cashRegisterRepository, eventPublisher);
+		inOrder.verify(cashRegisterRepository).save(cashRegister);
+		inOrder.verify(eventPublisher).publishEvent(any(DayEndedEvent.class));
 	}
 
 	@Test
-	public void testOpenOrClose_PendingOrdersSplitCorrectly() {
-		// Arrange
-		LocalDate today = LocalDate.of(2024, 12, 22);
-		//cashRegister.setOpen(false);
-		//when(clockService.getCashRegister()).thenReturn(cashRegister);
-		cashRegister.setInGameDate(today);
-		//when(cashRegister.getInGameDate()).thenReturn(today);
-
-		// Mock pending orders
-		PendingOrder orderToday = mock(PendingOrder.class);
-		when(orderToday.getDueDate()).thenReturn(cashRegister.getInGameDate());
-		PendingOrder orderLater = mock(PendingOrder.class);
-		when(orderLater.getDueDate()).thenReturn(cashRegister.getInGameDate().plusDays(4));
-
-		Quantity flowerQuant = mock(Quantity.class);
-		when(flowerQuant.getAmount()).thenReturn(BigDecimal.valueOf(10));
-		Map<Product, Quantity> itemMap = Map.of(
-			mock(Flower.class), flowerQuant
-		);
-		when(orderToday.getItemQuantityMap()).thenReturn(itemMap);
-
-		Set<PendingOrder> pendingOrders = new HashSet<>(Set.of(orderToday, orderLater));
-		cashRegister.setPendingOrders(pendingOrders);
-		//when(cashRegister.getPendingOrders()).thenReturn(pendingOrders);
+	public void testScheduleDelivery() {
+		Map<Product, Quantity> items = Map.of(mock(Flower.class), Quantity.of(4));
+		LocalDate dueDate = LocalDate.of(2024, 12, 23);
 
-		// Act
-		clockService.openOrClose();
+		clockService.scheduleDelivery(items, dueDate);
 
-		// Assert
-		verify(productService).addDeliveredFlowersFromWholesaler(anyMap());
-		Set<PendingOrder> updatedPendingOrders = cashRegister.getPendingOrders();
-		assertNotNull(updatedPendingOrders, "Pending orders should not be null after calling openOrClose.");
-		assertTrue(updatedPendingOrders.contains(orderLater), "Pending orders should contain orders with later due dates.");
-		assertFalse(updatedPendingOrders.contains(orderToday), "Pending orders should not contain today's orders.");
+		verify(pendingOrderRepository).save(argThat(order ->
+			order.getDueDate().equals(dueDate) && order.getItemQuantityMap().equals(items)));
 	}
 
 	@Test
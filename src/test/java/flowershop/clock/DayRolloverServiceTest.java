@@ -0,0 +1,171 @@
+package flowershop.clock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class DayRolloverServiceTest {
+
+	private static final LocalDate FRIDAY = LocalDate.of(2024, 12, 20);
+	private static final LocalDate MONDAY = LocalDate.of(2024, 12, 23);
+
+	private final Map<String, RolloverCheckpoint> rows = new LinkedHashMap<>();
+	private final List<String> calls = new ArrayList<>();
+	private RolloverCheckpointRepository checkpoints;
+	private SimpleMeterRegistry meterRegistry;
+
+	/**
+	 * Records its runs and fails as often as it is told to
+	 */
+	private class Stage implements RolloverStage {
+
+		private final String name;
+		private int failures;
+
+		Stage(String name, int failures) {
+			this.name = name;
+			this.failures = failures;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public void run(LocalDate endedDay, LocalDate newDay) {
+			calls.add(name + " " + endedDay + " " + newDay);
+			if (failures-- > 0) {
+				throw new IllegalStateException(name + " failed");
+			}
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		checkpoints = mock(RolloverCheckpointRepository.class);
+		meterRegistry = new SimpleMeterRegistry();
+		when(checkpoints.save(any())).thenAnswer(invocation -> {
+			RolloverCheckpoint checkpoint = invocation.getArgument(0);
+			rows.put(checkpoint.getEndedDay() + "/" + checkpoint.getStage(), checkpoint);
+			return checkpoint;
+		});
+		when(checkpoints.findByEndedDayAndStage(any(), any())).thenAnswer(invocation ->
+			Optional.ofNullable(rows.get(invocation.getArgument(0) + "/" + invocation.getArgument(1))));
+		when(checkpoints.findUnfinishedDays(anyInt())).thenAnswer(invocation -> rows.values().stream()
+			.filter(row -> !row.isDone() && row.getAttempts() < (int) invocation.getArgument(0))
+			.map(RolloverCheckpoint::getEndedDay)
+			.distinct()
+			.toList());
+	}
+
+	private DayRolloverService service(RolloverStage... stages) {
+		return new DayRolloverService(List.of(stages), checkpoints, meterRegistry);
+	}
+
+	@Test
+	void run_ShouldRunTheStagesInOrderAndCheckpointThem() {
+		DayRolloverService service = service(new Stage("snapshot", 0), new Stage("deliveries", 0));
+
+		assertTrue(service.run(FRIDAY));
+
+		assertEquals(List.of("snapshot " + FRIDAY + " " + MONDAY, "deliveries " + FRIDAY + " " + MONDAY), calls);
+		assertTrue(rows.values().stream().allMatch(RolloverCheckpoint::isDone));
+		assertEquals(1, meterRegistry.get(DayRolloverService.TIMER).tag("stage", "deliveries").timer().count());
+	}
+
+	@Test
+	void run_ShouldNotRepeatStagesThatAreDone() {
+		DayRolloverService service = service(new Stage("snapshot", 0), new Stage("deliveries", 0));
+		service.run(FRIDAY);
+		calls.clear();
+
+		assertTrue(service.run(FRIDAY));
+
+		assertTrue(calls.isEmpty());
+	}
+
+	@Test
+	void run_ShouldStopAtAFailedStageAndResumeThere() {
+		DayRolloverService service = service(new Stage("snapshot", 0), new Stage("billing", 1),
+			new Stage("deliveries", 0));
+
+		assertFalse(service.run(FRIDAY));
+
+		RolloverCheckpoint billing = rows.get(FRIDAY + "/billing");
+		assertEquals(RolloverCheckpoint.Status.FAILED, billing.getStatus());
+		assertEquals("billing failed", billing.getMessage());
+		assertNull(rows.get(FRIDAY + "/deliveries"), "Later stages should wait for the failed one.");
+		assertEquals(List.of(FRIDAY), checkpoints.findUnfinishedDays(DayRolloverService.MAX_ATTEMPTS));
+
+		calls.clear();
+		assertTrue(service.run(FRIDAY));
+
+		assertEquals(List.of("billing " + FRIDAY + " " + MONDAY, "deliveries " + FRIDAY + " " + MONDAY), calls);
+		assertEquals(2, rows.get(FRIDAY + "/billing").getAttempts());
+	}
+
+	@Test
+	void run_ShouldGiveUpAfterTooManyAttempts() {
+		DayRolloverService service = service(new Stage("billing", Integer.MAX_VALUE));
+
+		for (int i = 0; i < DayRolloverService.MAX_ATTEMPTS + 2; i++) {
+			assertFalse(service.run(FRIDAY));
+		}
+
+		assertEquals(DayRolloverService.MAX_ATTEMPTS, calls.size());
+		assertTrue(checkpoints.findUnfinishedDays(DayRolloverService.MAX_ATTEMPTS).isEmpty());
+	}
+
+	@Test
+	void onDayEnded_ShouldStoreTheCheckpointsAndRollOverInTheBackground() throws InterruptedException {
+		DayRolloverService service = service(new Stage("snapshot", 0), new Stage("deliveries", 0));
+
+		service.onDayEnded(new DayEndedEvent(FRIDAY));
+		service.awaitIdle();
+
+		assertEquals(2, rows.size());
+		assertTrue(rows.values().stream().allMatch(RolloverCheckpoint::isDone));
+		assertEquals(2, calls.size());
+	}
+
+	@Test
+	void resumeUnfinished_ShouldNotQueueADayThatIsStillPending() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		RolloverStage slow = new Stage("deliveries", 0) {
+			@Override
+			public void run(LocalDate endedDay, LocalDate newDay) {
+				started.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.run(endedDay, newDay);
+			}
+		};
+		DayRolloverService service = service(slow);
+
+		service.onDayEnded(new DayEndedEvent(FRIDAY));
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		service.resumeUnfinished();
+		service.resumeUnfinished();
+		release.countDown();
+		service.awaitIdle();
+
+		assertEquals(1, calls.size());
+		// once when the day ended and once in the only run, a second run would look the checkpoint up again
+		verify(checkpoints, times(2)).findByEndedDayAndStage(FRIDAY, "deliveries");
+	}
+}
@@ -0,0 +1,67 @@
+package flowershop.clock;
+
+import flowershop.AbstractIntegrationTests;
+import flowershop.product.Flower;
+import flowershop.product.Pricing;
+import flowershop.product.ProductService;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+import org.salespointframework.catalog.Product;
+import org.salespointframework.quantity.Quantity;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the pending deliveries kept by {@link PendingOrderRepository}.
+ */
+public class DeliveryQueueIntegrationTests extends AbstractIntegrationTests {
+
+	private static final LocalDate DAY = LocalDate.of(2001, 3, 14);
+
+	@Autowired
+	private PendingOrderRepository pendingOrderRepository;
+
+	@Autowired
+	private ProductService productService;
+
+	private Flower flower(String name, int quantity) {
+		return productService.addFlower(new Flower(name, new Pricing(Money.of(1, "EUR"), Money.of(2, "EUR")),
+			"Red", quantity));
+	}
+
+	private int quantityOf(Flower flower) {
+		return productService.getProductById(flower.getId())
+			.map(product -> ((Flower) product).getQuantity())
+			.orElseThrow();
+	}
+
+	@Test
+	public void dueOrders_AreReadOldestFirstWithTheirItems() {
+		Flower rose = flower("Queue Rose", 0);
+		Map<Product, Quantity> items = Map.of(rose, Quantity.of(3));
+		pendingOrderRepository.save(new PendingOrder(items, DAY));
+		pendingOrderRepository.save(new PendingOrder(items, DAY.minusDays(2)));
+		pendingOrderRepository.save(new PendingOrder(items, DAY.plusDays(1)));
+
+		List<PendingOrder> due = pendingOrderRepository.findByDueDateLessThanEqualOrderByDueDateAsc(DAY);
+
+		assertThat(due).extracting(PendingOrder::getDueDate).containsExactly(DAY.minusDays(2), DAY);
+		assertThat(due.getFirst().getItemQuantityMap()).containsEntry(rose, Quantity.of(3));
+	}
+
+	@Test
+	public void deliveredFlowers_AreAddedToTheStock() {
+		Flower rose = flower("Queue Rose", 2);
+		Flower tulip = flower("Queue Tulip", 0);
+
+		productService.addDeliveredFlowersFromWholesaler(Map.of(rose, 10, tulip, 4));
+
+		assertThat(quantityOf(rose)).isEqualTo(12);
+		assertThat(quantityOf(tulip)).isEqualTo(4);
+	}
+}
@@ -0,0 +1,56 @@
+package flowershop.clock;
+
+import flowershop.product.Flower;
+import flowershop.product.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.salespointframework.quantity.Quantity;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+
+public class DeliveryStageTest {
+
+	private static final LocalDate FRIDAY = LocalDate.of(2024, 12, 20);
+	private static final LocalDate MONDAY = LocalDate.of(2024, 12, 23);
+
+	private PendingOrderRepository pendingOrderRepository;
+	private ProductService productService;
+	private DeliveryStage stage;
+
+	@BeforeEach
+	void setUp() {
+		pendingOrderRepository = mock(PendingOrderRepository.class);
+		productService = mock(ProductService.class);
+		stage = new DeliveryStage(pendingOrderRepository, productService);
+	}
+
+	@Test
+	void onlyDueOrdersAreDelivered() {
+		Flower rose = mock(Flower.class);
+		Flower tulip = mock(Flower.class);
+		PendingOrder first = new PendingOrder(Map.of(rose, Quantity.of(10)), FRIDAY);
+		PendingOrder second = new PendingOrder(Map.of(rose, Quantity.of(5), tulip, Quantity.of(3)), MONDAY);
+		when(pendingOrderRepository.findByDueDateLessThanEqualOrderByDueDateAsc(MONDAY))
+			.thenReturn(List.of(first, second));
+
+		stage.run(FRIDAY, MONDAY);
+
+		verify(productService).addDeliveredFlowersFromWholesaler(Map.of(rose, 15, tulip, 3));
+		verify(pendingOrderRepository).deleteAll(List.of(first, second));
+		verify(pendingOrderRepository, never()).findAll();
+	}
+
+	@Test
+	void nothingDue() {
+		when(pendingOrderRepository.findByDueDateLessThanEqualOrderByDueDateAsc(any())).thenReturn(List.of());
+
+		stage.run(FRIDAY, MONDAY);
+
+		verify(productService, never()).addDeliveredFlowersFromWholesaler(anyMap());
+		verify(pendingOrderRepository, never()).deleteAll(anyList());
+	}
+}
@@ -0,0 +1,98 @@
+package flowershop.finances;
+
+import flowershop.clock.ClockService;
+import flowershop.inventory.DeletedProduct;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.salespointframework.time.Interval;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AggregatedFinancialReportTests {
+
+	private static final LocalDateTime FIRST_TRANSACTION = LocalDateTime.of(2024, 1, 5, 9, 0);
+
+	private ClockService clockService;
+	private List<MonthlyAggregate> quarter;
+
+	private static MonthlyAggregate month(int month, int revenue, int expenses, int closingBalance,
+										  List<DeletedProduct> deletedProducts) {
+		return new MonthlyAggregate(YearMonth.of(2024, month), Money.of(revenue, "EUR"), Money.of(expenses, "EUR"),
+			Money.of(closingBalance, "EUR"), deletedProducts, 1);
+	}
+
+	@BeforeEach
+	void setUp() {
+		clockService = mock(ClockService.class);
+		when(clockService.now()).thenReturn(LocalDateTime.of(2024, 7, 1, 9, 0));
+		quarter = List.of(
+			month(4, 300, -100, 1200, List.of(
+				new DeletedProduct("Rose", Money.of(2, "EUR"), 1, Money.of(2, "EUR"), LocalDate.of(2024, 4, 3)))),
+			month(5, 50, 0, 1250, List.of()),
+			month(6, 0, -250, 1000, List.of(
+				new DeletedProduct("Rose", Money.of(2, "EUR"), 4, Money.of(8, "EUR"), LocalDate.of(2024, 6, 9)))));
+	}
+
+	private Interval secondQuarter() {
+		LocalDateTime start = LocalDateTime.of(2024, 4, 1, 0, 0);
+		return Interval.from(start).to(start.plusMonths(3));
+	}
+
+	@Test
+	void quarter_ShouldAddUpItsMonths() {
+		QuarterlyFinancialReport report = new QuarterlyFinancialReport(secondQuarter(), quarter, FIRST_TRANSACTION,
+			clockService);
+
+		assertEquals(Money.of(350, "EUR"), report.getIncome());
+		assertEquals(Money.of(-350, "EUR"), report.getExpenditure());
+		assertEquals(Money.of(0, "EUR"), report.getProfit());
+		assertEquals(Money.of(1000, "EUR"), report.getBalance());
+		assertEquals(Money.of(1000, "EUR"), report.getMonths().getFirst().openingBalance());
+		assertEquals(1, report.deletedProducts.size(), "Write-offs of the same product should be merged.");
+		assertEquals(5, report.deletedProducts.getFirst().getQuantityDeleted());
+		assertEquals("Q2.2024", report.intervalToString());
+		assertFalse(report.isBeforeBeginning());
+	}
+
+	@Test
+	void year_ShouldOnlyContainTheGivenMonths() {
+		LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+		YearlyFinancialReport report = new YearlyFinancialReport(Interval.from(start).to(start.plusYears(1)),
+			quarter, FIRST_TRANSACTION, clockService);
+
+		assertEquals(3, report.getMonths().size());
+		assertEquals("2024", report.intervalToString());
+	}
+
+	@Test
+	void emptyPeriodBeforeTheFirstTransaction_ShouldBeBeforeBeginning() {
+		List<MonthlyAggregate> empty = List.of(new MonthlyAggregate(YearMonth.of(2024, 4), Money.of(0, "EUR"),
+			Money.of(0, "EUR"), Money.of(0, "EUR"), List.of(), 0));
+
+		QuarterlyFinancialReport report = new QuarterlyFinancialReport(secondQuarter(), empty,
+			LocalDateTime.of(2025, 1, 1, 0, 0), clockService);
+
+		assertTrue(report.isBeforeBeginning());
+	}
+
+	@Test
+	void writePDF_ShouldRenderTheMonths() throws Exception {
+		QuarterlyFinancialReport report = new QuarterlyFinancialReport(secondQuarter(), quarter, FIRST_TRANSACTION,
+			clockService);
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		report.writePDF(outputStream);
+
+		assertEquals("%PDF-", new String(outputStream.toByteArray(), 0, 5, StandardCharsets.US_ASCII));
+	}
+}
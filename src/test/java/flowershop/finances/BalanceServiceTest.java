@@ -0,0 +1,132 @@
+package flowershop.finances;
+
+import flowershop.sales.InsufficientFundsException;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class BalanceServiceTest {
+
+	private static final CurrencyUnit EUR = Monetary.getCurrency("EUR");
+
+	private CashRegisterRepository cashRegisterRepository;
+	private BalanceReservationRepository reservations;
+	private BalanceService balanceService;
+
+	/**
+	 * balance of the register in the database
+	 */
+	private AtomicLong storedCents;
+
+	/**
+	 * ids of the reserved orders in the database
+	 */
+	private Set<String> storedReservations;
+
+	@BeforeEach
+	void setUp() {
+		storedCents = new AtomicLong(5_000L);
+		cashRegisterRepository = mock(CashRegisterRepository.class);
+		when(cashRegisterRepository.findFirstByOrderById())
+			.thenAnswer(invocation -> Optional.of(new CashRegister(Money.ofMinor(EUR, storedCents.get()))));
+		// behaves like the conditional update
+		when(cashRegisterRepository.debitIfCovered(any(), anyLong())).thenAnswer(invocation -> {
+			long cents = invocation.getArgument(1);
+			long before = storedCents.getAndUpdate(stored -> stored >= cents ? stored - cents : stored);
+			return before >= cents ? 1 : 0;
+		});
+		when(cashRegisterRepository.addToBalance(any(), anyLong())).thenAnswer(invocation -> {
+			storedCents.addAndGet(invocation.getArgument(1));
+			return 1;
+		});
+		storedReservations = ConcurrentHashMap.newKeySet();
+		reservations = mock(BalanceReservationRepository.class);
+		when(reservations.save(any())).thenAnswer(invocation -> {
+			storedReservations.add(invocation.<BalanceReservation>getArgument(0).getOrderId());
+			return invocation.getArgument(0);
+		});
+		when(reservations.deleteByOrderId(any()))
+			.thenAnswer(invocation -> storedReservations.remove(invocation.<String>getArgument(0)) ? 1 : 0);
+		balanceService = new BalanceService(cashRegisterRepository, reservations);
+	}
+
+	@Test
+	void reserve_ShouldDebitTheRegisterOnce() throws InsufficientFundsException {
+		balanceService.reserve("order", 2_000L);
+
+		verify(cashRegisterRepository).debitIfCovered(any(), eq(2_000L));
+		assertTrue(balanceService.settle("order"), "The reserved order should be settled.");
+		assertFalse(balanceService.settle("order"), "An order should only be settled once.");
+	}
+
+	@Test
+	void reserve_WithoutFunds_ShouldNotTouchTheRegister() {
+		assertThrows(InsufficientFundsException.class, () -> balanceService.reserve("order", 5_001L));
+
+		verify(cashRegisterRepository, never()).debitIfCovered(any(), anyLong());
+		assertFalse(balanceService.settle("order"));
+	}
+
+	@Test
+	void reserve_RejectedByTheRegister_ShouldFail() throws InsufficientFundsException {
+		balanceService.reserve("first", 1_000L);
+		// spent by someone, who doesn't go through this instance
+		storedCents.set(500L);
+
+		assertThrows(InsufficientFundsException.class, () -> balanceService.reserve("second", 1_000L));
+		assertFalse(balanceService.settle("second"));
+		assertEquals(500L, storedCents.get());
+	}
+
+	@Test
+	void reservation_ShouldOutliveARestart() throws InsufficientFundsException {
+		balanceService.reserve("order", 2_000L);
+
+		BalanceService restarted = new BalanceService(cashRegisterRepository, reservations);
+
+		assertTrue(restarted.settle("order"), "The reservation should be read from the database.");
+		assertEquals(3_000L, storedCents.get());
+	}
+
+	@Test
+	void concurrentReservations_ShouldNotSpendMoreThanTheBalance() throws InterruptedException {
+		int threads = 16;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger reserved = new AtomicInteger();
+		for (int i = 0; i < threads; i++) {
+			String orderId = "order-" + i;
+			executor.execute(() -> {
+				try {
+					start.await();
+					balanceService.reserve(orderId, 1_000L);
+					reserved.incrementAndGet();
+				} catch (InsufficientFundsException | InterruptedException ignored) {
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+		assertEquals(5, reserved.get(), "Only 50 EUR can be spent.");
+		assertEquals(0L, storedCents.get());
+	}
+}
@@ -1,7 +1,6 @@
 package flowershop.finances;
 
 import flowershop.clock.ClockService;
-import flowershop.clock.PendingOrder;
 import flowershop.inventory.DeletedProduct;
 import flowershop.product.Flower;
 import flowershop.product.ProductService;
@@ -24,6 +23,8 @@ import org.salespointframework.quantity.Quantity;
 import org.salespointframework.time.Interval;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.util.Streamable;
 
 import javax.money.MonetaryAmount;
@@ -37,6 +38,7 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.times;
 
@@ -44,8 +46,6 @@ public class CashRegisterServiceTest {
 
 	private static final Logger log = LoggerFactory.getLogger(CashRegisterServiceTest.class);
 	@Mock
-	private OrderManagement<AbstractOrder> orderManagement;
-	@Mock
 	private CashRegisterRepository cashRegisterRepository;
 	@Mock
 	private ClockService clockService;
@@ -53,6 +53,12 @@ public class CashRegisterServiceTest {
 	private ProductService productService;
 	@Mock
 	private SalesService salesService;
+	@Mock
+	private DailyBalanceSnapshotRepository snapshotRepository;
+	@Mock
+	private AccountancyEntryWrapperRepository entryRepository;
+	@Mock
+	private BalanceService balanceService;
 	private CashRegister cashRegister;
 	@Mock
 	private Cart cart;
@@ -69,7 +75,6 @@ public class CashRegisterServiceTest {
 	void setUp() {
 		MockitoAnnotations.openMocks(this);
 
-		Streamable<AbstractOrder> mockPreviousOrders = Streamable.empty();
 		// Mock a CashRegister instance
 		cashRegister = mock(CashRegister.class);
 		Money mockBalance = Money.of(100, "EUR");
@@ -77,6 +82,7 @@ public class CashRegisterServiceTest {
 		LinkedList<AccountancyEntryWrapper> entries = new LinkedList<>();
 		AccountancyEntryWrapper entry1 = mock(AccountancyEntryWrapper.class);
 		when(entry1.getValue()).thenReturn(Money.of(100, "EUR"));
+		when(entry1.getValueCents()).thenReturn(10_000L);
 		when(entry1.getTimestamp()).thenReturn(LocalDateTime.now());
 		when(entry1.getCategory()).thenReturn("Einfacher Verkauf");
 		when(entry1.isRevenue()).thenReturn(true);
@@ -85,6 +91,7 @@ public class CashRegisterServiceTest {
 
 		AccountancyEntryWrapper entry2 = mock(AccountancyEntryWrapper.class);
 		when(entry2.getValue()).thenReturn(Money.of(-100, "EUR"));
+		when(entry2.getValueCents()).thenReturn(-10_000L);
 		when(entry2.getTimestamp()).thenReturn(LocalDateTime.now());
 		when(entry2.getCategory()).thenReturn("Einkauf");
 		when(entry2.isRevenue()).thenReturn(false);
@@ -92,17 +99,18 @@ public class CashRegisterServiceTest {
 
 		AccountancyEntryWrapper entry3 = mock(AccountancyEntryWrapper.class);
 		when(entry3.getValue()).thenReturn(Money.of(0.5, "EUR"));
+		when(entry3.getValueCents()).thenReturn(50L);
 		when(entry3.getTimestamp()).thenReturn(LocalDateTime.now());
 		when(entry3.getCategory()).thenReturn("Einfacher Verkauf");
 		when(entry3.isRevenue()).thenReturn(true);
 		entries.add(entry3);
 
-		when(cashRegister.getAccountancyEntries()).thenReturn(new HashSet<>(entries));
+		when(entryRepository.findAll()).thenReturn(new ArrayList<>(entries));
 
 		when(cashRegister.getBalance()).thenReturn(mockBalance);
+		when(cashRegister.getBalanceCents()).thenReturn(10_000L);
 		when(cashRegisterRepository.findFirstByOrderById()).thenReturn(Optional.of(cashRegister));
 	//when(cashRegisterRepository.findFirstByOrderById()).thenReturn(Optional.empty());
-		when(orderManagement.findBy(OrderStatus.PAID)).thenReturn(mockPreviousOrders);
 		when(clockService.now()).thenReturn(LocalDateTime.now());
 		when(clockService.getCurrentDate()).thenReturn(LocalDate.now());
 
@@ -169,11 +177,13 @@ public class CashRegisterServiceTest {
 		when(entry.getCategory()).thenReturn("Einfacher Verkauf");
 		AccountancyEntry result = cashRegisterService.add(entry);
 		assertNotNull(result, "AccountancyEntry should not be null");
-		verify(cashRegisterRepository, times(1)).save(any(CashRegister.class));
+		verify(entryRepository, times(1)).save(entry);
+		verify(cashRegisterRepository, times(1)).addToBalance(any(), eq(10_000L));
+		verify(cashRegisterRepository, never()).save(any(CashRegister.class));
 	}
 
 	@Test
-	void testOnOrderPaid() throws InsufficientFundsException {
+	void testPostOrder() throws InsufficientFundsException {
 		Totalable<OrderLine> mockedTotalable = mock(Totalable.class);
 		List<OrderLine> mockedOrderLines = new ArrayList<>();
 		OrderLine orderLine1 = mock(OrderLine.class);
@@ -195,16 +205,15 @@ public class CashRegisterServiceTest {
 		when(extraFees.stream()).thenReturn(mockedExtraFees.stream());
 
 
-		OrderEvents.OrderPaid event = mock(OrderEvents.OrderPaid.class);
 		SimpleOrder mockOrder = mock(SimpleOrder.class);
-		when(event.getOrder()).thenReturn(mockOrder);
 		when(mockOrder.getTotal()).thenReturn(Money.of(50, "EUR"));
 		when(mockOrder.getOrderLines()).thenReturn(mockedTotalable);
 		when(mockOrder.getAllChargeLines()).thenReturn(extraFees);
 		when(mockOrder.getPaymentMethod()).thenReturn(mock(PaymentMethod.class));
-		cashRegisterService.onOrderPaid(event);
+		cashRegisterService.postOrder(mockOrder, LocalDateTime.now());
 
-		verify(cashRegisterRepository, times(1)).save(any(CashRegister.class));
+		verify(entryRepository, times(1)).save(any(AccountancyEntryWrapper.class));
+		verify(cashRegisterRepository, times(1)).addToBalance(any(), eq(5_000L));
 	}
 
 	@Test
@@ -213,7 +222,6 @@ public class CashRegisterServiceTest {
 		CashRegister mockCashRegister = mock(CashRegister.class);
 		LinkedList<AccountancyEntry> entries = new LinkedList<>();
 		entries.add(mock(AccountancyEntry.class));
-		when(mockCashRegister.getAccountancyEntries()).thenReturn(new HashSet<>(entries));
 */
 		Streamable<AccountancyEntry> result = cashRegisterService.findAll();
 		assertNotNull(result, "Streamable of entries should not be null");
@@ -222,12 +230,7 @@ public class CashRegisterServiceTest {
 
 	@Test
 	void testFilterEntriesByCategory() {
-		CashRegister mockCashRegister = mock(CashRegister.class);
 		Category category = Category.EINKAUF;
-		LinkedList<AccountancyEntry> entries = new LinkedList<>();
-		entries.add(mock(AccountancyEntry.class));
-		when(mockCashRegister.getAccountancyEntries()).thenReturn(new HashSet<>(entries));
-
 
 		Streamable<AccountancyEntry> result = cashRegisterService.filterEntries(category);
 		assertNotNull(result, "Filtered entries should not be null");
@@ -242,25 +245,106 @@ public class CashRegisterServiceTest {
 		CashRegister mockCashRegister = mock(CashRegister.class);
 		when(cashRegisterRepository.findFirstByOrderById()).thenReturn(Optional.of(mockCashRegister));
 */
-		when(productService.getDeletedProducts()).thenReturn(new ArrayList<>());
+		when(productService.getDailyWriteOffs(any(), any())).thenReturn(new ArrayList<>());
 		DailyFinancialReport report = cashRegisterService.createFinancialReportDay(day);
 		assertNotNull(report, "Financial report for the day cannot be null.");
 	}
 
 	@Test
-	void testFilterIncome() {
-		LinkedList<AccountancyEntry> filteredEntries = cashRegisterService.filterIncomeOrSpending(true);
+	void testSnapshotDayStoresSnapshot() {
+		LocalDate today = LocalDate.now();
+		when(productService.getDailyWriteOffs(today, today)).thenReturn(List.of(
+			new DeletedProduct("Rose", Money.of(2, "EUR"), 5, Money.of(10, "EUR"), today)));
+
+		cashRegisterService.snapshotDay(today);
 
-		assertEquals(2, filteredEntries.size(), "Should return 2 income entries");
-		filteredEntries.forEach(entry -> assertEquals(true, entry.isRevenue(), "Each entry should be income"));
+		verify(snapshotRepository).save(argThat((DailyBalanceSnapshot snapshot) -> snapshot.getDay().equals(today)
+			&& snapshot.getClosingBalance().isEqualTo(Money.of(100, "EUR"))
+			&& snapshot.getIncome().isEqualTo(Money.of(100.5, "EUR"))
+			&& snapshot.getWriteOffs().isEqualTo(Money.of(10, "EUR"))));
 	}
 
 	@Test
-	void testFilterSpending() {
-		LinkedList<AccountancyEntry> filteredEntries = cashRegisterService.filterIncomeOrSpending(false);
+	void testSnapshotDaySkipsExistingSnapshot() {
+		LocalDate today = LocalDate.now();
+		when(snapshotRepository.existsByDay(today)).thenReturn(true);
 
-		assertEquals(1, filteredEntries.size(), "Should return 2 spending entries");
-		filteredEntries.forEach(entry -> assertEquals(false, entry.isRevenue(), "Each entry should be spending"));
+		cashRegisterService.snapshotDay(today);
+
+		verify(snapshotRepository, never()).save(any());
+	}
+
+	@Test
+	void testBalanceAtStartsFromTheLastSnapshot() {
+		LocalDate today = LocalDate.now();
+		when(snapshotRepository.findFirstByDayLessThanOrderByDayDesc(today.plusDays(1))).thenReturn(Optional.of(
+			new DailyBalanceSnapshot(today.minusDays(1), Money.of(50, "EUR"), Money.of(0, "EUR"),
+				Money.of(0, "EUR"), Money.of(0, "EUR"))));
+
+		// closing balance of yesterday and the three entries of today
+		assertEquals(Money.of(50.5, "EUR"), cashRegisterService.balanceAt(today.plusDays(1).atStartOfDay()));
+	}
+
+	@Test
+	void testBackdatedEntryCorrectsTheSnapshots() {
+		LocalDate yesterday = LocalDate.now().minusDays(1);
+		AccountancyEntryWrapper entry = mock(AccountancyEntryWrapper.class);
+		when(entry.getValue()).thenReturn(Money.of(-20, "EUR"));
+		when(entry.getTimestamp()).thenReturn(yesterday.atTime(18, 0));
+		when(entry.getCategory()).thenReturn("Einfacher Verkauf");
+		when(snapshotRepository.shiftClosingBalances(yesterday, -2_000L)).thenReturn(2);
+
+		cashRegisterService.add(entry);
+
+		verify(snapshotRepository).shiftClosingBalances(yesterday, -2_000L);
+		verify(snapshotRepository).addToDay(yesterday, 0L, -2_000L);
+	}
+
+	@Test
+	void testBalanceAtSubtractsLaterEntries() {
+		LocalDateTime today = LocalDate.now().atStartOfDay();
+
+		// all three entries of today were registered after its start
+		assertEquals(Money.of(99.5, "EUR"), cashRegisterService.balanceAt(today));
+		assertEquals(Money.of(100, "EUR"), cashRegisterService.balanceAt(today.plusDays(1)));
+	}
+
+	@Test
+	void testNetFlowSumsEntriesInBetween() {
+		LocalDateTime today = LocalDate.now().atStartOfDay();
+
+		assertEquals(Money.of(0.5, "EUR"), cashRegisterService.netFlow(today, today.plusDays(1)));
+		assertEquals(Money.of(0, "EUR"), cashRegisterService.netFlow(today.minusDays(1), today));
+	}
+
+	@Test
+	void testFindPageReturnsCursorOfTheLastShownEntry() {
+		List<AccountancyEntryWrapper> found = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			AccountancyEntryWrapper entry = mock(AccountancyEntryWrapper.class);
+			when(entry.getTimestamp()).thenReturn(LocalDateTime.of(2025, 1, 10, 12, 0).minusHours(i));
+			when(entry.getLedgerSequence()).thenReturn(10L - i);
+			found.add(entry);
+		}
+		doReturn(found).when(entryRepository).findBy(any(Specification.class), any());
+
+		LedgerPage page = cashRegisterService.findPage(LedgerSpecifications.isIncome(true), null, 2);
+
+		assertEquals(found.subList(0, 2), page.getEntries());
+		assertTrue(page.hasNext());
+		assertEquals(new LedgerCursor(LocalDateTime.of(2025, 1, 10, 11, 0), 9L), page.getNextCursor());
+	}
+
+	@Test
+	void testFindPageWithoutMoreEntriesIsTheLast() {
+		doReturn(List.of(mock(AccountancyEntryWrapper.class))).when(entryRepository).findBy(any(Specification.class), any());
+
+		LedgerPage page = cashRegisterService.findPage(LedgerSpecifications.isIncome(true), null, 2);
+
+		assertEquals(1, page.getEntries().size());
+		assertFalse(page.hasNext());
+		assertThrows(IllegalArgumentException.class,
+			() -> cashRegisterService.findPage(LedgerSpecifications.isIncome(true), null, 0));
 	}
 
 	@Test
@@ -285,8 +369,7 @@ public class CashRegisterServiceTest {
 
 	@Test
 	void testGetReturnsEmptyOptional() {
-		Set<AccountancyEntry> entries = cashRegisterRepository.findFirstByOrderById().get().getAccountancyEntries();
-		AccountancyEntry.AccountancyEntryIdentifier identifier = entries.stream().toList().get(0).getId();
+		AccountancyEntry.AccountancyEntryIdentifier identifier = entryRepository.findAll().get(0).getId();
 
 		Optional<AccountancyEntry> result = cashRegisterService.get(identifier);
 		assertNotNull(result, "The result should not be null");
@@ -295,8 +378,7 @@ public class CashRegisterServiceTest {
 
 	@Test
 	void testGetWithTypeReturnsEmptyOptional() {
-		Set<AccountancyEntry> entries = cashRegisterRepository.findFirstByOrderById().get().getAccountancyEntries();
-		AccountancyEntry.AccountancyEntryIdentifier identifier = entries.stream().toList().get(0).getId();
+		AccountancyEntry.AccountancyEntryIdentifier identifier = entryRepository.findAll().get(0).getId();
 
 		Optional<AccountancyEntryWrapper> result = cashRegisterService.get(identifier, AccountancyEntryWrapper.class);
 
@@ -329,22 +411,18 @@ public class CashRegisterServiceTest {
 		when(entry.getDeliveryDate()).thenReturn(LocalDate.from(LocalDateTime.now().plusDays(1)));
 		//when(clockService.nextWorkingDay()).thenReturn(ClockService.nextWorkingDay(LocalDate.now()));
 
-		// Mocking PendingOrder behavior
-		Set<PendingOrder> pendingOrders = new HashSet<>();
-		when(cashRegister.getPendingOrders()).thenReturn(pendingOrders);
-
 		// Call the method under test
 		AccountancyEntry result = cashRegisterService.add(entry);
 
 		// Assertions
 		assertNotNull(result, "Expected a non-null return value");
-		assertEquals(1, pendingOrders.size(), "Expected one pending order added");
-		assertEquals(LocalDate.from(LocalDateTime.now().plusDays(1)), pendingOrders.iterator().next().getDueDate(),
-			"Expected the correct delivery date for pending order");
+		verify(cashRegisterRepository).addToBalance(any(), eq(-5_000L));
+		verify(clockService).scheduleDelivery(anyMap(), eq(LocalDate.from(LocalDateTime.now().plusDays(1))));
+		verify(cashRegisterRepository, never()).save(cashRegister);
 	}
 
 	@Test
-	void testAddEntryWithCategoryVeranstaltungVerkauf() {
+	void testAddEntryWithCategoryVeranstaltungVerkauf() throws InsufficientFundsException {
 		// Test when entry has category "Veranstaltung Verkauf" and future delivery date
 		AccountancyEntryWrapper entry = mock(AccountancyEntryWrapper.class);
 		when(entry.getCategory()).thenReturn("Veranstaltung Verkauf");
@@ -376,10 +454,10 @@ public class CashRegisterServiceTest {
 	}
 
 	@Test
-	void testAddEntryWithNegativeCartPrice() {
-		// Test when cart price is negative, should return null
+	void testAddEntryWhenThePurchaseIsDeclined() throws InsufficientFundsException {
+		// the register can't pay for the flowers of the event, should return null
 		Flower product = mock(Flower.class);
-		when(product.getPrice()).thenReturn(Money.of(-50, "EUR"));
+		when(product.getPrice()).thenReturn(Money.of(50, "EUR"));
 		when(product.getName()).thenReturn("Rose");
 		Map<Product, Quantity> flowers = new HashMap<Product, Quantity>();
 		flowers.put(product, Quantity.of(3));
@@ -387,15 +465,16 @@ public class CashRegisterServiceTest {
 		when(entry.getCategory()).thenReturn("Veranstaltung Verkauf");
 		when(entry.getDeliveryDate()).thenReturn(LocalDate.from(LocalDateTime.now().plusDays(1))); // Future date
 		when(entry.getFlowers()).thenReturn(flowers);
-		when(entry.getValue()).thenReturn(Money.of(-50, "EUR"));
-		//when(cart.getPrice()).thenReturn(Money.of(-50, "EUR"));
+		when(entry.getValue()).thenReturn(Money.of(150, "EUR"));
+		doThrow(new InsufficientFundsException())
+			.when(salesService).buyProductsFromBasket(any(Cart.class), eq("Card"), anyString());
 
 		// Call the method under test
 		AccountancyEntry result = cashRegisterService.add(entry);
 
 		// Assertions
-		assertNull(result, "Expected null return value for negative cart price");
-		verify(salesService, never()).buyProductsFromBasket(any(), any(), any());
+		assertNull(result, "Expected null return value for a declined purchase");
+		verify(salesService).buyProductsFromBasket(any(Cart.class), eq("Card"), anyString());
 	}
 
 	@Test
@@ -406,8 +485,11 @@ public class CashRegisterServiceTest {
 		DeletedProduct product3 = new DeletedProduct("ProductC", Money.of(15, "EUR"), 2, Money.of(30, "EUR"), LocalDate.of(2025, 2, 1));
 		DeletedProduct product4 = new DeletedProduct("ProductA", Money.of(10, "EUR"), 1, Money.of(10, "EUR"), LocalDate.of(2025, 1, 20));
 
-		// Mocking ProductService to return these products
-		when(productService.getDeletedProducts()).thenReturn(List.of(product1, product2, product3, product4));
+		// Mocking ProductService to return the products of January, product3 lies outside of the range
+		when(productService.getDailyWriteOffs(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31)))
+			.thenReturn(List.of(product1, product2, product4));
+		when(productService.getDeletedProducts(anyInt(), anyInt()))
+			.thenReturn(new SliceImpl<>(List.of(product1, product2, product3, product4)));
 
 		// Call the method under test
 		List<DeletedProduct> result = cashRegisterService.findDeletedProductsByMonth(LocalDate.of(2025, 1, 1));
@@ -426,8 +508,9 @@ public class CashRegisterServiceTest {
 		assertEquals(3, groupedProductB.getQuantityDeleted(), "Expected quantity for ProductB to match the input");
 		assertEquals(Money.of(60, "EUR"), groupedProductB.getTotalLoss(), "Expected total loss for ProductB to be correct");
 
-		// Verify interactions with ProductService
-		verify(productService, times(1)).getDeletedProducts();
+		// Verify the month was read as a range, not by scanning all write-offs
+		verify(productService, times(1)).getDailyWriteOffs(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31));
+		verify(productService, never()).getDeletedProducts(anyInt(), anyInt());
 	}
 
 	@Test
@@ -462,52 +545,6 @@ public class CashRegisterServiceTest {
 		assertEquals(Money.of(40, "EUR"), groupedProductB.getTotalLoss(), "Expected total loss for ProductB to be correct");
 	}
 
-	@Test
-	void testFilterByCustomer() {
-		// Mock accountancy entries
-		AccountancyEntryWrapper entry1 = mock(AccountancyEntryWrapper.class);
-		when(entry1.getClientName()).thenReturn("John Doe");
-		AccountancyEntryWrapper entry2 = mock(AccountancyEntryWrapper.class);
-		when(entry2.getClientName()).thenReturn("Jane Smith");
-		AccountancyEntryWrapper entry3 = mock(AccountancyEntryWrapper.class);
-		when(entry3.getClientName()).thenReturn("Johnathan Doe");
-
-		Set<AccountancyEntry> mockEntries = new HashSet<>(List.of(entry1, entry2, entry3));
-		when(cashRegisterRepository.findFirstByOrderById().get().getAccountancyEntries()).thenReturn(mockEntries);
-
-		// Call the method under test
-		List<AccountancyEntryWrapper> result = cashRegisterService.filterByCustomer("John");
-
-		// Assertions
-		assertNotNull(result, "Expected a non-null result");
-		assertEquals(2, result.size(), "Expected 2 entries containing 'John'");
-		assertTrue(result.contains(entry1), "Result should contain entry1");
-		assertTrue(result.contains(entry3), "Result should contain entry3");
-	}
-
-	@Test
-	void testFilterByPrice() {
-		// Mock accountancy entries with specific prices
-		AccountancyEntryWrapper entry1 = mock(AccountancyEntryWrapper.class);
-		when(entry1.getValue()).thenReturn(Money.of(100.00, "EUR"));
-		AccountancyEntryWrapper entry2 = mock(AccountancyEntryWrapper.class);
-		when(entry2.getValue()).thenReturn(Money.of(50.00, "EUR"));
-		AccountancyEntryWrapper entry3 = mock(AccountancyEntryWrapper.class);
-		when(entry3.getValue()).thenReturn(Money.of(100.00, "EUR"));
-
-		Set<AccountancyEntry> mockEntries = new HashSet<>(List.of(entry1, entry2, entry3));
-		when(cashRegisterRepository.findFirstByOrderById().get().getAccountancyEntries()).thenReturn(mockEntries);
-
-		// Call the method under test with a specific price
-		List<AccountancyEntryWrapper> result = cashRegisterService.filterByPrice(100.00);
-
-		// Assertions
-		assertNotNull(result, "Expected a non-null result");
-		assertEquals(2, result.size(), "Expected 2 entries with the price 100.00 EUR");
-		assertTrue(result.contains(entry1), "Result should contain entry1");
-		assertTrue(result.contains(entry3), "Result should contain entry3");
-	}
-
 	@Test
 	void testGetEntry() {
 		// Mock accountancy entries
@@ -14,6 +14,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -129,13 +130,30 @@ public class FinanceControllerWebIntegrationTests {
 			.andExpect(status().isOk())
 			.andExpect(view().name("finance/askForMonth"));
 	}
+	@Test
+	@WithMockUser(roles = "BOSS")
+	void filters_AreKeptPerSession() throws Exception {
+		MockHttpSession session = new MockHttpSession();
+		mvc.perform(get("/filterCustomerName").session(session)
+				.param("customerName", "Anna"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("customerName", "Anna"));
+
+		mvc.perform(get("/finances").session(session))
+			.andExpect(model().attribute("customerName", "Anna"));
+		mvc.perform(get("/finances").session(new MockHttpSession()))
+			.andExpect(model().attribute("customerName", ""));
+	}
+
 	//Bad bcz is empty
 	@Test
 	@WithMockUser(roles ="BOSS")
 	void dayReportPDF_ReturnsBadRequest() throws Exception {
+		// the report isn't rendered on the request thread, its job tells why there is none
 		mvc.perform(get("/dayReport")
 			.param("day", LocalDate.now().toString()))
-			.andExpect(status().isBadRequest());
+			.andExpect(status().isAccepted())
+			.andExpect(header().exists("Location"));
 		mvc.perform(get("/dayReport")
 			.param("day", LocalDate.now().plusDays(100).toString()))
 			.andExpect(status().isBadRequest());
@@ -153,6 +171,30 @@ public class FinanceControllerWebIntegrationTests {
 	}
 
 
+	@Test
+	@WithMockUser(roles ="BOSS")
+	void quarterAndYearReport_RejectInvalidPeriods() throws Exception {
+		mvc.perform(get("/quarterReport")
+				.param("quarter", "5")
+				.param("year", "2024"))
+			.andExpect(status().isBadRequest());
+		mvc.perform(get("/quarterReport")
+				.param("quarter", "1")
+				.param("year", String.valueOf(LocalDate.now().getYear() + 100)))
+			.andExpect(status().isBadRequest());
+		mvc.perform(get("/yearReport")
+				.param("year", String.valueOf(LocalDate.now().getYear() + 100)))
+			.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	@WithMockUser(roles = "EMPLOYEE")
+	void yearReport_ByEmployee_ReturnsForbidden() throws Exception {
+		mvc.perform(get("/yearReport")
+				.param("year", "2024"))
+			.andExpect(status().isForbidden());
+	}
+
 
 	//TO-DO: add test cases for when pdfs are returned
 }
@@ -0,0 +1,137 @@
+package flowershop.finances;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class FinanceQueryTest {
+
+	private static final LedgerCursor CURSOR = new LedgerCursor(LocalDateTime.of(2025, 1, 10, 9, 0), 7);
+
+	private CashRegisterService cashRegisterService;
+	private LedgerPage firstPage;
+	private LedgerPage secondPage;
+
+	@BeforeEach
+	void setUp() {
+		firstPage = new LedgerPage(List.of(mock(AccountancyEntryWrapper.class)), CURSOR);
+		secondPage = new LedgerPage(List.of(mock(AccountancyEntryWrapper.class)), null);
+		cashRegisterService = mock(CashRegisterService.class);
+		when(cashRegisterService.getLedgerVersion()).thenReturn(1L);
+		when(cashRegisterService.findPage(any(), isNull(), anyInt())).thenReturn(firstPage);
+		when(cashRegisterService.findPage(any(), eq(CURSOR), anyInt())).thenReturn(secondPage);
+	}
+
+	@Test
+	void testUnchangedQueryIsNotReadAgain() {
+		FinanceQuery query = new FinanceQuery();
+		query.filterCustomerName("Anna");
+
+		assertSame(firstPage, query.getPage(cashRegisterService, 100));
+		assertSame(firstPage, query.getPage(cashRegisterService, 100));
+
+		verify(cashRegisterService, times(1)).findPage(any(), any(), anyInt());
+	}
+
+	@Test
+	void testChangingAFilterReadsOnlyOnce() {
+		FinanceQuery query = new FinanceQuery();
+		query.getPage(cashRegisterService, 100);
+
+		query.filterCustomerName("Anna");
+		query.filterCategory("income");
+		query.getPage(cashRegisterService, 100);
+
+		verify(cashRegisterService, times(2)).findPage(any(), any(), anyInt());
+	}
+
+	@Test
+	void testNewLedgerVersionReadsAgain() {
+		FinanceQuery query = new FinanceQuery();
+		query.getPage(cashRegisterService, 100);
+
+		when(cashRegisterService.getLedgerVersion()).thenReturn(2L);
+		query.getPage(cashRegisterService, 100);
+
+		verify(cashRegisterService, times(2)).findPage(any(), any(), anyInt());
+	}
+
+	@Test
+	void testPagesAreWalkedWithCursors() {
+		FinanceQuery query = new FinanceQuery();
+		query.getPage(cashRegisterService, 100);
+
+		query.olderPage();
+		assertSame(secondPage, query.getPage(cashRegisterService, 100));
+		assertTrue(query.hasNewerPage());
+
+		query.olderPage(); // the second page is the last one
+		assertSame(secondPage, query.getPage(cashRegisterService, 100));
+
+		query.newerPage();
+		assertSame(firstPage, query.getPage(cashRegisterService, 100));
+		assertFalse(query.hasNewerPage());
+	}
+
+	@Test
+	void testChangingAFilterStartsAtTheNewestEntries() {
+		FinanceQuery query = new FinanceQuery();
+		query.getPage(cashRegisterService, 100);
+		query.olderPage();
+
+		query.filterTransactionValue(10);
+
+		assertSame(firstPage, query.getPage(cashRegisterService, 100));
+		assertFalse(query.hasNewerPage());
+		assertEquals("10.0", query.getTransactionValue());
+	}
+
+	@Test
+	void testWriteOffsAreReadForTheShownDays() {
+		LocalDate today = LocalDate.of(2025, 1, 20);
+		AccountancyEntryWrapper newest = mock(AccountancyEntryWrapper.class);
+		AccountancyEntryWrapper oldest = mock(AccountancyEntryWrapper.class);
+		when(newest.getTimestamp()).thenReturn(LocalDateTime.of(2025, 1, 15, 10, 0));
+		when(oldest.getTimestamp()).thenReturn(LocalDateTime.of(2025, 1, 12, 10, 0));
+		when(cashRegisterService.findPage(any(), isNull(), anyInt()))
+			.thenReturn(new LedgerPage(List.of(newest, oldest), CURSOR));
+		when(cashRegisterService.findPage(any(), eq(CURSOR), anyInt()))
+			.thenReturn(new LedgerPage(List.of(newest, oldest), null));
+		FinanceQuery query = new FinanceQuery();
+
+		query.getPage(cashRegisterService, 100);
+		query.loadDeletedProducts(cashRegisterService, today);
+		verify(cashRegisterService).getAllDeletedProducts(LocalDate.of(2025, 1, 12), today);
+
+		query.olderPage();
+		query.getPage(cashRegisterService, 100);
+		query.loadDeletedProducts(cashRegisterService, today);
+		verify(cashRegisterService).getAllDeletedProducts(LocalDate.of(2025, 1, 12), LocalDate.of(2025, 1, 15));
+
+		query.filterDates(LocalDate.of(2024, 12, 1), LocalDate.of(2024, 12, 31));
+		query.loadDeletedProducts(cashRegisterService, today);
+		verify(cashRegisterService).getAllDeletedProducts(LocalDate.of(2024, 12, 1), LocalDate.of(2024, 12, 31));
+	}
+
+	@Test
+	void testSessionsDontShareFilters() {
+		FinanceQuery first = new FinanceQuery();
+		FinanceQuery second = new FinanceQuery();
+		first.filterCustomerName("Anna");
+		first.filterCategory("income");
+
+		assertEquals("Anna", first.getCustomerName());
+		assertEquals("", second.getCustomerName());
+		assertNull(second.getCategory());
+	}
+}
@@ -0,0 +1,135 @@
+package flowershop.finances;
+
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.salespointframework.accountancy.AccountancyEntry;
+import org.salespointframework.time.Interval;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.time.temporal.TemporalAmount;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LedgerBucketsTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2024, 12, 1, 0, 0);
+
+	private List<AccountancyEntryWrapper> sorted;
+
+	private static AccountancyEntryWrapper entry(LocalDateTime timestamp, int value) {
+		AccountancyEntryWrapper entry = mock(AccountancyEntryWrapper.class);
+		Money money = Money.of(value, "EUR");
+		when(entry.getTimestamp()).thenReturn(timestamp);
+		when(entry.getValue()).thenReturn(money);
+		when(entry.getValueCents()).thenReturn(value * 100L);
+		when(entry.isRevenue()).thenReturn(money.isPositive());
+		when(entry.isExpense()).thenReturn(money.isNegative());
+		return entry;
+	}
+
+	@BeforeEach
+	void setUp() {
+		Random random = new Random(42);
+		sorted = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			LocalDateTime timestamp = START.minusDays(3).plusMinutes(random.nextInt(60 * 24 * 70));
+			sorted.add(entry(timestamp, random.nextInt(400) - 200));
+		}
+		// entries exactly on the borders of the buckets
+		sorted.add(entry(START, 10));
+		sorted.add(entry(START.plusDays(1), -20));
+		sorted.add(entry(START.plusDays(7), 30));
+		sorted.add(entry(START.plusMonths(1), 40));
+		sorted.sort(Comparator.comparing(AccountancyEntryWrapper::getTimestamp));
+	}
+
+	/**
+	 * The way the buckets were filled before: one search over all entries per bucket
+	 */
+	private static List<AccountancyEntry> naiveFind(Interval bucket, List<AccountancyEntryWrapper> entries) {
+		List<AccountancyEntry> output = new ArrayList<>();
+		for (AccountancyEntryWrapper entry : entries) {
+			if (bucket.contains(entry.getTimestamp())) {
+				output.add(entry);
+			}
+		}
+		return output;
+	}
+
+	private static MonetaryAmount sum(List<AccountancyEntry> entries, boolean revenue) {
+		MonetaryAmount output = Money.of(0, "EUR");
+		for (AccountancyEntry entry : entries) {
+			if (revenue ? entry.isRevenue() : entry.isExpense()) {
+				output = output.add(entry.getValue());
+			}
+		}
+		return output;
+	}
+
+	private void assertMatchesNaive(Interval period, TemporalAmount duration) {
+		List<Interval> buckets = LedgerBuckets.split(period, duration);
+		LedgerBuckets result = LedgerBuckets.aggregate(buckets, sorted, Monetary.getCurrency("EUR"));
+
+		assertEquals(buckets.size(), result.size());
+		for (int i = 0; i < result.size(); i++) {
+			List<AccountancyEntry> expected = naiveFind(result.getInterval(i), sorted);
+			assertEquals(expected, result.getEntries(i), "Entries differ in " + result.getInterval(i));
+			assertEquals(sum(expected, true), result.getRevenue(i));
+			assertEquals(sum(expected, false), result.getExpenses(i));
+			assertEquals(sum(expected, true).add(sum(expected, false)), result.getProfit(i));
+		}
+	}
+
+	@Test
+	void testDailyBucketsMatchPerBucketSearch() {
+		assertMatchesNaive(Interval.from(START).to(START.plusMonths(1)), Duration.ofDays(1));
+	}
+
+	@Test
+	void testWeeklyBucketsMatchPerBucketSearch() {
+		assertMatchesNaive(Interval.from(START).to(START.plusWeeks(8)), Duration.ofDays(7));
+	}
+
+	@Test
+	void testMonthlyBucketsMatchPerBucketSearch() {
+		assertMatchesNaive(Interval.from(START).to(START.plusMonths(2)), Period.ofMonths(1));
+	}
+
+	@Test
+	void testSingleDayMatchesPerBucketSearch() {
+		assertMatchesNaive(Interval.from(START).to(START.plusDays(1)), Duration.ofDays(1));
+	}
+
+	@Test
+	void testSplitCoversThePeriod() {
+		Interval month = Interval.from(START).to(START.plusMonths(1));
+		List<Interval> buckets = LedgerBuckets.split(month, Duration.ofDays(1));
+
+		assertEquals(START, buckets.getFirst().getStart());
+		assertTrue(buckets.size() >= 31);
+		for (int i = 1; i < buckets.size(); i++) {
+			assertEquals(buckets.get(i - 1).getEnd(), buckets.get(i).getStart());
+		}
+	}
+
+	@Test
+	void testEntryMapsContainEveryBucket() {
+		Interval week = Interval.from(START).to(START.plusDays(7));
+		LedgerBuckets result = LedgerBuckets.aggregate(
+			LedgerBuckets.split(week, Duration.ofDays(1)), sorted, Monetary.getCurrency("EUR"));
+
+		assertEquals(result.size(), result.toEntryMap().size());
+		assertEquals(result.size(), result.toProfitMap().size());
+	}
+}
@@ -0,0 +1,102 @@
+package flowershop.finances;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.salespointframework.accountancy.AccountancyEntry;
+import org.salespointframework.time.Interval;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LedgerIndexTest {
+
+	private static final LocalDateTime DAY = LocalDateTime.of(2025, 1, 10, 0, 0);
+
+	private LedgerIndex index;
+	private AccountancyEntryWrapper morning;
+	private AccountancyEntryWrapper noon;
+	private AccountancyEntryWrapper nextDay;
+
+	private static AccountancyEntryWrapper entryAt(LocalDateTime timestamp) {
+		AccountancyEntryWrapper entry = mock(AccountancyEntryWrapper.class);
+		when(entry.getTimestamp()).thenReturn(timestamp);
+		return entry;
+	}
+
+	@BeforeEach
+	void setUp() {
+		morning = entryAt(DAY.plusHours(9));
+		noon = entryAt(DAY.plusHours(12));
+		nextDay = entryAt(DAY.plusDays(1).plusHours(10));
+		index = new LedgerIndex();
+		index.loadIfNeeded(() -> List.of(nextDay, morning, noon));
+	}
+
+	@Test
+	void testAllIsOrderedByTimestamp() {
+		assertEquals(List.of(morning, noon, nextDay), index.all());
+		assertEquals(morning.getTimestamp(), index.earliestTimestamp());
+	}
+
+	@Test
+	void testFindReturnsOnlyEntriesInInterval() {
+		List<AccountancyEntry> result = index.find(Interval.from(DAY).to(DAY.plusDays(1)));
+
+		assertEquals(List.of(morning, noon), result);
+		assertTrue(index.find(Interval.from(DAY.minusDays(5)).to(DAY.minusDays(4))).isEmpty());
+	}
+
+	@Test
+	void testAddKeepsOrderForLateEntries() {
+		AccountancyEntryWrapper early = entryAt(DAY.plusHours(8));
+		index.add(early);
+
+		assertEquals(List.of(early, morning, noon), index.find(Interval.from(DAY).to(DAY.plusDays(1))));
+		assertEquals(4, index.size());
+	}
+
+	@Test
+	void testAddIsIgnoredUntilLoaded() {
+		LedgerIndex fresh = new LedgerIndex();
+		fresh.add(morning);
+		fresh.loadIfNeeded(() -> List.of(noon));
+
+		assertEquals(List.of(noon), fresh.all());
+	}
+
+	@Test
+	void testInvalidateReloads() {
+		index.invalidate();
+		index.loadIfNeeded(() -> List.of(noon));
+
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	void testSumsFollowLateEntries() {
+		when(morning.getValueCents()).thenReturn(1_000L);
+		when(noon.getValueCents()).thenReturn(-300L);
+		when(nextDay.getValueCents()).thenReturn(50L);
+		LedgerIndex sums = new LedgerIndex();
+		sums.loadIfNeeded(() -> List.of(nextDay, morning, noon));
+
+		assertEquals(750, sums.centsFrom(DAY));
+		assertEquals(-250, sums.centsFrom(DAY.plusHours(12)));
+		assertEquals(700, sums.centsBetween(DAY, DAY.plusDays(1)));
+
+		AccountancyEntryWrapper early = entryAt(DAY.plusHours(8));
+		when(early.getValueCents()).thenReturn(5L);
+		sums.add(early);
+		AccountancyEntryWrapper late = entryAt(DAY.plusDays(2));
+		when(late.getValueCents()).thenReturn(2L);
+		sums.add(late);
+
+		assertEquals(757, sums.centsFrom(DAY));
+		assertEquals(1_005, sums.centsBetween(DAY, DAY.plusHours(12)));
+		assertEquals(0, sums.centsBetween(DAY.plusHours(12), DAY));
+	}
+}
@@ -0,0 +1,218 @@
+package flowershop.finances;
+
+import flowershop.clock.*;
+import flowershop.product.Flower;
+import flowershop.product.ProductService;
+import flowershop.services.AbstractOrder;
+import flowershop.services.ContractOrder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.salespointframework.order.Order;
+import org.salespointframework.order.OrderEvents;
+import org.salespointframework.order.OrderManagement;
+import org.salespointframework.quantity.Quantity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class LedgerOutboxTest {
+
+	private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 14, 10, 30);
+
+	private LedgerOutboxRepository outboxRepository;
+	private OrderManagement<AbstractOrder> orderManagement;
+	private CashRegisterService cashRegisterService;
+	private AccountancyEntryWrapperRepository entryRepository;
+	private SimpleMeterRegistry meterRegistry;
+	private LedgerOutbox outbox;
+
+	private final Map<Long, LedgerOutboxEntry> rows = new LinkedHashMap<>();
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		outboxRepository = mock(LedgerOutboxRepository.class);
+		orderManagement = mock(OrderManagement.class);
+		cashRegisterService = mock(CashRegisterService.class);
+		entryRepository = mock(AccountancyEntryWrapperRepository.class);
+		ClockService clockService = mock(ClockService.class);
+		when(clockService.now()).thenReturn(NOW);
+		when(entryRepository.findPostedOrderIds(any())).thenReturn(Set.of());
+		when(outboxRepository.findPendingIds(any())).thenAnswer(invocation -> rows.values().stream()
+			.filter(row -> row.getPostedAt() == null && !row.isDeadLettered())
+			.map(LedgerOutboxEntry::getId)
+			.toList());
+		when(outboxRepository.countByPostedAtIsNullAndDeadLetteredAtIsNotNull()).thenAnswer(invocation ->
+			rows.values().stream().filter(row -> row.getPostedAt() == null && row.isDeadLettered()).count());
+		when(outboxRepository.existsByPostedAtIsNullAndDeadLetteredAtIsNullAndPaidAtBefore(any()))
+			.thenAnswer(invocation -> rows.values().stream().anyMatch(row -> row.getPostedAt() == null
+				&& !row.isDeadLettered() && row.getPaidAt().isBefore(invocation.getArgument(0))));
+		when(outboxRepository.findAllById(any())).thenAnswer(invocation -> {
+			List<LedgerOutboxEntry> found = new ArrayList<>();
+			for (Long id : (Iterable<Long>) invocation.getArgument(0)) {
+				found.add(rows.get(id));
+			}
+			return found;
+		});
+		when(outboxRepository.findById(any())).thenAnswer(invocation ->
+			Optional.ofNullable(rows.get((Long) invocation.getArgument(0))));
+		meterRegistry = new SimpleMeterRegistry();
+		outbox = new LedgerOutbox(outboxRepository, orderManagement, cashRegisterService, entryRepository,
+			clockService, mock(PlatformTransactionManager.class), meterRegistry);
+	}
+
+	private AbstractOrder pendingOrder(long rowId, String orderId, LocalDateTime paidAt) {
+		LedgerOutboxEntry row = new LedgerOutboxEntry(orderId, orderId, false, paidAt);
+		ReflectionTestUtils.setField(row, "id", rowId);
+		rows.put(rowId, row);
+		AbstractOrder order = mock(AbstractOrder.class);
+		when(orderManagement.get(Order.OrderIdentifier.of(orderId))).thenReturn(Optional.of(order));
+		return order;
+	}
+
+	private static OrderEvents.OrderPaid paid(Order order, String id) {
+		when(order.getId()).thenReturn(Order.OrderIdentifier.of(id));
+		OrderEvents.OrderPaid event = mock(OrderEvents.OrderPaid.class);
+		when(event.getOrder()).thenReturn(order);
+		return event;
+	}
+
+	@Test
+	void onOrderPaid_ShouldOnlyWriteTheOutbox() {
+		outbox.onOrderPaid(paid(mock(AbstractOrder.class), "order"));
+
+		ArgumentCaptor<LedgerOutboxEntry> saved = ArgumentCaptor.forClass(LedgerOutboxEntry.class);
+		verify(outboxRepository).save(saved.capture());
+		assertEquals("order", saved.getValue().getDedupKey());
+		assertEquals(NOW, saved.getValue().getPaidAt());
+		verifyNoInteractions(cashRegisterService);
+	}
+
+	@Test
+	void onOrderPaid_Twice_ShouldWriteOneRow() {
+		when(outboxRepository.existsByDedupKey("order")).thenReturn(true);
+
+		outbox.onOrderPaid(paid(mock(AbstractOrder.class), "order"));
+
+		verify(outboxRepository, never()).save(any());
+	}
+
+	@Test
+	void onOrderPaid_ContractCharge_ShouldBeKeyedByMonth() {
+		outbox.onOrderPaid(paid(mock(ContractOrder.class), "contract"));
+
+		ArgumentCaptor<LedgerOutboxEntry> saved = ArgumentCaptor.forClass(LedgerOutboxEntry.class);
+		verify(outboxRepository).save(saved.capture());
+		assertEquals("contract/2025-03", saved.getValue().getDedupKey());
+		assertTrue(saved.getValue().isRecurring());
+	}
+
+	@Test
+	void payAt_ShouldDateTheChargeInTheEndedMonth() {
+		LocalDateTime endOfFebruary = LocalDateTime.of(2025, 2, 28, 23, 59);
+		outbox.payAt(endOfFebruary, () -> outbox.onOrderPaid(paid(mock(ContractOrder.class), "contract")));
+
+		ArgumentCaptor<LedgerOutboxEntry> saved = ArgumentCaptor.forClass(LedgerOutboxEntry.class);
+		verify(outboxRepository).save(saved.capture());
+		assertEquals("contract/2025-02", saved.getValue().getDedupKey());
+		assertEquals(endOfFebruary, saved.getValue().getPaidAt());
+
+		// later payments are dated by the clock again
+		outbox.onOrderPaid(paid(mock(ContractOrder.class), "other"));
+		verify(outboxRepository, times(2)).save(saved.capture());
+		assertEquals("other/2025-03", saved.getValue().getDedupKey());
+	}
+
+	@Test
+	void drain_ShouldPostWithThePaymentTimeAndSkipPostedOrders() {
+		AbstractOrder first = pendingOrder(1L, "first", NOW.minusMinutes(2));
+		AbstractOrder posted = pendingOrder(2L, "posted", NOW.minusMinutes(1));
+		when(entryRepository.findPostedOrderIds(any())).thenReturn(Set.of("posted"));
+
+		assertEquals(1, outbox.drain());
+
+		verify(cashRegisterService).postOrder(first, NOW.minusMinutes(2));
+		verify(cashRegisterService, never()).postOrder(eq(posted), any());
+		assertTrue(rows.values().stream().allMatch(row -> row.getPostedAt() != null));
+		assertEquals(0, outbox.drain(), "Posted rows should not be posted again.");
+	}
+
+	@Test
+	void drain_ShouldNotLetOneBrokenOrderBlockTheOthers() {
+		AbstractOrder broken = pendingOrder(1L, "broken", NOW);
+		AbstractOrder fine = pendingOrder(2L, "fine", NOW);
+		when(cashRegisterService.postOrder(eq(broken), any())).thenThrow(new IllegalStateException("broken"));
+
+		outbox.drain();
+
+		verify(cashRegisterService, atLeastOnce()).postOrder(fine, NOW);
+		assertNotNull(rows.get(2L).getPostedAt());
+		assertNull(rows.get(1L).getPostedAt());
+		assertTrue(rows.get(1L).getAttempts() > 0);
+	}
+
+	@Test
+	void drain_ShouldDeadLetterAnOrderAfterTheLastAttempt() {
+		AbstractOrder broken = pendingOrder(1L, "broken", NOW);
+		when(cashRegisterService.postOrder(eq(broken), any())).thenThrow(new IllegalStateException("broken"));
+
+		for (int i = 0; i < LedgerOutbox.MAX_ATTEMPTS; i++) {
+			assertFalse(rows.get(1L).isDeadLettered(), "Should be tried " + LedgerOutbox.MAX_ATTEMPTS + " times.");
+			outbox.drain();
+		}
+
+		assertTrue(rows.get(1L).isDeadLettered());
+		assertEquals(1.0, meterRegistry.get(LedgerOutbox.TIMER + ".dead").gauge().value());
+		clearInvocations(cashRegisterService);
+		outbox.drain();
+		verify(cashRegisterService, never()).postOrder(any(), any());
+	}
+
+	@Test
+	void deadLetteredOrder_ShouldNotHoldBackTheNextRollover() throws InterruptedException {
+		LocalDate friday = NOW.toLocalDate();
+		LocalDate monday = friday.plusDays(3);
+		AbstractOrder broken = pendingOrder(1L, "broken", NOW);
+		when(cashRegisterService.postOrder(eq(broken), any())).thenThrow(new IllegalStateException("broken"));
+		// fails on every scheduled drain of the day
+		for (int i = 0; i < LedgerOutbox.MAX_ATTEMPTS; i++) {
+			outbox.drain();
+		}
+
+		Map<String, RolloverCheckpoint> checkpointRows = new LinkedHashMap<>();
+		RolloverCheckpointRepository checkpoints = mock(RolloverCheckpointRepository.class);
+		when(checkpoints.save(any())).thenAnswer(invocation -> {
+			RolloverCheckpoint checkpoint = invocation.getArgument(0);
+			checkpointRows.put(checkpoint.getStage(), checkpoint);
+			return checkpoint;
+		});
+		when(checkpoints.findByEndedDayAndStage(any(), any())).thenAnswer(invocation ->
+			Optional.ofNullable(checkpointRows.get((String) invocation.getArgument(1))));
+		Flower rose = mock(Flower.class);
+		PendingOrderRepository pendingOrders = mock(PendingOrderRepository.class);
+		when(pendingOrders.findByDueDateLessThanEqualOrderByDueDateAsc(monday))
+			.thenReturn(List.of(new PendingOrder(Map.of(rose, Quantity.of(10)), monday)));
+		ProductService productService = mock(ProductService.class);
+		DayRolloverService rollover = new DayRolloverService(List.of(
+			new PostPaidOrdersStage(outbox),
+			new DeliveryStage(pendingOrders, productService),
+			new CloseLedgerDayStage(outbox, outboxRepository)), checkpoints, meterRegistry);
+
+		rollover.onDayEnded(new DayEndedEvent(friday));
+		rollover.awaitIdle();
+
+		assertTrue(checkpointRows.values().stream().allMatch(RolloverCheckpoint::isDone),
+			"The dead-lettered order should not fail the rollover.");
+		verify(productService).addDeliveredFlowersFromWholesaler(Map.of(rose, 10));
+		assertNull(rows.get(1L).getPostedAt());
+	}
+}
@@ -0,0 +1,166 @@
+package flowershop.finances;
+
+import flowershop.AbstractIntegrationTests;
+import flowershop.product.ProductService;
+import flowershop.sales.SimpleOrder;
+import flowershop.sales.WholesalerOrder;
+import flowershop.services.Client;
+import flowershop.services.ReservationOrder;
+import jakarta.persistence.EntityManager;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.salespointframework.accountancy.AccountancyEntry;
+import org.salespointframework.order.Order;
+import org.salespointframework.order.Totalable;
+import org.salespointframework.payment.Cash;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.money.MonetaryAmount;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LedgerQueryIntegrationTests extends AbstractIntegrationTests {
+
+	private static final LocalDateTime NOON = LocalDateTime.of(2100, 3, 1, 12, 0);
+
+	@Autowired
+	private AccountancyEntryWrapperRepository entryRepository;
+	@Autowired
+	private CashRegisterService cashRegisterService;
+	@Autowired
+	private EntityManager entityManager;
+
+	private final Specification<AccountancyEntryWrapper> year2100 =
+		LedgerSpecifications.between(NOON.withDayOfYear(1).toLocalDate().atStartOfDay(), NOON.plusYears(1));
+
+	private AccountancyEntryWrapper early;
+	private AccountancyEntryWrapper firstAtNoon;
+	private AccountancyEntryWrapper secondAtNoon;
+	private AccountancyEntryWrapper thirdAtNoon;
+	private AccountancyEntryWrapper late;
+
+	private <T extends Order> T order(Class<T> type, int total) {
+		T order = mock(type);
+		when(order.getTotal()).thenReturn(Money.of(total, "EUR"));
+		when(order.getOrderLines()).thenReturn(Totalable.of(List.of()));
+		when(order.getAllChargeLines()).thenReturn(Totalable.of(List.of()));
+		when(order.getPaymentMethod()).thenReturn(Cash.CASH);
+		return order;
+	}
+
+	private AccountancyEntryWrapper save(Order order, LocalDateTime timestamp, long sequence) {
+		AccountancyEntryWrapper entry = new AccountancyEntryWrapper(order, timestamp, mock(ProductService.class));
+		entry.assignLedgerSequence(sequence);
+		return entryRepository.save(entry);
+	}
+
+	@BeforeEach
+	void setUp() {
+		Client client = mock(Client.class);
+		when(client.getName()).thenReturn("Anna_Schmidt");
+		ReservationOrder reservation = order(ReservationOrder.class, 40);
+		when(reservation.getClient()).thenReturn(client);
+		when(reservation.getReservationDateTime()).thenReturn(NOON.plusDays(5));
+
+		early = save(order(SimpleOrder.class, 15), NOON.minusDays(1), 1_000_001);
+		firstAtNoon = save(order(WholesalerOrder.class, -100), NOON, 1_000_002);
+		secondAtNoon = save(reservation, NOON, 1_000_003);
+		thirdAtNoon = save(order(SimpleOrder.class, 100), NOON, 1_000_004);
+		late = save(order(SimpleOrder.class, 100), NOON.plusDays(1), 1_000_005);
+	}
+
+	@Test
+	void testPagesWalkTheLedgerNewestFirst() {
+		List<AccountancyEntryWrapper> walked = new ArrayList<>();
+		LedgerPage page = cashRegisterService.findPage(year2100, null, 2);
+		walked.addAll(page.getEntries());
+		while (page.hasNext()) {
+			page = cashRegisterService.findPage(year2100, page.getNextCursor(), 2);
+			assertTrue(page.getEntries().size() <= 2);
+			walked.addAll(page.getEntries());
+		}
+
+		assertEquals(List.of(late, thirdAtNoon, secondAtNoon, firstAtNoon, early), walked);
+	}
+
+	@Test
+	void testFiltersAreCombined() {
+		Specification<AccountancyEntryWrapper> income = year2100.and(LedgerSpecifications.isIncome(true));
+		Specification<AccountancyEntryWrapper> hundred = year2100.and(LedgerSpecifications.valueEquals(100.0));
+
+		assertEquals(List.of(late, thirdAtNoon, secondAtNoon, early),
+			cashRegisterService.findPage(income, null, 10).getEntries());
+		assertEquals(List.of(late, thirdAtNoon),
+			cashRegisterService.findPage(hundred, null, 10).getEntries());
+		assertEquals(List.of(firstAtNoon), cashRegisterService.findPage(
+			year2100.and(LedgerSpecifications.inCategory(Category.EINKAUF)), null, 10).getEntries());
+		assertEquals(List.of(late), cashRegisterService.findPage(
+			hundred.and(LedgerSpecifications.between(NOON.plusHours(1), NOON.plusDays(2))), null, 10).getEntries());
+	}
+
+	@Test
+	void testCustomerNameIsMatchedLiterally() {
+		assertEquals(List.of(secondAtNoon), cashRegisterService.findPage(
+			year2100.and(LedgerSpecifications.clientNameContains("a_S")), null, 10).getEntries());
+		assertTrue(cashRegisterService.findPage(
+			year2100.and(LedgerSpecifications.clientNameContains("a%S")), null, 10).getEntries().isEmpty());
+	}
+
+	@Test
+	void testFilterIncomeOrSpending() {
+		List<AccountancyEntry> income = cashRegisterService.filterIncomeOrSpending(true);
+		List<AccountancyEntry> spending = cashRegisterService.filterIncomeOrSpending(false);
+
+		assertTrue(income.containsAll(List.of(late, thirdAtNoon, secondAtNoon, early)));
+		assertFalse(income.contains(firstAtNoon));
+		income.forEach(entry -> assertTrue(entry.isRevenue(), "Each entry should be income"));
+		assertTrue(spending.contains(firstAtNoon));
+		spending.forEach(entry -> assertFalse(entry.isRevenue(), "Each entry should be spending"));
+	}
+
+	@Test
+	void testFilterByCustomer() {
+		List<AccountancyEntryWrapper> result = cashRegisterService.filterByCustomer("na_Sch");
+
+		assertEquals(List.of(secondAtNoon), result);
+		assertTrue(cashRegisterService.filterByCustomer("Anna_Schmidt_and_Friends").isEmpty());
+	}
+
+	@Test
+	void testFilterByPrice() {
+		List<AccountancyEntryWrapper> result = cashRegisterService.filterByPrice(100.0);
+
+		assertTrue(result.containsAll(List.of(late, thirdAtNoon)));
+		assertFalse(result.contains(early));
+		result.forEach(entry -> assertTrue(entry.getValue().isEqualTo(Money.of(100, "EUR"))));
+		assertTrue(result.indexOf(late) < result.indexOf(thirdAtNoon), "The newest entry should come first");
+	}
+
+	@Test
+	void testPostingIsAnInsertAndABalanceDelta() {
+		MonetaryAmount before = cashRegisterService.getBalance();
+		AccountancyEntryWrapper entry = new AccountancyEntryWrapper(order(SimpleOrder.class, 15), NOON,
+			mock(ProductService.class));
+
+		cashRegisterService.add(entry);
+		entityManager.flush();
+		entityManager.clear();
+
+		assertEquals(before.add(Money.of(15, "EUR")), cashRegisterService.getBalance());
+		assertTrue(entryRepository.existsById(entry.getId()));
+		assertTrue(entry.getLedgerSequence() > 0);
+	}
+
+	@Test
+	void testValueIsStoredInCents() {
+		assertEquals(-10_000, firstAtNoon.getValueCents());
+		assertEquals(4_000, secondAtNoon.getValueCents());
+	}
+}
@@ -0,0 +1,128 @@
+package flowershop.finances;
+
+import flowershop.services.AbstractOrder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.salespointframework.order.Order;
+import org.salespointframework.order.OrderManagement;
+import org.salespointframework.order.OrderStatus;
+import org.salespointframework.time.Interval;
+import org.springframework.data.util.Streamable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class LedgerReplayInitializerTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2025, 1, 10, 9, 0);
+
+	private OrderManagement<AbstractOrder> orderManagement;
+	private LedgerOutbox ledgerOutbox;
+	private LedgerOutboxRepository outboxRepository;
+	private AccountancyEntryWrapperRepository entryRepository;
+	private LedgerReplayWatermarkRepository watermarkRepository;
+	private SimpleMeterRegistry meterRegistry;
+	private LedgerReplayInitializer initializer;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		orderManagement = mock(OrderManagement.class);
+		ledgerOutbox = mock(LedgerOutbox.class);
+		outboxRepository = mock(LedgerOutboxRepository.class);
+		entryRepository = mock(AccountancyEntryWrapperRepository.class);
+		watermarkRepository = mock(LedgerReplayWatermarkRepository.class);
+		meterRegistry = new SimpleMeterRegistry();
+		when(entryRepository.findPostedOrderIds(any())).thenReturn(Set.of());
+		when(outboxRepository.findQueuedOrderIds(any())).thenReturn(Set.of());
+		initializer = new LedgerReplayInitializer(orderManagement, ledgerOutbox, outboxRepository, entryRepository,
+			watermarkRepository, mock(PlatformTransactionManager.class), meterRegistry);
+	}
+
+	private static AbstractOrder paidOrder(String id, LocalDateTime created) {
+		AbstractOrder order = mock(AbstractOrder.class);
+		when(order.getId()).thenReturn(Order.OrderIdentifier.of(id));
+		when(order.getDateCreated()).thenReturn(created);
+		when(order.isPaid()).thenReturn(true);
+		return order;
+	}
+
+	@Test
+	void testOrdersAreQueuedOldestFirstInBatches() {
+		List<AbstractOrder> orders = new ArrayList<>();
+		for (int i = LedgerReplayInitializer.BATCH_SIZE + 9; i >= 0; i--) {
+			orders.add(paidOrder("order-" + i, START.plusMinutes(i)));
+		}
+		when(orderManagement.findBy(OrderStatus.PAID)).thenReturn(Streamable.of(orders));
+
+		assertEquals(orders.size(), initializer.replay());
+
+		verify(entryRepository, times(2)).findPostedOrderIds(any());
+		var inOrder = inOrder(ledgerOutbox);
+		inOrder.verify(ledgerOutbox).enqueue(orders.get(orders.size() - 1), START);
+		inOrder.verify(ledgerOutbox).enqueue(orders.get(0), START.plusMinutes(orders.size() - 1));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void testPostedAndQueuedOrdersAreSkipped() {
+		AbstractOrder posted = paidOrder("posted", START.plusHours(1));
+		AbstractOrder queued = paidOrder("queued", START.plusHours(2));
+		// created before the newest posted order, but only paid later
+		AbstractOrder missed = paidOrder("missed", START);
+		when(orderManagement.findBy(OrderStatus.PAID)).thenReturn(Streamable.of(posted, queued, missed));
+		when(entryRepository.findPostedOrderIds(any())).thenAnswer(invocation ->
+			((Collection<String>) invocation.getArgument(0)).stream()
+				.filter("posted"::equals)
+				.collect(Collectors.toSet()));
+		when(outboxRepository.findQueuedOrderIds(any())).thenReturn(Set.of("queued"));
+
+		assertEquals(1, initializer.replay());
+
+		verify(ledgerOutbox).enqueue(missed, START);
+		verify(ledgerOutbox, never()).enqueue(eq(posted), any());
+		verify(ledgerOutbox, never()).enqueue(eq(queued), any());
+	}
+
+	@Test
+	void testOnlyOrdersSinceTheWatermarkAreRead() {
+		LedgerReplayWatermark watermark = new LedgerReplayWatermark();
+		watermark.advanceTo(START);
+		ReflectionTestUtils.setField(watermark, "id", 1L);
+		when(watermarkRepository.findFirstByOrderById()).thenReturn(Optional.of(watermark));
+		AbstractOrder open = paidOrder("open", START.plusMinutes(5));
+		when(open.isPaid()).thenReturn(false);
+		AbstractOrder paid = paidOrder("paid", START.plusMinutes(10));
+		when(orderManagement.findBy(any(Interval.class))).thenReturn(Streamable.of(open, paid));
+
+		assertEquals(1, initializer.replay());
+
+		verify(orderManagement, never()).findBy(any(OrderStatus.class));
+		verify(ledgerOutbox).enqueue(paid, START.plusMinutes(10));
+		verify(ledgerOutbox, never()).enqueue(eq(open), any());
+		verify(watermarkRepository).save(watermark);
+		assertEquals(START.plusMinutes(10), watermark.getCheckedUntil());
+	}
+
+	@Test
+	void testReplayTimeIsRecorded() {
+		when(orderManagement.findBy(OrderStatus.PAID)).thenReturn(Streamable.of(paidOrder("order", START)));
+
+		initializer.initialize();
+
+		assertEquals(1, meterRegistry.get(LedgerReplayInitializer.TIMER).timer().count());
+		assertEquals(1.0, meterRegistry.get(LedgerReplayInitializer.TIMER + ".orders").counter().count());
+	}
+}
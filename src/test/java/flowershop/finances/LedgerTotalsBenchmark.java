@@ -0,0 +1,94 @@
+package flowershop.finances;
+
+import org.javamoney.moneta.Money;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.salespointframework.accountancy.AccountancyEntry;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares adding up a day of entries with {@link Money#add}, the way the totals were calculated before,
+ * to {@link LedgerTotals}.
+ * <p>
+ * Not part of the test run, start it with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LedgerTotalsBenchmark {
+
+	private static final CurrencyUnit EUR = Monetary.getCurrency("EUR");
+
+	@Param({"100", "5000"})
+	private int entriesPerDay;
+
+	private List<AccountancyEntry> entries;
+
+	/**
+	 * Stands in for a stored entry: the amount and the cents are kept side by side, as in AccountancyEntryWrapper
+	 */
+	private static final class StoredEntry extends AccountancyEntryWrapper {
+
+		private final MonetaryAmount value;
+		private final long cents;
+
+		private StoredEntry(long cents) {
+			this.value = Money.ofMinor(EUR, cents);
+			this.cents = cents;
+		}
+
+		@Override
+		public MonetaryAmount getValue() {
+			return value;
+		}
+
+		@Override
+		public long getValueCents() {
+			return cents;
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		entries = new ArrayList<>(entriesPerDay);
+		for (int i = 0; i < entriesPerDay; i++) {
+			entries.add(new StoredEntry(random.nextInt(40_001) - 20_000));
+		}
+	}
+
+	@Benchmark
+	public MonetaryAmount moneyAdd() {
+		Money output = Money.of(0, EUR);
+		for (AccountancyEntry entry : entries) {
+			MonetaryAmount value = entry.getValue();
+			if (value.isPositive()) {
+				output = output.add(value);
+			}
+		}
+		return output;
+	}
+
+	@Benchmark
+	public MonetaryAmount cents() {
+		return LedgerTotals.of(entries).getRevenue(EUR);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+			.include(LedgerTotalsBenchmark.class.getSimpleName())
+			.build()).run();
+	}
+}
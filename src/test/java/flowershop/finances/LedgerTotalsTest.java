@@ -0,0 +1,75 @@
+package flowershop.finances;
+
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+import org.salespointframework.accountancy.AccountancyEntry;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class LedgerTotalsTest {
+
+	private static final CurrencyUnit EUR = Monetary.getCurrency("EUR");
+
+	private static AccountancyEntryWrapper entry(long cents) {
+		AccountancyEntryWrapper entry = mock(AccountancyEntryWrapper.class);
+		when(entry.getValueCents()).thenReturn(cents);
+		return entry;
+	}
+
+	@Test
+	void testTotalsMatchAddingUpAmounts() {
+		Random random = new Random(7);
+		List<AccountancyEntryWrapper> entries = new ArrayList<>();
+		MonetaryAmount revenue = Money.of(0, EUR);
+		MonetaryAmount expenses = Money.of(0, EUR);
+		for (int i = 0; i < 1_000; i++) {
+			long cents = random.nextInt(40_001) - 20_000;
+			entries.add(entry(cents));
+			Money amount = Money.ofMinor(EUR, cents);
+			if (amount.isPositive()) {
+				revenue = revenue.add(amount);
+			} else {
+				expenses = expenses.add(amount);
+			}
+		}
+
+		LedgerTotals totals = LedgerTotals.of(entries);
+
+		assertEquals(revenue, totals.getRevenue(EUR));
+		assertEquals(expenses, totals.getExpenses(EUR));
+		assertEquals(revenue.add(expenses), totals.getProfit(EUR));
+	}
+
+	@Test
+	void testValueIsReadWithoutTheAmount() {
+		AccountancyEntryWrapper entry = entry(1_050);
+
+		LedgerTotals.of(List.of(entry));
+
+		verify(entry, never()).getValue();
+	}
+
+	@Test
+	void testOtherEntriesAreConvertedToCents() {
+		AccountancyEntry entry = mock(AccountancyEntry.class);
+		when(entry.getValue()).thenReturn(Money.of(-12.345, "EUR"));
+
+		assertEquals(-1_235, LedgerTotals.centsOf(entry));
+	}
+
+	@Test
+	void testOverflowIsDetected() {
+		LedgerTotals totals = LedgerTotals.of(List.of(entry(Long.MAX_VALUE), entry(Long.MIN_VALUE)));
+
+		assertEquals(-1, totals.getProfitCents());
+		assertThrows(ArithmeticException.class, () -> totals.add(1));
+	}
+}
@@ -0,0 +1,101 @@
+package flowershop.finances;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LedgerTreeTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+	private static AccountancyEntryWrapper entry(LocalDateTime timestamp, long cents) {
+		AccountancyEntryWrapper entry = mock(AccountancyEntryWrapper.class);
+		when(entry.getTimestamp()).thenReturn(timestamp);
+		when(entry.getValueCents()).thenReturn(cents);
+		return entry;
+	}
+
+	@Test
+	void testOutOfOrderInsertsMatchAddingUp() {
+		Random random = new Random(3);
+		LedgerTree tree = new LedgerTree();
+		List<AccountancyEntryWrapper> added = new ArrayList<>();
+		for (int i = 0; i < 1_000; i++) {
+			// mostly chronological, every fifth entry is booked for an earlier hour
+			int hour = i % 5 == 0 ? random.nextInt(i + 1) : i;
+			AccountancyEntryWrapper entry = entry(START.plusHours(hour), random.nextInt(20_001) - 10_000);
+			tree.add(entry);
+			added.add(entry);
+		}
+		// stable, so equal timestamps keep the order they were added in
+		List<AccountancyEntryWrapper> sorted = new ArrayList<>(added);
+		sorted.sort(Comparator.comparing(AccountancyEntryWrapper::getTimestamp));
+
+		List<AccountancyEntryWrapper> all = new ArrayList<>();
+		tree.addAllTo(all);
+		assertEquals(sorted, all);
+		assertEquals(sorted.getFirst(), tree.first());
+
+		for (int hour = 0; hour <= 1_000; hour += 37) {
+			LocalDateTime moment = START.plusHours(hour);
+			long sum = 0;
+			int before = 0;
+			int notAfter = 0;
+			for (AccountancyEntryWrapper entry : sorted) {
+				if (entry.getTimestamp().isBefore(moment)) {
+					sum += entry.getValueCents();
+					before++;
+				}
+				if (!entry.getTimestamp().isAfter(moment)) {
+					notAfter++;
+				}
+			}
+			assertEquals(sum, tree.sumBefore(moment), "Sum before hour " + hour);
+			assertEquals(before, tree.countBefore(moment), "Entries before hour " + hour);
+			assertEquals(notAfter, tree.countNotAfter(moment), "Entries until hour " + hour);
+		}
+		assertEquals(sorted.stream().mapToLong(AccountancyEntryWrapper::getValueCents).sum(), tree.total());
+		assertEquals(1_000, tree.size());
+	}
+
+	@Test
+	void testRangeIncludesBothBorders() {
+		LedgerTree tree = new LedgerTree();
+		AccountancyEntryWrapper late = entry(START.plusHours(3), 1);
+		AccountancyEntryWrapper first = entry(START.plusHours(1), 1);
+		AccountancyEntryWrapper second = entry(START.plusHours(2), 1);
+		tree.add(late);
+		tree.add(first);
+		tree.add(second);
+
+		assertEquals(List.of(first, second), tree.range(START.plusHours(1), START.plusHours(2)));
+		assertEquals(List.of(), tree.range(START.plusHours(4), START.plusHours(5)));
+	}
+
+	@Test
+	void testOverflowIsDetected() {
+		LedgerTree tree = new LedgerTree();
+		tree.add(entry(START, Long.MAX_VALUE));
+
+		assertThrows(ArithmeticException.class, () -> tree.add(entry(START.plusHours(1), 1)));
+	}
+
+	@Test
+	void testClearForgetsEverything() {
+		LedgerTree tree = new LedgerTree();
+		tree.add(entry(START, 5));
+		tree.clear();
+
+		assertEquals(0, tree.size());
+		assertEquals(0, tree.total());
+		assertNull(tree.first());
+	}
+}
@@ -1,6 +1,7 @@
 package flowershop.finances;
 
 import flowershop.clock.ClockService;
+import flowershop.inventory.DeletedProduct;
 import org.javamoney.moneta.Money;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,8 +10,12 @@ import org.salespointframework.accountancy.AccountancyEntry;
 import org.salespointframework.time.Interval;
 import org.springframework.data.util.Streamable;
 
+import javax.money.Monetary;
 import javax.money.MonetaryAmount;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -36,6 +41,11 @@ public class MonthlyFinancialReportTests {
 		firstTransaction = LocalDateTime.of(2024, 1, 1, 0, 0);
 		monthInterval = Interval.from(LocalDateTime.of(2024, 6, 1, 0, 0))
 			.to(LocalDateTime.of(2024, 6, 30, 23, 59));
+		when(cashRegisterService.aggregate(monthInterval, Duration.ofDays(1))).thenReturn(noDays());
+	}
+
+	private static LedgerBuckets noDays() {
+		return new LedgerBuckets(List.of(), List.of(), new MonetaryAmount[0], new MonetaryAmount[0]);
 	}
 
 //	@Test
@@ -71,7 +81,7 @@ public class MonthlyFinancialReportTests {
 	@Test
 	void constructor_WithNoDays_ShouldHandleGracefully() {
 		// Arrange empty days
-		when(cashRegisterService.find(monthInterval, Duration.ofDays(1))).thenReturn(Collections.emptyMap());
+		when(cashRegisterService.aggregate(monthInterval, Duration.ofDays(1))).thenReturn(noDays());
 
 		// Act
 		MonthlyFinancialReport report = new MonthlyFinancialReport(monthInterval, balanceEndOfMonth, cashRegisterService, firstTransaction, clockService);
@@ -82,6 +92,73 @@ public class MonthlyFinancialReportTests {
 		assertEquals(Money.of(0, "EUR"), report.getExpenditure(), "Expenditure should be zero.");
 	}
 
+	@Test
+	void constructor_ShouldChainBalancesOfTheDays() {
+		Interval day1 = Interval.from(LocalDateTime.of(2024, 6, 1, 0, 0)).to(LocalDateTime.of(2024, 6, 2, 0, 0));
+		Interval day2 = Interval.from(LocalDateTime.of(2024, 6, 2, 0, 0)).to(LocalDateTime.of(2024, 6, 3, 0, 0));
+		LedgerBuckets days = new LedgerBuckets(
+			List.of(day1, day2),
+			List.of(List.of(), List.of()),
+			new MonetaryAmount[]{Money.of(300, "EUR"), Money.of(50, "EUR")},
+			new MonetaryAmount[]{Money.of(-100, "EUR"), Money.of(0, "EUR")});
+		when(cashRegisterService.aggregate(monthInterval, Duration.ofDays(1))).thenReturn(days);
+
+		MonthlyFinancialReport report = new MonthlyFinancialReport(monthInterval, balanceEndOfMonth, cashRegisterService, firstTransaction, clockService);
+
+		assertEquals(2, report.getDailyFinancialReports().size());
+		assertEquals(day1, report.getDailyFinancialReports().getFirst().interval, "Days should be in chronological order.");
+		assertEquals(Money.of(950, "EUR"), report.getDailyFinancialReports().getFirst().getBalance());
+		assertEquals(Money.of(1000, "EUR"), report.getDailyFinancialReports().getLast().getBalance());
+		assertEquals(Money.of(350, "EUR"), report.getIncome());
+		assertEquals(Money.of(-100, "EUR"), report.getExpenditure());
+	}
+
+	@Test
+	void constructor_ShouldMatchWalkingTheDaysBackwards() {
+		List<Interval> days = LedgerBuckets.split(monthInterval, Duration.ofDays(1));
+		List<List<AccountancyEntry>> entries = new ArrayList<>();
+		MonetaryAmount[] revenue = new MonetaryAmount[days.size()];
+		MonetaryAmount[] expenses = new MonetaryAmount[days.size()];
+		Random random = new Random(11);
+		for (int i = 0; i < days.size(); i++) {
+			entries.add(List.of());
+			revenue[i] = Money.ofMinor(Monetary.getCurrency("EUR"), random.nextInt(100_000));
+			expenses[i] = Money.ofMinor(Monetary.getCurrency("EUR"), -random.nextInt(100_000));
+		}
+		when(cashRegisterService.aggregate(monthInterval, Duration.ofDays(1)))
+			.thenReturn(new LedgerBuckets(days, entries, revenue, expenses));
+		LocalDate secondDay = days.get(1).getStart().toLocalDate();
+		when(cashRegisterService.getAllDeletedProducts(any(), any())).thenReturn(List.of(
+			new DeletedProduct("Rose", Money.of(2, "EUR"), 1, Money.of(2, "EUR"), secondDay),
+			new DeletedProduct("Rose", Money.of(2, "EUR"), 2, Money.of(4, "EUR"), secondDay)));
+
+		MonthlyFinancialReport report = new MonthlyFinancialReport(monthInterval, balanceEndOfMonth, cashRegisterService, firstTransaction, clockService);
+
+		List<DailyFinancialReport> reports = report.getDailyFinancialReports();
+		assertEquals(days.size(), reports.size());
+		MonetaryAmount balance = balanceEndOfMonth;
+		for (int i = days.size() - 1; i >= 0; i--) {
+			assertEquals(days.get(i), reports.get(i).interval);
+			assertEquals(balance, reports.get(i).getBalance(), "Balance of " + days.get(i));
+			balance = balance.subtract(revenue[i].add(expenses[i]));
+		}
+		assertEquals(3, reports.get(1).deletedProducts.getFirst().getQuantityDeleted());
+		assertTrue(reports.getFirst().deletedProducts.isEmpty());
+	}
+
+	@Test
+	void writePDF_ShouldStreamTheDocument() throws Exception {
+		when(clockService.now()).thenReturn(LocalDateTime.of(2024, 7, 1, 9, 0));
+		MonthlyFinancialReport report = new MonthlyFinancialReport(monthInterval, balanceEndOfMonth, cashRegisterService, firstTransaction, clockService);
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		report.writePDF(outputStream);
+
+		String start = new String(outputStream.toByteArray(), 0, 5, StandardCharsets.US_ASCII);
+		assertEquals("%PDF-", start, "The stream should contain a PDF document.");
+		assertTrue(report.generatePDF().length > 0, "generatePDF() should still return the whole document.");
+	}
+
 	@Test
 	void isBeforeBeginning_ShouldReturnCorrectValue() {
 		// Mock daily reports
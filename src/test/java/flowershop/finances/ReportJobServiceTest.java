@@ -0,0 +1,147 @@
+package flowershop.finances;
+
+import flowershop.clock.ClockService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ReportJobServiceTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2025, 1, 15);
+
+	private CashRegisterService cashRegisterService;
+	private ReportJobService reportJobService;
+
+	@BeforeEach
+	void setUp() {
+		cashRegisterService = mock(CashRegisterService.class);
+		ClockService clockService = mock(ClockService.class);
+		when(clockService.getCurrentDate()).thenReturn(TODAY);
+		reportJobService = new ReportJobService(cashRegisterService, clockService, mock(PlatformTransactionManager.class));
+	}
+
+	@AfterEach
+	void tearDown() {
+		reportJobService.shutdown();
+	}
+
+	/**
+	 * @param report mocked report, that writes the given bytes as its document
+	 */
+	private static void renders(FinancialReport report, byte... pdf) throws IOException {
+		doAnswer(invocation -> {
+			invocation.<OutputStream>getArgument(0).write(pdf);
+			return null;
+		}).when(report).writePDF(any());
+	}
+
+	private byte[] readDocument(ReportJob job) throws IOException {
+		try (InputStream document = reportJobService.openDocument(job).orElseThrow()) {
+			return document.readAllBytes();
+		}
+	}
+
+	private static ReportJob awaitFinished(ReportJob job) throws InterruptedException {
+		for (int i = 0; i < 500 && (job.getStatus() == ReportJob.Status.QUEUED
+			|| job.getStatus() == ReportJob.Status.RUNNING); i++) {
+			Thread.sleep(10);
+		}
+		return job;
+	}
+
+	@Test
+	void testFuturePeriodIsRejected() {
+		assertThrows(IllegalArgumentException.class,
+			() -> reportJobService.submit(ReportJob.Type.DAY, TODAY.plusDays(1)));
+	}
+
+	@Test
+	void testClosedPeriodIsRenderedOnlyOnce() throws Exception {
+		DailyFinancialReport report = mock(DailyFinancialReport.class);
+		renders(report, (byte) 1, (byte) 2, (byte) 3);
+		when(cashRegisterService.createFinancialReportDay(any())).thenReturn(report);
+		LocalDate yesterday = TODAY.minusDays(1);
+
+		ReportJob first = awaitFinished(reportJobService.submit(ReportJob.Type.DAY, yesterday));
+		ReportJob second = reportJobService.submit(ReportJob.Type.DAY, yesterday);
+
+		assertEquals(ReportJob.Status.DONE, first.getStatus());
+		assertEquals(ReportJob.Status.DONE, second.getStatus(), "The cached document should be used right away");
+		assertArrayEquals(new byte[]{1, 2, 3}, readDocument(second));
+		verify(report, times(1)).writePDF(any());
+		assertTrue(reportJobService.getJob(second.getId()).isPresent());
+	}
+
+	@Test
+	void testChangedLedgerRendersAgain() throws Exception {
+		DailyFinancialReport report = mock(DailyFinancialReport.class);
+		renders(report, (byte) 1);
+		when(cashRegisterService.createFinancialReportDay(any())).thenReturn(report);
+		when(cashRegisterService.getLedgerVersion(any())).thenReturn(1L, 2L);
+		LocalDate yesterday = TODAY.minusDays(1);
+
+		awaitFinished(reportJobService.submit(ReportJob.Type.DAY, yesterday));
+		awaitFinished(reportJobService.submit(ReportJob.Type.DAY, yesterday));
+
+		verify(report, times(2)).writePDF(any());
+	}
+
+	@Test
+	void testChangedBalanceRendersAgain() throws Exception {
+		DailyFinancialReport report = mock(DailyFinancialReport.class);
+		renders(report, (byte) 1);
+		when(cashRegisterService.createFinancialReportDay(any())).thenReturn(report);
+		// a purchase was paid before the end of the day, but its entry is only booked later
+		when(cashRegisterService.balanceCentsAt(any())).thenReturn(1000L, 1000L, 400L);
+		LocalDate yesterday = TODAY.minusDays(1);
+
+		awaitFinished(reportJobService.submit(ReportJob.Type.DAY, yesterday));
+		awaitFinished(reportJobService.submit(ReportJob.Type.DAY, yesterday));
+		awaitFinished(reportJobService.submit(ReportJob.Type.DAY, yesterday));
+
+		verify(report, times(2)).writePDF(any());
+	}
+
+	@Test
+	void testOpenPeriodIsNotCached() throws Exception {
+		MonthlyFinancialReport report = mock(MonthlyFinancialReport.class);
+		renders(report, (byte) 1);
+		when(cashRegisterService.createFinancialReportMonth(any())).thenReturn(report);
+
+		ReportJob job = awaitFinished(reportJobService.submit(ReportJob.Type.MONTH, TODAY));
+
+		assertArrayEquals(new byte[]{1}, readDocument(job));
+		assertTrue(reportJobService.openCached(ReportJob.Type.MONTH, TODAY).isEmpty());
+		verify(cashRegisterService, never()).getLedgerVersion(any());
+	}
+
+	@Test
+	void testFailedRenderingLeavesNoDocument() throws Exception {
+		DailyFinancialReport report = mock(DailyFinancialReport.class);
+		doThrow(new IOException("disk full")).when(report).writePDF(any());
+		when(cashRegisterService.createFinancialReportDay(any())).thenReturn(report);
+
+		ReportJob job = awaitFinished(reportJobService.submit(ReportJob.Type.DAY, TODAY.minusDays(1)));
+
+		assertEquals(ReportJob.Status.FAILED, job.getStatus());
+		assertTrue(reportJobService.openCached(ReportJob.Type.DAY, TODAY.minusDays(1)).isEmpty());
+	}
+
+	@Test
+	void testMissingDataFailsTheJob() throws InterruptedException {
+		ReportJob job = awaitFinished(reportJobService.submit(ReportJob.Type.DAY, TODAY.minusDays(3)));
+
+		assertEquals(ReportJob.Status.FAILED, job.getStatus());
+		assertEquals("No Transactions saved in the system.", job.getMessage());
+	}
+}
@@ -0,0 +1,23 @@
+package flowershop.finances;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.*;
+
+public class ReportPrewarmStageTest {
+
+	@Test
+	void run_WithAFullQueue_ShouldStillComplete() {
+		ReportJobService reportJobService = mock(ReportJobService.class);
+		when(reportJobService.submit(any(), any())).thenThrow(new IllegalStateException("queue full"));
+		ReportPrewarmStage stage = new ReportPrewarmStage(reportJobService);
+
+		assertDoesNotThrow(() -> stage.run(LocalDate.of(2024, 11, 29), LocalDate.of(2024, 12, 2)));
+
+		verify(reportJobService).submit(ReportJob.Type.DAY, LocalDate.of(2024, 11, 29));
+		verify(reportJobService).submit(ReportJob.Type.MONTH, LocalDate.of(2024, 11, 29));
+	}
+}
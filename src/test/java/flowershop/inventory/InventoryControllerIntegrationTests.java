@@ -101,7 +101,7 @@ public class InventoryControllerIntegrationTests extends AbstractIntegrationTest
   public void testShowDeletedProducts() {
     Model model = new ExtendedModelMap();
 
-    String viewName = inventoryController.showDeletedProducts(model);
+    String viewName = inventoryController.showDeletedProducts(0, model);
 
     assertThat(viewName).isEqualTo("inventory");
   }
@@ -173,7 +173,7 @@ public class InventoryControllerIntegrationTests extends AbstractIntegrationTest
   public void testShowDeletedProductsWithNoDeletedItems() {
     Model model = new ExtendedModelMap();
 
-    String viewName = inventoryController.showDeletedProducts(model);
+    String viewName = inventoryController.showDeletedProducts(0, model);
 
     assertThat(viewName).isEqualTo("inventory");
     assertThat(model.asMap().get("deletedProducts")).isNotNull();
@@ -216,4 +216,14 @@ public class InventoryControllerIntegrationTests extends AbstractIntegrationTest
     assertThat(viewName).isEqualTo("redirect:/inventory");
   }
 
+  @Test
+  public void testAutocomplete() {
+    Pricing pricing = new Pricing(Money.of(1.5, "EUR"), Money.of(2, "EUR"));
+    productService.addFlower(new Flower("Wild Rose", pricing, "Pink", 5));
+
+    assertThat(inventoryController.autocomplete("ro", 10)).contains("Rose", "Wild Rose");
+    assertThat(inventoryController.autocomplete("wild", 10)).containsExactly("Wild Rose");
+    assertThat(inventoryController.autocomplete("ro", 1)).hasSize(1);
+  }
+
 }
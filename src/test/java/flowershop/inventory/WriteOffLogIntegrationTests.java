@@ -0,0 +1,75 @@
+package flowershop.inventory;
+
+import flowershop.AbstractIntegrationTests;
+import flowershop.product.ProductService;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the write-offs stored by {@link ProductService}.
+ */
+public class WriteOffLogIntegrationTests extends AbstractIntegrationTests {
+
+	private static final LocalDate DAY = LocalDate.of(2001, 3, 14);
+
+	@Autowired
+	private ProductService productService;
+
+	private void writeOff(String name, int quantity, LocalDate date) {
+		productService.addDeletedProduct(new DeletedProduct(name, Money.of(2, "EUR"), quantity,
+			Money.of(2L * quantity, "EUR"), date));
+	}
+
+	@Test
+	public void writeOffsOfTheSameDay_AreAddedUpPerProduct() {
+		writeOff("Rose", 2, DAY);
+		writeOff("Rose", 3, DAY);
+		writeOff("Tulip", 1, DAY);
+		writeOff("Rose", 4, DAY.plusDays(1));
+
+		List<DeletedProduct> day = productService.getDailyWriteOffs(DAY, DAY);
+
+		assertThat(day).hasSize(2);
+		DeletedProduct roses = day.getFirst();
+		assertThat(roses.getName()).isEqualTo("Rose");
+		assertThat(roses.getQuantityDeleted()).isEqualTo(5);
+		assertThat(roses.getTotalLoss()).isEqualTo(Money.of(10, "EUR"));
+		assertThat(productService.getDailyWriteOffs(DAY, DAY.plusDays(1))).hasSize(3);
+		assertThat(productService.countDeletedProducts(DAY, DAY.plusDays(1))).isEqualTo(4);
+	}
+
+	@Test
+	public void firstWriteOffDate_IsTheOldestStoredDay() {
+		writeOff("Rose", 1, DAY.plusDays(3));
+		writeOff("Rose", 1, DAY);
+
+		assertThat(productService.getFirstWriteOffDate()).contains(DAY);
+	}
+
+	@Test
+	public void deletedProducts_ArePagedNewestFirst() {
+		writeOff("Rose", 1, DAY);
+		writeOff("Tulip", 1, DAY.plusDays(3));
+
+		Slice<DeletedProduct> first = productService.getDeletedProducts(0, 1);
+
+		assertThat(first.getContent()).extracting(DeletedProduct::getDateWhenDeleted).containsExactly(DAY.plusDays(3));
+		assertThat(first.hasNext()).isTrue();
+	}
+
+	@Test
+	public void totalLoss_IsAddedUpFromTheDailyTotals() {
+		long before = productService.getTotalWriteOffLossCents();
+		writeOff("Rose", 2, DAY);
+		writeOff("Rose", 3, DAY);
+
+		assertThat(productService.getTotalWriteOffLossCents() - before).isEqualTo(1_000);
+	}
+}
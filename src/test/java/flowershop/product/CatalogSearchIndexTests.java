@@ -0,0 +1,94 @@
+package flowershop.product;
+
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.salespointframework.catalog.Product;
+import org.springframework.data.util.Streamable;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CatalogSearchIndexTests {
+
+	private CatalogSearchIndex searchIndex;
+	private Flower rose;
+	private Flower redRose;
+	private Flower tulip;
+	private Bouquet roseBouquet;
+
+	private static Flower flower(String name) {
+		return new Flower(name, new Pricing(Money.of(1, "EUR"), Money.of(2, "EUR")), "Red", 10);
+	}
+
+	@BeforeEach
+	void setUp() {
+		rose = flower("Rose");
+		redRose = flower("Red Rose");
+		tulip = flower("Tulip");
+		roseBouquet = new Bouquet("Rose Dream", Map.of(rose, 3), Money.of(5, "EUR"), 2);
+
+		ProductCatalog productCatalog = mock(ProductCatalog.class);
+		when(productCatalog.findAll()).thenReturn(Streamable.<Product>of(rose, redRose, tulip, roseBouquet));
+		searchIndex = new CatalogSearchIndex(productCatalog);
+	}
+
+	@Test
+	void search_FindsPartsOfNamesOrderedByName() {
+		assertThat(searchIndex.search("ROSE", Product.class))
+			.containsExactly(redRose.getId(), rose.getId(), roseBouquet.getId());
+		assertThat(searchIndex.search("ed ro", Product.class)).containsExactly(redRose.getId());
+		assertThat(searchIndex.search("orchid", Product.class)).isEmpty();
+	}
+
+	@Test
+	void search_OnlyFindsTheGivenType() {
+		assertThat(searchIndex.search("rose", Flower.class)).containsExactly(redRose.getId(), rose.getId());
+		assertThat(searchIndex.search("rose", Bouquet.class)).containsExactly(roseBouquet.getId());
+	}
+
+	@Test
+	void search_ShortQueriesScanAllNames() {
+		assertThat(searchIndex.search("", Flower.class))
+			.containsExactly(redRose.getId(), rose.getId(), tulip.getId());
+		assertThat(searchIndex.search("ul", Product.class)).containsExactly(tulip.getId());
+	}
+
+	@Test
+	void autocomplete_CompletesAnyWordOfTheName() {
+		assertThat(searchIndex.autocomplete("ro", 10)).containsExactly("Red Rose", "Rose", "Rose Dream");
+		assertThat(searchIndex.autocomplete("Dr", 10)).containsExactly("Rose Dream");
+		assertThat(searchIndex.autocomplete("x", 10)).isEmpty();
+		assertThat(searchIndex.autocomplete(" ", 10)).isEmpty();
+	}
+
+	@Test
+	void autocomplete_StopsAtTheLimit() {
+		assertThat(searchIndex.autocomplete("r", 2)).hasSize(2);
+		assertThat(searchIndex.autocomplete("r", 0)).isEmpty();
+	}
+
+	@Test
+	void put_UpdatesRenamedProducts() {
+		searchIndex.search("", Product.class);
+		tulip.setName("Orchid");
+		searchIndex.put(tulip);
+
+		assertThat(searchIndex.search("tulip", Product.class)).isEmpty();
+		assertThat(searchIndex.search("orch", Product.class)).containsExactly(tulip.getId());
+		assertThat(searchIndex.autocomplete("tu", 10)).isEmpty();
+		assertThat(searchIndex.autocomplete("or", 10)).containsExactly("Orchid");
+	}
+
+	@Test
+	void remove_DropsTheProduct() {
+		searchIndex.search("", Product.class);
+		searchIndex.remove(rose.getId());
+
+		assertThat(searchIndex.search("rose", Flower.class)).containsExactly(redRose.getId());
+		assertThat(searchIndex.autocomplete("ro", 10)).containsExactly("Red Rose", "Rose Dream");
+	}
+}
@@ -0,0 +1,90 @@
+package flowershop.product;
+
+import jakarta.persistence.EntityManager;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.salespointframework.catalog.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the {@link CatalogSearchIndex} only follows committed changes of the catalog.
+ * Not transactional, so the changes are really committed or rolled back.
+ */
+@SpringBootTest
+public class CatalogSearchIntegrationTests {
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private ProductCatalog productCatalog;
+
+	@Autowired
+	private CatalogSearchIndex searchIndex;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate transactionTemplate;
+	private Flower flower;
+
+	@BeforeEach
+	void setUp() {
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		flower = productService.addFlower(new Flower("Quillwort", new Pricing(Money.of(1, "EUR"),
+			Money.of(2, "EUR")), "Pink", 5));
+	}
+
+	@AfterEach
+	void tearDown() {
+		productCatalog.findById(flower.getId()).ifPresent(productCatalog::delete);
+	}
+
+	private void rename(String name, boolean rollback) {
+		transactionTemplate.executeWithoutResult(status -> {
+			Product product = productCatalog.findById(flower.getId()).orElseThrow();
+			product.setName(name);
+			entityManager.flush();
+			if (rollback) {
+				status.setRollbackOnly();
+			}
+		});
+	}
+
+	@Test
+	void rolledBackRename_KeepsTheOldName() {
+		rename("Xeranthemum", true);
+
+		assertThat(searchIndex.search("quillwort", Flower.class)).containsExactly(flower.getId());
+		assertThat(searchIndex.search("xeranthemum", Flower.class)).isEmpty();
+	}
+
+	@Test
+	void committedRename_IsIndexed() {
+		rename("Xeranthemum", false);
+
+		assertThat(searchIndex.search("xeranthemum", Flower.class)).containsExactly(flower.getId());
+		assertThat(searchIndex.search("quillwort", Flower.class)).isEmpty();
+	}
+
+	@Test
+	void rolledBackDelete_KeepsTheProduct() {
+		transactionTemplate.executeWithoutResult(status -> {
+			productCatalog.delete(productCatalog.findById(flower.getId()).orElseThrow());
+			entityManager.flush();
+			status.setRollbackOnly();
+		});
+
+		assertThat(searchIndex.search("quillwort", Flower.class)).containsExactly(flower.getId());
+	}
+}
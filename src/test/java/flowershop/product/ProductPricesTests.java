@@ -0,0 +1,49 @@
+package flowershop.product;
+
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.salespointframework.catalog.Product;
+import org.springframework.data.util.Streamable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductPricesTests {
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void invalidate_InATransaction_ShouldKeepThePricesUntilTheCommit() {
+		Flower rose = new Flower("Rose", new Pricing(Money.of(10, "EUR"), Money.of(20, "EUR")), "Red", 10);
+		ProductCatalog productCatalog = mock(ProductCatalog.class);
+		when(productCatalog.findAll()).thenReturn(Streamable.<Product>of(rose));
+		ProductPrices productPrices = new ProductPrices(productCatalog);
+		ProductPrices.Snapshot before = productPrices.snapshot();
+
+		TransactionSynchronizationManager.initSynchronization();
+		rose.getPricing().setSellPrice(Money.of(25, "EUR"));
+		productPrices.invalidate();
+
+		// read by someone else before the commit, the old version is still the current one
+		assertSame(before, productPrices.snapshot());
+
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCommit();
+		}
+		TransactionSynchronizationManager.clearSynchronization();
+
+		ProductPrices.Snapshot after = productPrices.snapshot();
+		assertNotEquals(before.version(), after.version());
+		assertEquals(0, new BigDecimal(25).compareTo(after.priceOf(rose, true)));
+	}
+}
@@ -0,0 +1,141 @@
+package flowershop.product;
+
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.salespointframework.catalog.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stress tests for the stock changes of {@link ProductService}, run by several threads against the database.
+ * They are not transactional, every change is committed on its own like a till would do it.
+ */
+@SpringBootTest
+public class StockConcurrencyIntegrationTests {
+
+	private static final int THREADS = 8;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private ProductCatalog productCatalog;
+
+	private final List<Product> created = new ArrayList<>();
+
+	private Flower flower(String name, int quantity) {
+		Flower flower = productService.addFlower(new Flower(name, new Pricing(Money.of(1, "EUR"), Money.of(2, "EUR")),
+			"Red", quantity));
+		created.add(flower);
+		return flower;
+	}
+
+	private int stockOf(Flower flower) {
+		return productService.getProductById(flower.getId())
+			.map(product -> ((Flower) product).getQuantity())
+			.orElseThrow();
+	}
+
+	/**
+	 * Runs the change the given number of times on all threads at once.
+	 *
+	 * @return how often the change succeeded, a sold out product or a rolled back collision don't count
+	 */
+	private int race(int times, Runnable change) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger succeeded = new AtomicInteger();
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < times; i++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				try {
+					change.run();
+					succeeded.incrementAndGet();
+				} catch (IllegalStateException | ConcurrencyFailureException e) {
+					// sold out or rolled back, the stock must be unchanged
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		executor.shutdown();
+		assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		return succeeded.get();
+	}
+
+	@AfterEach
+	void deleteFlowers() {
+		productCatalog.deleteAll(created);
+		created.clear();
+	}
+
+	@Test
+	public void lastFlowers_AreSoldOnlyOnce() throws Exception {
+		Flower rose = flower("Stress Rose", 50);
+
+		int sold = race(200, () -> productService.removeFlowers(rose, 1));
+
+		assertThat(sold).isEqualTo(50);
+		assertThat(stockOf(rose)).isZero();
+	}
+
+	@Test
+	public void concurrentCarts_LoseNoDecrement() throws Exception {
+		Flower rose = flower("Stress Rose", 1000);
+		Flower tulip = flower("Stress Tulip", 1000);
+
+		int sold = race(300, () -> productService.removeProducts(Map.of(rose.getId(), 2, tulip.getId(), 1)));
+
+		assertThat(sold).isPositive();
+		assertThat(stockOf(rose)).isEqualTo(1000 - 2 * sold);
+		assertThat(stockOf(tulip)).isEqualTo(1000 - sold);
+	}
+
+	@Test
+	public void overbookedCarts_NeverTakeMoreThanThereIs() throws Exception {
+		Flower rose = flower("Stress Rose", 30);
+		Flower tulip = flower("Stress Tulip", 100);
+
+		int sold = race(100, () -> productService.removeProducts(Map.of(rose.getId(), 2, tulip.getId(), 1)));
+
+		assertThat(sold).isLessThanOrEqualTo(15);
+		assertThat(stockOf(rose)).isEqualTo(30 - 2 * sold).isNotNegative();
+		// a cart that failed on the roses must not have kept its tulips
+		assertThat(stockOf(tulip)).isEqualTo(100 - sold);
+	}
+
+	@Test
+	public void deliveriesDuringSales_AreNotOverwritten() throws Exception {
+		Flower rose = flower("Stress Rose", 200);
+		AtomicInteger turn = new AtomicInteger();
+
+		int changed = race(400, () -> {
+			if (turn.getAndIncrement() % 2 == 0) {
+				productService.addFlowers(rose, 3);
+			} else {
+				productService.removeFlowers(rose, 1);
+			}
+		});
+
+		assertThat(changed).isEqualTo(400);
+		assertThat(stockOf(rose)).isEqualTo(200 + 200 * 3 - 200);
+	}
+}
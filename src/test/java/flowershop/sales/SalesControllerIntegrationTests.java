@@ -165,7 +165,7 @@ public class SalesControllerIntegrationTests extends AbstractIntegrationTests {
 		Product product = productService.findAllFlowers().iterator().next();
 		buyCart.addOrUpdateItem(product, 3);
 
-		String buyView = controller.decreaseFromBuyCart(model, UUID.fromString(product.getId().toString()), buyCart, 1);
+		String buyView = controller.decreaseFromBuyCart(model, UUID.fromString(product.getId().toString()), buyCart, controller.initializeBuyCartTotal(), 1);
 		assertThat(buyView).isEqualTo("redirect:/buy");
 
 		assertThat(buyCart.getQuantity(product).getAmount().intValue()).isEqualTo(2);
@@ -183,7 +183,7 @@ public class SalesControllerIntegrationTests extends AbstractIntegrationTests {
 		Product product = productService.findAllFlowers().iterator().next();
 		sellCart.addOrUpdateItem(product, 3);
 
-		String sellView = controller.decreaseFromSellCart(model, UUID.fromString(product.getId().toString()), sellCart, 1);
+		String sellView = controller.decreaseFromSellCart(model, UUID.fromString(product.getId().toString()), sellCart, controller.initializeSellCartTotal(), 1);
 		assertThat(sellView).isEqualTo("redirect:/sell");
 
 		assertThat(sellCart.getQuantity(product).getAmount().intValue()).isEqualTo(2);
@@ -203,7 +203,7 @@ public class SalesControllerIntegrationTests extends AbstractIntegrationTests {
 
 		assertThat(buyCart.getQuantity(product).getAmount().intValue()).isEqualTo(3);
 
-		String buyView = controller.removeFromBuyCart(model, UUID.fromString(product.getId().toString()), buyCart);
+		String buyView = controller.removeFromBuyCart(model, UUID.fromString(product.getId().toString()), buyCart, controller.initializeBuyCartTotal());
 		assertThat(buyView).isEqualTo("redirect:/buy");
 
 		assertThat(buyCart.getQuantity(product).getAmount().intValue()).isEqualTo(0);
@@ -223,7 +223,7 @@ public class SalesControllerIntegrationTests extends AbstractIntegrationTests {
 
 		assertThat(sellCart.getQuantity(product).getAmount().intValue()).isEqualTo(2);
 
-		String sellView = controller.removeFromSellCart(model, UUID.fromString(product.getId().toString()), sellCart);
+		String sellView = controller.removeFromSellCart(model, UUID.fromString(product.getId().toString()), sellCart, controller.initializeSellCartTotal());
 		assertThat(sellView).isEqualTo("redirect:/sell");
 
 		assertThat(sellCart.getQuantity(product).getAmount().intValue()).isEqualTo(0);
@@ -239,7 +239,7 @@ public class SalesControllerIntegrationTests extends AbstractIntegrationTests {
 		Cart sellCart = controller.initializeSellCart();
 
 		Product product = productService.findAllFlowers().iterator().next();
-		String sellView = controller.addToSellCart(model, UUID.fromString(product.getId().toString()), sellCart, null);
+		String sellView = controller.addToSellCart(model, UUID.fromString(product.getId().toString()), sellCart, controller.initializeSellCartTotal(), null);
 		assertThat(sellView).isEqualTo("redirect:/sell");
 
 		assertThat(sellCart.getQuantity(product).getAmount().intValue()).isEqualTo(1);
@@ -256,7 +256,7 @@ public class SalesControllerIntegrationTests extends AbstractIntegrationTests {
 
 		Product product = productService.findAllFlowers().iterator().next();
 
-		String buyView = controller.addToBuyCart(model, UUID.fromString(product.getId().toString()), buyCart, null);
+		String buyView = controller.addToBuyCart(model, UUID.fromString(product.getId().toString()), buyCart, controller.initializeBuyCartTotal(), null);
 		assertThat(buyView).isEqualTo("redirect:/buy");
 
 		assertThat(buyCart.getQuantity(product).getAmount().intValue()).isEqualTo(1);
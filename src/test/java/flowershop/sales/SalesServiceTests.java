@@ -6,15 +6,24 @@ import flowershop.services.OrderFactory;
 import org.javamoney.moneta.Money;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.salespointframework.catalog.Product;
 import org.salespointframework.order.Cart;
 import org.salespointframework.order.CartItem;
 import org.salespointframework.order.OrderEvents;
 import org.salespointframework.quantity.Quantity;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.data.util.Streamable;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,6 +38,9 @@ class SalesServiceTests {
 	private SalesService salesService;
 	private GiftCardService giftCardService;
 	private BalanceService balanceService;
+	private ProductCatalog productCatalog;
+	private ProductPrices productPrices;
+	private PlatformTransactionManager transactionManager;
 	
 	@BeforeEach
 	void setUp() {
@@ -39,7 +51,11 @@ class SalesServiceTests {
 		eventPublisher = mock(ApplicationEventPublisher.class);
 		giftCardService = mock(GiftCardService.class);
 		balanceService = mock(BalanceService.class);
-		salesService = new SalesService(productService, simpleOrderService, orderFactory, wholesalerOrderService, eventPublisher, giftCardService, balanceService);
+		productCatalog = mock(ProductCatalog.class);
+		when(productCatalog.findAll()).thenReturn(Streamable.empty());
+		productPrices = new ProductPrices(productCatalog);
+		transactionManager = mock(PlatformTransactionManager.class);
+		salesService = new SalesService(productService, simpleOrderService, orderFactory, wholesalerOrderService, eventPublisher, giftCardService, balanceService, productPrices, transactionManager);
 	}
 
 	@Test
@@ -53,16 +69,67 @@ class SalesServiceTests {
 
 		SimpleOrder simpleOrder = mock(SimpleOrder.class);
 		when(orderFactory.createSimpleOrder()).thenReturn(simpleOrder);
+		when(productService.removeProducts(Map.of(flower.getId(), 5))).thenReturn(Map.of(flower.getId(), flower));
 
 		salesService.sellProductsFromBasket(cart, "Cash", null);
 
-		verify(productService, times(1)).removeFlowers(flower, 5);
+		verify(productService, times(1)).removeProducts(Map.of(flower.getId(), 5));
+		verify(productService, never()).getAllProducts();
 		verify(simpleOrder, times(1)).addOrderLine(flower, Quantity.of(5));
 		verify(simpleOrderService, times(1)).create(simpleOrder);
 		assertTrue(cart.isEmpty());
 		verify(eventPublisher, times(1)).publishEvent(any(OrderEvents.OrderPaid.class));
 	}
 
+	@Test
+	void sellProductsFromBasket_shouldNotCreateAnOrder_WhenAProductIsOutOfStock() {
+		Cart cart = new Cart();
+		Flower rose = new Flower("Rose", new Pricing(Money.of(20, "EUR"), Money.of(40, "EUR")), "Red", 10);
+		Flower lily = new Flower("Lily", new Pricing(Money.of(15, "EUR"), Money.of(30, "EUR")), "White", 1);
+		cart.addOrUpdateItem(rose, 5);
+		cart.addOrUpdateItem(lily, 2);
+		when(productService.removeProducts(anyMap())).thenThrow(new IllegalStateException("Insufficient stock"));
+
+		assertThrows(IllegalStateException.class, () -> salesService.sellProductsFromBasket(cart, "Cash", null));
+
+		verify(productService, times(1)).removeProducts(Map.of(rose.getId(), 5, lily.getId(), 2));
+		verifyNoInteractions(orderFactory, simpleOrderService, eventPublisher);
+		assertFalse(cart.isEmpty());
+	}
+
+	@Test
+	void sellProductsFromBasket_shouldTryAgain_WhenItCollidesWithAnotherSale() throws InsufficientFundsException {
+		Cart cart = new Cart();
+		Flower rose = new Flower("Rose", new Pricing(Money.of(20, "EUR"), Money.of(40, "EUR")), "Red", 10);
+		cart.addOrUpdateItem(rose, 2);
+		SimpleOrder simpleOrder = mock(SimpleOrder.class);
+		when(orderFactory.createSimpleOrder()).thenReturn(simpleOrder);
+		when(productService.removeProducts(anyMap()))
+			.thenThrow(new CannotAcquireLockException("Timeout trying to lock table"))
+			.thenReturn(Map.of(rose.getId(), rose));
+
+		salesService.sellProductsFromBasket(cart, "Cash", null);
+
+		verify(productService, times(2)).removeProducts(Map.of(rose.getId(), 2));
+		verify(simpleOrderService, times(1)).create(simpleOrder);
+		assertTrue(cart.isEmpty());
+	}
+
+	@Test
+	void sellProductsFromBasket_shouldGiveUp_AfterTheLastAttempt() {
+		Cart cart = new Cart();
+		Flower rose = new Flower("Rose", new Pricing(Money.of(20, "EUR"), Money.of(40, "EUR")), "Red", 10);
+		cart.addOrUpdateItem(rose, 2);
+		when(productService.removeProducts(anyMap()))
+			.thenThrow(new CannotAcquireLockException("Timeout trying to lock table"));
+
+		assertThrows(CannotAcquireLockException.class, () -> salesService.sellProductsFromBasket(cart, "Cash", null));
+
+		verify(productService, times(SalesService.MAX_ATTEMPTS)).removeProducts(anyMap());
+		verifyNoInteractions(simpleOrderService);
+		assertFalse(cart.isEmpty());
+	}
+
 	@Test
 	void sellProductsFromBasket_shouldThrowExceptionForEmptyBasket() {
 		Cart cart = new Cart();
@@ -91,6 +158,103 @@ class SalesServiceTests {
 		assertTrue(cart.isEmpty());
 	}
 
+	@Test
+	void buyProductsFromBasket_WithoutFunds_ShouldNotCreateTheOrder() throws InsufficientFundsException {
+		Cart cart = new Cart();
+		cart.addOrUpdateItem(new Flower("Lily", new Pricing(Money.of(20, "EUR"), Money.of(40, "EUR")), "White", 10), 5);
+
+		WholesalerOrder wholesalerOrder = mock(WholesalerOrder.class);
+		when(orderFactory.createWholesalerOrder()).thenReturn(wholesalerOrder);
+		doThrow(new InsufficientFundsException()).when(balanceService).reserve(wholesalerOrder);
+
+		assertThrows(InsufficientFundsException.class, () -> salesService.buyProductsFromBasket(cart, "Card"));
+
+		verify(wholesalerOrderService, never()).create(any());
+		verify(eventPublisher, never()).publishEvent(any(Object.class));
+		assertFalse(cart.isEmpty());
+	}
+
+	@Test
+	void buyProductsFromBasket_WhenBookingFails_ShouldRollBackTheDebit() throws InsufficientFundsException {
+		Cart cart = new Cart();
+		cart.addOrUpdateItem(new Flower("Lily", new Pricing(Money.of(20, "EUR"), Money.of(40, "EUR")), "White", 10), 5);
+
+		WholesalerOrder wholesalerOrder = mock(WholesalerOrder.class);
+		when(orderFactory.createWholesalerOrder()).thenReturn(wholesalerOrder);
+		doThrow(new IllegalStateException("booking failed")).when(eventPublisher).publishEvent(any(Object.class));
+
+		assertThrows(IllegalStateException.class, () -> salesService.buyProductsFromBasket(cart, "Card"));
+
+		// the debit and the order are stored in the transaction, that is rolled back
+		verify(balanceService).reserve(wholesalerOrder);
+		verify(wholesalerOrderService).create(wholesalerOrder);
+		verify(transactionManager).rollback(any());
+		verify(transactionManager, never()).commit(any());
+		assertFalse(cart.isEmpty());
+	}
+
+	@Test
+	void buyProductsFromBasket_WithDeliveryDate_ShouldReserveInTheTransaction() throws InsufficientFundsException {
+		Cart cart = new Cart();
+		cart.addOrUpdateItem(new Flower("Lily", new Pricing(Money.of(20, "EUR"), Money.of(40, "EUR")), "White", 10), 5);
+
+		WholesalerOrder wholesalerOrder = mock(WholesalerOrder.class);
+		when(orderFactory.createWholesalerOrder()).thenReturn(wholesalerOrder);
+
+		salesService.buyProductsFromBasket(cart, "Card", "2025-06-01");
+
+		var inOrder = inOrder(transactionManager, balanceService, wholesalerOrderService);
+		inOrder.verify(transactionManager).getTransaction(any());
+		inOrder.verify(balanceService).reserve(wholesalerOrder);
+		inOrder.verify(wholesalerOrderService).create(wholesalerOrder);
+		inOrder.verify(transactionManager).commit(any());
+		verify(wholesalerOrder).setNotes("2025-06-01");
+		assertTrue(cart.isEmpty());
+	}
+
+	@Test
+	void buyProductsFromBasket_WithDeliveryDate_ConcurrentPurchasesShouldNotOverdraw() throws Exception {
+		// the register can pay for five purchases
+		AtomicInteger affordable = new AtomicInteger(5);
+		doAnswer(invocation -> {
+			if (affordable.getAndUpdate(left -> left > 0 ? left - 1 : left) == 0) {
+				throw new InsufficientFundsException();
+			}
+			return null;
+		}).when(balanceService).reserve(any(WholesalerOrder.class));
+		when(orderFactory.createWholesalerOrder()).thenAnswer(invocation -> mock(WholesalerOrder.class));
+
+		int threads = 16;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger bought = new AtomicInteger();
+		AtomicInteger declined = new AtomicInteger();
+		for (int i = 0; i < threads; i++) {
+			Cart cart = new Cart();
+			cart.addOrUpdateItem(new Flower("Lily", new Pricing(Money.of(20, "EUR"), Money.of(40, "EUR")), "White", 10), 5);
+			executor.execute(() -> {
+				try {
+					start.await();
+					salesService.buyProductsFromBasket(cart, "Card", "2025-06-01");
+					bought.incrementAndGet();
+				} catch (InsufficientFundsException e) {
+					declined.incrementAndGet();
+				} catch (InterruptedException ignored) {
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+		assertEquals(5, bought.get());
+		assertEquals(threads - 5, declined.get());
+		verify(wholesalerOrderService, times(5)).create(any());
+		verify(eventPublisher, times(5)).publishEvent(any(Object.class));
+		// a declined purchase wrote nothing, so it mustn't roll back a transaction it takes part in
+		verify(transactionManager, never()).rollback(any());
+	}
+
 	@Test
 	void buyBouquetFromBasket_ShouldThrowException() {
 		// Arrange
@@ -219,5 +383,54 @@ class SalesServiceTests {
 		assertEquals(178, result);
 	}
 
+	@Test
+	void updateCartTotal_ShouldOnlyPriceTheChangedLine() {
+		Cart cart = new Cart();
+		CartTotal total = new CartTotal(true);
+		Flower rose = new Flower("Rose", new Pricing(Money.of(10, "EUR"), Money.of(20, "EUR")), "Red", 10);
+		Flower lily = new Flower("Lily", new Pricing(Money.of(15, "EUR"), Money.of(30, "EUR")), "White", 20);
+
+		cart.addOrUpdateItem(rose, Quantity.of(2));
+		assertEquals(40.0, salesService.updateCartTotal(total, cart, rose));
+		cart.addOrUpdateItem(lily, Quantity.of(1));
+		assertEquals(70.0, salesService.updateCartTotal(total, cart, lily));
+		cart.addOrUpdateItem(rose, Quantity.of(-1));
+		assertEquals(50.0, salesService.updateCartTotal(total, cart, rose));
+
+		verify(productCatalog, times(1)).findAll();
+		assertEquals(salesService.calculateFullCartPrice(null, cart, true), total.getTotal());
+	}
+
+	@Test
+	void updateCartTotal_ShouldUseTheNewPrice_AfterThePriceChanged() {
+		Cart cart = new Cart();
+		CartTotal total = new CartTotal(true);
+		Flower rose = new Flower("Rose", new Pricing(Money.of(10, "EUR"), Money.of(20, "EUR")), "Red", 10);
+		when(productCatalog.findAll()).thenReturn(Streamable.<Product>of(rose));
+
+		cart.addOrUpdateItem(rose, Quantity.of(2));
+		assertEquals(40.0, salesService.updateCartTotal(total, cart, rose));
 
+		rose.getPricing().setSellPrice(Money.of(25, "EUR"));
+		productPrices.invalidate();
+		Flower lily = new Flower("Lily", new Pricing(Money.of(15, "EUR"), Money.of(30, "EUR")), "White", 20);
+		cart.addOrUpdateItem(lily, Quantity.of(1));
+
+		assertEquals(80.0, salesService.updateCartTotal(total, cart, lily));
+	}
+
+	@Test
+	void updateCartTotal_ShouldSumUpAgain_AfterTheCartWasCleared() {
+		Cart cart = new Cart();
+		CartTotal total = new CartTotal(false);
+		Flower rose = new Flower("Rose", new Pricing(Money.of(10, "EUR"), Money.of(20, "EUR")), "Red", 10);
+		Flower lily = new Flower("Lily", new Pricing(Money.of(15, "EUR"), Money.of(30, "EUR")), "White", 20);
+
+		cart.addOrUpdateItem(rose, Quantity.of(2));
+		salesService.updateCartTotal(total, cart, rose);
+		cart.clear();
+		cart.addOrUpdateItem(lily, Quantity.of(1));
+
+		assertEquals(15.0, salesService.updateCartTotal(total, cart, lily));
+	}
 }
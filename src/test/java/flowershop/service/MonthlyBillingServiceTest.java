@@ -1,6 +1,7 @@
 package flowershop.service;
 
 import flowershop.calendar.CalendarService;
+import flowershop.finances.LedgerOutbox;
 import flowershop.services.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,6 +14,7 @@ import org.salespointframework.useraccount.UserAccountManagement;
 import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.mockito.Mockito.*;
@@ -63,4 +65,23 @@ class MonthlyBillingServiceTest {
 		monthlyBillingService.addMonthlyCharges();
 		verify(eventPublisher).publishEvent(any(Object.class));
 	}
-}
\ No newline at end of file
+
+	@Test
+	void testBillingStage_ChargesOnlyWhenTheMonthChanges() {
+		MonthlyBillingService billingService = mock(MonthlyBillingService.class);
+		LedgerOutbox ledgerOutbox = mock(LedgerOutbox.class);
+		doAnswer(invocation -> {
+			invocation.<Runnable>getArgument(1).run();
+			return null;
+		}).when(ledgerOutbox).payAt(any(), any());
+		MonthlyBillingStage stage = new MonthlyBillingStage(billingService, ledgerOutbox);
+
+		stage.run(LocalDate.of(2024, 12, 20), LocalDate.of(2024, 12, 23));
+		verify(billingService, never()).addMonthlyCharges();
+
+		stage.run(LocalDate.of(2024, 11, 29), LocalDate.of(2024, 12, 2));
+		verify(billingService).addMonthlyCharges();
+		// the charges belong to the ended month
+		verify(ledgerOutbox).payAt(eq(LocalDateTime.of(2024, 11, 29, 23, 59)), any());
+	}
+}
@@ -4,6 +4,7 @@ import flowershop.product.ProductCatalog;
 import flowershop.services.ReservationOrder;
 import flowershop.services.ReservationOrderRepository;
 import flowershop.services.ReservationOrderService;
+import flowershop.services.ReservedQuantityIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
@@ -31,7 +32,8 @@ class ReservationOrderServiceTests {
 		productCatalog = mock(ProductCatalog.class);
 		orderManagement = mock(OrderManagement.class);
 
-		reservationOrderService = new ReservationOrderService(reservationOrderRepository, productCatalog, orderManagement);
+		reservationOrderService = new ReservationOrderService(reservationOrderRepository, productCatalog, orderManagement,
+			mock(ReservedQuantityIndex.class));
 	}
 
 	@Test
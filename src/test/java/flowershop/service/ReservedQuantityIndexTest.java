@@ -0,0 +1,84 @@
+package flowershop.service;
+
+import flowershop.product.Flower;
+import flowershop.product.Pricing;
+import flowershop.services.Client;
+import flowershop.services.ReservationOrder;
+import flowershop.services.ReservationOrderRepository;
+import flowershop.services.ReservedQuantityIndex;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.salespointframework.order.OrderStatus;
+import org.salespointframework.quantity.Quantity;
+import org.salespointframework.useraccount.UserAccount;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class ReservedQuantityIndexTest {
+
+	private ReservationOrderRepository reservationOrderRepository;
+	private ReservedQuantityIndex index;
+	private UserAccount userAccount;
+	private Flower rose;
+	private Flower tulip;
+
+	@BeforeEach
+	void setUp() {
+		reservationOrderRepository = mock(ReservationOrderRepository.class);
+		index = new ReservedQuantityIndex(reservationOrderRepository);
+		userAccount = mock(UserAccount.class);
+		when(userAccount.getId()).thenReturn(UserAccount.UserAccountIdentifier.of("user-id"));
+		rose = new Flower("Rose", new Pricing(Money.of(1, "EUR"), Money.of(2, "EUR")), "Red", 20);
+		tulip = new Flower("Tulip", new Pricing(Money.of(1, "EUR"), Money.of(2, "EUR")), "Yellow", 20);
+	}
+
+	private ReservationOrder reservation(Flower flower, int quantity) {
+		ReservationOrder order = new ReservationOrder(userAccount, LocalDateTime.of(2024, 12, 23, 10, 0),
+			new Client(), "");
+		order.addOrderLine(flower, Quantity.of(quantity));
+		return order;
+	}
+
+	@Test
+	void storedReservations_AreLoadedOnce() {
+		when(reservationOrderRepository.findAll()).thenReturn(List.of(reservation(rose, 3), reservation(rose, 2)));
+
+		assertEquals(5, index.getReservedQuantity(rose.getId()));
+		assertEquals(0, index.getReservedQuantity(tulip.getId()));
+		verify(reservationOrderRepository, times(1)).findAll();
+	}
+
+	@Test
+	void update_ShouldReplaceWhatTheReservationHeldBack() {
+		when(reservationOrderRepository.findAll()).thenReturn(List.of());
+		ReservationOrder order = reservation(rose, 3);
+		index.update(order);
+
+		order.getOrderLines().toList().forEach(order::remove);
+		order.addOrderLine(tulip, Quantity.of(4));
+		index.update(order);
+
+		assertEquals(0, index.getReservedQuantity(rose.getId()));
+		assertEquals(4, index.getReservedQuantity(tulip.getId()));
+	}
+
+	@Test
+	void canceledOrDeletedReservations_ShouldReleaseTheirQuantities() {
+		ReservationOrder canceled = spy(reservation(rose, 3));
+		ReservationOrder deleted = reservation(tulip, 2);
+		when(reservationOrderRepository.findAll()).thenReturn(List.of(canceled, deleted));
+		assertEquals(3, index.getReservedQuantity(rose.getId()));
+
+		doReturn(OrderStatus.CANCELED).when(canceled).getOrderStatus();
+		index.update(canceled);
+		index.remove(deleted);
+
+		assertTrue(index.getReservedQuantities().isEmpty());
+	}
+}
@@ -0,0 +1,38 @@
+package flowershop.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LatenciesTest {
+
+	@Test
+	void percentiles_ShouldUseTheNearestRank() {
+		Latencies latencies = new Latencies(100);
+		for (int millis = 100; millis >= 1; millis--) {
+			latencies.record(millis * 1_000_000L);
+		}
+
+		assertEquals(100, latencies.count());
+		assertEquals(50.0, latencies.percentileMillis(50));
+		assertEquals(95.0, latencies.percentileMillis(95));
+		assertEquals(99.0, latencies.percentileMillis(99));
+		assertEquals(100.0, latencies.percentileMillis(100));
+	}
+
+	@Test
+	void percentiles_WithoutSamples_ShouldBeZero() {
+		assertEquals(0.0, new Latencies(10).percentileMillis(99));
+	}
+
+	@Test
+	void record_BeyondTheCapacity_ShouldBeIgnored() {
+		Latencies latencies = new Latencies(2);
+		latencies.record(1_000_000L);
+		latencies.record(2_000_000L);
+		latencies.record(3_000_000L);
+
+		assertEquals(2, latencies.count());
+		assertEquals(2.0, latencies.percentileMillis(100));
+	}
+}
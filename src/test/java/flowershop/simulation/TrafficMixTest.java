@@ -0,0 +1,41 @@
+package flowershop.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrafficMixTest {
+
+	@Test
+	void pick_ShouldFollowTheWeights() {
+		TrafficMix mix = new TrafficMix(70, 10, 10, 5, 5);
+		Random random = new Random(1);
+		Map<Operation, Integer> picked = new EnumMap<>(Operation.class);
+		for (int i = 0; i < 10_000; i++) {
+			picked.merge(mix.pick(random), 1, Integer::sum);
+		}
+
+		assertEquals(7000, picked.get(Operation.SALE), 300);
+		assertEquals(1000, picked.get(Operation.PURCHASE), 150);
+		assertEquals(500, picked.get(Operation.CONTRACT), 100);
+	}
+
+	@Test
+	void pick_ShouldSkipOperationsWithoutWeight() {
+		TrafficMix mix = new TrafficMix(0, 0, 0, 1, 0);
+		Random random = new Random(1);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(Operation.EVENT, mix.pick(random));
+		}
+	}
+
+	@Test
+	void mixWithoutWeights_ShouldBeRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new TrafficMix(0, 0, 0, 0, 0));
+		assertThrows(IllegalArgumentException.class, () -> new TrafficMix(-1, 1, 0, 0, 0));
+	}
+}